@@ -1,17 +1,24 @@
 package com.example.backend.Config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    
+
+    // Giới hạn số phần tử và thời gian sống theo spring.cache.caffeine.spec (bean tự khai báo nên Spring Boot không tự áp dụng)
+    @Value("${spring.cache.caffeine.spec:maximumSize=500,expireAfterWrite=10m}")
+    private String caffeineSpec;
+
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("verificationCodes", "verifiedEmails");
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager("verificationCodes", "verifiedEmails", "transcripts", "timetables", "calendarFeeds");
+        cacheManager.setCacheSpecification(caffeineSpec);
+        return cacheManager;
     }
-}
\ No newline at end of file
+}
@@ -21,7 +21,11 @@
                 .requestMatchers("/api/classes/**").permitAll()
                 .requestMatchers("/api/subjects/**").permitAll()
                 .requestMatchers("/api/schedules/**").permitAll()
+                .requestMatchers("/api/rooms/**").permitAll()
                 .requestMatchers("/api/notifications/**").permitAll()
+                .requestMatchers("/api/terms/**").permitAll()
+                .requestMatchers("/api/risk/**").permitAll()
+                .requestMatchers("/api/calendar/**").permitAll()
 
                 .anyRequest().authenticated()
             );
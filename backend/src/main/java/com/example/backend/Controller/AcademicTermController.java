@@ -0,0 +1,167 @@
+package com.example.backend.Controller;
+
+import com.example.backend.DTO.AcademicTermDTO;
+import com.example.backend.DTO.TermCalendarDTO;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.TermCalendarEntry;
+import com.example.backend.Service.AcademicTermService;
+import com.example.backend.Service.TermCalendarService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/terms")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class AcademicTermController {
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private TermCalendarService termCalendarService;
+
+    // Tạo học kỳ mới - chỉ giáo viên
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createTerm(@RequestBody AcademicTermDTO.CreateTermRequest request,
+                                                        @RequestHeader("User-ID") Long teacherId) {
+        try {
+            AcademicTerm term = academicTermService.createTerm(request, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Tạo học kỳ thành công");
+            response.put("status", "success");
+            response.put("data", AcademicTermDTO.TermResponse.fromEntity(term));
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Lấy danh sách học kỳ
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getTerms() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy danh sách học kỳ thành công");
+            response.put("status", "success");
+            response.put("data", academicTermService.getTermResponses());
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Đóng học kỳ (dữ liệu chỉ còn đọc)
+    @PostMapping("/{termId}/close")
+    public ResponseEntity<Map<String, Object>> closeTerm(@PathVariable Long termId,
+                                                       @RequestHeader("User-ID") Long teacherId) {
+        try {
+            AcademicTerm term = academicTermService.closeTerm(termId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Đóng học kỳ thành công");
+            response.put("status", "success");
+            response.put("data", AcademicTermDTO.TermResponse.fromEntity(term));
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Chuyển dữ liệu học kỳ đã đóng sang bảng lưu trữ
+    @PostMapping("/{termId}/archive")
+    public ResponseEntity<Map<String, Object>> archiveTerm(@PathVariable Long termId,
+                                                         @RequestHeader("User-ID") Long teacherId) {
+        try {
+            AcademicTermDTO.ArchiveResult result = academicTermService.archiveTerm(termId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lưu trữ học kỳ thành công");
+            response.put("status", "success");
+            response.put("data", result);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Ngày nghỉ, buổi hủy và buổi học bù của học kỳ
+    @GetMapping("/{termId}/calendar")
+    public ResponseEntity<Map<String, Object>> getCalendar(@PathVariable Long termId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy lịch học kỳ thành công");
+            response.put("status", "success");
+            response.put("data", termCalendarService.getEntries(termId));
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Thêm ngày nghỉ / hủy buổi / học bù - chỉ giáo viên
+    @PostMapping("/{termId}/calendar")
+    public ResponseEntity<Map<String, Object>> addCalendarEntry(@PathVariable Long termId,
+                                                              @RequestBody TermCalendarDTO.CreateEntryRequest request,
+                                                              @RequestHeader("User-ID") Long teacherId) {
+        try {
+            TermCalendarEntry entry = termCalendarService.addEntry(termId, request, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Cập nhật lịch học kỳ thành công");
+            response.put("status", "success");
+            response.put("data", TermCalendarDTO.EntryResponse.fromEntity(entry));
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Xóa ngày nghỉ / buổi hủy / buổi học bù
+    @DeleteMapping("/calendar/{entryId}")
+    public ResponseEntity<Map<String, Object>> deleteCalendarEntry(@PathVariable Long entryId,
+                                                                 @RequestHeader("User-ID") Long teacherId) {
+        try {
+            termCalendarService.deleteEntry(entryId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Xóa ngoại lệ lịch thành công");
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
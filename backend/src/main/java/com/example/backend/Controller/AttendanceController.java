@@ -3,6 +3,7 @@ package com.example.backend.Controller;
 import com.example.backend.DTO.AttendanceDTO;
 import com.example.backend.Model.Attendance;
 import com.example.backend.Service.AttendanceService;
+import com.example.backend.Service.CheckInService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +22,9 @@ public class AttendanceController {
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private CheckInService checkInService;
+
     // Điểm danh cho buổi học
     @PostMapping("/class/{classId}/schedule/{scheduleId}")
     public ResponseEntity<Map<String, Object>> takeAttendance(
@@ -29,17 +33,58 @@ public class AttendanceController {
             @RequestBody AttendanceDTO.TakeAttendanceRequest request,
             @RequestHeader("User-ID") Long teacherId) {
         try {
-            List<Attendance> attendances = attendanceService.takeAttendance(
+            AttendanceDTO.TakeAttendanceResult result = attendanceService.takeAttendance(
                     classId, scheduleId, request.getDate(), request.getAttendanceMap(), teacherId);
 
-            List<AttendanceDTO.AttendanceResponse> dtoList = attendances.stream()
-                    .map(AttendanceDTO.AttendanceResponse::fromEntity)
-                    .collect(Collectors.toList());
-
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Điểm danh thành công");
             response.put("status", "success");
-            response.put("data", dtoList);
+            response.put("data", result);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Lấy mã tự điểm danh hiện tại của buổi học (giáo viên trình chiếu)
+    @GetMapping("/schedule/{scheduleId}/checkin-code")
+    public ResponseEntity<Map<String, Object>> getCheckInCode(
+            @PathVariable Long scheduleId,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            AttendanceDTO.CheckInCodeResponse code = checkInService.generateCode(scheduleId, date, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy mã điểm danh thành công");
+            response.put("status", "success");
+            response.put("data", code);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Sinh viên tự điểm danh bằng mã
+    @PostMapping("/schedule/{scheduleId}/checkin")
+    public ResponseEntity<Map<String, Object>> checkIn(
+            @PathVariable Long scheduleId,
+            @RequestBody AttendanceDTO.CheckInRequest request,
+            @RequestHeader("User-ID") Long studentId) {
+        try {
+            checkInService.checkIn(scheduleId, request.getDate(), studentId, request.getCode());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Đã ghi nhận điểm danh");
+            response.put("status", "success");
             return ResponseEntity.ok(response);
 
         } catch (RuntimeException e) {
@@ -80,13 +125,19 @@ public class AttendanceController {
     @GetMapping("/student/{studentId}/class/{classId}")
     public ResponseEntity<Map<String, Object>> getStudentAttendanceHistory(
             @PathVariable Long studentId,
-            @PathVariable Long classId) {
+            @PathVariable Long classId,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         try {
             List<Attendance> attendances = attendanceService.getStudentAttendanceHistory(studentId, classId);
 
             List<AttendanceDTO.AttendanceResponse> dtoList = attendances.stream()
                     .map(AttendanceDTO.AttendanceResponse::fromEntity)
                     .collect(Collectors.toList());
+            if (includeArchived) {
+                attendanceService.getArchivedAttendanceHistory(studentId, classId).stream()
+                        .map(AttendanceDTO.AttendanceResponse::fromArchive)
+                        .forEach(dtoList::add);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Lấy lịch sử điểm danh thành công");
@@ -122,6 +173,90 @@ public class AttendanceController {
         }
     }
 
+    // Thống kê điểm danh của sinh viên trong lớp
+    @GetMapping("/student/{studentId}/class/{classId}/statistics")
+    public ResponseEntity<Map<String, Object>> getStudentAttendanceStatistics(
+            @PathVariable Long studentId,
+            @PathVariable Long classId) {
+        try {
+            AttendanceDTO.StudentAttendanceStatistics statistics =
+                    attendanceService.getStudentAttendanceStatistics(studentId, classId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy thống kê điểm danh sinh viên thành công");
+            response.put("status", "success");
+            response.put("data", statistics);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Tính lại thống kê điểm danh của lớp
+    @PostMapping("/class/{classId}/statistics/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAttendanceStatistics(
+            @PathVariable Long classId,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            attendanceService.rebuildAttendanceStatistics(classId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Tính lại thống kê điểm danh thành công");
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Lưới điểm danh cả kỳ của lớp (sinh viên × buổi học)
+    @GetMapping("/class/{classId}/grid")
+    public ResponseEntity<Map<String, Object>> getAttendanceGrid(@PathVariable Long classId) {
+        try {
+            AttendanceDTO.AttendanceGrid grid = attendanceService.getAttendanceGrid(classId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy lưới điểm danh thành công");
+            response.put("status", "success");
+            response.put("data", grid);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Heatmap vắng học theo thứ, tiết và tuần (toàn trường hoặc một lớp)
+    @GetMapping("/heatmap")
+    public ResponseEntity<Map<String, Object>> getAttendanceHeatmap(@RequestParam(required = false) Long classId) {
+        try {
+            AttendanceDTO.AttendanceHeatmap heatmap = attendanceService.getAttendanceHeatmap(classId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy heatmap điểm danh thành công");
+            response.put("status", "success");
+            response.put("data", heatmap);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     // Cập nhật điểm danh cá nhân
     @PutMapping("/{attendanceId}")
     public ResponseEntity<Map<String, Object>> updateAttendance(
@@ -147,4 +282,30 @@ public class AttendanceController {
             return ResponseEntity.badRequest().body(response);
         }
     }
+
+    // Sửa điểm danh hàng loạt cho lớp
+    @PatchMapping("/class/{classId}/bulk")
+    public ResponseEntity<Map<String, Object>> correctAttendances(
+            @PathVariable Long classId,
+            @RequestBody List<AttendanceDTO.AttendanceCorrection> corrections,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            AttendanceDTO.BulkCorrectionResult result =
+                    attendanceService.correctAttendances(classId, corrections, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", result.getErrors().isEmpty()
+                    ? "Cập nhật điểm danh hàng loạt thành công"
+                    : "Cập nhật điểm danh hàng loạt hoàn tất, có dòng bị lỗi");
+            response.put("status", "success");
+            response.put("data", result);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package com.example.backend.Controller;
+
+import com.example.backend.Service.CalendarFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/calendar")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class CalendarController {
+
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
+    @Autowired
+    private CalendarFeedService calendarFeedService;
+
+    // Đường dẫn đăng ký lịch ICS của người dùng (dán vào ứng dụng lịch trên điện thoại)
+    @GetMapping("/subscription")
+    public ResponseEntity<Map<String, Object>> getSubscription(@RequestHeader("User-ID") Long userId) {
+        String token = calendarFeedService.tokenFor(userId);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("token", token);
+        data.put("url", "/api/calendar/feed/" + userId + ".ics?token=" + token);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Lấy đường dẫn lịch thành công");
+        response.put("status", "success");
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+
+    // Lịch ICS (ứng dụng lịch gọi định kỳ; trả 304 nếu ETag không đổi)
+    @GetMapping("/feed/{userId}.ics")
+    public ResponseEntity<String> getFeed(@PathVariable Long userId,
+            @RequestParam String token,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (!calendarFeedService.isValidToken(userId, token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Token không hợp lệ");
+        }
+        try {
+            CalendarFeedService.Feed feed = calendarFeedService.getFeed(userId);
+            if (ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+                    .map(String::trim)
+                    .anyMatch(tag -> weakMatches(tag, feed.etag()) || tag.equals("*"))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(feed.etag()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(feed.etag())
+                    .contentType(TEXT_CALENDAR)
+                    .body(feed.body());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // If-None-Match so sánh yếu: bỏ tiền tố W/ ở cả hai phía
+    private static boolean weakMatches(String tag, String etag) {
+        return stripWeak(tag).equals(stripWeak(etag));
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
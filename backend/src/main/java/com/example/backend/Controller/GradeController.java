@@ -1,11 +1,14 @@
 package com.example.backend.Controller;
 
 import com.example.backend.DTO.GradeDTO;
+import com.example.backend.DTO.TranscriptDTO;
 import com.example.backend.Model.Grade;
+import com.example.backend.Service.GradeImportService;
 import com.example.backend.Service.GradeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.HashMap;
 import java.util.List;
@@ -20,6 +23,9 @@ public class GradeController {
     @Autowired
     private GradeService gradeService;
 
+    @Autowired
+    private GradeImportService gradeImportService;
+
     // Thêm/cập nhật điểm
     @PostMapping("/class/{classId}/student/{studentId}/subject/{subjectId}")
     public ResponseEntity<Map<String, Object>> addOrUpdateGrade(
@@ -32,7 +38,7 @@ public class GradeController {
             Grade grade = gradeService.addOrUpdateGrade(
                     classId, studentId, subjectId,
                     request.getProcessScore(), request.getMidtermScore(),
-                    request.getComments(), teacherId);
+                    request.getFinalExamScore(), request.getComments(), teacherId);
 
             GradeDTO.GradeResponse dto = GradeDTO.GradeResponse.fromEntity(grade);
 
@@ -50,6 +56,30 @@ public class GradeController {
         }
     }
 
+    // Nhập điểm từ file CSV/XLSX (nhiều lớp, nhiều môn trong một file)
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importGrades(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) Long classId,
+            @RequestParam(required = false) Long subjectId,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            GradeDTO.ImportResult result = gradeImportService.importGrades(file, classId, subjectId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Nhập điểm từ file thành công");
+            response.put("status", "success");
+            response.put("data", result);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     // Lấy điểm theo lớp
     @GetMapping("/class/{classId}")
     public ResponseEntity<Map<String, Object>> getGradesByClass(@PathVariable Long classId) {
@@ -76,13 +106,16 @@ public class GradeController {
 
     // Lấy điểm của sinh viên
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<Map<String, Object>> getStudentGrades(@PathVariable Long studentId) {
+    public ResponseEntity<Map<String, Object>> getStudentGrades(
+            @PathVariable Long studentId,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         try {
-            List<Grade> grades = gradeService.getStudentGrades(studentId);
-
-            List<GradeDTO.GradeResponse> dtos = grades.stream()
-                    .map(GradeDTO.GradeResponse::fromEntity)
-                    .collect(Collectors.toList());
+            List<GradeDTO.GradeResponse> dtos = gradeService.getStudentGradeResponses(studentId);
+            if (includeArchived) {
+                gradeService.getArchivedStudentGrades(studentId).stream()
+                        .map(GradeDTO.GradeResponse::fromArchive)
+                        .forEach(dtos::add);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Lấy điểm sinh viên thành công");
@@ -98,6 +131,114 @@ public class GradeController {
         }
     }
 
+    // Phân bố điểm của một môn trong lớp
+    @GetMapping("/class/{classId}/subject/{subjectId}/distribution")
+    public ResponseEntity<Map<String, Object>> getGradeDistribution(
+            @PathVariable Long classId,
+            @PathVariable Long subjectId) {
+        try {
+            GradeDTO.GradeDistribution distribution = gradeService.getGradeDistribution(classId, subjectId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy phân bố điểm thành công");
+            response.put("status", "success");
+            response.put("data", distribution);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Hạng và phân vị của sinh viên trong môn của lớp
+    @GetMapping("/class/{classId}/subject/{subjectId}/rank/{studentId}")
+    public ResponseEntity<Map<String, Object>> getStudentRank(
+            @PathVariable Long classId,
+            @PathVariable Long subjectId,
+            @PathVariable Long studentId) {
+        try {
+            GradeDTO.StudentRank rank = gradeService.getStudentRank(classId, subjectId, studentId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy xếp hạng thành công");
+            response.put("status", "success");
+            response.put("data", rank);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // N sinh viên cao điểm nhất trong môn của lớp
+    @GetMapping("/class/{classId}/subject/{subjectId}/top")
+    public ResponseEntity<Map<String, Object>> getTopStudents(
+            @PathVariable Long classId,
+            @PathVariable Long subjectId,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<GradeDTO.RankEntry> top = gradeService.getTopStudents(classId, subjectId, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy bảng xếp hạng thành công");
+            response.put("status", "success");
+            response.put("data", top);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Phân bố điểm gộp mọi môn của lớp
+    @GetMapping("/class/{classId}/distribution")
+    public ResponseEntity<Map<String, Object>> getClassGradeDistribution(@PathVariable Long classId) {
+        try {
+            GradeDTO.GradeDistribution distribution = gradeService.getClassGradeDistribution(classId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy phân bố điểm thành công");
+            response.put("status", "success");
+            response.put("data", distribution);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Bảng điểm và điểm trung bình tích lũy (có trọng số tín chỉ) của sinh viên
+    @GetMapping("/student/{studentId}/transcript")
+    public ResponseEntity<Map<String, Object>> getStudentTranscript(@PathVariable Long studentId) {
+        try {
+            TranscriptDTO.Transcript transcript = gradeService.getStudentTranscript(studentId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy bảng điểm thành công");
+            response.put("status", "success");
+            response.put("data", transcript);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     // Lấy điểm trung bình lớp
     @GetMapping("/class/{classId}/average")
     public ResponseEntity<Map<String, Object>> getClassAverage(@PathVariable Long classId) {
@@ -126,16 +267,257 @@ public class GradeController {
             @RequestBody List<GradeDTO.GradeUpdateRequest> gradeRequests,
             @RequestHeader("User-ID") Long teacherId) {
         try {
-            List<Grade> grades = gradeService.batchUpdateGrades(classId, subjectId, gradeRequests, teacherId);
-
-            List<GradeDTO.GradeResponse> dtos = grades.stream()
-                    .map(GradeDTO.GradeResponse::fromEntity)
-                    .collect(Collectors.toList());
+            GradeDTO.BatchGradeResult result = gradeService.batchUpdateGrades(classId, subjectId, gradeRequests, teacherId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Chấm điểm hàng loạt thành công");
             response.put("status", "success");
-            response.put("data", dtos);
+            response.put("data", result);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Điểm đã công bố (đã chốt) của sinh viên, đọc từ bản chụp
+    @GetMapping("/student/{studentId}/published")
+    public ResponseEntity<Map<String, Object>> getPublishedStudentGrades(
+            @PathVariable Long studentId) {
+        try {
+            List<GradeDTO.GradeResponse> data = gradeService.getPublishedStudentGrades(studentId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy điểm đã công bố thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Chốt điểm của lớp trong học kỳ (khóa sửa điểm, tạo bản chụp phiên bản mới)
+    @PostMapping("/class/{classId}/term/{termId}/finalize")
+    public ResponseEntity<Map<String, Object>> finalizeGrades(
+            @PathVariable Long classId,
+            @PathVariable Long termId,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            GradeDTO.SnapshotInfo data = gradeService.finalizeGrades(classId, termId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Chốt điểm thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Mở khóa điểm đã chốt của lớp trong học kỳ
+    @PostMapping("/class/{classId}/term/{termId}/reopen")
+    public ResponseEntity<Map<String, Object>> reopenGrades(
+            @PathVariable Long classId,
+            @PathVariable Long termId,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            gradeService.reopenGrades(classId, termId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Mở khóa điểm thành công");
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Bảng điểm đã chốt của lớp trong học kỳ (mặc định phiên bản đang công bố)
+    @GetMapping("/class/{classId}/term/{termId}/snapshot")
+    public ResponseEntity<Map<String, Object>> getGradebookSnapshot(
+            @PathVariable Long classId,
+            @PathVariable Long termId,
+            @RequestParam(required = false) Integer version) {
+        try {
+            GradeDTO.GradebookSnapshot data = gradeService.getGradebookSnapshot(classId, termId, version);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy bảng điểm đã chốt thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Các phiên bản bảng điểm đã chốt của lớp trong học kỳ
+    @GetMapping("/class/{classId}/term/{termId}/snapshots")
+    public ResponseEntity<Map<String, Object>> getSnapshotVersions(
+            @PathVariable Long classId,
+            @PathVariable Long termId) {
+        try {
+            List<GradeDTO.SnapshotInfo> data = gradeService.getSnapshotVersions(classId, termId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy danh sách phiên bản thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Lấy công thức tính điểm tổng kết của môn
+    @GetMapping("/subject/{subjectId}/formula")
+    public ResponseEntity<Map<String, Object>> getGradingFormula(@PathVariable Long subjectId) {
+        try {
+            GradeDTO.GradingFormulaResponse data = gradeService.getGradingFormula(subjectId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy công thức tính điểm thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Tạo/cập nhật công thức tính điểm tổng kết (tính lại điểm tổng kết của môn)
+    @PutMapping("/subject/{subjectId}/formula")
+    public ResponseEntity<Map<String, Object>> saveGradingFormula(
+            @PathVariable Long subjectId,
+            @RequestBody GradeDTO.GradingFormulaRequest request,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            GradeDTO.GradingFormulaResult data = gradeService.saveGradingFormula(subjectId, request, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lưu công thức tính điểm thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Lấy quy tắc tính điểm quá trình của lớp
+    @GetMapping("/class/{classId}/process-policy")
+    public ResponseEntity<Map<String, Object>> getProcessScorePolicy(
+            @PathVariable Long classId,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            GradeDTO.ProcessScorePolicyResponse data = GradeDTO.ProcessScorePolicyResponse.fromEntity(
+                    gradeService.getProcessScorePolicy(classId, teacherId));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy quy tắc điểm quá trình thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Tạo/cập nhật quy tắc tính điểm quá trình (tính lại điểm của cả lớp)
+    @PutMapping("/class/{classId}/process-policy")
+    public ResponseEntity<Map<String, Object>> saveProcessScorePolicy(
+            @PathVariable Long classId,
+            @RequestBody GradeDTO.ProcessScorePolicyRequest request,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            GradeDTO.ProcessScorePolicyResponse data = GradeDTO.ProcessScorePolicyResponse.fromEntity(
+                    gradeService.saveProcessScorePolicy(classId, request, teacherId));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lưu quy tắc điểm quá trình thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Tính lại điểm quá trình của lớp
+    @PostMapping("/class/{classId}/process-score/recompute")
+    public ResponseEntity<Map<String, Object>> recomputeProcessScores(
+            @PathVariable Long classId,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            GradeDTO.RecomputeResult data = gradeService.recomputeProcessScores(classId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Tính lại điểm quá trình thành công");
+            response.put("status", "success");
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Tính lại điểm quá trình của mọi lớp trong học kỳ
+    @PostMapping("/term/{termId}/process-score/recompute")
+    public ResponseEntity<Map<String, Object>> recomputeProcessScoresForTerm(
+            @PathVariable Long termId,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            GradeDTO.RecomputeResult data = gradeService.recomputeProcessScoresForTerm(termId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Tính lại điểm quá trình thành công");
+            response.put("status", "success");
+            response.put("data", data);
             return ResponseEntity.ok(response);
 
         } catch (RuntimeException e) {
@@ -0,0 +1,117 @@
+package com.example.backend.Controller;
+
+import com.example.backend.DTO.RoomDTO;
+import com.example.backend.Model.Room;
+import com.example.backend.Service.RoomService;
+import com.example.backend.Service.RoomUtilizationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/rooms")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class RoomController {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private RoomUtilizationService roomUtilizationService;
+
+    // Tạo phòng học
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createRoom(@RequestBody RoomDTO.CreateRoomRequest request,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            Room room = roomService.createRoom(request, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Tạo phòng học thành công");
+            response.put("status", "success");
+            response.put("data", RoomDTO.RoomResponse.fromEntity(room));
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Danh sách phòng học
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getAllRooms() {
+        try {
+            List<RoomDTO.RoomResponse> rooms = roomService.getAllRooms();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy danh sách phòng học thành công");
+            response.put("status", "success");
+            response.put("data", rooms);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Mức sử dụng các phòng trong khoảng tuần (mặc định: học kỳ hiện tại)
+    @GetMapping("/utilization")
+    public ResponseEntity<Map<String, Object>> getUtilization(
+            @RequestParam(required = false) Integer startWeek,
+            @RequestParam(required = false) Integer endWeek) {
+        try {
+            RoomDTO.UtilizationReport report = roomUtilizationService.getUtilization(startWeek, endWeek);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy mức sử dụng phòng học thành công");
+            response.put("status", "success");
+            response.put("data", report);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Phòng trống theo tuần, thứ và tiết (endPeriod, endWeek mặc định bằng tiết, tuần bắt đầu)
+    @GetMapping("/free")
+    public ResponseEntity<Map<String, Object>> findFreeRooms(
+            @RequestParam Integer week,
+            @RequestParam(required = false) Integer endWeek,
+            @RequestParam Integer dayOfWeek,
+            @RequestParam Integer startPeriod,
+            @RequestParam(required = false) Integer endPeriod,
+            @RequestParam(required = false) Integer minCapacity,
+            @RequestParam(required = false) String building) {
+        try {
+            List<RoomDTO.RoomResponse> rooms = roomUtilizationService.findFreeRooms(dayOfWeek, startPeriod,
+                    endPeriod != null ? endPeriod : startPeriod, week, endWeek != null ? endWeek : week,
+                    minCapacity, building);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Tìm thấy " + rooms.size() + " phòng trống");
+            response.put("status", "success");
+            response.put("data", rooms);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
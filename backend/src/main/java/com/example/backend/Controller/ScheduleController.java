@@ -1,17 +1,21 @@
 package com.example.backend.Controller;
 
 import com.example.backend.DTO.ScheduleDTO;
-import com.example.backend.Model.Schedule;
+import com.example.backend.DTO.TimetableDTO;
+import com.example.backend.Service.FreeSlotService;
+import com.example.backend.Service.ScheduleImportService;
 import com.example.backend.Service.ScheduleService;
+import com.example.backend.Service.SessionOccurrenceService;
+import com.example.backend.Service.TimetableGeneratorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.HashMap;
 import java.util.List;
 // import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/schedules")
@@ -21,6 +25,18 @@ public class ScheduleController {
     @Autowired
     private ScheduleService scheduleService;
 
+    @Autowired
+    private TimetableGeneratorService timetableGeneratorService;
+
+    @Autowired
+    private ScheduleImportService scheduleImportService;
+
+    @Autowired
+    private SessionOccurrenceService sessionOccurrenceService;
+
+    @Autowired
+    private FreeSlotService freeSlotService;
+
     // Tạo lịch học mới
     @PostMapping("/add/{classId}")
     public ResponseEntity<Map<String, Object>> createSchedule(@PathVariable Long classId,
@@ -44,6 +60,83 @@ public class ScheduleController {
         }
     }
 
+    // Tự xếp thời khóa biểu cho nhiều lớp (commit = true: lưu cả đợt nếu xếp được không trùng)
+    @PostMapping("/generate")
+    public ResponseEntity<Map<String, Object>> generateTimetable(@RequestBody TimetableDTO.GenerateRequest request,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            TimetableDTO.GenerateResult result = timetableGeneratorService.generate(request, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("data", result);
+            if (!result.isFeasible()) {
+                response.put("message", "Không xếp được thời khóa biểu không trùng lịch (còn "
+                        + result.getConflictCount() + " chỗ trùng)");
+                response.put("status", "error");
+                return ResponseEntity.badRequest().body(response);
+            }
+            response.put("message", result.isCommitted()
+                    ? "Đã xếp và lưu " + result.getSessionCount() + " buổi học"
+                    : "Đã xếp xong thời khóa biểu (chưa lưu)");
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Tạo nhiều lịch học trong một lượt (có dòng lỗi hoặc trùng lịch thì không lưu dòng nào)
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> createSchedulesBatch(
+            @RequestBody List<ScheduleDTO.BulkScheduleRequest> requests,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            return bulkResponse(scheduleService.createSchedulesBatch(requests, teacherId, !dryRun));
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Nhập thời khóa biểu từ file CSV/XLSX
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importSchedules(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) Long classId,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            @RequestHeader("User-ID") Long teacherId) {
+        try {
+            return bulkResponse(scheduleImportService.importSchedules(file, classId, teacherId, dryRun));
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> bulkResponse(ScheduleDTO.BulkScheduleResult result) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", result);
+        if (!result.getErrors().isEmpty()) {
+            response.put("message", "Có " + result.getErrors().size() + " dòng lỗi hoặc trùng lịch, chưa lưu lịch nào");
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("message", result.isCommitted()
+                ? "Đã tạo " + result.getCreatedCount() + " lịch học"
+                : "Dữ liệu hợp lệ, không có trùng lịch (chưa lưu)");
+        response.put("status", "success");
+        return ResponseEntity.ok(response);
+    }
+
     // Cập nhật lịch học
     @PutMapping("/update/{scheduleId}")
     public ResponseEntity<Map<String, Object>> updateSchedule(@PathVariable Long scheduleId,
@@ -132,11 +225,7 @@ public class ScheduleController {
     public ResponseEntity<Map<String, Object>> getStudentSchedules(
             @RequestHeader("User-ID") Long studentId) {
         try {
-            List<Schedule> schedules = scheduleService.getSchedulesForStudent(studentId);
-
-            List<ScheduleDTO.ScheduleResponse> data = schedules.stream()
-                    .map(ScheduleDTO.ScheduleResponse::fromEntity)
-                    .collect(Collectors.toList());
+            List<ScheduleDTO.ScheduleResponse> data = scheduleService.getSchedulesForStudent(studentId);
 
             Map<String, Object> res = new HashMap<>();
             res.put("message", "Lấy thời khóa biểu sinh viên thành công");
@@ -152,6 +241,90 @@ public class ScheduleController {
         }
     }
 
+    // Khoảng tiết giáo viên, lớp (và phòng nếu chỉ định) cùng trống trong khoảng tuần, dùng xếp buổi học bù
+    @GetMapping("/free-slots")
+    public ResponseEntity<Map<String, Object>> findFreeSlots(
+            @RequestParam Long classId,
+            @RequestParam(required = false) Long teacherId,
+            @RequestParam(required = false) String room,
+            @RequestParam Integer startWeek,
+            @RequestParam Integer endWeek,
+            @RequestParam(defaultValue = "1") Integer periods,
+            @RequestParam(required = false) Integer minCapacity,
+            @RequestHeader("User-ID") Long requesterId) {
+        try {
+            List<ScheduleDTO.FreeSlot> slots = freeSlotService.findFreeSlots(requesterId, teacherId, classId, room,
+                    startWeek, endWeek, periods, minCapacity);
+
+            Map<String, Object> res = new HashMap<>();
+            res.put("message", "Tìm thấy " + slots.size() + " khoảng thời gian trống");
+            res.put("status", "success");
+            res.put("data", slots);
+            return ResponseEntity.ok(res);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> res = new HashMap<>();
+            res.put("message", e.getMessage());
+            res.put("status", "error");
+            return ResponseEntity.badRequest().body(res);
+        }
+    }
+
+    // Buổi học hôm nay của GIÁO VIÊN (đã trừ ngày nghỉ, buổi hủy; gồm buổi học bù)
+    @GetMapping("/today/teacher")
+    public ResponseEntity<Map<String, Object>> getTodayForTeacher(@RequestHeader("User-ID") Long teacherId) {
+        try {
+            Map<String, Object> res = new HashMap<>();
+            res.put("message", "Lấy buổi dạy hôm nay thành công");
+            res.put("status", "success");
+            res.put("data", sessionOccurrenceService.getTodayForTeacher(teacherId));
+            return ResponseEntity.ok(res);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> res = new HashMap<>();
+            res.put("message", e.getMessage());
+            res.put("status", "error");
+            return ResponseEntity.badRequest().body(res);
+        }
+    }
+
+    // Buổi học hôm nay của SINH VIÊN
+    @GetMapping("/today/student")
+    public ResponseEntity<Map<String, Object>> getTodayForStudent(@RequestHeader("User-ID") Long studentId) {
+        try {
+            Map<String, Object> res = new HashMap<>();
+            res.put("message", "Lấy buổi học hôm nay thành công");
+            res.put("status", "success");
+            res.put("data", sessionOccurrenceService.getTodayForStudent(studentId));
+            return ResponseEntity.ok(res);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> res = new HashMap<>();
+            res.put("message", e.getMessage());
+            res.put("status", "error");
+            return ResponseEntity.badRequest().body(res);
+        }
+    }
+
+    // Các buổi học cụ thể (theo ngày) của một lịch học trong học kỳ (mặc định học kỳ hiện tại)
+    @GetMapping("/{scheduleId}/occurrences")
+    public ResponseEntity<Map<String, Object>> getOccurrences(@PathVariable Long scheduleId,
+            @RequestParam(required = false) Long termId) {
+        try {
+            Map<String, Object> res = new HashMap<>();
+            res.put("message", "Lấy danh sách buổi học thành công");
+            res.put("status", "success");
+            res.put("data", sessionOccurrenceService.getOccurrences(scheduleId, termId));
+            return ResponseEntity.ok(res);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> res = new HashMap<>();
+            res.put("message", e.getMessage());
+            res.put("status", "error");
+            return ResponseEntity.badRequest().body(res);
+        }
+    }
+
     // Lấy lịch học theo tuần và ngày
     @GetMapping("/week/{week}/day/{dayOfWeek}")
     public ResponseEntity<Map<String, Object>> getSchedulesByWeekAndDay(@PathVariable Integer week,
@@ -0,0 +1,61 @@
+package com.example.backend.Controller;
+
+import com.example.backend.DTO.StudentRiskDTO;
+import com.example.backend.Service.StudentRiskService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/risk")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class StudentRiskController {
+
+    @Autowired
+    private StudentRiskService studentRiskService;
+
+    // Sinh viên có nguy cơ của một lớp
+    @GetMapping("/class/{classId}")
+    public ResponseEntity<Map<String, Object>> getClassRisks(@PathVariable Long classId,
+                                                           @RequestHeader("User-ID") Long teacherId) {
+        try {
+            List<StudentRiskDTO.StudentRisk> risks = studentRiskService.getClassRisks(classId, teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy danh sách cảnh báo thành công");
+            response.put("status", "success");
+            response.put("data", risks);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Sinh viên có nguy cơ ở tất cả lớp của giáo viên
+    @GetMapping("/teacher")
+    public ResponseEntity<Map<String, Object>> getTeacherRisks(@RequestHeader("User-ID") Long teacherId) {
+        try {
+            List<StudentRiskDTO.StudentRisk> risks = studentRiskService.getTeacherRisks(teacherId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Lấy danh sách cảnh báo thành công");
+            response.put("status", "success");
+            response.put("data", risks);
+            return ResponseEntity.ok(response);
+
+        } catch (RuntimeException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("status", "error");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
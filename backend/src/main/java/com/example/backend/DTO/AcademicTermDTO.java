@@ -0,0 +1,52 @@
+package com.example.backend.DTO;
+
+import com.example.backend.Model.AcademicTerm;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class AcademicTermDTO {
+
+    // DTO cho tạo học kỳ
+    @Data
+    public static class CreateTermRequest {
+        private String termCode;
+        private String termName;
+        private LocalDate startDate;
+        private LocalDate endDate;
+    }
+
+    // DTO cho response học kỳ
+    @Data
+    public static class TermResponse {
+        private Long termId;
+        private String termCode;
+        private String termName;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private AcademicTerm.TermStatus status;
+        private LocalDateTime archivedAt;
+
+        public static TermResponse fromEntity(AcademicTerm term) {
+            TermResponse r = new TermResponse();
+            r.setTermId(term.getTermId());
+            r.setTermCode(term.getTermCode());
+            r.setTermName(term.getTermName());
+            r.setStartDate(term.getStartDate());
+            r.setEndDate(term.getEndDate());
+            r.setStatus(term.getStatus());
+            r.setArchivedAt(term.getArchivedAt());
+            return r;
+        }
+    }
+
+    // DTO cho kết quả chuyển dữ liệu sang bảng lưu trữ
+    @Data
+    public static class ArchiveResult {
+        private Long termId;
+        private int classCount;
+        private long attendanceRows;
+        private long gradeRows;
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.backend.DTO;
 
 import com.example.backend.Model.Attendance;
+import com.example.backend.Model.AttendanceArchive;
 import com.example.backend.Model.Schedule;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 public class AttendanceDTO {
 
@@ -23,6 +28,133 @@ public class AttendanceDTO {
         private String notes;
     }
 
+    // DTO cho sửa điểm danh hàng loạt: xác định bản ghi bằng attendanceId
+    // hoặc studentId + date (thêm scheduleId nếu trong ngày có nhiều buổi). notes = null giữ nguyên ghi chú cũ.
+    @Data
+    public static class AttendanceCorrection {
+        private Long attendanceId;
+        private Long studentId;
+        private Long scheduleId;
+        private LocalDate date;
+        private Attendance.AttendanceStatus status;
+        private String notes;
+    }
+
+    // DTO cho kết quả sửa điểm danh hàng loạt
+    @Data
+    public static class BulkCorrectionResult {
+        private int updatedCount;
+        private int unchangedCount;
+        private List<RowError> errors;
+    }
+
+    // Lỗi của một dòng trong thao tác hàng loạt (index tính từ 0 theo thứ tự gửi lên)
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private int index;
+        private String message;
+    }
+
+    // DTO cho sinh viên tự điểm danh bằng mã
+    @Data
+    public static class CheckInRequest {
+        private LocalDate date;
+        private String code;
+    }
+
+    // DTO cho mã điểm danh giáo viên trình chiếu
+    @Data
+    public static class CheckInCodeResponse {
+        private Long scheduleId;
+        private LocalDate date;
+        private String code;
+        private LocalDateTime expiresAt;
+    }
+
+    // DTO cho kết quả điểm danh một buổi học (trả về trực tiếp, không đọc lại từng bản ghi)
+    @Data
+    public static class TakeAttendanceResult {
+        private Long classId;
+        private Long scheduleId;
+        private LocalDate attendanceDate;
+        private int totalStudents;
+        private int changedCount; // Số dòng thực sự được ghi
+        private int removedCount; // Số dòng của sinh viên không còn trong lớp bị xóa
+        private Map<Long, Attendance.AttendanceStatus> statuses;
+    }
+
+    // DTO cho thống kê điểm danh của một sinh viên trong lớp
+    @Data
+    public static class StudentAttendanceStatistics {
+        private Long classId;
+        private Long studentId;
+        private Map<Attendance.AttendanceStatus, Long> counts;
+        private long totalSessions;
+        private double attendanceRate; // (PRESENT + LATE) / tổng số buổi, tính theo %
+
+        public static StudentAttendanceStatistics of(Long classId, Long studentId,
+                                                     Map<Attendance.AttendanceStatus, Long> counts) {
+            StudentAttendanceStatistics s = new StudentAttendanceStatistics();
+            s.setClassId(classId);
+            s.setStudentId(studentId);
+            s.setCounts(counts);
+            long total = counts.values().stream().mapToLong(Long::longValue).sum();
+            long attended = counts.getOrDefault(Attendance.AttendanceStatus.PRESENT, 0L)
+                    + counts.getOrDefault(Attendance.AttendanceStatus.LATE, 0L);
+            s.setTotalSessions(total);
+            s.setAttendanceRate(total == 0 ? 0.0 : Math.round(attended * 10000.0 / total) / 100.0);
+            return s;
+        }
+    }
+
+    // DTO cho lưới điểm danh cả kỳ (hàng = sinh viên, cột = buổi học)
+    // Mỗi hàng là chuỗi ký hiệu: P=Có mặt, A=Vắng, L=Muộn, E=Có phép, '-'=chưa điểm danh
+    @Data
+    public static class AttendanceGrid {
+        private Long classId;
+        private List<GridSession> sessions;
+        private List<GridRow> rows;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class GridSession {
+        private Long scheduleId;
+        private LocalDate date;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class GridRow {
+        private Long studentId;
+        private String studentFullName;
+        private String cells;
+    }
+
+    // DTO cho heatmap vắng học
+    @Data
+    public static class AttendanceHeatmap {
+        private Long classId; // null = toàn trường
+        private List<HeatmapCell> cells;
+    }
+
+    // Một ô heatmap (thứ, tiết bắt đầu, tuần)
+    @Data
+    public static class HeatmapCell {
+        private Integer dayOfWeek;
+        private Integer startPeriod;
+        private Integer weekNumber;
+        private long total;
+        private long absentCount;
+        private long lateCount;
+        private long excusedCount;
+        private Double absenceRate; // %
+    }
+
     // DTO cho response điểm danh
     @Data
     public static class AttendanceResponse {
@@ -62,5 +194,19 @@ public class AttendanceDTO {
             r.setCreatedAt(a.getCreatedAt());
             return r;
         }
+
+        // Bản ghi đã lưu trữ chỉ có khóa, không kèm thông tin lớp/sinh viên
+        public static AttendanceResponse fromArchive(AttendanceArchive a) {
+            AttendanceResponse r = new AttendanceResponse();
+            r.setAttendanceId(a.getAttendanceId());
+            r.setClassId(a.getClassId());
+            r.setStudentId(a.getStudentId());
+            r.setScheduleId(a.getScheduleId());
+            r.setAttendanceDate(a.getAttendanceDate());
+            r.setStatus(a.getStatus());
+            r.setNotes(a.getNotes());
+            r.setCreatedAt(a.getCreatedAt());
+            return r;
+        }
     }
 }
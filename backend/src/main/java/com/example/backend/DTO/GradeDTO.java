@@ -1,9 +1,16 @@
 package com.example.backend.DTO;
 
 import com.example.backend.Model.Grade;
+import com.example.backend.Model.GradeArchive;
+import com.example.backend.Model.GradingFormula;
+import com.example.backend.Model.ProcessScorePolicy;
+import com.example.backend.Util.ScoreHistogram;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class GradeDTO {
 
@@ -12,6 +19,7 @@ public class GradeDTO {
     public static class GradeRequest {
         private Double processScore;
         private Double midtermScore;
+        private Double finalExamScore; // null = giữ điểm cuối kỳ hiện có
         private String comments;
     }
 
@@ -21,7 +29,213 @@ public class GradeDTO {
         private Long studentId;
         private Double processScore;
         private Double midtermScore;
-        private String comments;
+        private Double finalExamScore; // null = giữ điểm cuối kỳ hiện có
+        private String comments; // null = giữ nhận xét hiện có, chuỗi rỗng = xóa
+    }
+
+    // DTO cho phân bố điểm của một lớp (một môn, hoặc mọi môn khi subjectId = null)
+    @Data
+    public static class GradeDistribution {
+        private Long classId;
+        private Long subjectId;
+        private ScoreStats processScore;
+        private ScoreStats midtermScore;
+        private ScoreStats averageScore; // (quá trình + giữa kỳ) / 2 - giữ cho client cũ
+        private ScoreStats finalScore; // Điểm tổng kết theo công thức của môn
+    }
+
+    // Thống kê một cột điểm
+    @Data
+    public static class ScoreStats {
+        private long count;
+        private Double mean;
+        private Double standardDeviation;
+        private Double min;
+        private Double p10;
+        private Double median;
+        private Double p90;
+        private Double max;
+        private List<Long> histogram; // Số điểm trong [0,1), [1,2), ..., [9,10]
+
+        public static ScoreStats fromHistogram(ScoreHistogram h) {
+            ScoreStats r = new ScoreStats();
+            r.setCount(h.getCount());
+            r.setMean(h.mean());
+            r.setStandardDeviation(h.standardDeviation());
+            r.setMin(h.percentile(0.0));
+            r.setP10(h.percentile(0.1));
+            r.setMedian(h.percentile(0.5));
+            r.setP90(h.percentile(0.9));
+            r.setMax(h.percentile(1.0));
+            r.setHistogram(h.histogram());
+            return r;
+        }
+    }
+
+    // DTO cho hạng của sinh viên trong môn của lớp
+    @Data
+    public static class StudentRank {
+        private Long classId;
+        private Long subjectId;
+        private Long studentId;
+        private Double score;
+        private Integer rank;
+        private Integer total;
+        private Double percentile;
+    }
+
+    // Một dòng trong bảng xếp hạng
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RankEntry {
+        private int rank;
+        private Long studentId;
+        private String studentFullName;
+        private Double score;
+    }
+
+    // DTO cho kết quả chấm điểm hàng loạt
+    @Data
+    public static class BatchGradeResult {
+        private int insertedCount;
+        private int updatedCount;
+        private int unchangedCount;
+        private List<RowError> errors;
+        private List<GradeResponse> grades;
+    }
+
+    // DTO cho kết quả nhập điểm từ file (index của lỗi = số dòng trong file, dòng tiêu đề là 1)
+    @Data
+    public static class ImportResult {
+        private int totalRows;
+        private int validRows;
+        private int insertedCount;
+        private int updatedCount;
+        private int unchangedCount;
+        private List<RowError> errors;
+    }
+
+    // Lỗi của một dòng trong lô (index theo thứ tự gửi lên)
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private int index;
+        private Long studentId;
+        private String message;
+    }
+
+    // DTO cho quy tắc tính điểm quá trình từ điểm danh
+    @Data
+    public static class ProcessScorePolicyRequest {
+        private Double baseScore;
+        private Double absentPenalty;
+        private Double latePenalty;
+        private Double excusedPenalty;
+        private Double minScore;
+        private Boolean enabled;
+    }
+
+    // DTO cho response quy tắc tính điểm quá trình
+    @Data
+    public static class ProcessScorePolicyResponse {
+        private Long classId;
+        private Double baseScore;
+        private Double absentPenalty;
+        private Double latePenalty;
+        private Double excusedPenalty;
+        private Double minScore;
+        private Boolean enabled;
+        private LocalDateTime updatedAt;
+
+        public static ProcessScorePolicyResponse fromEntity(ProcessScorePolicy p) {
+            ProcessScorePolicyResponse r = new ProcessScorePolicyResponse();
+            r.setClassId(p.getClassId());
+            r.setBaseScore(p.getBaseScore());
+            r.setAbsentPenalty(p.getAbsentPenalty());
+            r.setLatePenalty(p.getLatePenalty());
+            r.setExcusedPenalty(p.getExcusedPenalty());
+            r.setMinScore(p.getMinScore());
+            r.setEnabled(p.getEnabled());
+            r.setUpdatedAt(p.getUpdatedAt());
+            return r;
+        }
+    }
+
+    // DTO cho công thức tính điểm tổng kết của môn
+    @Data
+    public static class GradingFormulaRequest {
+        private Double processWeight;
+        private Double midtermWeight;
+        private Double finalWeight;
+        private Double roundingStep;
+        private String roundingMode; // HALF_UP, UP, DOWN
+    }
+
+    // DTO cho response công thức tính điểm tổng kết
+    @Data
+    public static class GradingFormulaResponse {
+        private Long subjectId;
+        private Double processWeight;
+        private Double midtermWeight;
+        private Double finalWeight;
+        private Double roundingStep;
+        private String roundingMode;
+        private boolean custom; // false = môn dùng công thức mặc định
+        private LocalDateTime updatedAt;
+
+        public static GradingFormulaResponse fromEntity(GradingFormula f) {
+            GradingFormulaResponse r = new GradingFormulaResponse();
+            r.setSubjectId(f.getSubjectId());
+            r.setProcessWeight(f.getProcessWeight());
+            r.setMidtermWeight(f.getMidtermWeight());
+            r.setFinalWeight(f.getFinalWeight());
+            r.setRoundingStep(f.getRoundingStep());
+            r.setRoundingMode(f.getRoundingMode() != null ? f.getRoundingMode().name() : null);
+            r.setCustom(f.getFormulaId() != null);
+            r.setUpdatedAt(f.getUpdatedAt());
+            return r;
+        }
+    }
+
+    // DTO cho kết quả lưu công thức (số điểm tổng kết được tính lại)
+    @Data
+    public static class GradingFormulaResult {
+        private GradingFormulaResponse formula;
+        private int updatedCount;
+    }
+
+    // DTO cho thông tin một phiên bản bản chụp bảng điểm đã chốt
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SnapshotInfo {
+        private Long classId;
+        private Long termId;
+        private Integer version;
+        private Integer gradeCount;
+        private String checksum;
+        private Long createdBy;
+        private LocalDateTime createdAt;
+    }
+
+    // DTO cho bảng điểm đã chốt của lớp trong học kỳ
+    @Data
+    public static class GradebookSnapshot {
+        private Long classId;
+        private Long termId;
+        private Integer version;
+        private String checksum;
+        private LocalDateTime createdAt;
+        private List<GradeResponse> grades;
+    }
+
+    // DTO cho kết quả tính lại điểm quá trình
+    @Data
+    public static class RecomputeResult {
+        private int classCount;
+        private int updatedCount;
     }
 
     // DTO cho response Grade
@@ -37,6 +251,8 @@ public class GradeDTO {
         private String subjectName;
         private Double processScore;
         private Double midtermScore;
+        private Double finalExamScore;
+        private Double finalScore;
         private String comments;
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
@@ -59,6 +275,25 @@ public class GradeDTO {
             }
             r.setProcessScore(g.getProcessScore());
             r.setMidtermScore(g.getMidtermScore());
+            r.setFinalExamScore(g.getFinalExamScore());
+            r.setFinalScore(g.getFinalScore());
+            r.setComments(g.getComments());
+            r.setCreatedAt(g.getCreatedAt());
+            r.setUpdatedAt(g.getUpdatedAt());
+            return r;
+        }
+
+        // Điểm đã lưu trữ chỉ có khóa, không kèm thông tin lớp/sinh viên/môn học
+        public static GradeResponse fromArchive(GradeArchive g) {
+            GradeResponse r = new GradeResponse();
+            r.setGradeId(g.getGradeId());
+            r.setClassId(g.getClassId());
+            r.setStudentId(g.getStudentId());
+            r.setSubjectId(g.getSubjectId());
+            r.setProcessScore(g.getProcessScore());
+            r.setMidtermScore(g.getMidtermScore());
+            r.setFinalExamScore(g.getFinalExamScore());
+            r.setFinalScore(g.getFinalScore());
             r.setComments(g.getComments());
             r.setCreatedAt(g.getCreatedAt());
             r.setUpdatedAt(g.getUpdatedAt());
@@ -0,0 +1,57 @@
+package com.example.backend.DTO;
+
+import com.example.backend.Model.Room;
+import lombok.Data;
+
+import java.util.List;
+
+public class RoomDTO {
+
+    // DTO cho tạo phòng học
+    @Data
+    public static class CreateRoomRequest {
+        private String roomCode;
+        private String building;
+        private Integer capacity;
+    }
+
+    // DTO cho response phòng học
+    @Data
+    public static class RoomResponse {
+        private Long roomId;
+        private String roomCode;
+        private String building;
+        private Integer capacity;
+
+        public static RoomResponse fromEntity(Room room) {
+            RoomResponse response = new RoomResponse();
+            response.setRoomId(room.getRoomId());
+            response.setRoomCode(room.getRoomCode());
+            response.setBuilding(room.getBuilding());
+            response.setCapacity(room.getCapacity());
+            return response;
+        }
+    }
+
+    // Mức sử dụng phòng trong một khoảng tuần (tính theo tiết: tuần × thứ × tiết)
+    @Data
+    public static class RoomUtilization {
+        private Long roomId;
+        private String roomCode;
+        private String building;
+        private Integer capacity;
+        private int occupiedPeriods;
+        private int totalPeriods;
+        private double utilizationRate; // Phần trăm, làm tròn 1 chữ số
+    }
+
+    // Báo cáo mức sử dụng của mọi phòng
+    @Data
+    public static class UtilizationReport {
+        private int startWeek;
+        private int endWeek;
+        private int totalPeriodsPerRoom;
+        private double averageUtilizationRate;
+        private List<RoomUtilization> rooms;
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.backend.DTO;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
 
 public class ScheduleDTO {
 
@@ -33,6 +38,7 @@ public class ScheduleDTO {
     public static class ScheduleResponse {
         private Long scheduleId;
         private String room;
+        private Long roomId;
         private Integer dayOfWeek;
         private Integer startPeriod;
         private Integer endPeriod;
@@ -51,6 +57,9 @@ public class ScheduleDTO {
             ScheduleResponse response = new ScheduleResponse();
             response.setScheduleId(schedule.getScheduleId());
             response.setRoom(schedule.getRoom());
+            if (schedule.getRoomObj() != null) {
+                response.setRoomId(schedule.getRoomObj().getRoomId());
+            }
             response.setDayOfWeek(schedule.getDayOfWeek());
             response.setStartPeriod(schedule.getStartPeriod());
             response.setEndPeriod(schedule.getEndPeriod());
@@ -80,4 +89,58 @@ public class ScheduleDTO {
             return response;
         }
     }
-}
\ No newline at end of file
+
+    // Một dòng của yêu cầu tạo lịch theo lô (lớp/môn theo ID hoặc mã; giáo viên mặc định là giáo viên của lớp)
+    @Data
+    public static class BulkScheduleRequest {
+        private Long classId;
+        private String classCode;
+        private Long subjectId;
+        private String subjectCode;
+        private Long teacherId;
+        private String teacherEmail;
+        private String room;
+        private Integer dayOfWeek;
+        private Integer startPeriod;
+        private Integer endPeriod;
+        private Integer startWeek;
+        private Integer endWeek;
+    }
+
+    // Kết quả tạo lịch theo lô: có dòng lỗi thì không lưu dòng nào
+    @Data
+    public static class BulkScheduleResult {
+        private int totalRows;
+        private int validRows;
+        private int createdCount;
+        private boolean committed;
+        private List<RowError> errors;
+    }
+
+    // Lỗi của một dòng (index theo thứ tự gửi lên, hoặc số dòng trong file khi nhập từ file);
+    // conflictScheduleId: lịch đã có bị trùng, conflictIndex: dòng trong cùng lô bị trùng
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private int index;
+        private String message;
+        private Long conflictScheduleId;
+        private Integer conflictIndex;
+    }
+
+    // Khoảng tiết trống chung của giáo viên, lớp (và phòng nếu chỉ định) vào một thứ của một tuần
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class FreeSlot {
+        private int week;
+        private LocalDate date; // null nếu không có học kỳ hiện tại
+        private int dayOfWeek;
+        private int startPeriod;
+        private int endPeriod;
+        private String startTime;
+        private String endTime;
+        private List<String> freeRooms; // Chỉ khi không chỉ định phòng: các phòng trống suốt khoảng tiết
+    }
+}
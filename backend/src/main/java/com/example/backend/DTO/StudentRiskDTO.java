@@ -0,0 +1,23 @@
+package com.example.backend.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+public class StudentRiskDTO {
+
+    // DTO cho một sinh viên có nguy cơ
+    @Data
+    public static class StudentRisk {
+        private Long classId;
+        private Long studentId;
+        private String studentFullName;
+        private long totalSessions;
+        private long absentCount;
+        private long lateCount;
+        private Double absenceRate;     // % (vắng + muộn × hệ số) / tổng buổi
+        private Double averageScore;    // Trung bình (quá trình + giữa kỳ) / 2 các môn
+        private Double lastScoreChange; // Điểm môn chấm gần nhất trừ trung bình các môn còn lại
+        private List<String> reasons;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.backend.DTO;
+
+import com.example.backend.Model.TermCalendarEntry;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class TermCalendarDTO {
+
+    // DTO cho thêm ngày nghỉ / hủy buổi / học bù
+    @Data
+    public static class CreateEntryRequest {
+        private TermCalendarEntry.EntryType entryType;
+        private LocalDate date;
+        private LocalDate endDate;      // HOLIDAY: ngày nghỉ cuối (không bắt buộc)
+        private Long scheduleId;        // CANCELLED, MAKEUP
+        private LocalDate originalDate; // MAKEUP: buổi được bù (không bắt buộc)
+        private Integer startPeriod;    // MAKEUP: mặc định theo lịch học
+        private Integer endPeriod;
+        private String room;            // MAKEUP: mặc định phòng của lịch học
+        private String note;
+    }
+
+    // DTO cho response ngoại lệ lịch
+    @Data
+    public static class EntryResponse {
+        private Long entryId;
+        private Long termId;
+        private TermCalendarEntry.EntryType entryType;
+        private LocalDate date;
+        private LocalDate endDate;
+        private Long scheduleId;
+        private LocalDate originalDate;
+        private Integer startPeriod;
+        private Integer endPeriod;
+        private String room;
+        private String note;
+        private LocalDateTime createdAt;
+
+        public static EntryResponse fromEntity(TermCalendarEntry entry) {
+            EntryResponse r = new EntryResponse();
+            r.setEntryId(entry.getEntryId());
+            r.setTermId(entry.getTermId());
+            r.setEntryType(entry.getEntryType());
+            r.setDate(entry.getDate());
+            r.setEndDate(entry.getEndDate());
+            r.setScheduleId(entry.getScheduleId());
+            r.setOriginalDate(entry.getOriginalDate());
+            r.setStartPeriod(entry.getStartPeriod());
+            r.setEndPeriod(entry.getEndPeriod());
+            r.setRoom(entry.getRoom());
+            r.setNote(entry.getNote());
+            r.setCreatedAt(entry.getCreatedAt());
+            return r;
+        }
+    }
+
+    // Một buổi học cụ thể (lịch học vào một ngày), đã trừ ngày nghỉ/buổi hủy và cộng buổi học bù
+    @Data
+    public static class SessionOccurrence {
+        private Long scheduleId;
+        private LocalDate date;
+        private String startTime;
+        private String endTime;
+        private Integer startPeriod;
+        private Integer endPeriod;
+        private String room;
+        private boolean makeup;
+        private Long classId;
+        private String classCode;
+        private String className;
+        private String subjectName;
+        private Long teacherId;
+        private String teacherName;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.backend.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+public class TimetableDTO {
+
+    // DTO cho yêu cầu tự xếp thời khóa biểu
+    @Data
+    public static class GenerateRequest {
+        private Integer startWeek;              // Khoảng tuần áp dụng cho mọi buổi học được xếp
+        private Integer endWeek;
+        private List<Integer> days;             // Các thứ được xếp (mặc định thứ 2 đến thứ 7)
+        private List<String> rooms;             // Mã các phòng được dùng (mặc định mọi phòng)
+        private Integer maxPeriodsPerSession;   // Số tiết tối đa của một buổi (mặc định 3)
+        private List<ClassRequirement> classes;
+        private List<UnavailableSlot> unavailable;
+        private Integer timeLimitSeconds;       // Không vượt quá timetable.solver.time-limit-seconds
+        private Boolean commit;                 // true: lưu ngay nếu xếp được, false: chỉ xem trước
+    }
+
+    // Số tiết mỗi tuần của từng môn trong một lớp
+    @Data
+    public static class ClassRequirement {
+        private Long classId;
+        private List<SubjectRequirement> subjects;
+    }
+
+    @Data
+    public static class SubjectRequirement {
+        private Long subjectId;
+        private Long teacherId;         // Mặc định là giáo viên phụ trách lớp
+        private Integer periodsPerWeek;
+    }
+
+    // Khung giờ giáo viên bận hoặc phòng không dùng được (điền teacherId hoặc roomCode)
+    @Data
+    public static class UnavailableSlot {
+        private Long teacherId;
+        private String roomCode;
+        private Integer dayOfWeek;
+        private Integer startPeriod;
+        private Integer endPeriod;
+    }
+
+    // Một buổi học được đề xuất
+    @Data
+    public static class ProposedSchedule {
+        private Long classId;
+        private String classCode;
+        private Long subjectId;
+        private String subjectName;
+        private Long teacherId;
+        private String teacherName;
+        private String room;
+        private Integer dayOfWeek;
+        private Integer startPeriod;
+        private Integer endPeriod;
+        private Integer startWeek;
+        private Integer endWeek;
+    }
+
+    // Kết quả xếp lịch
+    @Data
+    public static class GenerateResult {
+        private boolean feasible;
+        private boolean committed;
+        private int sessionCount;
+        private int conflictCount;
+        private long iterations;
+        private long elapsedMillis;
+        private List<ProposedSchedule> schedules;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Bảng điểm của sinh viên: không đổi sau khi tạo, được cache theo sinh viên
+public class TranscriptDTO {
+
+    @Getter
+    @AllArgsConstructor
+    public static class Transcript {
+        private final Long studentId;
+        private final List<TermSummary> terms;
+        private final int totalCredits;
+        private final Double cumulativeGpa10; // Trung bình tích lũy hệ 10, có trọng số tín chỉ
+        private final Double cumulativeGpa4;  // Trung bình tích lũy hệ 4
+        private final LocalDateTime generatedAt;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class TermSummary {
+        private final Long termId;       // null = điểm chưa thuộc học kỳ nào
+        private final String termCode;
+        private final String termName;
+        private final List<CourseResult> courses;
+        private final int credits;
+        private final Double gpa10;
+        private final Double gpa4;
+        private final int cumulativeCredits;
+        private final Double cumulativeGpa10;
+        private final Double cumulativeGpa4;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CourseResult {
+        private final Long classId;
+        private final String classCode;
+        private final Long subjectId;
+        private final String subjectCode;
+        private final String subjectName;
+        private final Integer credits;
+        private final Double processScore;
+        private final Double midtermScore;
+        private final Double finalExamScore;
+        private final Double score;       // Điểm tổng kết hệ 10
+        private final String letterGrade; // A, B+, B, C+, C, D+, D, F
+        private final Double gradePoint;  // Điểm hệ 4
+        private final boolean archived;
+    }
+}
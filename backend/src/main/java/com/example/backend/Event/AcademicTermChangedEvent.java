@@ -0,0 +1,11 @@
+package com.example.backend.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Phát ra khi học kỳ được tạo, đóng hoặc lưu trữ (ranh giới/tuần học có thể đã đổi)
+@Getter
+@AllArgsConstructor
+public class AcademicTermChangedEvent {
+    private final Long termId;
+}
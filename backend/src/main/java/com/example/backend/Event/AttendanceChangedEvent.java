@@ -0,0 +1,27 @@
+package com.example.backend.Event;
+
+import com.example.backend.Model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Phát ra (trong transaction) mỗi khi trạng thái điểm danh thay đổi
+@Getter
+@AllArgsConstructor
+public class AttendanceChangedEvent {
+    private final List<Change> changes;
+
+    // Một thay đổi: oldStatus = null khi thêm mới, newStatus = null khi bị xóa
+    @Getter
+    @AllArgsConstructor
+    public static class Change {
+        private final Long classId;
+        private final Long scheduleId;
+        private final Long studentId;
+        private final LocalDate attendanceDate;
+        private final Attendance.AttendanceStatus oldStatus;
+        private final Attendance.AttendanceStatus newStatus;
+    }
+}
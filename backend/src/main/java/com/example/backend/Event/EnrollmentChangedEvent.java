@@ -0,0 +1,14 @@
+package com.example.backend.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+// Phát ra (trong transaction) khi sinh viên được thêm vào/xóa khỏi lớp, hoặc lớp bị xóa
+@Getter
+@AllArgsConstructor
+public class EnrollmentChangedEvent {
+    private final Long classId;
+    private final Set<Long> studentIds;
+}
@@ -0,0 +1,12 @@
+package com.example.backend.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Phát ra (trong transaction) khi lịch thi của một lớp được thêm, sửa hoặc xóa
+@Getter
+@AllArgsConstructor
+public class ExamChangedEvent {
+    private final Long classId;
+    private final Long teacherId;
+}
@@ -0,0 +1,28 @@
+package com.example.backend.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Phát ra (trong transaction) mỗi khi điểm của sinh viên được thêm hoặc sửa
+@Getter
+@AllArgsConstructor
+public class GradeChangedEvent {
+    private final List<Change> changes;
+
+    // Một thay đổi: các giá trị old = null khi thêm mới; finalScore là điểm tổng kết đã lưu
+    @Getter
+    @AllArgsConstructor
+    public static class Change {
+        private final Long classId;
+        private final Long studentId;
+        private final Long subjectId;
+        private final Double oldProcessScore;
+        private final Double oldMidtermScore;
+        private final Double newProcessScore;
+        private final Double newMidtermScore;
+        private final Double oldFinalScore;
+        private final Double newFinalScore;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.backend.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+// Phát ra (trong transaction) khi phòng học được tạo mới
+@Getter
+@AllArgsConstructor
+public class RoomChangedEvent {
+    private final Set<Long> roomIds;
+}
@@ -0,0 +1,64 @@
+package com.example.backend.Event;
+
+import com.example.backend.Model.Schedule;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Phát ra (trong transaction) mỗi khi lịch học được thêm, sửa hoặc xóa
+@Getter
+@AllArgsConstructor
+public class ScheduleChangedEvent {
+    private final List<Change> changes;
+
+    // Các lớp bị ảnh hưởng (cả lớp cũ và lớp mới)
+    public Set<Long> getClassIds() {
+        Set<Long> classIds = new LinkedHashSet<>();
+        for (Change change : changes) {
+            if (change.getBefore() != null) classIds.add(change.getBefore().getClassId());
+            if (change.getAfter() != null) classIds.add(change.getAfter().getClassId());
+        }
+        return classIds;
+    }
+
+    // Một thay đổi: before = null khi thêm mới, after = null khi xóa
+    @Getter
+    @AllArgsConstructor
+    public static class Change {
+        private final Long scheduleId;
+        private final Slot before;
+        private final Slot after;
+    }
+
+    // Vị trí của lịch học trên lưới (tuần × thứ × tiết) cùng lớp, giáo viên, phòng
+    @Getter
+    @AllArgsConstructor
+    public static class Slot {
+        private final Long scheduleId;
+        private final Long classId;
+        private final Long teacherId;
+        private final Long roomId;
+        private final int dayOfWeek;
+        private final int startPeriod;
+        private final int endPeriod;
+        private final int startWeek;
+        private final int endWeek;
+
+        public static Slot of(Schedule s) {
+            return new Slot(s.getScheduleId(),
+                    s.getClassObj() != null ? s.getClassObj().getClassId() : null,
+                    s.getTeacher() != null ? s.getTeacher().getUserId() : null,
+                    s.getRoomObj() != null ? s.getRoomObj().getRoomId() : null,
+                    s.getDayOfWeek(), s.getStartPeriod(), s.getEndPeriod(), s.getStartWeek(), s.getEndWeek());
+        }
+
+        // Từ một dòng của ScheduleRepository.findAllSlots/findSlotsBy...
+        public static Slot of(Object[] row) {
+            return new Slot((Long) row[0], (Long) row[1], (Long) row[2], (Long) row[3],
+                    (Integer) row[4], (Integer) row[5], (Integer) row[6], (Integer) row[7], (Integer) row[8]);
+        }
+    }
+}
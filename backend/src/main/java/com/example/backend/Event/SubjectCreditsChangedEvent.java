@@ -0,0 +1,14 @@
+package com.example.backend.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+// Phát ra khi số tín chỉ của môn học đổi hoặc môn học bị xóa (kèm các sinh viên có điểm môn đó)
+@Getter
+@AllArgsConstructor
+public class SubjectCreditsChangedEvent {
+    private final Long subjectId;
+    private final Set<Long> studentIds;
+}
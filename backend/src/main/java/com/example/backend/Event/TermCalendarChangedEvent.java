@@ -0,0 +1,11 @@
+package com.example.backend.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Phát ra (trong transaction) khi ngày nghỉ, buổi hủy hoặc buổi học bù của học kỳ thay đổi
+@Getter
+@AllArgsConstructor
+public class TermCalendarChangedEvent {
+    private final Long termId;
+}
@@ -0,0 +1,58 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Nationalized;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "academic_terms")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AcademicTerm {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long termId;
+
+    @Column(nullable = false, unique = true, length = 20)
+    private String termCode; // Ví dụ: 2025-HK1
+
+    @Nationalized
+    @Column(nullable = false, length = 100)
+    private String termName;
+
+    @Column(nullable = false)
+    private LocalDate startDate; // Ngày bắt đầu (tuần 1)
+
+    @Column(nullable = false)
+    private LocalDate endDate; // Ngày kết thúc
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private TermStatus status;
+
+    @Column
+    private LocalDateTime archivedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (status == null) {
+            status = TermStatus.OPEN;
+        }
+    }
+
+    public boolean contains(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+
+    public enum TermStatus {
+        OPEN,       // Đang diễn ra, cho phép ghi
+        CLOSED,     // Đã đóng, chỉ đọc
+        ARCHIVED    // Dữ liệu đã chuyển sang bảng lưu trữ
+    }
+}
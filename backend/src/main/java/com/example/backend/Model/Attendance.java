@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "attendances",
-       uniqueConstraints = @UniqueConstraint(columnNames = {"schedule_id", "student_id", "attendance_date"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"schedule_id", "student_id", "attendance_date"}),
+       indexes = @Index(name = "idx_attendances_term_class", columnList = "term_id, class_id"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -31,6 +32,9 @@ public class Attendance {
     @JoinColumn(name = "schedule_id", nullable = false)
     private Schedule schedule;
 
+    @Column(name = "term_id")
+    private Long termId; // Học kỳ (khóa phân vùng)
+
     @Column(name = "attendance_date", nullable = false)
     private LocalDate attendanceDate; // Ngày điểm danh
 
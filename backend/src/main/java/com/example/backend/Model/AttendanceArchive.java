@@ -0,0 +1,50 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Bản ghi điểm danh của học kỳ đã đóng (chỉ đọc, không khóa ngoại để nén và di chuyển dễ)
+@Entity
+@Table(name = "attendances_archive",
+       indexes = @Index(name = "idx_attendances_archive_term_class", columnList = "term_id, class_id, student_id"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceArchive {
+    @Id
+    @Column(name = "attendance_id")
+    private Long attendanceId;
+
+    @Column(name = "term_id", nullable = false)
+    private Long termId;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "schedule_id", nullable = false)
+    private Long scheduleId;
+
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Attendance.AttendanceStatus status;
+
+    @Column(length = 255)
+    private String notes;
+
+    @Column
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,29 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Bảng tổng hợp số buổi theo (lớp, trạng thái), cập nhật dạng delta khi điểm danh
+@Entity
+@Table(name = "attendance_class_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"class_id", "status"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceClassStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Attendance.AttendanceStatus status;
+
+    @Column(nullable = false)
+    private Long total;
+}
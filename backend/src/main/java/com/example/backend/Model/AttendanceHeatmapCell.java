@@ -0,0 +1,39 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Khối tổng hợp điểm danh theo (lớp, thứ, tiết bắt đầu, tuần, trạng thái), cập nhật dạng delta
+@Entity
+@Table(name = "attendance_heatmap",
+       uniqueConstraints = @UniqueConstraint(
+               columnNames = {"class_id", "day_of_week", "start_period", "week_number", "status"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceHeatmapCell {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Column(name = "day_of_week", nullable = false)
+    private Integer dayOfWeek;
+
+    @Column(name = "start_period", nullable = false)
+    private Integer startPeriod;
+
+    @Column(name = "week_number", nullable = false)
+    private Integer weekNumber; // Tuần trong học kỳ (0 nếu ngày không thuộc học kỳ nào)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Attendance.AttendanceStatus status;
+
+    @Column(nullable = false)
+    private Long total;
+}
@@ -0,0 +1,32 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Bảng tổng hợp số buổi theo (lớp, sinh viên, trạng thái), cập nhật dạng delta khi điểm danh
+@Entity
+@Table(name = "attendance_student_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"class_id", "student_id", "status"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceStudentStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Attendance.AttendanceStatus status;
+
+    @Column(nullable = false)
+    private Long total;
+}
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "grades")
+@Table(name = "grades",
+       indexes = @Index(name = "idx_grades_term_class", columnList = "term_id, class_id"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -29,12 +30,21 @@ public class Grade {
     @JoinColumn(name = "subject_id", nullable = false)
     private Subject subject;
 
+    @Column(name = "term_id")
+    private Long termId; // Học kỳ (khóa phân vùng)
+
     @Column(nullable = false)
     private Double processScore; // Điểm quá trình
 
     @Column(nullable = false)
     private Double midtermScore; // Điểm giữa kỳ
 
+    @Column
+    private Double finalExamScore; // Điểm thi cuối kỳ (có thể chưa có)
+
+    @Column
+    private Double finalScore; // Điểm tổng kết theo công thức của môn (lưu sẵn, null khi chưa đủ thành phần)
+
     @Column(length = 500)
     private String comments; // Nhận xét của giáo viên
 
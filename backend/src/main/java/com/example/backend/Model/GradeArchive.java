@@ -0,0 +1,57 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Điểm của học kỳ đã đóng (chỉ đọc, không khóa ngoại để nén và di chuyển dễ)
+@Entity
+@Table(name = "grades_archive",
+       indexes = @Index(name = "idx_grades_archive_term_student", columnList = "term_id, student_id"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GradeArchive {
+    @Id
+    @Column(name = "grade_id")
+    private Long gradeId;
+
+    @Column(name = "term_id", nullable = false)
+    private Long termId;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(nullable = false)
+    private Double processScore;
+
+    @Column(nullable = false)
+    private Double midtermScore;
+
+    @Column
+    private Double finalExamScore;
+
+    @Column
+    private Double finalScore;
+
+    @Column(length = 500)
+    private String comments;
+
+    @Column
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @Column
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,39 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Trạng thái chốt điểm của một lớp trong một học kỳ (khi frozen, điểm chỉ được đọc từ bản chụp)
+@Entity
+@Table(name = "grade_freezes",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"class_id", "term_id"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GradeFreeze {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long freezeId;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Column(name = "term_id", nullable = false)
+    private Long termId;
+
+    @Column(nullable = false)
+    private Boolean frozen = false;
+
+    @Column(nullable = false)
+    private Integer currentVersion = 0; // Phiên bản bản chụp đang công bố
+
+    @Column
+    private Long frozenBy;
+
+    @Column
+    private LocalDateTime frozenAt;
+}
@@ -0,0 +1,54 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+// Bản chụp bảng điểm đã chốt của lớp trong học kỳ: JSON nén GZIP, không bao giờ sửa.
+// Mỗi lần chốt lại sau khi mở khóa tạo một phiên bản mới.
+@Entity
+@Immutable
+@Table(name = "grade_snapshots",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"class_id", "term_id", "version"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GradeSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long snapshotId;
+
+    @Column(name = "class_id", nullable = false)
+    private Long classId;
+
+    @Column(name = "term_id", nullable = false)
+    private Long termId;
+
+    @Column(nullable = false)
+    private Integer version;
+
+    @Column(nullable = false)
+    private Integer gradeCount;
+
+    @Column(nullable = false, length = 64)
+    private String checksum; // SHA-256 của JSON trước khi nén
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload; // JSON danh sách GradeResponse, nén GZIP
+
+    @Column
+    private Long createdBy;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.backend.Model;
+
+import com.example.backend.Util.CompiledGradingFormula;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Công thức tính điểm tổng kết của một môn
+// finalScore = làm tròn(processWeight × quá trình + midtermWeight × giữa kỳ + finalWeight × cuối kỳ), trọng số được chuẩn hóa về tổng 1
+@Entity
+@Table(name = "grading_formulas")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GradingFormula {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long formulaId;
+
+    @Column(name = "subject_id", nullable = false, unique = true)
+    private Long subjectId;
+
+    @Column(nullable = false)
+    private Double processWeight = 0.5;
+
+    @Column(nullable = false)
+    private Double midtermWeight = 0.5;
+
+    @Column(nullable = false)
+    private Double finalWeight = 0.0;
+
+    @Column(nullable = false)
+    private Double roundingStep = 0.0; // Bước làm tròn (0.1, 0.25, 0.5...), 0 = không làm tròn
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private CompiledGradingFormula.Rounding roundingMode = CompiledGradingFormula.Rounding.HALF_UP;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Biên dịch thành bộ tính điểm dùng lại cho mọi dòng
+    public CompiledGradingFormula compile() {
+        return CompiledGradingFormula.compile(processWeight, midtermWeight, finalWeight, roundingStep, roundingMode);
+    }
+}
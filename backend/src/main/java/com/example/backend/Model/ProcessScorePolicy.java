@@ -0,0 +1,57 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Quy tắc tính điểm quá trình từ điểm danh của một lớp
+// processScore = max(minScore, baseScore - vắng × absentPenalty - muộn × latePenalty - có phép × excusedPenalty)
+@Entity
+@Table(name = "process_score_policies")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProcessScorePolicy {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long policyId;
+
+    @Column(name = "class_id", nullable = false, unique = true)
+    private Long classId;
+
+    @Column(nullable = false)
+    private Double baseScore = 10.0;
+
+    @Column(nullable = false)
+    private Double absentPenalty = 0.5;
+
+    @Column(nullable = false)
+    private Double latePenalty = 0.25;
+
+    @Column(nullable = false)
+    private Double excusedPenalty = 0.0;
+
+    @Column(nullable = false)
+    private Double minScore = 0.0;
+
+    @Column(nullable = false)
+    private Boolean enabled = true;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Điểm quá trình ứng với số buổi theo trạng thái
+    public double compute(long absent, long late, long excused) {
+        double score = baseScore - absent * absentPenalty - late * latePenalty - excused * excusedPenalty;
+        return Math.round(Math.max(minScore, score) * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Nationalized;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+// Phòng học (mã phòng đã chuẩn hóa: bỏ khoảng trắng thừa, viết hoa)
+@Entity
+@Table(name = "rooms")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Room {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long roomId;
+
+    @Column(nullable = false, unique = true, length = 50)
+    private String roomCode;
+
+    @Nationalized
+    @Column(length = 100)
+    private String building; // Tòa nhà
+
+    @Column
+    private Integer capacity; // Sức chứa
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Chuẩn hóa mã phòng nhập tự do ("  a1-101 " -> "A1-101")
+    public static String normalizeCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        String normalized = code.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+}
@@ -32,7 +32,11 @@ public class Schedule {
     private User teacher;
 
     @Column(nullable = false, length = 50)
-    private String room;
+    private String room; // Mã phòng (giữ dạng chữ cho client cũ, trùng với roomObj.roomCode)
+
+    @ManyToOne
+    @JoinColumn(name = "room_id")
+    private Room roomObj;
 
     @Column(nullable = false)
     private Integer dayOfWeek; // 2=Thứ 2, 3=Thứ 3, ..., 7=Chủ nhật
@@ -84,7 +88,8 @@ public class Schedule {
         this.session = (startPeriod <= 5) ? "MORNING" : "AFTERNOON";
     }
 
-    private LocalTime getStartTimeByPeriod(Integer period) {
+    // Giờ bắt đầu/kết thúc của một tiết (dùng chung cho buổi học bù)
+    public static LocalTime getStartTimeByPeriod(Integer period) {
         return switch (period) {
             case 1 -> LocalTime.of(7, 0);   // 07:00
             case 2 -> LocalTime.of(7, 50);  // 07:50
@@ -100,7 +105,7 @@ public class Schedule {
         };
     }
 
-    private LocalTime getEndTimeByPeriod(Integer period) {
+    public static LocalTime getEndTimeByPeriod(Integer period) {
         return switch (period) {
             case 1 -> LocalTime.of(7, 50);  // 07:50
             case 2 -> LocalTime.of(8, 40);  // 08:40
@@ -0,0 +1,75 @@
+package com.example.backend.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Nationalized;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Ngoại lệ của lịch học kỳ: ngày nghỉ (mọi buổi), buổi bị hủy hoặc buổi học bù của một lịch học
+@Entity
+@Table(name = "term_calendar_entries",
+       indexes = @Index(name = "idx_term_calendar_term_date", columnList = "term_id, entry_date"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TermCalendarEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long entryId;
+
+    @Column(name = "term_id", nullable = false)
+    private Long termId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private EntryType entryType;
+
+    @Column(name = "entry_date", nullable = false)
+    private LocalDate date; // Ngày nghỉ / ngày bị hủy / ngày học bù
+
+    @Column
+    private LocalDate endDate; // Ngày nghỉ kéo dài nhiều ngày (null = một ngày)
+
+    @Column(name = "schedule_id")
+    private Long scheduleId; // Lịch học bị hủy hoặc được học bù (null với ngày nghỉ)
+
+    @Column
+    private LocalDate originalDate; // Học bù cho buổi ngày nào (không bắt buộc)
+
+    @Column
+    private Integer startPeriod; // Tiết học bù
+
+    @Column
+    private Integer endPeriod;
+
+    @Column(length = 50)
+    private String room; // Phòng học bù (null = phòng của lịch học)
+
+    @Nationalized
+    @Column(length = 255)
+    private String note;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Ngày nghỉ có bao gồm ngày date không
+    public boolean covers(LocalDate day) {
+        LocalDate last = endDate != null ? endDate : date;
+        return !day.isBefore(date) && !day.isAfter(last);
+    }
+
+    public enum EntryType {
+        HOLIDAY,    // Nghỉ cả trường
+        CANCELLED,  // Hủy một buổi của lịch học
+        MAKEUP      // Buổi học bù của lịch học
+    }
+}
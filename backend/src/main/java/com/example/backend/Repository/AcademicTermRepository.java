@@ -0,0 +1,17 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.AcademicTerm;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AcademicTermRepository extends JpaRepository<AcademicTerm, Long> {
+
+    // Kiểm tra mã học kỳ đã tồn tại chưa
+    boolean existsByTermCode(String termCode);
+
+    // Lấy tất cả học kỳ theo thứ tự thời gian
+    List<AcademicTerm> findAllByOrderByStartDateAsc();
+}
@@ -0,0 +1,22 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.AttendanceClassStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttendanceClassStatRepository extends JpaRepository<AttendanceClassStat, Long>,
+        AttendanceClassStatRepositoryCustom {
+
+    // Lấy bộ đếm theo lớp
+    List<AttendanceClassStat> findByClassId(Long classId);
+
+    @Modifying
+    @Query("DELETE FROM AttendanceClassStat s WHERE s.classId = :classId")
+    void deleteByClassId(@Param("classId") Long classId);
+}
@@ -0,0 +1,29 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.AttendanceHeatmapCell;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttendanceHeatmapRepository extends JpaRepository<AttendanceHeatmapCell, Long>,
+        AttendanceHeatmapRepositoryCustom {
+
+    // Heatmap toàn trường: (thứ, tiết, tuần, trạng thái, tổng)
+    @Query("SELECT h.dayOfWeek, h.startPeriod, h.weekNumber, h.status, SUM(h.total) FROM AttendanceHeatmapCell h " +
+           "GROUP BY h.dayOfWeek, h.startPeriod, h.weekNumber, h.status")
+    List<Object[]> sumAll();
+
+    // Heatmap của một lớp
+    @Query("SELECT h.dayOfWeek, h.startPeriod, h.weekNumber, h.status, SUM(h.total) FROM AttendanceHeatmapCell h " +
+           "WHERE h.classId = :classId GROUP BY h.dayOfWeek, h.startPeriod, h.weekNumber, h.status")
+    List<Object[]> sumByClassId(@Param("classId") Long classId);
+
+    @Modifying
+    @Query("DELETE FROM AttendanceHeatmapCell h WHERE h.classId = :classId")
+    void deleteByClassId(@Param("classId") Long classId);
+}
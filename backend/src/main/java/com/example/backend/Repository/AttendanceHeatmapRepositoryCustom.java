@@ -0,0 +1,25 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+public interface AttendanceHeatmapRepositoryCustom {
+
+    // Cộng delta vào các ô (lớp, thứ, tiết, tuần, trạng thái) bằng một lô upsert (MERGE / ON CONFLICT
+    // trên unique key của ô): chưa có dòng thì chèn mới với total = delta
+    int addDeltas(List<Delta> deltas);
+
+    @Getter
+    @AllArgsConstructor
+    class Delta {
+        private final Long classId;
+        private final int dayOfWeek;
+        private final int startPeriod;
+        private final int weekNumber;
+        private final Attendance.AttendanceStatus status;
+        private final long delta;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.backend.Repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class AttendanceHeatmapRepositoryImpl implements AttendanceHeatmapRepositoryCustom {
+
+    private static final int BATCH_SIZE = 200;
+
+    // SQL Server: MERGE có HOLDLOCK để hai giao dịch không cùng chèn một ô
+    private static final String SQL_SERVER_UPSERT =
+            "MERGE attendance_heatmap WITH (HOLDLOCK) AS t " +
+            "USING (VALUES (?, ?, ?, ?, ?, ?)) AS s (class_id, day_of_week, start_period, week_number, status, delta) " +
+            "ON t.class_id = s.class_id AND t.day_of_week = s.day_of_week AND t.start_period = s.start_period " +
+            "AND t.week_number = s.week_number AND t.status = s.status " +
+            "WHEN MATCHED THEN UPDATE SET t.total = t.total + s.delta " +
+            "WHEN NOT MATCHED THEN INSERT (class_id, day_of_week, start_period, week_number, status, total) " +
+            "VALUES (s.class_id, s.day_of_week, s.start_period, s.week_number, s.status, s.delta);";
+
+    private static final String POSTGRES_UPSERT =
+            "INSERT INTO attendance_heatmap (class_id, day_of_week, start_period, week_number, status, total) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (class_id, day_of_week, start_period, week_number, status) " +
+            "DO UPDATE SET total = attendance_heatmap.total + EXCLUDED.total";
+
+    private static final String STANDARD_UPSERT =
+            "MERGE INTO attendance_heatmap t " +
+            "USING (SELECT CAST(? AS BIGINT) AS class_id, CAST(? AS INTEGER) AS day_of_week, " +
+            "CAST(? AS INTEGER) AS start_period, CAST(? AS INTEGER) AS week_number, " +
+            "CAST(? AS VARCHAR(10)) AS status, CAST(? AS BIGINT) AS delta) s " +
+            "ON (t.class_id = s.class_id AND t.day_of_week = s.day_of_week AND t.start_period = s.start_period " +
+            "AND t.week_number = s.week_number AND t.status = s.status) " +
+            "WHEN MATCHED THEN UPDATE SET total = t.total + s.delta " +
+            "WHEN NOT MATCHED THEN INSERT (class_id, day_of_week, start_period, week_number, status, total) " +
+            "VALUES (s.class_id, s.day_of_week, s.start_period, s.week_number, s.status, s.delta)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlDialect sqlDialect;
+
+    @Override
+    public int addDeltas(List<Delta> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return 0;
+        }
+
+        String sql = sqlDialect.pick(SQL_SERVER_UPSERT, POSTGRES_UPSERT, STANDARD_UPSERT);
+        jdbcTemplate.batchUpdate(sql, deltas, BATCH_SIZE, (ps, d) -> {
+            ps.setLong(1, d.getClassId());
+            ps.setInt(2, d.getDayOfWeek());
+            ps.setInt(3, d.getStartPeriod());
+            ps.setInt(4, d.getWeekNumber());
+            ps.setString(5, d.getStatus().name());
+            ps.setLong(6, d.getDelta());
+        });
+        return deltas.size();
+    }
+}
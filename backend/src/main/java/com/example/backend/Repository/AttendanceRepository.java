@@ -1,6 +1,7 @@
 package com.example.backend.Repository;
 
 import com.example.backend.Model.Attendance;
+import com.example.backend.Model.AttendanceArchive;
 import com.example.backend.Model.ClassEntity;
 import com.example.backend.Model.Schedule;
 import com.example.backend.Model.User;
@@ -12,11 +13,12 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
+public interface AttendanceRepository extends JpaRepository<Attendance, Long>, AttendanceRepositoryCustom {
     
     // Tìm điểm danh theo lớp và ngày
     List<Attendance> findByClassObjAndAttendanceDate(ClassEntity classObj, LocalDate attendanceDate);
@@ -38,14 +40,100 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     @Transactional
     @Query("DELETE FROM Attendance a WHERE a.schedule = :schedule AND a.attendanceDate = :date")
     void deleteByScheduleAndAttendanceDate(@Param("schedule") Schedule schedule, @Param("date") LocalDate date);
+
+    // Lấy trạng thái hiện có của một buổi học trong ngày (chỉ studentId + status, không nạp entity)
+    @Query("SELECT a.student.userId, a.status FROM Attendance a " +
+           "WHERE a.schedule.scheduleId = :scheduleId AND a.attendanceDate = :date")
+    List<Object[]> findStatusesByScheduleAndDate(@Param("scheduleId") Long scheduleId, @Param("date") LocalDate date);
+
+    // Xóa điểm danh của các sinh viên không còn trong lớp cho một buổi học
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Attendance a WHERE a.schedule.scheduleId = :scheduleId AND a.attendanceDate = :date " +
+           "AND a.student.userId IN :studentIds")
+    int deleteByScheduleAndDateAndStudentIds(@Param("scheduleId") Long scheduleId,
+                                             @Param("date") LocalDate date,
+                                             @Param("studentIds") List<Long> studentIds);
     
     // Thống kê điểm danh theo lớp
     @Query("SELECT a.status, COUNT(a) FROM Attendance a WHERE a.classObj = :classObj GROUP BY a.status")
     List<Object[]> countAttendanceByStatus(@Param("classObj") ClassEntity classObj);
+
+    // Thống kê điểm danh theo sinh viên và trạng thái (dùng để dựng lại bảng tổng hợp)
+    @Query("SELECT a.student.userId, a.status, COUNT(a) FROM Attendance a " +
+           "WHERE a.classObj.classId = :classId GROUP BY a.student.userId, a.status")
+    List<Object[]> countAttendanceByStudentAndStatus(@Param("classId") Long classId);
+    
+    // Lấy các bản ghi cần sửa của lớp theo ID hoặc theo (sinh viên, ngày) trong một truy vấn
+    // Trả về (attendanceId, studentId, scheduleId, ngày, trạng thái, ghi chú)
+    @Query("SELECT a.attendanceId, a.student.userId, a.schedule.scheduleId, a.attendanceDate, a.status, a.notes " +
+           "FROM Attendance a WHERE a.classObj.classId = :classId AND (a.attendanceId IN :attendanceIds " +
+           "OR (a.student.userId IN :studentIds AND a.attendanceDate IN :dates))")
+    List<Object[]> findCorrectionTargets(@Param("classId") Long classId,
+                                         @Param("attendanceIds") Collection<Long> attendanceIds,
+                                         @Param("studentIds") Collection<Long> studentIds,
+                                         @Param("dates") Collection<LocalDate> dates);
+
+    // Lấy toàn bộ ô điểm danh của lớp (studentId, scheduleId, ngày, trạng thái) để dựng ma trận
+    @Query("SELECT a.student.userId, a.schedule.scheduleId, a.attendanceDate, a.status " +
+           "FROM Attendance a WHERE a.classObj.classId = :classId")
+    List<Object[]> findStatusCellsByClassId(@Param("classId") Long classId);
     
     // Lấy điểm danh theo lớp và khoảng thời gian
     @Query("SELECT a FROM Attendance a WHERE a.classObj = :classObj AND a.attendanceDate BETWEEN :startDate AND :endDate")
     List<Attendance> findByClassAndDateRange(@Param("classObj") ClassEntity classObj, 
                                            @Param("startDate") LocalDate startDate, 
                                            @Param("endDate") LocalDate endDate);
+
+    // Gán học kỳ cho các bản ghi cũ chưa có học kỳ
+    @Modifying
+    @Transactional
+    @Query("UPDATE Attendance a SET a.termId = :termId WHERE a.termId IS NULL " +
+           "AND a.attendanceDate BETWEEN :startDate AND :endDate")
+    int assignTerm(@Param("termId") Long termId,
+                   @Param("startDate") LocalDate startDate,
+                   @Param("endDate") LocalDate endDate);
+
+    // Các lớp có dữ liệu điểm danh trong học kỳ
+    @Query("SELECT DISTINCT a.classObj.classId FROM Attendance a WHERE a.termId = :termId")
+    List<Long> findClassIdsByTermId(@Param("termId") Long termId);
+
+    // Chép điểm danh của một lớp trong học kỳ sang bảng lưu trữ
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO attendances_archive (attendance_id, term_id, class_id, student_id, schedule_id, " +
+                   "attendance_date, status, notes, created_at, archived_at) " +
+                   "SELECT attendance_id, term_id, class_id, student_id, schedule_id, attendance_date, status, notes, " +
+                   "created_at, CURRENT_TIMESTAMP FROM attendances WHERE term_id = :termId AND class_id = :classId",
+           nativeQuery = true)
+    int copyToArchive(@Param("termId") Long termId, @Param("classId") Long classId);
+
+    // Xóa điểm danh đã chép sang bảng lưu trữ
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM attendances WHERE term_id = :termId AND class_id = :classId", nativeQuery = true)
+    int deleteArchived(@Param("termId") Long termId, @Param("classId") Long classId);
+
+    // Lịch sử điểm danh đã lưu trữ của sinh viên trong lớp
+    @Query("SELECT a FROM AttendanceArchive a WHERE a.studentId = :studentId AND a.classId = :classId " +
+           "ORDER BY a.attendanceDate")
+    List<AttendanceArchive> findArchivedByStudentAndClass(@Param("studentId") Long studentId,
+                                                          @Param("classId") Long classId);
+
+    // Thống kê điểm danh đã lưu trữ theo sinh viên và trạng thái
+    @Query("SELECT a.studentId, a.status, COUNT(a) FROM AttendanceArchive a " +
+           "WHERE a.classId = :classId GROUP BY a.studentId, a.status")
+    List<Object[]> countArchivedByStudentAndStatus(@Param("classId") Long classId);
+
+    // Đếm điểm danh của lớp theo (thứ, tiết, ngày, trạng thái), dùng để dựng lại heatmap
+    @Query("SELECT s.dayOfWeek, s.startPeriod, a.attendanceDate, a.status, COUNT(a) FROM Attendance a " +
+           "JOIN a.schedule s WHERE a.classObj.classId = :classId " +
+           "GROUP BY s.dayOfWeek, s.startPeriod, a.attendanceDate, a.status")
+    List<Object[]> countBySlotAndDate(@Param("classId") Long classId);
+
+    // Như trên cho dữ liệu đã lưu trữ
+    @Query("SELECT s.dayOfWeek, s.startPeriod, a.attendanceDate, a.status, COUNT(a) " +
+           "FROM AttendanceArchive a, Schedule s WHERE s.scheduleId = a.scheduleId AND a.classId = :classId " +
+           "GROUP BY s.dayOfWeek, s.startPeriod, a.attendanceDate, a.status")
+    List<Object[]> countArchivedBySlotAndDate(@Param("classId") Long classId);
 }
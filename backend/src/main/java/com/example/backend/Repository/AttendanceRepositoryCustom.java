@@ -0,0 +1,29 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface AttendanceRepositoryCustom {
+
+    // Ghi trạng thái điểm danh của một buổi học theo lô (MERGE / ON CONFLICT trên khóa
+    // (schedule_id, student_id, attendance_date)). Chỉ những dòng đổi trạng thái mới bị ghi.
+    // termId chỉ được ghi khi chèn dòng mới (có thể null nếu ngày không thuộc học kỳ nào).
+    int upsertStatuses(Long classId, Long scheduleId, Long termId, LocalDate date,
+                       Map<Long, Attendance.AttendanceStatus> statuses);
+
+    // Cập nhật trạng thái + ghi chú của nhiều bản ghi bằng một lô UPDATE theo attendance_id
+    int updateStatuses(List<StatusUpdate> updates);
+
+    @Getter
+    @AllArgsConstructor
+    class StatusUpdate {
+        private final Long attendanceId;
+        private final Attendance.AttendanceStatus status;
+        private final String notes;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.Attendance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class AttendanceRepositoryImpl implements AttendanceRepositoryCustom {
+
+    private static final int BATCH_SIZE = 200;
+
+    // SQL Server: MERGE có HOLDLOCK để tránh hai giáo viên cùng chèn một dòng
+    private static final String SQL_SERVER_UPSERT =
+            "MERGE attendances WITH (HOLDLOCK) AS t " +
+            "USING (VALUES (?, ?, ?, ?, ?, ?)) AS s (class_id, schedule_id, term_id, student_id, attendance_date, status) " +
+            "ON t.schedule_id = s.schedule_id AND t.student_id = s.student_id AND t.attendance_date = s.attendance_date " +
+            "WHEN MATCHED AND t.status <> s.status THEN UPDATE SET t.status = s.status " +
+            "WHEN NOT MATCHED THEN INSERT (class_id, schedule_id, term_id, student_id, attendance_date, status, created_at) " +
+            "VALUES (s.class_id, s.schedule_id, s.term_id, s.student_id, s.attendance_date, s.status, CURRENT_TIMESTAMP);";
+
+    // PostgreSQL: ON CONFLICT trên unique constraint, bỏ qua dòng không đổi trạng thái
+    private static final String POSTGRES_UPSERT =
+            "INSERT INTO attendances (class_id, schedule_id, term_id, student_id, attendance_date, status, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (schedule_id, student_id, attendance_date) " +
+            "DO UPDATE SET status = EXCLUDED.status WHERE attendances.status <> EXCLUDED.status";
+
+    // Các CSDL khác (H2, ...): MERGE chuẩn SQL:2008
+    private static final String STANDARD_UPSERT =
+            "MERGE INTO attendances t " +
+            "USING (SELECT CAST(? AS BIGINT) AS class_id, CAST(? AS BIGINT) AS schedule_id, CAST(? AS BIGINT) AS term_id, " +
+            "CAST(? AS BIGINT) AS student_id, CAST(? AS DATE) AS attendance_date, CAST(? AS VARCHAR(10)) AS status) s " +
+            "ON (t.schedule_id = s.schedule_id AND t.student_id = s.student_id AND t.attendance_date = s.attendance_date) " +
+            "WHEN MATCHED AND t.status <> s.status THEN UPDATE SET status = s.status " +
+            "WHEN NOT MATCHED THEN INSERT (class_id, schedule_id, term_id, student_id, attendance_date, status, created_at) " +
+            "VALUES (s.class_id, s.schedule_id, s.term_id, s.student_id, s.attendance_date, s.status, CURRENT_TIMESTAMP)";
+
+    private static final String UPDATE_STATUS =
+            "UPDATE attendances SET status = ?, notes = ? WHERE attendance_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlDialect sqlDialect;
+
+    @Override
+    public int upsertStatuses(Long classId, Long scheduleId, Long termId, LocalDate date,
+                              Map<Long, Attendance.AttendanceStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return 0;
+        }
+
+        List<Map.Entry<Long, Attendance.AttendanceStatus>> rows = new ArrayList<>(statuses.entrySet());
+        Date sqlDate = Date.valueOf(date);
+
+        String sql = sqlDialect.pick(SQL_SERVER_UPSERT, POSTGRES_UPSERT, STANDARD_UPSERT);
+        jdbcTemplate.batchUpdate(sql, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, classId);
+            ps.setLong(2, scheduleId);
+            ps.setObject(3, termId, Types.BIGINT);
+            ps.setLong(4, row.getKey());
+            ps.setDate(5, sqlDate);
+            ps.setString(6, row.getValue().name());
+        });
+        return rows.size();
+    }
+
+    @Override
+    public int updateStatuses(List<StatusUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_STATUS, updates, BATCH_SIZE, (ps, update) -> {
+            ps.setString(1, update.getStatus().name());
+            ps.setString(2, update.getNotes());
+            ps.setLong(3, update.getAttendanceId());
+        });
+        return updates.size();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.AttendanceStudentStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AttendanceStudentStatRepository extends JpaRepository<AttendanceStudentStat, Long>,
+        AttendanceStudentStatRepositoryCustom {
+
+    // Lấy bộ đếm của một sinh viên trong lớp
+    List<AttendanceStudentStat> findByClassIdAndStudentId(Long classId, Long studentId);
+
+    // Lấy bộ đếm của toàn bộ sinh viên trong lớp
+    List<AttendanceStudentStat> findByClassId(Long classId);
+
+    @Modifying
+    @Query("DELETE FROM AttendanceStudentStat s WHERE s.classId = :classId")
+    void deleteByClassId(@Param("classId") Long classId);
+
+    // Bộ đếm (studentId, status, total) đọc thẳng từ CSDL, không qua entity đã nạp
+    @Query("SELECT s.studentId, s.status, s.total FROM AttendanceStudentStat s " +
+           "WHERE s.classId = :classId AND s.studentId IN :studentIds")
+    List<Object[]> findCountsByClassIdAndStudentIds(@Param("classId") Long classId,
+                                                    @Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT s.studentId, s.status, s.total FROM AttendanceStudentStat s WHERE s.classId = :classId")
+    List<Object[]> findCountsByClassId(@Param("classId") Long classId);
+}
@@ -0,0 +1,23 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+public interface AttendanceStudentStatRepositoryCustom {
+
+    // Cộng delta vào bộ đếm theo (lớp, sinh viên, trạng thái) bằng một lô upsert (MERGE / ON CONFLICT
+    // trên khóa (class_id, student_id, status)): chưa có dòng thì chèn mới với total = delta
+    int addDeltas(List<Delta> deltas);
+
+    @Getter
+    @AllArgsConstructor
+    class Delta {
+        private final Long classId;
+        private final Long studentId;
+        private final Attendance.AttendanceStatus status;
+        private final long delta;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.backend.Repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class AttendanceStudentStatRepositoryImpl implements AttendanceStudentStatRepositoryCustom {
+
+    private static final int BATCH_SIZE = 200;
+
+    // SQL Server: MERGE có HOLDLOCK để hai giao dịch không cùng chèn một dòng
+    private static final String SQL_SERVER_UPSERT =
+            "MERGE attendance_student_stats WITH (HOLDLOCK) AS t " +
+            "USING (VALUES (?, ?, ?, ?)) AS s (class_id, student_id, status, delta) " +
+            "ON t.class_id = s.class_id AND t.student_id = s.student_id AND t.status = s.status " +
+            "WHEN MATCHED THEN UPDATE SET t.total = t.total + s.delta " +
+            "WHEN NOT MATCHED THEN INSERT (class_id, student_id, status, total) " +
+            "VALUES (s.class_id, s.student_id, s.status, s.delta);";
+
+    private static final String POSTGRES_UPSERT =
+            "INSERT INTO attendance_student_stats (class_id, student_id, status, total) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (class_id, student_id, status) " +
+            "DO UPDATE SET total = attendance_student_stats.total + EXCLUDED.total";
+
+    private static final String STANDARD_UPSERT =
+            "MERGE INTO attendance_student_stats t " +
+            "USING (SELECT CAST(? AS BIGINT) AS class_id, CAST(? AS BIGINT) AS student_id, " +
+            "CAST(? AS VARCHAR(10)) AS status, CAST(? AS BIGINT) AS delta) s " +
+            "ON (t.class_id = s.class_id AND t.student_id = s.student_id AND t.status = s.status) " +
+            "WHEN MATCHED THEN UPDATE SET total = t.total + s.delta " +
+            "WHEN NOT MATCHED THEN INSERT (class_id, student_id, status, total) " +
+            "VALUES (s.class_id, s.student_id, s.status, s.delta)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlDialect sqlDialect;
+
+    @Override
+    public int addDeltas(List<Delta> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return 0;
+        }
+
+        String sql = sqlDialect.pick(SQL_SERVER_UPSERT, POSTGRES_UPSERT, STANDARD_UPSERT);
+        jdbcTemplate.batchUpdate(sql, deltas, BATCH_SIZE, (ps, d) -> {
+            ps.setLong(1, d.getClassId());
+            ps.setLong(2, d.getStudentId());
+            ps.setString(3, d.getStatus().name());
+            ps.setLong(4, d.getDelta());
+        });
+        return deltas.size();
+    }
+}
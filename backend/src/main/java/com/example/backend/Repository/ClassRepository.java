@@ -2,11 +2,14 @@ package com.example.backend.Repository;
 
 import com.example.backend.Model.ClassEntity;
 import com.example.backend.Model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +18,10 @@ public interface ClassRepository extends JpaRepository<ClassEntity, Long> {
     
     // Tìm lớp theo mã lớp
     Optional<ClassEntity> findByClassCode(String classCode);
+
+    // Tìm nhiều lớp theo mã lớp viết hoa, không phân biệt hoa thường (nhập lịch theo lô)
+    @Query("SELECT c FROM ClassEntity c WHERE UPPER(c.classCode) IN :classCodes")
+    List<ClassEntity> findByUpperClassCodeIn(@Param("classCodes") Collection<String> classCodes);
     
     // Kiểm tra mã lớp đã tồn tại chưa
     boolean existsByClassCode(String classCode);
@@ -28,4 +35,26 @@ public interface ClassRepository extends JpaRepository<ClassEntity, Long> {
     // Tìm lớp mà sinh viên đã đăng ký
     @Query("SELECT c FROM ClassEntity c JOIN c.classStudents cs WHERE cs.student = :student")
     List<ClassEntity> findByStudentEnrolled(@Param("student") User student);
-}
\ No newline at end of file
+
+    // Lấy ID của tất cả lớp (không nạp entity)
+    @Query("SELECT c.classId FROM ClassEntity c")
+    List<Long> findAllClassIds();
+
+    // Lấy ID các lớp do giáo viên quản lý
+    @Query("SELECT c.classId FROM ClassEntity c WHERE c.teacher.userId = :teacherId")
+    List<Long> findClassIdsByTeacherId(@Param("teacherId") Long teacherId);
+
+    // Lấy (classId, classCode) các lớp do giáo viên quản lý
+    @Query("SELECT c.classId, c.classCode FROM ClassEntity c WHERE c.teacher.userId = :teacherId")
+    List<Object[]> findCodesByTeacherId(@Param("teacherId") Long teacherId);
+
+    // Khóa ghi dòng lớp: tính lại dữ liệu tổng hợp của lớp trong khi chặn các giao dịch cùng lớp
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ClassEntity c WHERE c.classId = :classId")
+    Optional<ClassEntity> lockById(@Param("classId") Long classId);
+
+    // Khóa đọc (dùng chung) các lớp: nhiều giao dịch ghi delta cùng chạy được, nhưng chờ lượt tính lại
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM ClassEntity c WHERE c.classId IN :classIds ORDER BY c.classId")
+    List<ClassEntity> lockSharedByIds(@Param("classIds") Collection<Long> classIds);
+}
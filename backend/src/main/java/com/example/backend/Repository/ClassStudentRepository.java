@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,4 +34,27 @@ public interface ClassStudentRepository extends JpaRepository<ClassStudent, Long
     // Kiểm tra tồn tại theo classId và studentId
     @Query("SELECT COUNT(cs) > 0 FROM ClassStudent cs WHERE cs.classObj.classId = :classId AND cs.student.userId = :studentId")
     boolean existsByClassIdAndStudentId(@Param("classId") Long classId, @Param("studentId") Long studentId);
-}
\ No newline at end of file
+
+    // Lấy danh sách ID sinh viên của lớp (không nạp entity User)
+    @Query("SELECT cs.student.userId FROM ClassStudent cs WHERE cs.classObj.classId = :classId")
+    List<Long> findStudentIdsByClassId(@Param("classId") Long classId);
+
+    // Lấy (ID, họ tên) sinh viên của lớp, sắp theo họ tên
+    @Query("SELECT cs.student.userId, cs.student.fullName FROM ClassStudent cs " +
+           "WHERE cs.classObj.classId = :classId ORDER BY cs.student.fullName")
+    List<Object[]> findStudentNamesByClassId(@Param("classId") Long classId);
+
+    // Danh sách lớp (classId, studentId, email) của mọi lớp do giáo viên quản lý
+    @Query("SELECT cs.classObj.classId, cs.student.userId, cs.student.email FROM ClassStudent cs " +
+           "WHERE cs.classObj.teacher.userId = :teacherId")
+    List<Object[]> findRosterByTeacherId(@Param("teacherId") Long teacherId);
+
+    // Sĩ số các lớp (classId, số sinh viên)
+    @Query("SELECT cs.classObj.classId, COUNT(cs) FROM ClassStudent cs WHERE cs.classObj.classId IN :classIds " +
+           "GROUP BY cs.classObj.classId")
+    List<Object[]> countStudentsByClassIds(@Param("classIds") Collection<Long> classIds);
+
+    // Sinh viên của nhiều lớp (classId, studentId)
+    @Query("SELECT cs.classObj.classId, cs.student.userId FROM ClassStudent cs WHERE cs.classObj.classId IN :classIds")
+    List<Object[]> findStudentIdsByClassIds(@Param("classIds") Collection<Long> classIds);
+}
@@ -3,6 +3,8 @@ package com.example.backend.Repository;
 import com.example.backend.Model.Exam;
 import com.example.backend.Model.ClassEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +17,15 @@ public interface ExamRepository extends JpaRepository<Exam, Long> {
     
     // Tìm lịch thi theo môn học
     // List<Exam> findBySubject(Subject subject);
+
+    // Lịch thi của mọi lớp sinh viên đang học, kèm lớp và môn (dùng cho lịch ICS)
+    @Query("SELECT e FROM Exam e JOIN FETCH e.classObj c JOIN FETCH e.subject " +
+           "WHERE c.classId IN (SELECT cs.classObj.classId FROM ClassStudent cs WHERE cs.student.userId = :studentId) " +
+           "ORDER BY e.examDate, e.examTime")
+    List<Exam> findWithDetailsByStudentId(@Param("studentId") Long studentId);
+
+    // Lịch thi của các lớp do giáo viên phụ trách, kèm lớp và môn (dùng cho lịch ICS)
+    @Query("SELECT e FROM Exam e JOIN FETCH e.classObj c JOIN FETCH e.subject " +
+           "WHERE c.teacher.userId = :teacherId ORDER BY e.examDate, e.examTime")
+    List<Exam> findWithDetailsByTeacherId(@Param("teacherId") Long teacherId);
 }
\ No newline at end of file
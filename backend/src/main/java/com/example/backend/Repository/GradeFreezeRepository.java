@@ -0,0 +1,25 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.GradeFreeze;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GradeFreezeRepository extends JpaRepository<GradeFreeze, Long> {
+
+    // Trạng thái chốt điểm của lớp trong học kỳ
+    Optional<GradeFreeze> findByClassIdAndTermId(Long classId, Long termId);
+
+    // Các lớp/học kỳ đang chốt điểm
+    List<GradeFreeze> findByFrozenTrue();
+
+    // (classId, termId) đang chốt của các lớp
+    @Query("SELECT f.classId, f.termId FROM GradeFreeze f WHERE f.frozen = true AND f.classId IN :classIds")
+    List<Object[]> findFrozenByClassIds(@Param("classIds") Collection<Long> classIds);
+}
@@ -1,19 +1,24 @@
 package com.example.backend.Repository;
 
 import com.example.backend.Model.Grade;
+import com.example.backend.Model.GradeArchive;
 import com.example.backend.Model.ClassEntity;
 import com.example.backend.Model.User;
 import com.example.backend.Model.Subject;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface GradeRepository extends JpaRepository<Grade, Long> {
+public interface GradeRepository extends JpaRepository<Grade, Long>, GradeRepositoryCustom {
     
     // Tìm điểm theo lớp
     List<Grade> findByClassObj(ClassEntity classObj);
@@ -30,10 +35,131 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
     // Tìm điểm cụ thể theo sinh viên, lớp và môn học
     Optional<Grade> findByStudentAndClassObjAndSubject(User student, ClassEntity classObj, Subject subject);
     
-    // Thống kê điểm trung bình theo lớp
-    @Query("SELECT AVG((g.processScore + g.midtermScore) / 2) FROM Grade g WHERE g.classObj = :classObj")
+    // Thống kê điểm trung bình theo lớp (điểm tổng kết đã lưu)
+    @Query("SELECT AVG(g.finalScore) FROM Grade g WHERE g.classObj = :classObj")
     Double findAverageScoreByClass(@Param("classObj") ClassEntity classObj);
     
     // Lấy điểm theo lớp và môn học
     List<Grade> findByClassObjAndSubject(ClassEntity classObj, Subject subject);
-}
\ No newline at end of file
+
+    // Gán học kỳ cho các điểm cũ chưa có học kỳ (theo thời điểm tạo)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Grade g SET g.termId = :termId WHERE g.termId IS NULL " +
+           "AND g.createdAt >= :from AND g.createdAt < :to")
+    int assignTerm(@Param("termId") Long termId,
+                   @Param("from") LocalDateTime from,
+                   @Param("to") LocalDateTime to);
+
+    // Các lớp có điểm trong học kỳ
+    @Query("SELECT DISTINCT g.classObj.classId FROM Grade g WHERE g.termId = :termId")
+    List<Long> findClassIdsByTermId(@Param("termId") Long termId);
+
+    // Chép điểm của một lớp trong học kỳ sang bảng lưu trữ
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO grades_archive (grade_id, term_id, class_id, student_id, subject_id, " +
+                   "process_score, midterm_score, final_exam_score, final_score, comments, created_at, updated_at, archived_at) " +
+                   "SELECT grade_id, term_id, class_id, student_id, subject_id, process_score, midterm_score, " +
+                   "final_exam_score, final_score, comments, created_at, updated_at, CURRENT_TIMESTAMP FROM grades " +
+                   "WHERE term_id = :termId AND class_id = :classId",
+           nativeQuery = true)
+    int copyToArchive(@Param("termId") Long termId, @Param("classId") Long classId);
+
+    // Xóa điểm đã chép sang bảng lưu trữ
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM grades WHERE term_id = :termId AND class_id = :classId", nativeQuery = true)
+    int deleteArchived(@Param("termId") Long termId, @Param("classId") Long classId);
+
+    // Điểm đã lưu trữ của sinh viên
+    @Query("SELECT g FROM GradeArchive g WHERE g.studentId = :studentId ORDER BY g.termId")
+    List<GradeArchive> findArchivedByStudent(@Param("studentId") Long studentId);
+
+    // Điểm tổng kết của tất cả sinh viên (classId, studentId, subjectId, finalScore) theo thứ tự sửa, chỉ dùng khi dựng lại
+    @Query("SELECT g.classObj.classId, g.student.userId, g.subject.subjectId, g.finalScore FROM Grade g " +
+           "ORDER BY g.updatedAt, g.gradeId")
+    List<Object[]> findAllScores();
+
+    // Điểm của lớp dạng phẳng
+    // (gradeId, studentId, subjectId, processScore, midtermScore, termId, finalExamScore, finalScore)
+    @Query("SELECT g.gradeId, g.student.userId, g.subject.subjectId, g.processScore, g.midtermScore, g.termId, " +
+           "g.finalExamScore, g.finalScore FROM Grade g WHERE g.classObj.classId = :classId")
+    List<Object[]> findScoresByClassId(@Param("classId") Long classId);
+
+    @Query("SELECT g.gradeId, g.student.userId, g.subject.subjectId, g.processScore, g.midtermScore, g.termId, " +
+           "g.finalExamScore, g.finalScore FROM Grade g " +
+           "WHERE g.classObj.classId = :classId AND g.student.userId IN :studentIds")
+    List<Object[]> findScoresByClassIdAndStudentIds(@Param("classId") Long classId,
+                                                    @Param("studentIds") Collection<Long> studentIds);
+
+    // Điểm hiện có của một môn trong lớp
+    // (gradeId, studentId, processScore, midtermScore, comments, termId, finalExamScore, finalScore)
+    @Query("SELECT g.gradeId, g.student.userId, g.processScore, g.midtermScore, g.comments, g.termId, " +
+           "g.finalExamScore, g.finalScore FROM Grade g WHERE g.classObj.classId = :classId AND g.subject.subjectId = :subjectId")
+    List<Object[]> findScoresByClassIdAndSubjectId(@Param("classId") Long classId,
+                                                   @Param("subjectId") Long subjectId);
+
+    // Điểm của một môn trong lớp kèm lớp, sinh viên, môn (một truy vấn)
+    @Query("SELECT g FROM Grade g JOIN FETCH g.classObj JOIN FETCH g.student JOIN FETCH g.subject " +
+           "WHERE g.classObj.classId = :classId AND g.subject.subjectId = :subjectId")
+    List<Grade> findWithDetailsByClassIdAndSubjectId(@Param("classId") Long classId,
+                                                     @Param("subjectId") Long subjectId);
+
+    // Các môn đã có điểm trong lớp
+    @Query("SELECT DISTINCT g.subject.subjectId FROM Grade g WHERE g.classObj.classId = :classId")
+    List<Long> findSubjectIdsByClassId(@Param("classId") Long classId);
+
+    // Điểm của sinh viên kèm thông tin môn/lớp dạng phẳng, dùng cho bảng điểm
+    // (termId, classId, classCode, subjectId, subjectCode, subjectName, credits, processScore, midtermScore,
+    //  finalExamScore, finalScore)
+    @Query("SELECT g.termId, c.classId, c.classCode, s.subjectId, s.subjectCode, s.subjectName, s.credits, " +
+           "g.processScore, g.midtermScore, g.finalExamScore, g.finalScore FROM Grade g JOIN g.classObj c JOIN g.subject s " +
+           "WHERE g.student.userId = :studentId")
+    List<Object[]> findTranscriptRows(@Param("studentId") Long studentId);
+
+    // Như trên cho điểm đã lưu trữ (không còn mã lớp)
+    @Query("SELECT g.termId, g.classId, s.subjectId, s.subjectCode, s.subjectName, s.credits, " +
+           "g.processScore, g.midtermScore, g.finalExamScore, g.finalScore FROM GradeArchive g, Subject s " +
+           "WHERE s.subjectId = g.subjectId AND g.studentId = :studentId")
+    List<Object[]> findArchivedTranscriptRows(@Param("studentId") Long studentId);
+
+    // Sinh viên có điểm của môn (kể cả điểm đã lưu trữ)
+    @Query("SELECT DISTINCT g.student.userId FROM Grade g WHERE g.subject.subjectId = :subjectId")
+    List<Long> findStudentIdsBySubjectId(@Param("subjectId") Long subjectId);
+
+    @Query("SELECT DISTINCT g.studentId FROM GradeArchive g WHERE g.subjectId = :subjectId")
+    List<Long> findArchivedStudentIdsBySubjectId(@Param("subjectId") Long subjectId);
+
+    // Đầu vào công thức của mọi điểm thuộc môn
+    // (gradeId, classId, studentId, processScore, midtermScore, finalExamScore, finalScore, termId)
+    @Query("SELECT g.gradeId, g.classObj.classId, g.student.userId, g.processScore, g.midtermScore, " +
+           "g.finalExamScore, g.finalScore, g.termId FROM Grade g WHERE g.subject.subjectId = :subjectId")
+    List<Object[]> findFormulaInputsBySubjectId(@Param("subjectId") Long subjectId);
+
+    // Các lớp có điểm của môn
+    @Query("SELECT DISTINCT g.classObj.classId FROM Grade g WHERE g.subject.subjectId = :subjectId")
+    List<Long> findClassIdsBySubjectId(@Param("subjectId") Long subjectId);
+
+    // Các môn còn điểm chưa có điểm tổng kết (dữ liệu trước khi có cột final_score)
+    @Query("SELECT DISTINCT g.subject.subjectId FROM Grade g WHERE g.finalScore IS NULL AND g.finalExamScore IS NULL")
+    List<Long> findSubjectIdsWithoutFinalScore();
+
+    // Điểm đã lưu trữ trước khi có cột final_score được tính theo công thức mặc định lúc đó
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE grades_archive SET final_score = (process_score + midterm_score) / 2 " +
+                   "WHERE final_score IS NULL AND final_exam_score IS NULL", nativeQuery = true)
+    int fillArchivedFinalScores();
+
+    // Điểm của một lớp trong học kỳ kèm lớp, sinh viên, môn (dùng khi chốt điểm)
+    @Query("SELECT g FROM Grade g JOIN FETCH g.classObj JOIN FETCH g.student JOIN FETCH g.subject " +
+           "WHERE g.classObj.classId = :classId AND g.termId = :termId")
+    List<Grade> findWithDetailsByClassIdAndTermId(@Param("classId") Long classId, @Param("termId") Long termId);
+
+    // Điểm của sinh viên thuộc các lớp/học kỳ chưa chốt (điểm đã chốt đọc từ bản chụp)
+    @Query("SELECT g FROM Grade g JOIN FETCH g.classObj JOIN FETCH g.student JOIN FETCH g.subject " +
+           "WHERE g.student.userId = :studentId AND NOT EXISTS (SELECT f FROM GradeFreeze f " +
+           "WHERE f.classId = g.classObj.classId AND f.termId = g.termId AND f.frozen = true)")
+    List<Grade> findUnfrozenByStudentId(@Param("studentId") Long studentId);
+}
@@ -0,0 +1,51 @@
+package com.example.backend.Repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+public interface GradeRepositoryCustom {
+
+    // Ghi điểm quá trình (kèm điểm tổng kết tính lại) của nhiều bản ghi bằng một lô UPDATE theo grade_id
+    int updateProcessScores(List<ProcessScoreUpdate> updates);
+
+    // Ghi điểm tổng kết của nhiều bản ghi bằng một lô UPDATE theo grade_id
+    int updateFinalScores(List<FinalScoreUpdate> updates);
+
+    // Chèn nhiều dòng điểm bằng một lô INSERT
+    int insertGrades(List<GradeRow> rows);
+
+    // Cập nhật các cột điểm, nhận xét theo grade_id bằng một lô UPDATE
+    int updateGrades(List<GradeRow> rows);
+
+    @Getter
+    @AllArgsConstructor
+    class GradeRow {
+        private final Long gradeId;
+        private final Long classId;
+        private final Long studentId;
+        private final Long subjectId;
+        private final Long termId;
+        private final Double processScore;
+        private final Double midtermScore;
+        private final Double finalExamScore;
+        private final Double finalScore;
+        private final String comments;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    class ProcessScoreUpdate {
+        private final Long gradeId;
+        private final Double processScore;
+        private final Double finalScore;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    class FinalScoreUpdate {
+        private final Long gradeId;
+        private final Double finalScore;
+    }
+}
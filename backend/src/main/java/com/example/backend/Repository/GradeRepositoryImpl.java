@@ -0,0 +1,104 @@
+package com.example.backend.Repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class GradeRepositoryImpl implements GradeRepositoryCustom {
+
+    private static final int BATCH_SIZE = 200;
+
+    private static final String UPDATE_PROCESS_SCORE =
+            "UPDATE grades SET process_score = ?, final_score = ?, updated_at = ? WHERE grade_id = ?";
+
+    private static final String UPDATE_FINAL_SCORE =
+            "UPDATE grades SET final_score = ?, updated_at = ? WHERE grade_id = ?";
+
+    private static final String INSERT_GRADE =
+            "INSERT INTO grades (class_id, student_id, subject_id, term_id, process_score, midterm_score, " +
+            "final_exam_score, final_score, comments, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_GRADE =
+            "UPDATE grades SET process_score = ?, midterm_score = ?, final_exam_score = ?, final_score = ?, " +
+            "comments = ?, updated_at = ? WHERE grade_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertGrades(List<GradeRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_GRADE, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.getClassId());
+            ps.setLong(2, row.getStudentId());
+            ps.setLong(3, row.getSubjectId());
+            ps.setObject(4, row.getTermId(), Types.BIGINT);
+            ps.setDouble(5, row.getProcessScore());
+            ps.setDouble(6, row.getMidtermScore());
+            ps.setObject(7, row.getFinalExamScore(), Types.DOUBLE);
+            ps.setObject(8, row.getFinalScore(), Types.DOUBLE);
+            ps.setString(9, row.getComments());
+            ps.setTimestamp(10, now);
+            ps.setTimestamp(11, now);
+        });
+        return rows.size();
+    }
+
+    @Override
+    public int updateGrades(List<GradeRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_GRADE, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setDouble(1, row.getProcessScore());
+            ps.setDouble(2, row.getMidtermScore());
+            ps.setObject(3, row.getFinalExamScore(), Types.DOUBLE);
+            ps.setObject(4, row.getFinalScore(), Types.DOUBLE);
+            ps.setString(5, row.getComments());
+            ps.setTimestamp(6, now);
+            ps.setLong(7, row.getGradeId());
+        });
+        return rows.size();
+    }
+
+    @Override
+    public int updateProcessScores(List<ProcessScoreUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_PROCESS_SCORE, updates, BATCH_SIZE, (ps, update) -> {
+            ps.setDouble(1, update.getProcessScore());
+            ps.setObject(2, update.getFinalScore(), Types.DOUBLE);
+            ps.setTimestamp(3, now);
+            ps.setLong(4, update.getGradeId());
+        });
+        return updates.size();
+    }
+
+    @Override
+    public int updateFinalScores(List<FinalScoreUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_FINAL_SCORE, updates, BATCH_SIZE, (ps, update) -> {
+            ps.setObject(1, update.getFinalScore(), Types.DOUBLE);
+            ps.setTimestamp(2, now);
+            ps.setLong(3, update.getGradeId());
+        });
+        return updates.size();
+    }
+}
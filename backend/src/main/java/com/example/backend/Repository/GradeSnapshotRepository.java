@@ -0,0 +1,22 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.GradeSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GradeSnapshotRepository extends JpaRepository<GradeSnapshot, Long> {
+
+    // Một phiên bản bản chụp (kèm nội dung nén)
+    Optional<GradeSnapshot> findByClassIdAndTermIdAndVersion(Long classId, Long termId, Integer version);
+
+    // Danh sách phiên bản, không nạp nội dung (version, gradeCount, checksum, createdBy, createdAt)
+    @Query("SELECT s.version, s.gradeCount, s.checksum, s.createdBy, s.createdAt FROM GradeSnapshot s " +
+           "WHERE s.classId = :classId AND s.termId = :termId ORDER BY s.version DESC")
+    List<Object[]> findVersions(@Param("classId") Long classId, @Param("termId") Long termId);
+}
@@ -0,0 +1,14 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.GradingFormula;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GradingFormulaRepository extends JpaRepository<GradingFormula, Long> {
+
+    // Công thức tính điểm của môn
+    Optional<GradingFormula> findBySubjectId(Long subjectId);
+}
@@ -0,0 +1,14 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.ProcessScorePolicy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProcessScorePolicyRepository extends JpaRepository<ProcessScorePolicy, Long> {
+
+    // Quy tắc tính điểm quá trình của lớp
+    Optional<ProcessScorePolicy> findByClassId(Long classId);
+}
@@ -0,0 +1,24 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.Room;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RoomRepository extends JpaRepository<Room, Long> {
+
+    // Tìm phòng theo mã đã chuẩn hóa
+    Optional<Room> findByRoomCode(String roomCode);
+
+    boolean existsByRoomCode(String roomCode);
+
+    // Danh sách phòng theo mã
+    List<Room> findAllByOrderByRoomCodeAsc();
+
+    // Các phòng theo danh sách mã đã chuẩn hóa
+    List<Room> findByRoomCodeIn(Collection<String> roomCodes);
+}
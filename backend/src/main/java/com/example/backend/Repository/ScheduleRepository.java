@@ -2,16 +2,20 @@ package com.example.backend.Repository;
 
 import com.example.backend.Model.Schedule;
 import com.example.backend.Model.ClassEntity;
+import com.example.backend.Model.Room;
 import com.example.backend.Model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
+public interface ScheduleRepository extends JpaRepository<Schedule, Long>, ScheduleRepositoryCustom {
     
     // Tìm lịch học theo lớp
     List<Schedule> findByClassObj(ClassEntity classObj);
@@ -35,4 +39,52 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
                                                @Param("dayOfWeek") Integer dayOfWeek,
                                                @Param("startWeek") Integer startWeek,
                                                @Param("endWeek") Integer endWeek);
-}
\ No newline at end of file
+
+    // Thứ và tiết bắt đầu của các buổi học (scheduleId, dayOfWeek, startPeriod)
+    @Query("SELECT s.scheduleId, s.dayOfWeek, s.startPeriod FROM Schedule s WHERE s.scheduleId IN :scheduleIds")
+    List<Object[]> findSlotsByIds(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    // Vị trí của mọi lịch học trên lưới, dùng dựng chỉ mục lịch bận
+    // (scheduleId, classId, teacherId, roomId, dayOfWeek, startPeriod, endPeriod, startWeek, endWeek)
+    @Query("SELECT s.scheduleId, s.classObj.classId, s.teacher.userId, r.roomId, s.dayOfWeek, s.startPeriod, " +
+           "s.endPeriod, s.startWeek, s.endWeek FROM Schedule s LEFT JOIN s.roomObj r")
+    List<Object[]> findAllSlots();
+
+    // Vị trí các lịch học của một môn (cùng cột với findAllSlots)
+    @Query("SELECT s.scheduleId, s.classObj.classId, s.teacher.userId, r.roomId, s.dayOfWeek, s.startPeriod, " +
+           "s.endPeriod, s.startWeek, s.endWeek FROM Schedule s LEFT JOIN s.roomObj r WHERE s.subject.subjectId = :subjectId")
+    List<Object[]> findSlotsBySubjectId(@Param("subjectId") Long subjectId);
+
+    // Lịch học kèm môn, lớp, giáo viên, phòng, dùng dựng chỉ mục theo tuần/ngày
+    @Query("SELECT s FROM Schedule s JOIN FETCH s.classObj c JOIN FETCH c.teacher JOIN FETCH s.subject sub " +
+           "LEFT JOIN FETCH sub.createdBy JOIN FETCH s.teacher LEFT JOIN FETCH s.roomObj")
+    List<Schedule> findAllWithDetails();
+
+    // Như trên, chỉ cho các lịch được chỉ định
+    @Query("SELECT s FROM Schedule s JOIN FETCH s.classObj c JOIN FETCH c.teacher JOIN FETCH s.subject sub " +
+           "LEFT JOIN FETCH sub.createdBy JOIN FETCH s.teacher LEFT JOIN FETCH s.roomObj WHERE s.scheduleId IN :scheduleIds")
+    List<Schedule> findWithDetailsByIds(@Param("scheduleIds") Collection<Long> scheduleIds);
+
+    // Như trên, cho các lịch có buổi học vào thứ dayOfWeek của tuần week (dựng chỉ mục buổi học trong ngày)
+    @Query("SELECT s FROM Schedule s JOIN FETCH s.classObj c JOIN FETCH c.teacher JOIN FETCH s.subject sub " +
+           "LEFT JOIN FETCH sub.createdBy JOIN FETCH s.teacher LEFT JOIN FETCH s.roomObj " +
+           "WHERE s.dayOfWeek = :dayOfWeek AND :week BETWEEN s.startWeek AND s.endWeek")
+    List<Schedule> findWithDetailsByWeekAndDay(@Param("week") Integer week, @Param("dayOfWeek") Integer dayOfWeek);
+
+    // Tên phòng dạng chữ của các lịch chưa gắn phòng
+    @Query("SELECT DISTINCT s.room FROM Schedule s WHERE s.roomObj IS NULL")
+    List<String> findRoomTextsWithoutRoom();
+
+    // Gắn phòng cho các lịch cũ có cùng tên phòng dạng chữ
+    @Modifying
+    @Transactional
+    @Query("UPDATE Schedule s SET s.roomObj = :room, s.room = :roomCode WHERE s.roomObj IS NULL AND s.room = :roomText")
+    int assignRoom(@Param("roomText") String roomText, @Param("room") Room room, @Param("roomCode") String roomCode);
+
+    // Thời khóa biểu của sinh viên: lịch của mọi lớp đang học kèm môn, lớp, giáo viên, phòng trong một truy vấn
+    @Query("SELECT s FROM Schedule s JOIN FETCH s.classObj c JOIN FETCH c.teacher JOIN FETCH s.subject sub " +
+           "LEFT JOIN FETCH sub.createdBy JOIN FETCH s.teacher LEFT JOIN FETCH s.roomObj " +
+           "WHERE c.classId IN (SELECT cs.classObj.classId FROM ClassStudent cs WHERE cs.student.userId = :studentId) " +
+           "ORDER BY s.dayOfWeek, s.startPeriod")
+    List<Schedule> findTimetableByStudentId(@Param("studentId") Long studentId);
+}
@@ -0,0 +1,45 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.Room;
+import com.example.backend.Model.Schedule;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalTime;
+import java.util.List;
+
+public interface ScheduleRepositoryCustom {
+
+    // Chèn nhiều lịch học bằng một lô INSERT; trả về ID sinh ra theo thứ tự các dòng
+    List<Long> insertSchedules(List<ScheduleRow> rows);
+
+    @Getter
+    @AllArgsConstructor
+    class ScheduleRow {
+        private final Long classId;
+        private final Long subjectId;
+        private final Long teacherId;
+        private final Long roomId;
+        private final String roomCode;
+        private final int dayOfWeek;
+        private final int startPeriod;
+        private final int endPeriod;
+        private final LocalTime startTime;
+        private final LocalTime endTime;
+        private final int startWeek;
+        private final int endWeek;
+        private final String session;
+
+        // Dòng lịch học với giờ học và buổi tính như Schedule.calculateTime
+        public static ScheduleRow of(Long classId, Long subjectId, Long teacherId, Room room, int dayOfWeek,
+                                     int startPeriod, int endPeriod, int startWeek, int endWeek) {
+            Schedule schedule = new Schedule();
+            schedule.setStartPeriod(startPeriod);
+            schedule.setEndPeriod(endPeriod);
+            schedule.calculateTime();
+            return new ScheduleRow(classId, subjectId, teacherId, room.getRoomId(), room.getRoomCode(), dayOfWeek,
+                    startPeriod, endPeriod, schedule.getStartTime(), schedule.getEndTime(), startWeek, endWeek,
+                    schedule.getSession());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.backend.Repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ScheduleRepositoryImpl implements ScheduleRepositoryCustom {
+
+    private static final int BATCH_SIZE = 200;
+
+    private static final String INSERT_SCHEDULE =
+            "INSERT INTO schedules (class_id, subject_id, teacher_id, room_id, room, day_of_week, start_period, " +
+            "end_period, start_time, end_time, start_week, end_week, session) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> insertSchedules(List<ScheduleRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<ScheduleRow> chunk = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SCHEDULE, new String[] {"schedule_id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setRow(ps, chunk.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keyHolder);
+            // Khóa sinh ra theo đúng thứ tự các dòng trong lô
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            if (keys.size() != chunk.size()) {
+                throw new RuntimeException("Không lấy được ID của các lịch học vừa chèn");
+            }
+            for (Map<String, Object> key : keys) {
+                ids.add(((Number) key.values().iterator().next()).longValue());
+            }
+        }
+        return ids;
+    }
+
+    private static void setRow(PreparedStatement ps, ScheduleRow row) throws SQLException {
+        ps.setLong(1, row.getClassId());
+        ps.setLong(2, row.getSubjectId());
+        ps.setLong(3, row.getTeacherId());
+        ps.setObject(4, row.getRoomId(), Types.BIGINT);
+        ps.setString(5, row.getRoomCode());
+        ps.setInt(6, row.getDayOfWeek());
+        ps.setInt(7, row.getStartPeriod());
+        ps.setInt(8, row.getEndPeriod());
+        ps.setTime(9, Time.valueOf(row.getStartTime()));
+        ps.setTime(10, Time.valueOf(row.getEndTime()));
+        ps.setInt(11, row.getStartWeek());
+        ps.setInt(12, row.getEndWeek());
+        ps.setString(13, row.getSession());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.backend.Repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// CSDL đang dùng (đọc metadata một lần), để các repository JDBC chọn biến thể câu lệnh upsert:
+// SQL Server (MERGE ... WITH (HOLDLOCK)), PostgreSQL (ON CONFLICT) hoặc MERGE chuẩn SQL:2008 (H2, ...)
+@Component
+public class SqlDialect {
+
+    private enum Kind {
+        SQL_SERVER,
+        POSTGRES,
+        STANDARD
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Kind kind;
+
+    private Kind kind() {
+        Kind current = kind;
+        if (current == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            String name = product != null ? product.toLowerCase() : "";
+            if (name.contains("sql server")) {
+                current = Kind.SQL_SERVER;
+            } else if (name.contains("postgres")) {
+                current = Kind.POSTGRES;
+            } else {
+                current = Kind.STANDARD;
+            }
+            kind = current;
+        }
+        return current;
+    }
+
+    // Câu lệnh ứng với CSDL đang dùng
+    public String pick(String sqlServer, String postgres, String standard) {
+        return switch (kind()) {
+            case SQL_SERVER -> sqlServer;
+            case POSTGRES -> postgres;
+            case STANDARD -> standard;
+        };
+    }
+}
@@ -2,11 +2,14 @@ package com.example.backend.Repository;
 
 import com.example.backend.Model.Subject;
 import com.example.backend.Model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +17,10 @@ import java.util.Optional;
 public interface SubjectRepository extends JpaRepository<Subject, Long> {
     
     Optional<Subject> findBySubjectCode(String subjectCode);
+
+    // Tìm nhiều môn học theo mã viết hoa, không phân biệt hoa thường (nhập lịch theo lô)
+    @Query("SELECT s FROM Subject s WHERE UPPER(s.subjectCode) IN :subjectCodes")
+    List<Subject> findByUpperSubjectCodeIn(@Param("subjectCodes") Collection<String> subjectCodes);
     
     boolean existsBySubjectCode(String subjectCode);
     
@@ -29,4 +36,18 @@ public interface SubjectRepository extends JpaRepository<Subject, Long> {
     @Query("SELECT s FROM Subject s WHERE LOWER(s.subjectName) LIKE LOWER(CONCAT('%', :subjectName, '%')) AND s.createdBy = :createdBy")
     List<Subject> findBySubjectNameContainingIgnoreCaseAndCreatedBy(@Param("subjectName") String subjectName, 
                                                                    @Param("createdBy") User createdBy);
-}
\ No newline at end of file
+
+    // Lấy (subjectId, subjectCode) của tất cả môn học (không nạp entity)
+    @Query("SELECT s.subjectId, s.subjectCode FROM Subject s")
+    List<Object[]> findAllCodes();
+
+    // Khóa ghi dòng môn học: đổi công thức và tính lại điểm tổng kết trong khi chặn các giao dịch ghi điểm của môn
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Subject s WHERE s.subjectId = :subjectId")
+    Optional<Subject> lockById(@Param("subjectId") Long subjectId);
+
+    // Khóa đọc (dùng chung) các môn: nhiều giao dịch ghi điểm cùng chạy được, nhưng chờ lượt đổi công thức
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT s FROM Subject s WHERE s.subjectId IN :subjectIds ORDER BY s.subjectId")
+    List<Subject> lockSharedByIds(@Param("subjectIds") Collection<Long> subjectIds);
+}
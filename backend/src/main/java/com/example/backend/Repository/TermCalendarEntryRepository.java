@@ -0,0 +1,23 @@
+package com.example.backend.Repository;
+
+import com.example.backend.Model.TermCalendarEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TermCalendarEntryRepository extends JpaRepository<TermCalendarEntry, Long> {
+
+    // Ngoại lệ lịch của một học kỳ theo thứ tự ngày
+    List<TermCalendarEntry> findByTermIdOrderByDateAsc(Long termId);
+
+    // Xóa buổi hủy/học bù của các lịch học đã bị xóa
+    @Modifying
+    @Query("DELETE FROM TermCalendarEntry e WHERE e.scheduleId IN :scheduleIds")
+    int deleteByScheduleIds(@Param("scheduleIds") Collection<Long> scheduleIds);
+}
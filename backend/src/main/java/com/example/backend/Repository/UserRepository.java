@@ -1,5 +1,6 @@
 package com.example.backend.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import com.example.backend.Model.User;
@@ -13,6 +14,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
 
+    // Tìm nhiều người dùng theo email viết thường, không phân biệt hoa thường (nhập lịch theo lô)
+    @Query("SELECT u FROM User u WHERE LOWER(u.email) IN :emails")
+    List<User> findByLowerEmailIn(@Param("emails") Collection<String> emails);
+
     @Query("SELECT u FROM User u WHERE u.role = 'STUDENT' AND " +
            "(LOWER(u.email) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(u.fullName) LIKE LOWER(CONCAT('%', :keyword, '%')))")
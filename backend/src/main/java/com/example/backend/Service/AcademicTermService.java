@@ -0,0 +1,268 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.AcademicTermDTO;
+import com.example.backend.Event.AcademicTermChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.AcademicTermRepository;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.WeekFields;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Service
+public class AcademicTermService {
+
+    @Autowired
+    private AcademicTermRepository academicTermRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ScoreDistributionService scoreDistributionService;
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AttendanceMatrixService attendanceMatrixService;
+
+    // Danh sách email (phân cách bằng dấu phẩy) được quản lý học kỳ; để trống thì không ai được
+    @Value("${academic.term.manager-emails:}")
+    private String managerEmails;
+
+    // Danh sách học kỳ giữ trong bộ nhớ (ít thay đổi, được đọc ở mọi thao tác ghi điểm danh/điểm)
+    private volatile List<AcademicTerm> terms;
+
+    // Tạo học kỳ mới và gán học kỳ cho dữ liệu cũ nằm trong khoảng thời gian đó
+    @Transactional
+    public AcademicTerm createTerm(AcademicTermDTO.CreateTermRequest request, Long teacherId) {
+        requireTermManager(teacherId);
+
+        if (request.getTermCode() == null || request.getTermCode().isBlank()) {
+            throw new RuntimeException("Mã học kỳ không được để trống");
+        }
+        if (request.getStartDate() == null || request.getEndDate() == null
+                || request.getEndDate().isBefore(request.getStartDate())) {
+            throw new RuntimeException("Ngày bắt đầu/kết thúc học kỳ không hợp lệ");
+        }
+        if (academicTermRepository.existsByTermCode(request.getTermCode())) {
+            throw new RuntimeException("Mã học kỳ đã tồn tại");
+        }
+        boolean overlaps = getTerms().stream().anyMatch(t ->
+                !request.getStartDate().isAfter(t.getEndDate()) && !request.getEndDate().isBefore(t.getStartDate()));
+        if (overlaps) {
+            throw new RuntimeException("Học kỳ bị trùng thời gian với học kỳ khác");
+        }
+
+        AcademicTerm term = new AcademicTerm();
+        term.setTermCode(request.getTermCode());
+        term.setTermName(request.getTermName() != null ? request.getTermName() : request.getTermCode());
+        term.setStartDate(request.getStartDate());
+        term.setEndDate(request.getEndDate());
+        AcademicTerm saved = academicTermRepository.save(term);
+
+        attendanceRepository.assignTerm(saved.getTermId(), saved.getStartDate(), saved.getEndDate());
+        gradeRepository.assignTerm(saved.getTermId(), saved.getStartDate().atStartOfDay(),
+                saved.getEndDate().plusDays(1).atStartOfDay());
+
+        eventPublisher.publishEvent(new AcademicTermChangedEvent(saved.getTermId()));
+        return saved;
+    }
+
+    // Chỉ bỏ danh sách đã nạp sau khi commit: bỏ trước đó thì lượt đọc song song có thể nạp lại dòng cũ
+    // (ví dụ học kỳ vừa đóng vẫn OPEN) và giữ mãi. Chạy trước các listener khác cũng đọc danh sách học kỳ
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(0)
+    public void onAcademicTermChanged(AcademicTermChangedEvent event) {
+        terms = null;
+    }
+
+    // Lấy danh sách học kỳ
+    public List<AcademicTerm> getTerms() {
+        List<AcademicTerm> current = terms;
+        if (current == null) {
+            current = List.copyOf(academicTermRepository.findAllByOrderByStartDateAsc());
+            terms = current;
+        }
+        return current;
+    }
+
+    // Học kỳ chứa ngày (null nếu không thuộc học kỳ nào)
+    public AcademicTerm findTerm(LocalDate date) {
+        for (AcademicTerm term : getTerms()) {
+            if (term.contains(date)) {
+                return term;
+            }
+        }
+        return null;
+    }
+
+    public Long resolveTermId(LocalDate date) {
+        AcademicTerm term = findTerm(date);
+        return term != null ? term.getTermId() : null;
+    }
+
+    // Số tuần của ngày: tuần trong học kỳ (tuần 1 bắt đầu từ startDate), hoặc tuần ISO nếu ngoài học kỳ
+    public int weekOf(LocalDate date) {
+        AcademicTerm term = findTerm(date);
+        if (term != null) {
+            return (int) (ChronoUnit.DAYS.between(term.getStartDate(), date) / 7) + 1;
+        }
+        return date.get(WeekFields.ISO.weekOfWeekBasedYear());
+    }
+
+    // Học kỳ chứa ngày, báo lỗi nếu học kỳ đã đóng
+    public Long resolveWritableTermId(LocalDate date) {
+        AcademicTerm term = findTerm(date);
+        if (term == null) {
+            return null;
+        }
+        requireOpen(term);
+        return term.getTermId();
+    }
+
+    public boolean isWritable(LocalDate date) {
+        AcademicTerm term = findTerm(date);
+        return term == null || term.getStatus() == AcademicTerm.TermStatus.OPEN;
+    }
+
+    // Kiểm tra bản ghi đã gắn học kỳ còn được phép sửa
+    public void requireWritable(Long termId) {
+        if (termId == null) {
+            return;
+        }
+        getTerms().stream()
+                .filter(t -> t.getTermId().equals(termId))
+                .findFirst()
+                .ifPresent(this::requireOpen);
+    }
+
+    public boolean isTermOpen(Long termId) {
+        if (termId == null) {
+            return true;
+        }
+        return getTerms().stream()
+                .filter(t -> t.getTermId().equals(termId))
+                .findFirst()
+                .map(t -> t.getStatus() == AcademicTerm.TermStatus.OPEN)
+                .orElse(true);
+    }
+
+    // Đóng học kỳ: dữ liệu chỉ còn đọc
+    @Transactional
+    public AcademicTerm closeTerm(Long termId, Long teacherId) {
+        requireTermManager(teacherId);
+        AcademicTerm term = academicTermRepository.findById(termId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy học kỳ"));
+        if (term.getStatus() != AcademicTerm.TermStatus.OPEN) {
+            throw new RuntimeException("Học kỳ đã được đóng");
+        }
+        term.setStatus(AcademicTerm.TermStatus.CLOSED);
+        AcademicTerm saved = academicTermRepository.save(term);
+        eventPublisher.publishEvent(new AcademicTermChangedEvent(termId));
+        return saved;
+    }
+
+    // Chuyển dữ liệu của học kỳ đã đóng sang bảng lưu trữ
+    // Mỗi lớp chạy trong một transaction riêng (INSERT ... SELECT rồi DELETE) để không khóa cả bảng;
+    // nếu bị ngắt giữa chừng có thể gọi lại, các lớp đã chuyển sẽ không còn dòng nào.
+    public AcademicTermDTO.ArchiveResult archiveTerm(Long termId, Long teacherId) {
+        requireTermManager(teacherId);
+        AcademicTerm term = academicTermRepository.findById(termId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy học kỳ"));
+        if (term.getStatus() == AcademicTerm.TermStatus.OPEN) {
+            throw new RuntimeException("Phải đóng học kỳ trước khi lưu trữ");
+        }
+
+        TreeSet<Long> classIds = new TreeSet<>(attendanceRepository.findClassIdsByTermId(termId));
+        classIds.addAll(gradeRepository.findClassIdsByTermId(termId));
+
+        AcademicTermDTO.ArchiveResult result = new AcademicTermDTO.ArchiveResult();
+        result.setTermId(termId);
+        for (Long classId : classIds) {
+            int[] moved = transactionTemplate.execute(status -> {
+                int attendances = attendanceRepository.copyToArchive(termId, classId);
+                attendanceRepository.deleteArchived(termId, classId);
+                int grades = gradeRepository.copyToArchive(termId, classId);
+                gradeRepository.deleteArchived(termId, classId);
+                return new int[] { attendances, grades };
+            });
+            result.setAttendanceRows(result.getAttendanceRows() + moved[0]);
+            result.setGradeRows(result.getGradeRows() + moved[1]);
+            scoreDistributionService.evictClass(classId);
+            rankingService.evictClass(classId);
+            attendanceMatrixService.evictClass(classId);
+        }
+        result.setClassCount(classIds.size());
+
+        term.setStatus(AcademicTerm.TermStatus.ARCHIVED);
+        term.setArchivedAt(LocalDateTime.now());
+        academicTermRepository.save(term);
+        eventPublisher.publishEvent(new AcademicTermChangedEvent(termId));
+        return result;
+    }
+
+    public List<AcademicTermDTO.TermResponse> getTermResponses() {
+        return getTerms().stream()
+                .map(AcademicTermDTO.TermResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    private void requireOpen(AcademicTerm term) {
+        if (term.getStatus() != AcademicTerm.TermStatus.OPEN) {
+            throw new RuntimeException("Học kỳ " + term.getTermCode() + " đã đóng, không thể thay đổi dữ liệu");
+        }
+    }
+
+    // Chỉ giáo viên có email trong danh sách quản lý học kỳ (academic.term.manager-emails) mới được tạo/đóng/lưu trữ
+    // học kỳ hoặc khai báo ngày nghỉ toàn trường
+    public void requireTermManager(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
+        if (user.getRole() != User.Role.TEACHER || !isTermManager(user.getEmail())) {
+            throw new RuntimeException("Chỉ người quản lý học kỳ mới được thực hiện thao tác này");
+        }
+    }
+
+    private boolean isTermManager(String email) {
+        if (managerEmails == null || email == null) {
+            return false;
+        }
+        for (String manager : managerEmails.split(",")) {
+            if (manager.trim().equalsIgnoreCase(email.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.AttendanceDTO;
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.Attendance;
+import com.example.backend.Model.AttendanceHeatmapCell;
+import com.example.backend.Repository.AttendanceHeatmapRepository;
+import com.example.backend.Repository.AttendanceHeatmapRepositoryCustom;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Heatmap vắng học theo (thứ, tiết, tuần): khối tổng hợp được cộng delta cùng transaction điểm danh,
+// nên đọc heatmap không phải JOIN attendances với schedules trên toàn bảng
+@Service
+public class AttendanceHeatmapService {
+
+    @Autowired
+    private AttendanceHeatmapRepository heatmapRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @EventListener
+    @Transactional
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        Set<Long> scheduleIds = new HashSet<>();
+        for (AttendanceChangedEvent.Change change : event.getChanges()) {
+            if (change.getOldStatus() != change.getNewStatus()) {
+                scheduleIds.add(change.getScheduleId());
+            }
+        }
+        if (scheduleIds.isEmpty()) {
+            return;
+        }
+
+        // Một truy vấn lấy (thứ, tiết) của các buổi học liên quan
+        Map<Long, Object[]> slots = new HashMap<>();
+        for (Object[] row : scheduleRepository.findSlotsByIds(scheduleIds)) {
+            slots.put((Long) row[0], row);
+        }
+
+        Map<CellKey, Long> deltas = new HashMap<>();
+        for (AttendanceChangedEvent.Change change : event.getChanges()) {
+            Object[] slot = slots.get(change.getScheduleId());
+            if (slot == null || change.getOldStatus() == change.getNewStatus()) {
+                continue;
+            }
+            int week = weekNumber(change.getAttendanceDate());
+            if (change.getOldStatus() != null) {
+                deltas.merge(new CellKey(change.getClassId(), (Integer) slot[1], (Integer) slot[2], week,
+                        change.getOldStatus()), -1L, Long::sum);
+            }
+            if (change.getNewStatus() != null) {
+                deltas.merge(new CellKey(change.getClassId(), (Integer) slot[1], (Integer) slot[2], week,
+                        change.getNewStatus()), 1L, Long::sum);
+            }
+        }
+
+        List<AttendanceHeatmapRepositoryCustom.Delta> rows = new ArrayList<>();
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                rows.add(new AttendanceHeatmapRepositoryCustom.Delta(key.classId, key.dayOfWeek, key.startPeriod,
+                        key.weekNumber, key.status, delta));
+            }
+        });
+        if (!rows.isEmpty()) {
+            // Chờ nếu lớp đang được tính lại (cùng khóa với bảng tổng hợp điểm danh)
+            classRepository.lockSharedByIds(rows.stream().map(AttendanceHeatmapRepositoryCustom.Delta::getClassId)
+                    .collect(Collectors.toSet()));
+            heatmapRepository.addDeltas(rows);
+        }
+    }
+
+    // Ô được tính theo (thứ, tiết) hiện tại của lịch học: lịch bị đổi thứ/tiết, chuyển lớp hoặc bị xóa thì
+    // tính lại các lớp liên quan từ dữ liệu gốc (cùng transaction), để delta sau đó không trừ vào ô sai
+    @EventListener
+    @Transactional
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        Set<Long> classIds = new TreeSet<>();
+        for (ScheduleChangedEvent.Change change : event.getChanges()) {
+            ScheduleChangedEvent.Slot before = change.getBefore();
+            ScheduleChangedEvent.Slot after = change.getAfter();
+            if (before == null) {
+                continue; // Lịch mới chưa có điểm danh
+            }
+            if (after == null || !Objects.equals(before.getClassId(), after.getClassId())
+                    || before.getDayOfWeek() != after.getDayOfWeek()
+                    || before.getStartPeriod() != after.getStartPeriod()) {
+                // TreeSet không nhận null: lịch chưa gắn lớp thì bỏ qua
+                if (before.getClassId() != null) {
+                    classIds.add(before.getClassId());
+                }
+                if (after != null && after.getClassId() != null) {
+                    classIds.add(after.getClassId());
+                }
+            }
+        }
+        classIds.forEach(this::rebuildClass);
+    }
+
+    // Heatmap của một lớp, hoặc toàn trường nếu classId = null
+    @Transactional(readOnly = true)
+    public AttendanceDTO.AttendanceHeatmap getHeatmap(Long classId) {
+        List<Object[]> rows = classId != null
+                ? heatmapRepository.sumByClassId(classId)
+                : heatmapRepository.sumAll();
+
+        Map<String, AttendanceDTO.HeatmapCell> cells = new HashMap<>();
+        for (Object[] row : rows) {
+            Integer dayOfWeek = (Integer) row[0];
+            Integer startPeriod = (Integer) row[1];
+            Integer weekNumber = (Integer) row[2];
+            Attendance.AttendanceStatus status = (Attendance.AttendanceStatus) row[3];
+            long total = ((Number) row[4]).longValue();
+
+            AttendanceDTO.HeatmapCell cell = cells.computeIfAbsent(dayOfWeek + "|" + startPeriod + "|" + weekNumber,
+                    k -> {
+                        AttendanceDTO.HeatmapCell c = new AttendanceDTO.HeatmapCell();
+                        c.setDayOfWeek(dayOfWeek);
+                        c.setStartPeriod(startPeriod);
+                        c.setWeekNumber(weekNumber);
+                        return c;
+                    });
+            cell.setTotal(cell.getTotal() + total);
+            switch (status) {
+                case ABSENT -> cell.setAbsentCount(cell.getAbsentCount() + total);
+                case LATE -> cell.setLateCount(cell.getLateCount() + total);
+                case EXCUSED -> cell.setExcusedCount(cell.getExcusedCount() + total);
+                default -> { }
+            }
+        }
+
+        List<AttendanceDTO.HeatmapCell> result = new ArrayList<>(cells.values());
+        for (AttendanceDTO.HeatmapCell cell : result) {
+            cell.setAbsenceRate(cell.getTotal() > 0 ? cell.getAbsentCount() * 100.0 / cell.getTotal() : 0.0);
+        }
+        result.sort(Comparator.comparing(AttendanceDTO.HeatmapCell::getWeekNumber)
+                .thenComparing(AttendanceDTO.HeatmapCell::getDayOfWeek)
+                .thenComparing(AttendanceDTO.HeatmapCell::getStartPeriod));
+
+        AttendanceDTO.AttendanceHeatmap heatmap = new AttendanceDTO.AttendanceHeatmap();
+        heatmap.setClassId(classId);
+        heatmap.setCells(result);
+        return heatmap;
+    }
+
+    // Tính lại khối của một lớp từ dữ liệu gốc (gồm cả dữ liệu đã lưu trữ)
+    @Transactional
+    public void rebuildClass(Long classId) {
+        boolean exists = classRepository.lockById(classId).isPresent();
+        heatmapRepository.deleteByClassId(classId);
+        if (!exists) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(attendanceRepository.countBySlotAndDate(classId));
+        rows.addAll(attendanceRepository.countArchivedBySlotAndDate(classId));
+
+        Map<CellKey, Long> totals = new HashMap<>();
+        for (Object[] row : rows) {
+            int week = weekNumber((LocalDate) row[2]);
+            totals.merge(new CellKey(classId, (Integer) row[0], (Integer) row[1], week,
+                    (Attendance.AttendanceStatus) row[3]), (Long) row[4], Long::sum);
+        }
+
+        List<AttendanceHeatmapCell> cells = new ArrayList<>();
+        totals.forEach((key, total) -> cells.add(new AttendanceHeatmapCell(null, key.classId, key.dayOfWeek,
+                key.startPeriod, key.weekNumber, key.status, total)));
+        heatmapRepository.saveAll(cells);
+    }
+
+    // Lần chạy đầu tiên (khối còn trống): dựng từ dữ liệu cũ, mỗi lớp một transaction riêng
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIfEmpty() {
+        if (heatmapRepository.count() == 0 && attendanceRepository.count() > 0) {
+            for (Long classId : classRepository.findAllClassIds()) {
+                transactionTemplate.executeWithoutResult(status -> rebuildClass(classId));
+            }
+        }
+    }
+
+    // Tuần trong học kỳ chứa ngày; ngày không thuộc học kỳ nào gom vào tuần 0 (không lẫn với tuần của học kỳ)
+    private int weekNumber(LocalDate date) {
+        AcademicTerm term = academicTermService.findTerm(date);
+        return term != null ? SessionOccurrenceService.weekOf(term, date) : 0;
+    }
+
+    private record CellKey(Long classId, Integer dayOfWeek, Integer startPeriod, Integer weekNumber,
+                           Attendance.AttendanceStatus status) {
+    }
+}
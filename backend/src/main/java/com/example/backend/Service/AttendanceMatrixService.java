@@ -0,0 +1,110 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.AttendanceDTO;
+import com.example.backend.Event.AcademicTermChangedEvent;
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Model.Attendance;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Util.AttendanceMatrix;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Giữ ma trận điểm danh (sinh viên × buổi học) của từng lớp trong bộ nhớ
+@Service
+public class AttendanceMatrixService {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    // Số lớp tối đa giữ trong bộ nhớ; lớp lâu không được xem sẽ bị bỏ và nạp lại khi cần
+    private static final int MAX_CLASSES = 500;
+
+    private final Cache<Long, ClassGrid> grids = Caffeine.newBuilder()
+            .maximumSize(MAX_CLASSES)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    // Lấy lưới điểm danh cả kỳ của lớp
+    public AttendanceDTO.AttendanceGrid getGrid(Long classId) {
+        ClassGrid grid = grids.get(classId, this::load);
+        AttendanceMatrix.Snapshot snapshot = grid.matrix.snapshot();
+
+        AttendanceDTO.AttendanceGrid result = new AttendanceDTO.AttendanceGrid();
+        result.setClassId(classId);
+        result.setSessions(snapshot.getSessions().stream()
+                .map(s -> new AttendanceDTO.GridSession(s.getScheduleId(), s.getDate()))
+                .toList());
+        List<AttendanceDTO.GridRow> rows = new ArrayList<>(snapshot.getStudentIds().size());
+        for (int i = 0; i < snapshot.getStudentIds().size(); i++) {
+            Long studentId = snapshot.getStudentIds().get(i);
+            rows.add(new AttendanceDTO.GridRow(studentId, grid.studentNames.get(studentId), snapshot.getRows().get(i)));
+        }
+        result.setRows(rows);
+        return result;
+    }
+
+    // Cập nhật ma trận sau khi transaction điểm danh đã commit
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        for (AttendanceChangedEvent.Change change : event.getChanges()) {
+            // computeIfPresent khóa theo lớp nên không chen ngang lúc đang nạp ma trận
+            grids.asMap().computeIfPresent(change.getClassId(), (classId, grid) ->
+                    grid.matrix.put(change.getStudentId(), change.getScheduleId(),
+                            change.getAttendanceDate(), change.getNewStatus()) ? grid : null);
+        }
+    }
+
+    // Sinh viên vào/rời lớp hoặc lớp bị xóa: hàng của lưới đổi, nạp lại ở lần xem sau
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        grids.invalidate(event.getClassId());
+    }
+
+    // Học kỳ được tạo/đóng/lưu trữ: điểm danh có thể đã chuyển sang bảng lưu trữ
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAcademicTermChanged(AcademicTermChangedEvent event) {
+        grids.invalidateAll();
+    }
+
+    // Bỏ lưới đã nạp của lớp (khi điểm danh bị chuyển/xóa hàng loạt)
+    public void evictClass(Long classId) {
+        grids.invalidate(classId);
+    }
+
+    private ClassGrid load(Long classId) {
+        Map<Long, String> names = new LinkedHashMap<>();
+        for (Object[] row : classStudentRepository.findStudentNamesByClassId(classId)) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+
+        AttendanceMatrix matrix = new AttendanceMatrix(names.keySet());
+        for (Object[] row : attendanceRepository.findStatusCellsByClassId(classId)) {
+            // Bản ghi của sinh viên đã rời lớp bị bỏ qua
+            matrix.put((Long) row[0], (Long) row[1], (LocalDate) row[2], (Attendance.AttendanceStatus) row[3]);
+        }
+        return new ClassGrid(matrix, names);
+    }
+
+    @AllArgsConstructor
+    private static class ClassGrid {
+        private final AttendanceMatrix matrix;
+        private final Map<Long, String> studentNames;
+    }
+}
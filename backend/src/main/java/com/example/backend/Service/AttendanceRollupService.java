@@ -0,0 +1,177 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.AttendanceDTO;
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Model.Attendance;
+import com.example.backend.Model.AttendanceClassStat;
+import com.example.backend.Model.AttendanceStudentStat;
+import com.example.backend.Repository.AttendanceClassStatRepository;
+import com.example.backend.Repository.AttendanceClassStatRepositoryCustom;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.AttendanceStudentStatRepository;
+import com.example.backend.Repository.AttendanceStudentStatRepositoryCustom;
+import com.example.backend.Repository.ClassRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class AttendanceRollupService {
+
+    @Autowired
+    private AttendanceClassStatRepository classStatRepository;
+
+    @Autowired
+    private AttendanceStudentStatRepository studentStatRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private AttendanceHeatmapService heatmapService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Cộng dồn thay đổi vào bảng thống kê, chạy trong cùng transaction với thao tác điểm danh
+    // (chạy trước các listener đọc lại bảng thống kê, ví dụ điểm quá trình)
+    @EventListener
+    @Order(1)
+    @Transactional
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        Map<Long, Map<Attendance.AttendanceStatus, Long>> classDeltas = new HashMap<>();
+        Map<Long, Map<Long, Map<Attendance.AttendanceStatus, Long>>> studentDeltas = new HashMap<>();
+
+        for (AttendanceChangedEvent.Change change : event.getChanges()) {
+            if (change.getOldStatus() == change.getNewStatus()) {
+                continue;
+            }
+            Map<Attendance.AttendanceStatus, Long> byClass = classDeltas
+                    .computeIfAbsent(change.getClassId(), id -> new EnumMap<>(Attendance.AttendanceStatus.class));
+            Map<Attendance.AttendanceStatus, Long> byStudent = studentDeltas
+                    .computeIfAbsent(change.getClassId(), id -> new HashMap<>())
+                    .computeIfAbsent(change.getStudentId(), id -> new EnumMap<>(Attendance.AttendanceStatus.class));
+            if (change.getOldStatus() != null) {
+                byClass.merge(change.getOldStatus(), -1L, Long::sum);
+                byStudent.merge(change.getOldStatus(), -1L, Long::sum);
+            }
+            if (change.getNewStatus() != null) {
+                byClass.merge(change.getNewStatus(), 1L, Long::sum);
+                byStudent.merge(change.getNewStatus(), 1L, Long::sum);
+            }
+        }
+
+        if (classDeltas.isEmpty()) {
+            return;
+        }
+        // Chờ nếu lớp đang được tính lại; mỗi bộ đếm là một lệnh upsert nên hai giao dịch không cùng chèn một dòng
+        classRepository.lockSharedByIds(classDeltas.keySet());
+
+        List<AttendanceClassStatRepositoryCustom.Delta> classRows = new ArrayList<>();
+        classDeltas.forEach((classId, deltas) -> deltas.forEach((status, delta) -> {
+            if (delta != 0) {
+                classRows.add(new AttendanceClassStatRepositoryCustom.Delta(classId, status, delta));
+            }
+        }));
+        List<AttendanceStudentStatRepositoryCustom.Delta> studentRows = new ArrayList<>();
+        studentDeltas.forEach((classId, byStudent) -> byStudent.forEach((studentId, deltas) ->
+                deltas.forEach((status, delta) -> {
+                    if (delta != 0) {
+                        studentRows.add(new AttendanceStudentStatRepositoryCustom.Delta(classId, studentId, status, delta));
+                    }
+                })));
+        classStatRepository.addDeltas(classRows);
+        studentStatRepository.addDeltas(studentRows);
+    }
+
+    // Thống kê điểm danh của lớp (đọc trực tiếp từ bảng tổng hợp)
+    @Transactional(readOnly = true)
+    public Map<Attendance.AttendanceStatus, Long> getClassStatistics(Long classId) {
+        Map<Attendance.AttendanceStatus, Long> result = new EnumMap<>(Attendance.AttendanceStatus.class);
+        for (AttendanceClassStat stat : classStatRepository.findByClassId(classId)) {
+            if (stat.getTotal() > 0) {
+                result.put(stat.getStatus(), stat.getTotal());
+            }
+        }
+        return result;
+    }
+
+    // Thống kê điểm danh của một sinh viên trong lớp
+    @Transactional(readOnly = true)
+    public AttendanceDTO.StudentAttendanceStatistics getStudentStatistics(Long classId, Long studentId) {
+        Map<Attendance.AttendanceStatus, Long> counts = new EnumMap<>(Attendance.AttendanceStatus.class);
+        for (AttendanceStudentStat stat : studentStatRepository.findByClassIdAndStudentId(classId, studentId)) {
+            if (stat.getTotal() > 0) {
+                counts.put(stat.getStatus(), stat.getTotal());
+            }
+        }
+        return AttendanceDTO.StudentAttendanceStatistics.of(classId, studentId, counts);
+    }
+
+    // Tính lại bảng tổng hợp của một lớp từ bảng attendances (sửa sai lệch). Khóa ghi dòng lớp trước khi xóa
+    // để giao dịch điểm danh đang chạy phải chờ, delta của nó được cộng lên kết quả đã tính lại
+    @Transactional
+    public void rebuildClass(Long classId) {
+        if (classRepository.lockById(classId).isEmpty()) {
+            return;
+        }
+        classStatRepository.deleteByClassId(classId);
+        studentStatRepository.deleteByClassId(classId);
+
+        // Gộp dữ liệu đang dùng và dữ liệu đã lưu trữ của các học kỳ cũ
+        Map<Long, Map<Attendance.AttendanceStatus, Long>> byStudent = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>(attendanceRepository.countAttendanceByStudentAndStatus(classId));
+        rows.addAll(attendanceRepository.countArchivedByStudentAndStatus(classId));
+        for (Object[] row : rows) {
+            byStudent.computeIfAbsent((Long) row[0], id -> new EnumMap<>(Attendance.AttendanceStatus.class))
+                    .merge((Attendance.AttendanceStatus) row[1], (Long) row[2], Long::sum);
+        }
+
+        Map<Attendance.AttendanceStatus, Long> classTotals = new EnumMap<>(Attendance.AttendanceStatus.class);
+        List<AttendanceStudentStat> studentStats = new ArrayList<>();
+        byStudent.forEach((studentId, counts) -> counts.forEach((status, total) -> {
+            studentStats.add(new AttendanceStudentStat(null, classId, studentId, status, total));
+            classTotals.merge(status, total, Long::sum);
+        }));
+
+        List<AttendanceClassStat> classStats = new ArrayList<>();
+        classTotals.forEach((status, total) -> classStats.add(new AttendanceClassStat(null, classId, status, total)));
+
+        classStatRepository.saveAll(classStats);
+        studentStatRepository.saveAll(studentStats);
+    }
+
+    // Job hằng đêm: tính lại toàn bộ (bảng thống kê và heatmap), mỗi lớp một transaction riêng
+    @Scheduled(cron = "0 0 3 * * *")
+    public void rebuildAll() {
+        for (Long classId : classRepository.findAllClassIds()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                rebuildClass(classId);
+                heatmapService.rebuildClass(classId);
+            });
+        }
+    }
+
+    // Lần chạy đầu tiên (bảng tổng hợp còn trống): dựng từ dữ liệu cũ (trước khi StudentRiskService đọc bảng)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void initializeIfEmpty() {
+        if (classStatRepository.count() == 0 && attendanceRepository.count() > 0) {
+            rebuildAll();
+        }
+    }
+}
@@ -1,25 +1,43 @@
 package com.example.backend.Service;
 
+import com.example.backend.DTO.AttendanceDTO;
+import com.example.backend.DTO.TermCalendarDTO;
+import com.example.backend.Event.AttendanceChangedEvent;
 import com.example.backend.Model.Attendance;
+import com.example.backend.Model.AttendanceArchive;
 import com.example.backend.Model.ClassEntity;
 import com.example.backend.Model.Schedule;
 import com.example.backend.Model.User;
 import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.AttendanceRepositoryCustom;
 import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.ClassStudentRepository;
 import com.example.backend.Repository.ScheduleRepository;
 import com.example.backend.Repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class AttendanceService {
 
+    // Tự điểm danh sau giờ bắt đầu quá số phút này sẽ tính là muộn
+    private static final long CHECK_IN_GRACE_MINUTES = 15;
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
@@ -32,9 +50,31 @@ public class AttendanceService {
     @Autowired
     private ScheduleRepository scheduleRepository;
 
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private SessionOccurrenceService sessionOccurrenceService;
+
+    @Autowired
+    private AttendanceMatrixService attendanceMatrixService;
+
+    @Autowired
+    private AttendanceHeatmapService attendanceHeatmapService;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Điểm danh cho một buổi học
+    // Upsert theo lô trên khóa (schedule, student, date): chỉ ghi những sinh viên đổi trạng thái
     @Transactional
-    public List<Attendance> takeAttendance(Long classId, Long scheduleId, LocalDate date, 
+    public AttendanceDTO.TakeAttendanceResult takeAttendance(Long classId, Long scheduleId, LocalDate date,
                                          Map<Long, Attendance.AttendanceStatus> attendanceMap, 
                                          Long teacherId) {
         ClassEntity classEntity = classRepository.findById(classId)
@@ -48,25 +88,116 @@ public class AttendanceService {
             throw new RuntimeException("Bạn không có quyền điểm danh cho lớp này");
         }
 
-        // -- Thay vì xóa toàn bộ attendance của schedule, chỉ xóa các bản ghi cho ngày hiện tại --
-        attendanceRepository.deleteByScheduleAndAttendanceDate(schedule, date);
-
-        // Tạo điểm danh mới cho ngày hiện tại
-        List<Attendance> newAttendances = classEntity.getClassStudents().stream()
-                .map(classStudent -> {
-                    Attendance attendance = new Attendance();
-                    attendance.setClassObj(classEntity);
-                    attendance.setStudent(classStudent.getStudent());
-                    attendance.setSchedule(schedule);
-                    attendance.setAttendanceDate(date);
-                    attendance.setStatus(attendanceMap.getOrDefault(
-                            classStudent.getStudent().getUserId(), 
-                            Attendance.AttendanceStatus.ABSENT));
-                    return attendance;
-                })
+        if (schedule.getClassObj() == null || !schedule.getClassObj().getClassId().equals(classId)) {
+            throw new RuntimeException("Buổi học không thuộc lớp này");
+        }
+
+        if (date == null) {
+            throw new RuntimeException("Ngày điểm danh không được để trống");
+        }
+
+        // Ngày điểm danh phải là một buổi học thật của lịch (theo lịch học kỳ)
+        sessionOccurrenceService.requireOccurrence(schedule, date);
+
+        Map<Long, Attendance.AttendanceStatus> requested = attendanceMap != null ? attendanceMap : Map.of();
+
+        Map<Long, Attendance.AttendanceStatus> existing = loadStatuses(scheduleId, date);
+
+        // So sánh với danh sách lớp, chỉ giữ lại những dòng thay đổi
+        Map<Long, Attendance.AttendanceStatus> statuses = new LinkedHashMap<>();
+        Map<Long, Attendance.AttendanceStatus> changed = new HashMap<>();
+        for (Long studentId : classStudentRepository.findStudentIdsByClassId(classId)) {
+            Attendance.AttendanceStatus status = requested.getOrDefault(studentId, Attendance.AttendanceStatus.ABSENT);
+            statuses.put(studentId, status);
+            if (status != existing.get(studentId)) {
+                changed.put(studentId, status);
+            }
+        }
+
+        // Sinh viên đã rời lớp: xóa bản ghi cũ của buổi học này
+        List<Long> removedStudentIds = existing.keySet().stream()
+                .filter(studentId -> !statuses.containsKey(studentId))
                 .collect(Collectors.toList());
 
-        return attendanceRepository.saveAll(newAttendances);
+        applyChanges(classId, scheduleId, date, existing, changed, removedStudentIds);
+
+        AttendanceDTO.TakeAttendanceResult result = new AttendanceDTO.TakeAttendanceResult();
+        result.setClassId(classId);
+        result.setScheduleId(scheduleId);
+        result.setAttendanceDate(date);
+        result.setTotalStudents(statuses.size());
+        result.setChangedCount(changed.size());
+        result.setRemovedCount(removedStudentIds.size());
+        result.setStatuses(statuses);
+        return result;
+    }
+
+    // Ghi nhận các lượt tự điểm danh đã gom theo buổi (gọi khi xả bộ đệm check-in)
+    // Chỉ nâng trạng thái chưa có / ABSENT lên PRESENT hoặc LATE, không ghi đè điểm danh của giáo viên
+    @Transactional
+    public int recordCheckIns(Long scheduleId, LocalDate date, Map<Long, LocalDateTime> checkIns) {
+        Schedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy buổi học"));
+        Long classId = schedule.getClassObj().getClassId();
+
+        // Học kỳ đã đóng: bỏ qua, không để lô check-in bị thử lại mãi
+        if (!academicTermService.isWritable(date)) {
+            return 0;
+        }
+
+        Set<Long> roster = new HashSet<>(classStudentRepository.findStudentIdsByClassId(classId));
+        Map<Long, Attendance.AttendanceStatus> existing = loadStatuses(scheduleId, date);
+        // Buổi học bù tính muộn theo tiết bắt đầu của buổi bù, không theo giờ của lịch hằng tuần
+        TermCalendarDTO.SessionOccurrence occurrence = sessionOccurrenceService.findOccurrence(schedule, date);
+        LocalTime startTime = occurrence != null && occurrence.isMakeup()
+                ? Schedule.getStartTimeByPeriod(occurrence.getStartPeriod()) : schedule.getStartTime();
+        LocalDateTime lateAfter = date.atTime(startTime).plusMinutes(CHECK_IN_GRACE_MINUTES);
+
+        Map<Long, Attendance.AttendanceStatus> changed = new HashMap<>();
+        checkIns.forEach((studentId, checkedInAt) -> {
+            Attendance.AttendanceStatus current = existing.get(studentId);
+            if (!roster.contains(studentId)
+                    || (current != null && current != Attendance.AttendanceStatus.ABSENT)) {
+                return;
+            }
+            changed.put(studentId, checkedInAt.isAfter(lateAfter)
+                    ? Attendance.AttendanceStatus.LATE
+                    : Attendance.AttendanceStatus.PRESENT);
+        });
+
+        applyChanges(classId, scheduleId, date, existing, changed, List.of());
+        return changed.size();
+    }
+
+    // Trạng thái hiện có của một buổi học trong ngày (một truy vấn, không nạp entity)
+    private Map<Long, Attendance.AttendanceStatus> loadStatuses(Long scheduleId, LocalDate date) {
+        Map<Long, Attendance.AttendanceStatus> existing = new HashMap<>();
+        for (Object[] row : attendanceRepository.findStatusesByScheduleAndDate(scheduleId, date)) {
+            existing.put((Long) row[0], (Attendance.AttendanceStatus) row[1]);
+        }
+        return existing;
+    }
+
+    // Ghi các dòng thay đổi theo lô và thông báo cho các bảng tổng hợp (cùng transaction)
+    private void applyChanges(Long classId, Long scheduleId, LocalDate date,
+                              Map<Long, Attendance.AttendanceStatus> existing,
+                              Map<Long, Attendance.AttendanceStatus> changed,
+                              List<Long> removedStudentIds) {
+        if (!removedStudentIds.isEmpty()) {
+            attendanceRepository.deleteByScheduleAndDateAndStudentIds(scheduleId, date, removedStudentIds);
+        }
+
+        Long termId = academicTermService.resolveWritableTermId(date);
+        attendanceRepository.upsertStatuses(classId, scheduleId, termId, date, changed);
+
+        List<AttendanceChangedEvent.Change> changes = new ArrayList<>();
+        changed.forEach((studentId, status) -> changes.add(new AttendanceChangedEvent.Change(
+                classId, scheduleId, studentId, date, existing.get(studentId), status)));
+        removedStudentIds.forEach(studentId -> changes.add(new AttendanceChangedEvent.Change(
+                classId, scheduleId, studentId, date, existing.get(studentId), null)));
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new AttendanceChangedEvent(changes));
+        }
     }
 
     // Lấy danh sách điểm danh theo lớp và ngày
@@ -85,17 +216,55 @@ public class AttendanceService {
         return attendanceRepository.findByStudentAndClassObj(student, classEntity);
     }
 
-    // Thống kê điểm danh
+    // Lịch sử điểm danh đã lưu trữ (các học kỳ đã đóng) của sinh viên
+    public List<AttendanceArchive> getArchivedAttendanceHistory(Long studentId, Long classId) {
+        return attendanceRepository.findArchivedByStudentAndClass(studentId, classId);
+    }
+
+    // Thống kê điểm danh (đọc từ bảng tổng hợp, không GROUP BY trên attendances)
     public Map<Attendance.AttendanceStatus, Long> getAttendanceStatistics(Long classId) {
+        if (!classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        return attendanceRollupService.getClassStatistics(classId);
+    }
+
+    // Thống kê điểm danh của một sinh viên trong lớp
+    public AttendanceDTO.StudentAttendanceStatistics getStudentAttendanceStatistics(Long studentId, Long classId) {
+        if (!classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        return attendanceRollupService.getStudentStatistics(classId, studentId);
+    }
+
+    // Lưới điểm danh cả kỳ của lớp (phục vụ từ ma trận trong bộ nhớ)
+    public AttendanceDTO.AttendanceGrid getAttendanceGrid(Long classId) {
+        if (!classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        return attendanceMatrixService.getGrid(classId);
+    }
+
+    // Heatmap vắng học theo thứ/tiết/tuần của lớp, hoặc toàn trường khi không truyền lớp
+    public AttendanceDTO.AttendanceHeatmap getAttendanceHeatmap(Long classId) {
+        if (classId != null && !classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        return attendanceHeatmapService.getHeatmap(classId);
+    }
+
+    // Tính lại bảng tổng hợp điểm danh của lớp
+    @Transactional
+    public void rebuildAttendanceStatistics(Long classId, Long teacherId) {
         ClassEntity classEntity = classRepository.findById(classId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy lớp học"));
-        
-        List<Object[]> stats = attendanceRepository.countAttendanceByStatus(classEntity);
-        return stats.stream()
-                .collect(Collectors.toMap(
-                        obj -> (Attendance.AttendanceStatus) obj[0],
-                        obj -> (Long) obj[1]
-                ));
+
+        if (classEntity.getTeacher() == null || !classEntity.getTeacher().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền thao tác với lớp này");
+        }
+
+        attendanceRollupService.rebuildClass(classId);
+        attendanceHeatmapService.rebuildClass(classId);
     }
 
     // Cập nhật điểm danh cá nhân
@@ -110,8 +279,128 @@ public class AttendanceService {
             throw new RuntimeException("Bạn không có quyền cập nhật điểm danh này");
         }
 
+        academicTermService.requireWritable(attendance.getTermId());
+
+        Attendance.AttendanceStatus oldStatus = attendance.getStatus();
         attendance.setStatus(status);
         attendance.setNotes(notes);
-        return attendanceRepository.save(attendance);
+        Attendance saved = attendanceRepository.save(attendance);
+
+        if (oldStatus != status) {
+            eventPublisher.publishEvent(new AttendanceChangedEvent(List.of(new AttendanceChangedEvent.Change(
+                    saved.getClassObj().getClassId(), saved.getSchedule().getScheduleId(),
+                    saved.getStudent().getUserId(), saved.getAttendanceDate(), oldStatus, status))));
+        }
+        return saved;
+    }
+
+    // Sửa điểm danh hàng loạt cho một lớp: kiểm tra quyền một lần, nạp các bản ghi bằng một truy vấn
+    // và ghi bằng một lô UPDATE. Dòng lỗi được báo riêng, không làm hỏng cả lô.
+    @Transactional
+    public AttendanceDTO.BulkCorrectionResult correctAttendances(Long classId,
+            List<AttendanceDTO.AttendanceCorrection> corrections, Long teacherId) {
+        ClassEntity classEntity = classRepository.findById(classId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy lớp học"));
+
+        if (classEntity.getTeacher() == null || !classEntity.getTeacher().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền cập nhật điểm danh của lớp này");
+        }
+
+        List<AttendanceDTO.AttendanceCorrection> items = corrections != null ? corrections : List.of();
+        Set<Long> attendanceIds = new HashSet<>();
+        Set<Long> studentIds = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+        for (AttendanceDTO.AttendanceCorrection item : items) {
+            if (item.getAttendanceId() != null) {
+                attendanceIds.add(item.getAttendanceId());
+            } else if (item.getStudentId() != null && item.getDate() != null) {
+                studentIds.add(item.getStudentId());
+                dates.add(item.getDate());
+            }
+        }
+
+        // Nạp toàn bộ bản ghi liên quan bằng một truy vấn (danh sách rỗng thay bằng giá trị không khớp)
+        Map<Long, Object[]> byId = new HashMap<>();
+        Map<String, List<Object[]>> byStudentAndDate = new HashMap<>();
+        if (!attendanceIds.isEmpty() || !studentIds.isEmpty()) {
+            for (Object[] row : attendanceRepository.findCorrectionTargets(classId,
+                    attendanceIds.isEmpty() ? List.of(-1L) : attendanceIds,
+                    studentIds.isEmpty() ? List.of(-1L) : studentIds,
+                    dates.isEmpty() ? List.of(LocalDate.MIN) : dates)) {
+                byId.put((Long) row[0], row);
+                byStudentAndDate.computeIfAbsent(row[1] + "|" + row[3], k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<AttendanceDTO.RowError> errors = new ArrayList<>();
+        Map<Long, AttendanceRepositoryCustom.StatusUpdate> updates = new LinkedHashMap<>();
+        Map<Long, Object[]> targets = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            AttendanceDTO.AttendanceCorrection item = items.get(i);
+            if (item.getStatus() == null) {
+                errors.add(new AttendanceDTO.RowError(i, "Trạng thái điểm danh không được để trống"));
+                continue;
+            }
+
+            Object[] target;
+            if (item.getAttendanceId() != null) {
+                target = byId.get(item.getAttendanceId());
+            } else if (item.getStudentId() != null && item.getDate() != null) {
+                List<Object[]> candidates = byStudentAndDate.getOrDefault(
+                        item.getStudentId() + "|" + item.getDate(), List.of()).stream()
+                        .filter(row -> item.getScheduleId() == null || item.getScheduleId().equals(row[2]))
+                        .collect(Collectors.toList());
+                if (candidates.size() > 1) {
+                    errors.add(new AttendanceDTO.RowError(i, "Trong ngày có nhiều buổi học, cần chỉ định scheduleId"));
+                    continue;
+                }
+                target = candidates.isEmpty() ? null : candidates.get(0);
+            } else {
+                errors.add(new AttendanceDTO.RowError(i, "Cần attendanceId hoặc studentId + date"));
+                continue;
+            }
+
+            if (target == null) {
+                errors.add(new AttendanceDTO.RowError(i, "Không tìm thấy bản ghi điểm danh trong lớp này"));
+                continue;
+            }
+
+            if (!academicTermService.isWritable((LocalDate) target[3])) {
+                errors.add(new AttendanceDTO.RowError(i, "Học kỳ đã đóng, không thể sửa điểm danh"));
+                continue;
+            }
+
+            Long attendanceId = (Long) target[0];
+            String notes = item.getNotes() != null ? item.getNotes() : (String) target[5];
+            updates.put(attendanceId, new AttendanceRepositoryCustom.StatusUpdate(attendanceId, item.getStatus(), notes));
+            targets.put(attendanceId, target);
+        }
+
+        // Bỏ qua các dòng không thay đổi gì
+        List<AttendanceRepositoryCustom.StatusUpdate> changedRows = new ArrayList<>();
+        List<AttendanceChangedEvent.Change> changes = new ArrayList<>();
+        for (AttendanceRepositoryCustom.StatusUpdate update : updates.values()) {
+            Object[] target = targets.get(update.getAttendanceId());
+            Attendance.AttendanceStatus oldStatus = (Attendance.AttendanceStatus) target[4];
+            if (oldStatus == update.getStatus() && Objects.equals(target[5], update.getNotes())) {
+                continue;
+            }
+            changedRows.add(update);
+            if (oldStatus != update.getStatus()) {
+                changes.add(new AttendanceChangedEvent.Change(classId, (Long) target[2], (Long) target[1],
+                        (LocalDate) target[3], oldStatus, update.getStatus()));
+            }
+        }
+
+        attendanceRepository.updateStatuses(changedRows);
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new AttendanceChangedEvent(changes));
+        }
+
+        AttendanceDTO.BulkCorrectionResult result = new AttendanceDTO.BulkCorrectionResult();
+        result.setUpdatedCount(changedRows.size());
+        result.setUnchangedCount(updates.size() - changedRows.size());
+        result.setErrors(errors);
+        return result;
     }
 }
@@ -0,0 +1,339 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Event.ExamChangedEvent;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Event.TermCalendarChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.Exam;
+import com.example.backend.Model.Schedule;
+import com.example.backend.Model.TermCalendarEntry;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.ExamRepository;
+import com.example.backend.Repository.UserRepository;
+import com.example.backend.Util.CacheGenerations;
+import com.example.backend.Util.HmacSigner;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Lịch ICS theo người dùng (sinh viên: lớp đang học, giáo viên: lịch dạy) gồm lịch học và lịch thi.
+// Ngày nghỉ và buổi bị hủy là EXDATE của sự kiện lặp, buổi học bù là sự kiện riêng.
+// Nội dung đã dựng được cache kèm ETag; chỉ dựng lại khi lịch học, lịch học kỳ, lịch thi hoặc danh sách lớp
+// của người dùng thay đổi.
+@Service
+public class CalendarFeedService {
+
+    private static final String CACHE_NAME = "calendarFeeds";
+    private static final DateTimeFormatter UTC_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final String CRLF = "\r\n";
+
+    @Autowired
+    private TimetableService timetableService;
+
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private SessionOccurrenceService sessionOccurrenceService;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${calendar.feed.secret}")
+    private String secret;
+
+    @Value("${calendar.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+
+    @Value("${calendar.exam-duration-minutes:90}")
+    private int examDurationMinutes;
+
+    private HmacSigner signer;
+    private ZoneId zoneId;
+
+    // Thế hệ theo người dùng: lịch dựng trước một lần xóa cache không được ghi đè lại
+    private final CacheGenerations generations = new CacheGenerations();
+
+    @PostConstruct
+    public void init() {
+        signer = new HmacSigner(secret);
+        zoneId = ZoneId.of(zone);
+    }
+
+    // Token đăng ký lịch của người dùng (không hết hạn, đổi khi đổi khóa bí mật)
+    public String tokenFor(Long userId) {
+        return signer.token("calendar:" + userId);
+    }
+
+    public boolean isValidToken(Long userId, String token) {
+        return HmacSigner.matches(tokenFor(userId), token);
+    }
+
+    // Lịch ICS của người dùng (từ cache nếu học kỳ dùng để dựng vẫn là học kỳ hiện tại)
+    @Transactional(readOnly = true)
+    public Feed getFeed(Long userId) {
+        AcademicTerm term = resolveTerm();
+        Long termId = term != null ? term.getTermId() : null;
+
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            Feed cached = cache.get(userId, Feed.class);
+            if (cached != null && Objects.equals(cached.termId(), termId)) {
+                return cached;
+            }
+        }
+
+        long stamp = generations.stamp(userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy người dùng"));
+        String body = render(user, term);
+        Feed feed = new Feed(termId, body, etagOf(body));
+        if (cache != null) {
+            generations.put(cache, userId, stamp, feed);
+        }
+        return feed;
+    }
+
+    // Sinh viên vào/rời lớp
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        evict(event.getStudentIds());
+    }
+
+    // Lịch học thay đổi: sinh viên của các lớp liên quan và giáo viên dạy (trước/sau khi đổi)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        Set<Long> userIds = new HashSet<>();
+        for (ScheduleChangedEvent.Change change : event.getChanges()) {
+            if (change.getBefore() != null) userIds.add(change.getBefore().getTeacherId());
+            if (change.getAfter() != null) userIds.add(change.getAfter().getTeacherId());
+        }
+        for (Long classId : event.getClassIds()) {
+            userIds.addAll(classStudentRepository.findStudentIdsByClassId(classId));
+        }
+        evict(userIds);
+    }
+
+    // Lịch thi thay đổi: sinh viên của lớp và giáo viên phụ trách
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onExamChanged(ExamChangedEvent event) {
+        Set<Long> userIds = new HashSet<>(classStudentRepository.findStudentIdsByClassId(event.getClassId()));
+        userIds.add(event.getTeacherId());
+        evict(userIds);
+    }
+
+    // Ngày nghỉ, buổi hủy hoặc buổi học bù thay đổi: ngày nghỉ áp cho mọi lịch nên dựng lại tất cả
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTermCalendarChanged(TermCalendarChangedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            generations.clear(cache);
+        }
+    }
+
+    private void evict(Set<Long> userIds) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            userIds.stream().filter(Objects::nonNull).forEach(id -> generations.evict(cache, id));
+        }
+    }
+
+    // Học kỳ dùng để đổi số tuần ra ngày: học kỳ đang diễn ra, không có thì học kỳ sắp tới gần nhất,
+    // không có nữa thì học kỳ gần nhất đã qua
+    private AcademicTerm resolveTerm() {
+        LocalDate today = LocalDate.now(zoneId);
+        AcademicTerm current = academicTermService.findTerm(today);
+        if (current != null) {
+            return current;
+        }
+        AcademicTerm last = null;
+        for (AcademicTerm term : academicTermService.getTerms()) {
+            if (term.getStartDate().isAfter(today)) {
+                return term;
+            }
+            last = term;
+        }
+        return last;
+    }
+
+    private String render(User user, AcademicTerm term) {
+        boolean teacher = user.getRole() == User.Role.TEACHER;
+        List<ScheduleDTO.ScheduleResponse> schedules = teacher
+                ? scheduleService.getSchedulesByTeacher(user.getUserId())
+                : timetableService.getStudentTimetable(user.getUserId());
+        List<Exam> exams = teacher
+                ? examRepository.findWithDetailsByTeacherId(user.getUserId())
+                : examRepository.findWithDetailsByStudentId(user.getUserId());
+
+        String stamp = LocalDateTime.now(ZoneOffset.UTC).format(UTC_FORMAT);
+        StringBuilder ics = new StringBuilder(1024 + 400 * (schedules.size() + exams.size()));
+        line(ics, "BEGIN:VCALENDAR");
+        line(ics, "VERSION:2.0");
+        line(ics, "PRODID:-//kkkooo//Lich hoc//VI");
+        line(ics, "CALSCALE:GREGORIAN");
+        line(ics, "X-WR-CALNAME:" + escape("Lịch học - " + user.getFullName()));
+
+        // Lịch học: một sự kiện lặp hằng tuần cho mỗi khoảng tuần (cần học kỳ để biết ngày của tuần 1),
+        // bỏ các buổi rơi vào ngày nghỉ hoặc bị hủy; mỗi buổi học bù là một sự kiện riêng
+        if (term != null) {
+            Set<LocalDate> holidays = sessionOccurrenceService.getHolidays(term);
+            Map<Long, Set<LocalDate>> cancellations = sessionOccurrenceService.getCancellations(term);
+            Map<Long, ScheduleDTO.ScheduleResponse> byId = new HashMap<>();
+            for (ScheduleDTO.ScheduleResponse s : schedules) {
+                byId.put(s.getScheduleId(), s);
+                LocalDate first = SessionOccurrenceService.dateOf(term, s.getStartWeek(), s.getDayOfWeek());
+                LocalTime startTime = LocalTime.parse(s.getStartTime());
+                line(ics, "BEGIN:VEVENT");
+                line(ics, "UID:schedule-" + s.getScheduleId() + "-term-" + term.getTermId() + "@kkkooo");
+                line(ics, "DTSTAMP:" + stamp);
+                line(ics, "DTSTART:" + utc(first, startTime));
+                line(ics, "DTEND:" + utc(first, LocalTime.parse(s.getEndTime())));
+                line(ics, "RRULE:FREQ=WEEKLY;COUNT=" + (s.getEndWeek() - s.getStartWeek() + 1));
+                Set<LocalDate> cancelled = cancellations.getOrDefault(s.getScheduleId(), Set.of());
+                for (int week = s.getStartWeek(); week <= s.getEndWeek(); week++) {
+                    LocalDate date = SessionOccurrenceService.dateOf(term, week, s.getDayOfWeek());
+                    if (holidays.contains(date) || cancelled.contains(date)) {
+                        line(ics, "EXDATE:" + utc(date, startTime));
+                    }
+                }
+                line(ics, "SUMMARY:" + escape(summaryOf(s)));
+                line(ics, "LOCATION:" + escape(s.getRoom()));
+                line(ics, "DESCRIPTION:" + escape(s.getTimeDescription()));
+                line(ics, "END:VEVENT");
+            }
+
+            for (TermCalendarEntry makeup : sessionOccurrenceService.getMakeups(term)) {
+                ScheduleDTO.ScheduleResponse s = byId.get(makeup.getScheduleId());
+                if (s == null) {
+                    continue;
+                }
+                LocalTime startTime = makeup.getStartPeriod() != null
+                        ? Schedule.getStartTimeByPeriod(makeup.getStartPeriod()) : LocalTime.parse(s.getStartTime());
+                LocalTime endTime = makeup.getEndPeriod() != null
+                        ? Schedule.getEndTimeByPeriod(makeup.getEndPeriod()) : LocalTime.parse(s.getEndTime());
+                line(ics, "BEGIN:VEVENT");
+                line(ics, "UID:makeup-" + makeup.getEntryId() + "@kkkooo");
+                line(ics, "DTSTAMP:" + stamp);
+                line(ics, "DTSTART:" + utc(makeup.getDate(), startTime));
+                line(ics, "DTEND:" + utc(makeup.getDate(), endTime));
+                line(ics, "SUMMARY:" + escape("Học bù " + summaryOf(s)));
+                line(ics, "LOCATION:" + escape(makeup.getRoom() != null ? makeup.getRoom() : s.getRoom()));
+                if (makeup.getNote() != null && !makeup.getNote().isBlank()) {
+                    line(ics, "DESCRIPTION:" + escape(makeup.getNote()));
+                }
+                line(ics, "END:VEVENT");
+            }
+        }
+
+        for (Exam e : exams) {
+            line(ics, "BEGIN:VEVENT");
+            line(ics, "UID:exam-" + e.getExamId() + "@kkkooo");
+            line(ics, "DTSTAMP:" + stamp);
+            line(ics, "DTSTART:" + utc(e.getExamDate(), e.getExamTime()));
+            line(ics, "DTEND:" + utc(e.getExamDate(), e.getExamTime().plusMinutes(examDurationMinutes)));
+            line(ics, "SUMMARY:" + escape("Thi " + e.getSubject().getSubjectName()
+                    + " (" + e.getClassObj().getClassCode() + ")"));
+            line(ics, "LOCATION:" + escape(e.getRoom()));
+            if (e.getNotes() != null && !e.getNotes().isBlank()) {
+                line(ics, "DESCRIPTION:" + escape(e.getNotes()));
+            }
+            line(ics, "END:VEVENT");
+        }
+
+        line(ics, "END:VCALENDAR");
+        return ics.toString();
+    }
+
+    private static String summaryOf(ScheduleDTO.ScheduleResponse s) {
+        String subject = s.getSubject() != null ? s.getSubject().getSubjectName() : "";
+        String classCode = s.getClassInfo() != null ? s.getClassInfo().getClassCode() : "";
+        return subject + " (" + classCode + ")";
+    }
+
+    private String utc(LocalDate date, LocalTime time) {
+        return date.atTime(time).atZone(zoneId).withZoneSameInstant(ZoneOffset.UTC).format(UTC_FORMAT);
+    }
+
+    // Ghi một dòng, gập dòng dài hơn 75 byte theo RFC 5545
+    private static void line(StringBuilder ics, String content) {
+        int bytes = 0;
+        for (int i = 0; i < content.length(); ) {
+            int cp = content.codePointAt(i);
+            int len = new String(Character.toChars(cp)).getBytes(StandardCharsets.UTF_8).length;
+            if (bytes + len > 75) {
+                ics.append(CRLF).append(' ');
+                bytes = 1;
+            }
+            ics.appendCodePoint(cp);
+            bytes += len;
+            i += Character.charCount(cp);
+        }
+        ics.append(CRLF);
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    // ETag yếu: băm SHA-256 nội dung, bỏ các dòng DTSTAMP (thời điểm dựng) để lịch dựng lại mà không đổi
+    // nội dung vẫn giữ ETag cũ và client nhận 304. Hai nội dung khác nhau ở DTSTAMP dùng chung ETag nên
+    // không được là ETag mạnh (RFC 9110)
+    static String etagOf(String body) {
+        String content = body.replaceAll("(?m)^DTSTAMP:[^\r\n]*\r\n", "");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return "W/\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Lịch đã dựng: học kỳ dùng để đổi tuần ra ngày, nội dung ICS và ETag
+    public record Feed(Long termId, String body, String etag) {
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.AttendanceDTO;
+import com.example.backend.Model.Schedule;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Util.HmacSigner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sinh viên tự điểm danh bằng mã xoay vòng do giáo viên trình chiếu.
+// Mã được ký HMAC nên kiểm tra không cần CSDL; các lượt check-in được gom vào bộ đệm chia ngăn
+// (mỗi ngăn một khóa + một file journal) rồi xả định kỳ thành một lần upsert theo lô cho mỗi buổi.
+@Service
+public class CheckInService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckInService.class);
+
+    private static final int CODE_DIGITS = 6;
+    private static final int STRIPES = 8;
+    private static final String JOURNAL_PREFIX = "checkin-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private SessionOccurrenceService sessionOccurrenceService;
+
+    @Value("${attendance.checkin.secret}")
+    private String secret;
+
+    @Value("${attendance.checkin.window-seconds:30}")
+    private long windowSeconds;
+
+    @Value("${attendance.checkin.journal-dir:./data/checkin-journal}")
+    private String journalDir;
+
+    // Số lượt ghi journal trước khi ép fsync xuống đĩa
+    @Value("${attendance.checkin.sync-threshold:20}")
+    private int syncThreshold;
+
+    // Số lần ghi một buổi khi gặp lỗi tạm thời của CSDL trước khi chuyển sang dead-letter
+    @Value("${attendance.checkin.max-attempts:30}")
+    private int maxAttempts;
+
+    // Số lần nhập sai mã tối đa của một sinh viên cho một buổi (chặn dò mã 6 chữ số)
+    @Value("${attendance.checkin.max-failures:5}")
+    private int maxFailures;
+
+    @Value("${calendar.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+
+    private ZoneId zoneId;
+
+    private HmacSigner signer;
+    private Path journalPath;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // Các file journal đã xoay nhưng chưa chắc đã được ghi vào CSDL
+    private final List<Path> retainedJournals = new ArrayList<>();
+
+    // Số lần đã thử ghi của các buổi đang chờ thử lại (chỉ truy cập trong flush)
+    private final Map<OccurrenceKey, Integer> attempts = new HashMap<>();
+
+    // Số lần nhập sai mã theo (sinh viên, buổi học); buổi của ngày đã qua được dọn trong flush
+    private final Map<FailureKey, Integer> failures = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        zoneId = ZoneId.of(zone);
+        signer = new HmacSigner(secret);
+        journalPath = Paths.get(journalDir);
+        Files.createDirectories(journalPath);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(i);
+        }
+        replayJournals();
+        for (Stripe stripe : stripes) {
+            stripe.openJournal();
+        }
+    }
+
+    // Mã check-in hiện tại của buổi học (chỉ giáo viên của lớp được lấy)
+    public AttendanceDTO.CheckInCodeResponse generateCode(Long scheduleId, LocalDate date, Long teacherId) {
+        Schedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy buổi học"));
+
+        if (schedule.getClassObj() == null || schedule.getClassObj().getTeacher() == null
+                || !schedule.getClassObj().getTeacher().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền tạo mã điểm danh cho buổi học này");
+        }
+
+        LocalDate day = date != null ? date : LocalDate.now(zoneId);
+        // Chỉ tạo mã cho buổi học thật (không phải ngày nghỉ, buổi đã hủy; tính cả buổi học bù)
+        sessionOccurrenceService.requireOccurrence(schedule, day);
+        long window = Instant.now().getEpochSecond() / windowSeconds;
+
+        AttendanceDTO.CheckInCodeResponse response = new AttendanceDTO.CheckInCodeResponse();
+        response.setScheduleId(scheduleId);
+        response.setDate(day);
+        response.setCode(codeFor(scheduleId, day, window));
+        response.setExpiresAt(LocalDateTime.ofInstant(
+                Instant.ofEpochSecond((window + 1) * windowSeconds), zoneId));
+        return response;
+    }
+
+    // Sinh viên check-in: kiểm tra mã (không truy vấn CSDL) rồi đưa vào bộ đệm + journal
+    public void checkIn(Long scheduleId, LocalDate date, Long studentId, String code) {
+        LocalDate day = date != null ? date : LocalDate.now(zoneId);
+        long window = Instant.now().getEpochSecond() / windowSeconds;
+
+        FailureKey failureKey = new FailureKey(studentId, new OccurrenceKey(scheduleId, day));
+        if (failures.getOrDefault(failureKey, 0) >= maxFailures) {
+            throw new RuntimeException("Bạn đã nhập sai mã quá nhiều lần, vui lòng liên hệ giáo viên để điểm danh");
+        }
+        // Chấp nhận cả mã của chu kỳ trước để sinh viên không bị lỡ lúc mã vừa đổi
+        if (!HmacSigner.matches(codeFor(scheduleId, day, window), code)
+                && !HmacSigner.matches(codeFor(scheduleId, day, window - 1), code)) {
+            failures.merge(failureKey, 1, Integer::sum);
+            throw new RuntimeException("Mã điểm danh không hợp lệ hoặc đã hết hạn");
+        }
+
+        try {
+            stripeOf(studentId).append(new OccurrenceKey(scheduleId, day), studentId, System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new RuntimeException("Không thể ghi nhận điểm danh, vui lòng thử lại");
+        }
+    }
+
+    // Xả bộ đệm: mỗi buổi học một lần upsert theo lô
+    @Scheduled(fixedDelayString = "${attendance.checkin.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        Map<OccurrenceKey, Map<Long, Long>> batch = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            try {
+                Path rotated = stripe.rotate(batch);
+                if (rotated != null) {
+                    retainedJournals.add(rotated);
+                }
+            } catch (IOException e) {
+                log.error("Không thể xoay journal check-in ngăn {}", stripe.index, e);
+            }
+        }
+
+        for (Map.Entry<OccurrenceKey, Map<Long, Long>> entry : batch.entrySet()) {
+            OccurrenceKey key = entry.getKey();
+            Map<Long, LocalDateTime> checkIns = new HashMap<>();
+            entry.getValue().forEach((studentId, at) -> checkIns.put(studentId,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(at), zoneId)));
+            try {
+                attendanceService.recordCheckIns(key.getScheduleId(), key.getDate(), checkIns);
+                attempts.remove(key);
+            } catch (RuntimeException e) {
+                int attempt = attempts.merge(key, 1, Integer::sum);
+                if (isTransient(e) && attempt < maxAttempts) {
+                    // Lỗi tạm thời của CSDL: giữ lại để thử ở lần xả sau; journal cũ chưa bị xóa nên vẫn an toàn khi sập
+                    log.warn("Ghi check-in cho buổi {} ngày {} thất bại (lần {}), sẽ thử lại",
+                            key.getScheduleId(), key.getDate(), attempt, e);
+                    entry.getValue().forEach((studentId, at) -> stripeOf(studentId).requeue(key, studentId, at));
+                } else {
+                    // Lỗi dữ liệu (buổi học đã bị xóa, ...) hoặc đã thử quá số lần: chuyển sang dead-letter, không thử lại
+                    log.error("Bỏ {} lượt check-in của buổi {} ngày {} sau {} lần thử",
+                            entry.getValue().size(), key.getScheduleId(), key.getDate(), attempt, e);
+                    attempts.remove(key);
+                    deadLetter(key, entry.getValue(), e);
+                }
+            }
+        }
+
+        LocalDate today = LocalDate.now(zoneId);
+        failures.keySet().removeIf(k -> k.getOccurrence().getDate().isBefore(today));
+
+        // Chỉ xóa journal cũ khi không còn lượt check-in nào chờ thử lại
+        if (attempts.isEmpty()) {
+            for (Path journal : retainedJournals) {
+                try {
+                    Files.deleteIfExists(journal);
+                } catch (IOException e) {
+                    log.warn("Không thể xóa journal check-in {}", journal, e);
+                }
+            }
+            retainedJournals.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        for (Stripe stripe : stripes) {
+            stripe.close();
+        }
+    }
+
+    // Lỗi có thể hết khi thử lại: mất kết nối, hết thời gian chờ, deadlock, ...
+    static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException || t instanceof RecoverableDataAccessException
+                    || t instanceof DataAccessResourceFailureException || t instanceof CannotCreateTransactionException
+                    || t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ghi các lượt check-in bị bỏ vào file riêng (không bị nạp lại khi khởi động) để đối soát thủ công
+    private void deadLetter(OccurrenceKey key, Map<Long, Long> checkIns, RuntimeException cause) {
+        StringBuilder lines = new StringBuilder();
+        String reason = String.valueOf(cause.getMessage()).replace('\n', ' ').replace(',', ';');
+        checkIns.forEach((studentId, at) -> lines.append(key.getScheduleId()).append(',').append(key.getDate())
+                .append(',').append(studentId).append(',').append(at).append(',').append(reason).append('\n'));
+        try {
+            Files.writeString(journalPath.resolve(DEAD_LETTER_FILE), lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Không thể ghi dead-letter check-in của buổi {} ngày {}", key.getScheduleId(), key.getDate(), e);
+        }
+    }
+
+    private String codeFor(Long scheduleId, LocalDate date, long window) {
+        return signer.numericCode(scheduleId + ":" + date + ":" + window, CODE_DIGITS);
+    }
+
+    private Stripe stripeOf(Long studentId) {
+        return stripes[(int) Math.floorMod(studentId, (long) STRIPES)];
+    }
+
+    // Nạp lại các lượt check-in còn trong journal (sau khi ứng dụng bị tắt đột ngột)
+    private void replayJournals() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalPath, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path file : files) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] parts = line.split(",");
+                        if (parts.length != 4) {
+                            continue; // Dòng ghi dở khi sập
+                        }
+                        Long studentId = Long.valueOf(parts[2]);
+                        stripeOf(studentId).requeue(new OccurrenceKey(Long.valueOf(parts[0]), LocalDate.parse(parts[1])),
+                                studentId, Long.parseLong(parts[3]));
+                    }
+                }
+                retainedJournals.add(file);
+            }
+        }
+    }
+
+    // Một buổi học cụ thể (lịch + ngày)
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class OccurrenceKey {
+        private final Long scheduleId;
+        private final LocalDate date;
+    }
+
+    // Lượt nhập mã của một sinh viên cho một buổi học
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class FailureKey {
+        private final Long studentId;
+        private final OccurrenceKey occurrence;
+    }
+
+    // Một ngăn của bộ đệm: khóa riêng, file journal riêng
+    private class Stripe {
+        private final int index;
+        private Map<OccurrenceKey, Map<Long, Long>> pending = new HashMap<>();
+        private FileChannel journal;
+        private Path journalFile;
+        private int unsynced;
+
+        private Stripe(int index) {
+            this.index = index;
+        }
+
+        private synchronized void openJournal() throws IOException {
+            journalFile = journalPath.resolve(JOURNAL_PREFIX + index + "-" + System.nanoTime() + JOURNAL_SUFFIX);
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            unsynced = 0;
+        }
+
+        private synchronized void append(OccurrenceKey key, Long studentId, long at) throws IOException {
+            String line = key.getScheduleId() + "," + key.getDate() + "," + studentId + "," + at + "\n";
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            if (++unsynced >= syncThreshold) {
+                journal.force(false);
+                unsynced = 0;
+            }
+            requeue(key, studentId, at);
+        }
+
+        private synchronized void requeue(OccurrenceKey key, Long studentId, long at) {
+            // Giữ lượt check-in sớm nhất của sinh viên
+            pending.computeIfAbsent(key, k -> new HashMap<>()).merge(studentId, at, Math::min);
+        }
+
+        // Chuyển sang journal mới, gom dữ liệu đang chờ vào batch; trả về file journal cũ
+        private synchronized Path rotate(Map<OccurrenceKey, Map<Long, Long>> batch) throws IOException {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            journal.force(false);
+            journal.close();
+            Path old = journalFile;
+            openJournal();
+
+            pending.forEach((key, checkIns) -> batch.computeIfAbsent(key, k -> new HashMap<>()).putAll(checkIns));
+            pending = new HashMap<>();
+            return old;
+        }
+
+        private synchronized void close() {
+            try {
+                journal.force(false);
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Không thể đóng journal check-in ngăn {}", index, e);
+            }
+        }
+    }
+}
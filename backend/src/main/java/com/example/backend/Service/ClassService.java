@@ -2,6 +2,8 @@ package com.example.backend.Service;
 
 import com.example.backend.DTO.ClassDTO;
 import com.example.backend.DTO.UserDTO;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Event.ScheduleChangedEvent;
 import com.example.backend.Model.ClassEntity;
 import com.example.backend.Model.ClassStudent;
 import com.example.backend.Model.User;
@@ -9,10 +11,13 @@ import com.example.backend.Repository.ClassRepository;
 import com.example.backend.Repository.ClassStudentRepository;
 import com.example.backend.Repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 // import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -28,6 +33,9 @@ public class ClassService {
     @Autowired
     private ClassStudentRepository classStudentRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Tạo lớp mới
     @Transactional
     public ClassEntity createClass(ClassDTO.CreateClassRequest createClassRequest, Long teacherId) {
@@ -70,7 +78,19 @@ public class ClassService {
         existingClass.setClassName(updateClassRequest.getClassName());
         existingClass.setDescription(updateClassRequest.getDescription());
 
-        return classRepository.save(existingClass);
+        ClassEntity saved = classRepository.save(existingClass);
+        // Tên/mã lớp nằm trong lịch học đã dựng sẵn (chỉ mục theo tuần, thời khóa biểu): báo làm mới,
+        // vị trí lịch giữ nguyên (before = after)
+        List<ScheduleChangedEvent.Change> refreshed = saved.getSchedules().stream()
+                .map(s -> {
+                    ScheduleChangedEvent.Slot slot = ScheduleChangedEvent.Slot.of(s);
+                    return new ScheduleChangedEvent.Change(s.getScheduleId(), slot, slot);
+                })
+                .collect(Collectors.toList());
+        if (!refreshed.isEmpty()) {
+            eventPublisher.publishEvent(new ScheduleChangedEvent(refreshed));
+        }
+        return saved;
     }
 
     // Xóa lớp
@@ -84,7 +104,20 @@ public class ClassService {
             throw new RuntimeException("Bạn không có quyền xóa lớp này");
         }
 
+        // Lịch học của lớp bị xóa theo: báo cho chỉ mục lịch
+        List<ScheduleChangedEvent.Change> removed = classEntity.getSchedules().stream()
+                .map(s -> new ScheduleChangedEvent.Change(s.getScheduleId(), ScheduleChangedEvent.Slot.of(s), null))
+                .collect(Collectors.toList());
+
+        Set<Long> studentIds = new HashSet<>(classStudentRepository.findStudentIdsByClassId(classId));
+
         classRepository.delete(classEntity);
+        if (!removed.isEmpty()) {
+            eventPublisher.publishEvent(new ScheduleChangedEvent(removed));
+        }
+        if (!studentIds.isEmpty()) {
+            eventPublisher.publishEvent(new EnrollmentChangedEvent(classId, studentIds));
+        }
     }
 
     // Thêm sinh viên vào lớp
@@ -112,7 +145,9 @@ public class ClassService {
         classStudent.setClassObj(classEntity);
         classStudent.setStudent(student);
 
-        return classStudentRepository.save(classStudent);
+        ClassStudent saved = classStudentRepository.save(classStudent);
+        eventPublisher.publishEvent(new EnrollmentChangedEvent(classId, Set.of(studentId)));
+        return saved;
     }
 
     // Xóa sinh viên khỏi lớp
@@ -131,6 +166,7 @@ public class ClassService {
                 .orElseThrow(() -> new RuntimeException("Sinh viên không có trong lớp học này"));
 
         classStudentRepository.delete(classStudent);
+        eventPublisher.publishEvent(new EnrollmentChangedEvent(classId, Set.of(studentId)));
     }
 
     // Lấy danh sách sinh viên trong lớp
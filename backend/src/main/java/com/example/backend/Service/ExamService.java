@@ -1,5 +1,6 @@
 package com.example.backend.Service;
 
+import com.example.backend.Event.ExamChangedEvent;
 import com.example.backend.Model.Exam;
 import com.example.backend.Model.ClassEntity;
 import com.example.backend.Model.User;
@@ -7,6 +8,7 @@ import com.example.backend.Repository.ExamRepository;
 import com.example.backend.Repository.ClassRepository;
 import com.example.backend.Repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,9 @@ public class ExamService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Tạo lịch thi mới
     @Transactional
     public Exam createExam(Exam exam, Long classId, Long teacherId) {
@@ -39,7 +44,9 @@ public class ExamService {
         }
 
         exam.setClassObj(classEntity);
-        return examRepository.save(exam);
+        Exam saved = examRepository.save(exam);
+        eventPublisher.publishEvent(new ExamChangedEvent(classId, teacherId));
+        return saved;
     }
 
     // Cập nhật lịch thi
@@ -59,7 +66,9 @@ public class ExamService {
         existingExam.setRoom(examDetails.getRoom());
         existingExam.setNotes(examDetails.getNotes());
 
-        return examRepository.save(existingExam);
+        Exam saved = examRepository.save(existingExam);
+        eventPublisher.publishEvent(new ExamChangedEvent(saved.getClassObj().getClassId(), teacherId));
+        return saved;
     }
 
     // Xóa lịch thi
@@ -74,6 +83,7 @@ public class ExamService {
         }
 
         examRepository.delete(exam);
+        eventPublisher.publishEvent(new ExamChangedEvent(exam.getClassObj().getClassId(), teacherId));
     }
 
     // Lấy lịch thi theo lớp
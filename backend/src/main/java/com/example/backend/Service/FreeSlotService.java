@@ -0,0 +1,240 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.RoomDTO;
+import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.Room;
+import com.example.backend.Model.Schedule;
+import com.example.backend.Model.TermCalendarEntry;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.UserRepository;
+import com.example.backend.Util.OccupancyBitmap;
+import com.example.backend.Util.TimetableSolver;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Tìm các khoảng tiết mà giáo viên, lớp (và phòng nếu chỉ định) cùng trống, bằng cách gộp (OR) lịch bận dạng bitmap
+// của từng đối tượng rồi duyệt từng ô (tuần, thứ, tiết). Không chỉ định phòng thì kèm các phòng trống suốt khoảng đó.
+@Service
+public class FreeSlotService {
+
+    // Thứ Hai (2) .. Chủ nhật (8)
+    private static final int FIRST_DAY = 2;
+    private static final int LAST_DAY = 8;
+
+    @Autowired
+    private ScheduleOccupancyService occupancyService;
+
+    @Autowired
+    private RoomUtilizationService roomUtilizationService;
+
+    @Autowired
+    private SessionOccurrenceService sessionOccurrenceService;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${calendar.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+
+    private ZoneId zoneId;
+
+    @PostConstruct
+    public void init() {
+        zoneId = ZoneId.of(zone);
+    }
+
+    // Các khoảng tiết trống chung (dài nhất có thể, không vắt qua trưa) có ít nhất `periods` tiết
+    // trong tuần startWeek..endWeek; giáo viên mặc định là người yêu cầu
+    public List<ScheduleDTO.FreeSlot> findFreeSlots(Long requesterId, Long teacherId, Long classId, String roomCode,
+                                                    int startWeek, int endWeek, int periods, Integer minCapacity) {
+        User requester = userRepository.findById(requesterId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy giáo viên"));
+        if (requester.getRole() != User.Role.TEACHER) {
+            throw new RuntimeException("Chỉ giáo viên được phép tìm lịch trống");
+        }
+        Long teacher = teacherId != null ? teacherId : requesterId;
+        if (classId == null || !classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        if (startWeek < 1 || endWeek > OccupancyBitmap.MAX_WEEK || startWeek > endWeek) {
+            throw new RuntimeException("Tuần phải từ 1 đến " + OccupancyBitmap.MAX_WEEK
+                    + " và tuần bắt đầu không lớn hơn tuần kết thúc");
+        }
+        if (periods < 1 || periods > TimetableSolver.HALF_DAY) {
+            throw new RuntimeException("Số tiết phải từ 1 đến " + TimetableSolver.HALF_DAY);
+        }
+        RoomDTO.RoomResponse room = null;
+        String code = Room.normalizeCode(roomCode);
+        if (code != null) {
+            room = roomUtilizationService.findRoom(code);
+            if (room == null) {
+                throw new RuntimeException("Không tìm thấy phòng " + code);
+            }
+        }
+
+        // Lịch bận hằng tuần của giáo viên, lớp (và phòng), giữ riêng từng đối tượng để bỏ được buổi bị hủy
+        OccupancyBitmap teacherBusy = orEmpty(
+                occupancyService.snapshot(ScheduleOccupancyService.Dimension.TEACHER, teacher));
+        OccupancyBitmap classBusy = orEmpty(
+                occupancyService.snapshot(ScheduleOccupancyService.Dimension.CLASS, classId));
+        OccupancyBitmap roomOnlyBusy = orEmpty(room != null
+                ? occupancyService.snapshot(ScheduleOccupancyService.Dimension.ROOM, room.getRoomId()) : null);
+        OccupancyBitmap makeupBusy = new OccupancyBitmap();
+        List<RoomDTO.RoomResponse> candidateRooms = new ArrayList<>();
+        Map<Long, OccupancyBitmap> roomBusy;
+        if (room != null) {
+            roomBusy = Map.of();
+        } else {
+            roomBusy = occupancyService.snapshotAll(ScheduleOccupancyService.Dimension.ROOM);
+            for (RoomDTO.RoomResponse r : roomUtilizationService.getRooms()) {
+                if (minCapacity == null || (r.getCapacity() != null && r.getCapacity() >= minCapacity)) {
+                    candidateRooms.add(r);
+                }
+            }
+        }
+
+        // Học kỳ hiện tại: đổi tuần ra ngày, bỏ ngày nghỉ và buổi bị hủy, tính cả buổi học bù
+        // (không có trong chỉ mục hằng tuần)
+        AcademicTerm term = academicTermService.findTerm(LocalDate.now(zoneId));
+        Set<LocalDate> holidays = Set.of();
+        if (term != null) {
+            holidays = sessionOccurrenceService.getHolidays(term);
+
+            // Buổi bị hủy: trong một đối tượng các lịch không trùng nhau nên bỏ đúng ô của buổi đó
+            Map<Long, Set<LocalDate>> cancellations = sessionOccurrenceService.getCancellations(term);
+            for (Map.Entry<Long, Set<LocalDate>> cancelled : cancellations.entrySet()) {
+                ScheduleChangedEvent.Slot slot = occupancyService.slotOf(cancelled.getKey());
+                if (slot == null) {
+                    continue;
+                }
+                for (LocalDate date : cancelled.getValue()) {
+                    int week = SessionOccurrenceService.weekOf(term, date);
+                    long bit = OccupancyBitmap.weekMask(week, week);
+                    if (teacher.equals(slot.getTeacherId())) {
+                        teacherBusy.remove(slot.getDayOfWeek(), slot.getStartPeriod(), slot.getEndPeriod(), bit);
+                    }
+                    if (classId.equals(slot.getClassId())) {
+                        classBusy.remove(slot.getDayOfWeek(), slot.getStartPeriod(), slot.getEndPeriod(), bit);
+                    }
+                    if (room != null && room.getRoomId().equals(slot.getRoomId())) {
+                        roomOnlyBusy.remove(slot.getDayOfWeek(), slot.getStartPeriod(), slot.getEndPeriod(), bit);
+                    }
+                    OccupancyBitmap roomBitmap = room == null && slot.getRoomId() != null
+                            ? roomBusy.get(slot.getRoomId()) : null;
+                    if (roomBitmap != null) {
+                        roomBitmap.remove(slot.getDayOfWeek(), slot.getStartPeriod(), slot.getEndPeriod(), bit);
+                    }
+                }
+            }
+
+            Map<String, Long> roomIdsByCode = new HashMap<>();
+            roomUtilizationService.getRooms().forEach(r -> roomIdsByCode.put(r.getRoomCode(), r.getRoomId()));
+            for (TermCalendarEntry makeup : sessionOccurrenceService.getMakeups(term)) {
+                ScheduleChangedEvent.Slot slot = occupancyService.slotOf(makeup.getScheduleId());
+                if (slot == null) {
+                    continue;
+                }
+                int week = SessionOccurrenceService.weekOf(term, makeup.getDate());
+                int day = SessionOccurrenceService.dayOfWeekOf(makeup.getDate());
+                long bit = OccupancyBitmap.weekMask(week, week);
+                Long makeupRoomId = makeup.getRoom() != null ? roomIdsByCode.get(makeup.getRoom()) : slot.getRoomId();
+                if (teacher.equals(slot.getTeacherId()) || classId.equals(slot.getClassId())
+                        || (room != null && room.getRoomId().equals(makeupRoomId))) {
+                    makeupBusy.add(day, makeup.getStartPeriod(), makeup.getEndPeriod(), bit);
+                }
+                if (room == null && makeupRoomId != null) {
+                    roomBusy.computeIfAbsent(makeupRoomId, id -> new OccupancyBitmap())
+                            .add(day, makeup.getStartPeriod(), makeup.getEndPeriod(), bit);
+                }
+            }
+        }
+
+        // Lịch bận chung của giáo viên và lớp (và phòng)
+        OccupancyBitmap busy = teacherBusy;
+        busy.or(classBusy);
+        busy.or(roomOnlyBusy);
+        busy.or(makeupBusy);
+        return scan(busy, term, holidays, startWeek, endWeek, periods, room, candidateRooms, roomBusy);
+    }
+
+    // Duyệt từng ô (tuần, thứ, tiết) của lịch bận chung, lấy các khoảng trống liên tiếp (dài nhất có thể,
+    // không vắt qua trưa) có ít nhất `periods` tiết; bỏ ngày ngoài học kỳ và ngày nghỉ nếu có học kỳ.
+    // Không chỉ định phòng thì chỉ giữ khoảng còn ít nhất một phòng trống (roomBusy: lịch bận theo phòng)
+    static List<ScheduleDTO.FreeSlot> scan(OccupancyBitmap busy, AcademicTerm term, Set<LocalDate> holidays,
+                                           int startWeek, int endWeek, int periods, RoomDTO.RoomResponse room,
+                                           List<RoomDTO.RoomResponse> candidateRooms,
+                                           Map<Long, OccupancyBitmap> roomBusy) {
+        List<ScheduleDTO.FreeSlot> result = new ArrayList<>();
+        for (int week = startWeek; week <= endWeek; week++) {
+            long bit = OccupancyBitmap.weekMask(week, week);
+            for (int day = FIRST_DAY; day <= LAST_DAY; day++) {
+                LocalDate date = term != null ? SessionOccurrenceService.dateOf(term, week, day) : null;
+                if (date != null && (!term.contains(date) || holidays.contains(date))) {
+                    continue;
+                }
+                // Sáng (tiết 1-5) và chiều (tiết 6-10) tách riêng
+                for (int first = 1; first <= OccupancyBitmap.PERIODS; first += TimetableSolver.HALF_DAY) {
+                    int last = first + TimetableSolver.HALF_DAY - 1;
+                    int runStart = -1;
+                    for (int p = first; p <= last + 1; p++) {
+                        boolean free = p <= last && (busy.weeksAt(day, p) & bit) == 0;
+                        if (free && runStart < 0) {
+                            runStart = p;
+                        } else if (!free && runStart >= 0) {
+                            if (p - runStart >= periods) {
+                                addSlot(result, week, date, day, runStart, p - 1, bit, room, candidateRooms, roomBusy);
+                            }
+                            runStart = -1;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addSlot(List<ScheduleDTO.FreeSlot> result, int week, LocalDate date, int day, int start,
+                                int end, long bit, RoomDTO.RoomResponse room, List<RoomDTO.RoomResponse> candidateRooms,
+                                Map<Long, OccupancyBitmap> roomBusy) {
+        List<String> freeRooms = null;
+        if (room == null) {
+            freeRooms = new ArrayList<>();
+            for (RoomDTO.RoomResponse r : candidateRooms) {
+                OccupancyBitmap bitmap = roomBusy.get(r.getRoomId());
+                if (bitmap == null || !bitmap.intersects(day, start, end, bit)) {
+                    freeRooms.add(r.getRoomCode());
+                }
+            }
+            if (freeRooms.isEmpty()) {
+                return; // Giáo viên và lớp trống nhưng không còn phòng nào
+            }
+        }
+        result.add(new ScheduleDTO.FreeSlot(week, date, day, start, end,
+                Schedule.getStartTimeByPeriod(start).toString(), Schedule.getEndTimeByPeriod(end).toString(),
+                freeRooms));
+    }
+
+    // Snapshot của chỉ mục đã là bản sao; đối tượng chưa có lịch thì là lịch trống
+    private static OccupancyBitmap orEmpty(OccupancyBitmap snapshot) {
+        return snapshot != null ? snapshot : new OccupancyBitmap();
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Model.GradeFreeze;
+import com.example.backend.Model.GradeSnapshot;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.GradeFreezeRepository;
+import com.example.backend.Repository.GradeSnapshotRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Chốt điểm theo (lớp, học kỳ): trạng thái chốt nằm trong CSDL (grade_freezes) và được bảo vệ bằng khóa dòng lớp -
+// chốt/mở khóa giữ khóa ghi, mọi giao dịch ghi điểm giữ khóa đọc rồi đọc lại trạng thái. Bản chụp bảng điểm lưu dạng
+// JSON nén có phiên bản, bản đang công bố giữ trong bộ nhớ để sinh viên đọc trực tiếp
+@Service
+public class GradeFreezeService {
+
+    private static final TypeReference<List<GradeDTO.GradeResponse>> GRADE_LIST = new TypeReference<>() { };
+
+    @Autowired
+    private GradeFreezeRepository freezeRepository;
+
+    @Autowired
+    private GradeSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Bản chụp đang công bố theo khóa, và chỉ mục theo sinh viên
+    private final Map<String, Published> published = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, List<GradeDTO.GradeResponse>>> publishedByStudent = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (GradeFreeze freeze : freezeRepository.findByFrozenTrue()) {
+            snapshotRepository.findByClassIdAndTermIdAndVersion(freeze.getClassId(), freeze.getTermId(),
+                    freeze.getCurrentVersion()).ifPresent(s -> publish(s, decode(s)));
+        }
+    }
+
+    // Gọi trong transaction ghi điểm, trước khi ghi: khóa đọc các lớp (chờ lượt chốt/mở khóa đang chạy commit xong)
+    // rồi đọc trạng thái chốt từ CSDL. Trạng thái không đổi được cho tới khi giao dịch ghi điểm commit.
+    public FrozenTerms lockForWrite(Collection<Long> classIds) {
+        if (classIds.isEmpty()) {
+            return new FrozenTerms(Set.of());
+        }
+        classRepository.lockSharedByIds(classIds);
+        Set<String> keys = new HashSet<>();
+        for (Object[] row : freezeRepository.findFrozenByClassIds(classIds)) {
+            keys.add(key((Long) row[0], (Long) row[1]));
+        }
+        return new FrozenTerms(keys);
+    }
+
+    // Như lockForWrite cho một (lớp, học kỳ): lỗi nếu đã chốt
+    public void requireNotFrozen(Long classId, Long termId) {
+        if (lockForWrite(List.of(classId)).contains(classId, termId)) {
+            throw new RuntimeException("Điểm của lớp trong học kỳ này đã được chốt, không thể sửa");
+        }
+    }
+
+    // Bước đầu của chốt điểm (trong transaction chốt): khóa ghi dòng lớp để chặn mọi giao dịch ghi điểm của lớp
+    // tới khi commit, rồi kiểm tra trạng thái chốt trong CSDL. Bản chụp được dựng sau bước này, dưới cùng khóa.
+    public void lockForFreeze(Long classId, Long termId) {
+        if (classRepository.lockById(classId).isEmpty()) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        if (freezeRepository.findByClassIdAndTermId(classId, termId).map(GradeFreeze::getFrozen).orElse(false)) {
+            throw new RuntimeException("Điểm của lớp trong học kỳ này đã được chốt");
+        }
+    }
+
+    // Ghi bản chụp phiên bản mới và trạng thái chốt (trong transaction của người gọi, sau lockForFreeze)
+    @Transactional
+    public GradeSnapshot writeSnapshot(Long classId, Long termId, Long teacherId,
+                                       List<GradeDTO.GradeResponse> grades) {
+        GradeFreeze freeze = freezeRepository.findByClassIdAndTermId(classId, termId).orElseGet(() -> {
+            GradeFreeze f = new GradeFreeze();
+            f.setClassId(classId);
+            f.setTermId(termId);
+            return f;
+        });
+        if (freeze.getFrozen()) {
+            throw new RuntimeException("Điểm của lớp trong học kỳ này đã được chốt");
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(grades);
+        } catch (IOException e) {
+            throw new RuntimeException("Không tạo được bản chụp bảng điểm");
+        }
+
+        GradeSnapshot snapshot = new GradeSnapshot();
+        snapshot.setClassId(classId);
+        snapshot.setTermId(termId);
+        snapshot.setVersion(freeze.getCurrentVersion() + 1);
+        snapshot.setGradeCount(grades.size());
+        snapshot.setChecksum(sha256(json));
+        snapshot.setPayload(gzip(json));
+        snapshot.setCreatedBy(teacherId);
+        GradeSnapshot saved = snapshotRepository.save(snapshot);
+
+        freeze.setFrozen(true);
+        freeze.setCurrentVersion(saved.getVersion());
+        freeze.setFrozenBy(teacherId);
+        freeze.setFrozenAt(LocalDateTime.now());
+        freezeRepository.save(freeze);
+        return saved;
+    }
+
+    // Công bố bản chụp đã commit: sinh viên đọc từ đây, không chạm bảng grades
+    public void publish(GradeSnapshot snapshot, List<GradeDTO.GradeResponse> grades) {
+        String key = key(snapshot.getClassId(), snapshot.getTermId());
+        published.put(key, new Published(snapshot.getVersion(), snapshot.getChecksum(), snapshot.getCreatedAt(),
+                List.copyOf(grades)));
+        Map<Long, List<GradeDTO.GradeResponse>> byStudent = grades.stream()
+                .filter(g -> g.getStudentId() != null)
+                .collect(Collectors.groupingBy(GradeDTO.GradeResponse::getStudentId));
+        byStudent.forEach((studentId, list) -> publishedByStudent
+                .computeIfAbsent(studentId, id -> new ConcurrentHashMap<>())
+                .put(key, List.copyOf(list)));
+    }
+
+    // Mở khóa (giáo viên sửa sai sót): điểm được ghi lại trên bảng grades, lần chốt sau tạo phiên bản mới.
+    // Cờ chốt đổi dưới khóa ghi của lớp; bản công bố trong bộ nhớ chỉ bị bỏ sau khi commit
+    public void reopen(Long classId, Long termId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            classRepository.lockById(classId);
+            GradeFreeze freeze = freezeRepository.findByClassIdAndTermId(classId, termId)
+                    .filter(GradeFreeze::getFrozen)
+                    .orElseThrow(() -> new RuntimeException("Điểm của lớp trong học kỳ này chưa được chốt"));
+            freeze.setFrozen(false);
+            freezeRepository.save(freeze);
+        });
+
+        String key = key(classId, termId);
+        Published removed = published.remove(key);
+        if (removed != null) {
+            for (GradeDTO.GradeResponse g : removed.grades()) {
+                publishedByStudent.computeIfPresent(g.getStudentId(), (id, byKey) -> {
+                    byKey.remove(key);
+                    return byKey.isEmpty() ? null : byKey;
+                });
+            }
+        }
+    }
+
+    // Điểm đã công bố của sinh viên (chỉ từ bộ nhớ)
+    public List<GradeDTO.GradeResponse> getPublishedGrades(Long studentId) {
+        Map<String, List<GradeDTO.GradeResponse>> byKey = publishedByStudent.get(studentId);
+        if (byKey == null) {
+            return List.of();
+        }
+        List<GradeDTO.GradeResponse> result = new ArrayList<>();
+        byKey.values().forEach(result::addAll);
+        return result;
+    }
+
+    // Bảng điểm đã chốt của lớp: bản đang công bố lấy từ bộ nhớ, phiên bản cũ giải nén từ CSDL
+    @Transactional(readOnly = true)
+    public GradeDTO.GradebookSnapshot getSnapshot(Long classId, Long termId, Integer version) {
+        Published current = published.get(key(classId, termId));
+        if (current != null && (version == null || version.equals(current.version()))) {
+            return toDto(classId, termId, current.version(), current.checksum(), current.createdAt(),
+                    current.grades());
+        }
+        if (version == null) {
+            throw new RuntimeException("Điểm của lớp trong học kỳ này chưa được chốt");
+        }
+        GradeSnapshot snapshot = snapshotRepository.findByClassIdAndTermIdAndVersion(classId, termId, version)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy bản chụp bảng điểm"));
+        return toDto(classId, termId, snapshot.getVersion(), snapshot.getChecksum(), snapshot.getCreatedAt(),
+                decode(snapshot));
+    }
+
+    // Các phiên bản bản chụp của lớp trong học kỳ
+    @Transactional(readOnly = true)
+    public List<GradeDTO.SnapshotInfo> getSnapshotVersions(Long classId, Long termId) {
+        return snapshotRepository.findVersions(classId, termId).stream()
+                .map(row -> new GradeDTO.SnapshotInfo(classId, termId, (Integer) row[0], (Integer) row[1],
+                        (String) row[2], (Long) row[3], (LocalDateTime) row[4]))
+                .collect(Collectors.toList());
+    }
+
+    public List<GradeDTO.GradeResponse> decode(GradeSnapshot snapshot) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.getPayload()))) {
+            return objectMapper.readValue(in, GRADE_LIST);
+        } catch (IOException e) {
+            throw new RuntimeException("Bản chụp bảng điểm bị hỏng");
+        }
+    }
+
+    private static GradeDTO.GradebookSnapshot toDto(Long classId, Long termId, Integer version, String checksum,
+                                                    LocalDateTime createdAt, List<GradeDTO.GradeResponse> grades) {
+        GradeDTO.GradebookSnapshot dto = new GradeDTO.GradebookSnapshot();
+        dto.setClassId(classId);
+        dto.setTermId(termId);
+        dto.setVersion(version);
+        dto.setChecksum(checksum);
+        dto.setCreatedAt(createdAt);
+        dto.setGrades(grades);
+        return dto;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new RuntimeException("Không nén được bản chụp bảng điểm");
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String key(Long classId, Long termId) {
+        return classId + "|" + termId;
+    }
+
+    // Các (lớp, học kỳ) đang chốt, đọc dưới khóa của lockForWrite
+    public record FrozenTerms(Set<String> keys) {
+        public boolean contains(Long classId, Long termId) {
+            return termId != null && keys.contains(key(classId, termId));
+        }
+    }
+
+    private record Published(Integer version, String checksum, LocalDateTime createdAt,
+                             List<GradeDTO.GradeResponse> grades) {
+    }
+}
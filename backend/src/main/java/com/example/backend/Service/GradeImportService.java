@@ -0,0 +1,297 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.SubjectRepository;
+import com.example.backend.Util.SpreadsheetRowReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Nhập điểm từ file CSV/XLSX: đọc từng dòng, kiểm tra song song theo từng khối với ảnh chụp
+// lớp/môn/danh sách sinh viên của giáo viên, rồi ghi theo lô qua GradeService.writeBatch
+@Service
+public class GradeImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_ROWS = 20000;
+
+    @Autowired
+    private GradeService gradeService;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    @Transactional
+    public GradeDTO.ImportResult importGrades(MultipartFile file, Long defaultClassId, Long defaultSubjectId,
+                                              Long teacherId) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("File nhập điểm trống");
+        }
+
+        Snapshot snapshot = loadSnapshot(teacherId);
+        if (defaultClassId != null && !snapshot.classIds.contains(defaultClassId)) {
+            throw new RuntimeException("Bạn không có quyền chấm điểm cho lớp này");
+        }
+        if (defaultSubjectId != null && !snapshot.subjectIds.contains(defaultSubjectId)) {
+            throw new RuntimeException("Không tìm thấy môn học");
+        }
+
+        List<ValidRow> valid = new ArrayList<>();
+        List<GradeDTO.RowError> errors = new ArrayList<>();
+        int totalRows = 0;
+
+        try (SpreadsheetRowReader reader = SpreadsheetRowReader.open(file, "grade-import-")) {
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new RuntimeException("File không có dữ liệu");
+            }
+            Columns columns = Columns.of(header, defaultClassId != null, defaultSubjectId != null);
+
+            List<RawRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            int rowNumber = 1;
+            List<String> cells;
+            while ((cells = reader.next()) != null) {
+                rowNumber++;
+                if (cells.stream().allMatch(String::isEmpty)) {
+                    continue;
+                }
+                if (++totalRows > MAX_ROWS) {
+                    throw new RuntimeException("File vượt quá " + MAX_ROWS + " dòng");
+                }
+                chunk.add(new RawRow(rowNumber, cells));
+                if (chunk.size() == CHUNK_SIZE) {
+                    validateChunk(chunk, columns, snapshot, defaultClassId, defaultSubjectId, valid, errors);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            validateChunk(chunk, columns, snapshot, defaultClassId, defaultSubjectId, valid, errors);
+        } catch (IOException e) {
+            throw new RuntimeException("Không đọc được file: " + e.getMessage());
+        }
+
+        // Ghi theo nhóm (lớp, môn), mỗi nhóm một lô
+        Map<String, List<ValidRow>> groups = new LinkedHashMap<>();
+        for (ValidRow row : valid) {
+            groups.computeIfAbsent(row.classId + "|" + row.subjectId, k -> new ArrayList<>()).add(row);
+        }
+
+        GradeDTO.ImportResult result = new GradeDTO.ImportResult();
+        for (List<ValidRow> group : groups.values()) {
+            List<GradeDTO.GradeUpdateRequest> requests = group.stream().map(r -> r.request).toList();
+            GradeDTO.BatchGradeResult written = gradeService.writeBatch(group.get(0).classId,
+                    group.get(0).subjectId, requests);
+            result.setInsertedCount(result.getInsertedCount() + written.getInsertedCount());
+            result.setUpdatedCount(result.getUpdatedCount() + written.getUpdatedCount());
+            result.setUnchangedCount(result.getUnchangedCount() + written.getUnchangedCount());
+            for (GradeDTO.RowError error : written.getErrors()) {
+                errors.add(new GradeDTO.RowError(group.get(error.getIndex()).rowNumber,
+                        error.getStudentId(), error.getMessage()));
+            }
+        }
+
+        errors.sort(Comparator.comparingInt(GradeDTO.RowError::getIndex));
+        result.setTotalRows(totalRows);
+        result.setValidRows(totalRows - errors.size());
+        result.setErrors(errors);
+        return result;
+    }
+
+    // Kiểm tra song song một khối dòng (ảnh chụp chỉ đọc nên không cần khóa)
+    private void validateChunk(List<RawRow> chunk, Columns columns, Snapshot snapshot,
+                               Long defaultClassId, Long defaultSubjectId,
+                               List<ValidRow> valid, List<GradeDTO.RowError> errors) {
+        List<Object> results = chunk.parallelStream()
+                .map(raw -> validate(raw, columns, snapshot, defaultClassId, defaultSubjectId))
+                .toList();
+        for (Object result : results) {
+            if (result instanceof ValidRow row) {
+                valid.add(row);
+            } else {
+                errors.add((GradeDTO.RowError) result);
+            }
+        }
+    }
+
+    private Object validate(RawRow raw, Columns columns, Snapshot snapshot,
+                            Long defaultClassId, Long defaultSubjectId) {
+        Long classId = defaultClassId;
+        String classCode = columns.cell(raw.cells, columns.classCode);
+        if (!classCode.isEmpty()) {
+            classId = snapshot.classesByCode.get(classCode.toUpperCase(Locale.ROOT));
+            if (classId == null) {
+                return new GradeDTO.RowError(raw.rowNumber, null, "Không tìm thấy lớp " + classCode + " của bạn");
+            }
+        }
+        if (classId == null) {
+            return new GradeDTO.RowError(raw.rowNumber, null, "Thiếu mã lớp");
+        }
+
+        Long subjectId = defaultSubjectId;
+        String subjectCode = columns.cell(raw.cells, columns.subjectCode);
+        if (!subjectCode.isEmpty()) {
+            subjectId = snapshot.subjectsByCode.get(subjectCode.toUpperCase(Locale.ROOT));
+            if (subjectId == null) {
+                return new GradeDTO.RowError(raw.rowNumber, null, "Không tìm thấy môn học " + subjectCode);
+            }
+        }
+        if (subjectId == null) {
+            return new GradeDTO.RowError(raw.rowNumber, null, "Thiếu mã môn học");
+        }
+
+        Map<String, Long> roster = snapshot.rosterByClass.getOrDefault(classId, Map.of());
+        Long studentId = null;
+        String studentIdText = columns.cell(raw.cells, columns.studentId);
+        String email = columns.cell(raw.cells, columns.email);
+        if (!studentIdText.isEmpty()) {
+            try {
+                studentId = SpreadsheetRowReader.parseWholeNumber(studentIdText);
+            } catch (NumberFormatException e) {
+                return new GradeDTO.RowError(raw.rowNumber, null, "Mã sinh viên không hợp lệ: " + studentIdText);
+            }
+            if (!snapshot.studentIdsByClass.getOrDefault(classId, Set.of()).contains(studentId)) {
+                return new GradeDTO.RowError(raw.rowNumber, studentId, "Sinh viên không có trong lớp học này");
+            }
+        } else if (!email.isEmpty()) {
+            studentId = roster.get(email.toLowerCase(Locale.ROOT));
+            if (studentId == null) {
+                return new GradeDTO.RowError(raw.rowNumber, null, "Sinh viên " + email + " không có trong lớp học này");
+            }
+        } else {
+            return new GradeDTO.RowError(raw.rowNumber, null, "Thiếu mã sinh viên hoặc email");
+        }
+
+        Double processScore;
+        Double midtermScore;
+        Double finalExamScore;
+        try {
+            processScore = parseScore(columns.cell(raw.cells, columns.processScore));
+            midtermScore = parseScore(columns.cell(raw.cells, columns.midtermScore));
+            finalExamScore = parseScore(columns.cell(raw.cells, columns.finalExamScore));
+        } catch (NumberFormatException e) {
+            return new GradeDTO.RowError(raw.rowNumber, studentId, "Điểm không phải là số");
+        }
+
+        GradeDTO.GradeUpdateRequest request = new GradeDTO.GradeUpdateRequest();
+        request.setStudentId(studentId);
+        request.setProcessScore(processScore);
+        request.setMidtermScore(midtermScore);
+        request.setFinalExamScore(finalExamScore);
+        // File không có cột nhận xét: để null cho writeBatch giữ nhận xét hiện có; ô trống thì xóa nhận xét
+        if (columns.comments >= 0) {
+            request.setComments(columns.cell(raw.cells, columns.comments));
+        }
+        return new ValidRow(raw.rowNumber, classId, subjectId, request);
+    }
+
+    // Ảnh chụp lớp, môn, danh sách sinh viên của giáo viên: ba truy vấn cho cả file
+    private Snapshot loadSnapshot(Long teacherId) {
+        Snapshot snapshot = new Snapshot();
+        for (Object[] row : classRepository.findCodesByTeacherId(teacherId)) {
+            snapshot.classIds.add((Long) row[0]);
+            snapshot.classesByCode.put(((String) row[1]).toUpperCase(Locale.ROOT), (Long) row[0]);
+        }
+        for (Object[] row : subjectRepository.findAllCodes()) {
+            snapshot.subjectIds.add((Long) row[0]);
+            snapshot.subjectsByCode.put(((String) row[1]).toUpperCase(Locale.ROOT), (Long) row[0]);
+        }
+        for (Object[] row : classStudentRepository.findRosterByTeacherId(teacherId)) {
+            String email = row[2] != null ? ((String) row[2]).toLowerCase(Locale.ROOT) : "#" + row[1];
+            snapshot.rosterByClass.computeIfAbsent((Long) row[0], id -> new HashMap<>()).put(email, (Long) row[1]);
+            snapshot.studentIdsByClass.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+        return snapshot;
+    }
+
+    private static Double parseScore(String text) {
+        if (text.isEmpty()) {
+            return null;
+        }
+        double score = Double.parseDouble(text.replace(',', '.'));
+        // parseDouble nhận cả "NaN"/"Infinity", mọi phép so sánh khoảng điểm với NaN đều sai
+        if (!Double.isFinite(score)) {
+            throw new NumberFormatException("Điểm không hợp lệ: " + text);
+        }
+        return score;
+    }
+
+    private static class Snapshot {
+        final Set<Long> classIds = new HashSet<>();
+        final Set<Long> subjectIds = new HashSet<>();
+        final Map<String, Long> classesByCode = new HashMap<>();
+        final Map<String, Long> subjectsByCode = new HashMap<>();
+        final Map<Long, Map<String, Long>> rosterByClass = new HashMap<>(); // classId -> email -> studentId
+        final Map<Long, Set<Long>> studentIdsByClass = new HashMap<>();
+    }
+
+    private record RawRow(int rowNumber, List<String> cells) {
+    }
+
+    private record ValidRow(int rowNumber, Long classId, Long subjectId, GradeDTO.GradeUpdateRequest request) {
+    }
+
+    // Vị trí các cột theo tiêu đề (chấp nhận tên tiếng Anh hoặc tiếng Việt, không phân biệt dấu)
+    private static class Columns {
+        int classCode = -1;
+        int subjectCode = -1;
+        int studentId = -1;
+        int email = -1;
+        int processScore = -1;
+        int midtermScore = -1;
+        int finalExamScore = -1;
+        int comments = -1;
+
+        static Columns of(List<String> header, boolean hasDefaultClass, boolean hasDefaultSubject) {
+            Columns c = new Columns();
+            for (int i = 0; i < header.size(); i++) {
+                switch (SpreadsheetRowReader.normalizeHeader(header.get(i))) {
+                    case "classcode", "malop", "lop" -> c.classCode = i;
+                    case "subjectcode", "mamon", "mamonhoc" -> c.subjectCode = i;
+                    case "studentid", "masv", "masinhvien" -> c.studentId = i;
+                    case "email", "studentemail" -> c.email = i;
+                    case "processscore", "diemquatrinh", "quatrinh" -> c.processScore = i;
+                    case "midtermscore", "diemgiuaky", "giuaky" -> c.midtermScore = i;
+                    case "finalexamscore", "diemcuoiky", "cuoiky" -> c.finalExamScore = i;
+                    case "comments", "comment", "nhanxet", "ghichu" -> c.comments = i;
+                    default -> { }
+                }
+            }
+            if (c.classCode < 0 && !hasDefaultClass) {
+                throw new RuntimeException("Thiếu cột mã lớp (classCode)");
+            }
+            if (c.subjectCode < 0 && !hasDefaultSubject) {
+                throw new RuntimeException("Thiếu cột mã môn học (subjectCode)");
+            }
+            if (c.studentId < 0 && c.email < 0) {
+                throw new RuntimeException("Thiếu cột mã sinh viên (studentId) hoặc email");
+            }
+            if (c.midtermScore < 0) {
+                throw new RuntimeException("Thiếu cột điểm giữa kỳ (midtermScore)");
+            }
+            return c;
+        }
+
+        String cell(List<String> cells, int index) {
+            return index >= 0 && index < cells.size() ? cells.get(index) : "";
+        }
+    }
+}
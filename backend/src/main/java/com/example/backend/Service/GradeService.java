@@ -1,20 +1,40 @@
 package com.example.backend.Service;
 
 import com.example.backend.Model.Grade;
+import com.example.backend.Model.GradeArchive;
+import com.example.backend.Model.GradeSnapshot;
+import com.example.backend.Model.ProcessScorePolicy;
 import com.example.backend.DTO.GradeDTO;
+import com.example.backend.DTO.TranscriptDTO;
+import com.example.backend.Event.GradeChangedEvent;
 import com.example.backend.Model.ClassEntity;
 import com.example.backend.Model.User;
 import com.example.backend.Model.Subject;
+import com.example.backend.Repository.ClassStudentRepository;
 import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.GradeRepositoryCustom;
 import com.example.backend.Repository.ClassRepository;
 import com.example.backend.Repository.UserRepository;
 import com.example.backend.Repository.SubjectRepository;
+import com.example.backend.Util.CompiledGradingFormula;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,10 +52,50 @@ public class GradeService {
     @Autowired
     private SubjectRepository subjectRepository; // Đã có repository
 
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private ProcessScoreService processScoreService;
+
+    @Autowired
+    private GradingFormulaService gradingFormulaService;
+
+    @Autowired
+    private GradeFreezeService gradeFreezeService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ScoreDistributionService scoreDistributionService;
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${calendar.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+
+    private ZoneId zoneId;
+
+    @PostConstruct
+    public void init() {
+        zoneId = ZoneId.of(zone);
+    }
+
     // Thêm/chấm điểm cho sinh viên
     @Transactional
     public Grade addOrUpdateGrade(Long classId, Long studentId, Long subjectId,
-            Double processScore, Double midtermScore, String comments, Long teacherId) {
+            Double processScore, Double midtermScore, Double finalExamScore, String comments, Long teacherId) {
         ClassEntity classEntity = classRepository.findById(classId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy lớp học"));
 
@@ -57,13 +117,31 @@ public class GradeService {
             throw new RuntimeException("Sinh viên không có trong lớp học này");
         }
 
+        // Lớp dùng quy tắc điểm quá trình từ điểm danh: bỏ qua giá trị nhập tay
+        Double derivedProcessScore = processScoreService.deriveProcessScore(classId, studentId);
+        if (derivedProcessScore != null) {
+            processScore = derivedProcessScore;
+        }
+
         // Tìm điểm hiện có hoặc tạo mới
         Optional<Grade> existingGrade = gradeRepository.findByStudentAndClassObjAndSubject(student, classEntity,
                 subject);
         Grade grade;
+        Double oldProcessScore = null;
+        Double oldMidtermScore = null;
+        Double oldFinalScore = null;
 
         if (existingGrade.isPresent()) {
             grade = existingGrade.get();
+            academicTermService.requireWritable(grade.getTermId());
+            gradeFreezeService.requireNotFrozen(classId, grade.getTermId());
+            oldProcessScore = grade.getProcessScore();
+            oldMidtermScore = grade.getMidtermScore();
+            oldFinalScore = grade.getFinalScore();
+            // Không gửi điểm cuối kỳ: giữ điểm hiện có
+            if (finalExamScore == null) {
+                finalExamScore = grade.getFinalExamScore();
+            }
             grade.setProcessScore(processScore);
             grade.setMidtermScore(midtermScore);
             grade.setComments(comments);
@@ -72,12 +150,23 @@ public class GradeService {
             grade.setClassObj(classEntity);
             grade.setStudent(student);
             grade.setSubject(subject);
+            grade.setTermId(academicTermService.resolveWritableTermId(LocalDate.now(zoneId)));
+            gradeFreezeService.requireNotFrozen(classId, grade.getTermId());
             grade.setProcessScore(processScore);
             grade.setMidtermScore(midtermScore);
             grade.setComments(comments);
         }
+        gradingFormulaService.lockFormulas(List.of(subjectId));
+        Double finalScore = gradingFormulaService.computeFinalScore(subjectId, processScore, midtermScore,
+                finalExamScore);
+        grade.setFinalExamScore(finalExamScore);
+        grade.setFinalScore(finalScore);
 
-        return gradeRepository.save(grade);
+        Grade saved = gradeRepository.save(grade);
+        eventPublisher.publishEvent(new GradeChangedEvent(List.of(new GradeChangedEvent.Change(
+                classId, studentId, subjectId, oldProcessScore, oldMidtermScore, processScore, midtermScore,
+                oldFinalScore, finalScore))));
+        return saved;
     }
 
     // Lấy điểm theo lớp
@@ -96,6 +185,31 @@ public class GradeService {
         return gradeRepository.findByStudent(student);
     }
 
+    // Điểm của sinh viên dạng DTO: điểm đã chốt lấy từ bản chụp trong bộ nhớ,
+    // bảng grades chỉ được đọc cho các lớp/học kỳ chưa chốt
+    @Transactional(readOnly = true)
+    public List<GradeDTO.GradeResponse> getStudentGradeResponses(Long studentId) {
+        if (!userRepository.existsById(studentId)) {
+            throw new RuntimeException("Không tìm thấy sinh viên");
+        }
+        List<GradeDTO.GradeResponse> result = new ArrayList<>(gradeFreezeService.getPublishedGrades(studentId));
+        gradeRepository.findUnfrozenByStudentId(studentId).stream()
+                .map(GradeDTO.GradeResponse::fromEntity)
+                .forEach(result::add);
+        return result;
+    }
+
+    // Điểm đã công bố (đã chốt) của sinh viên, không truy vấn CSDL
+    public List<GradeDTO.GradeResponse> getPublishedStudentGrades(Long studentId) {
+        return gradeFreezeService.getPublishedGrades(studentId);
+    }
+
+    // Điểm đã lưu trữ (các học kỳ đã đóng) của sinh viên
+    @Transactional(readOnly = true)
+    public List<GradeArchive> getArchivedStudentGrades(Long studentId) {
+        return gradeRepository.findArchivedByStudent(studentId);
+    }
+
     // Lấy điểm của sinh viên trong lớp cụ thể
     @Transactional(readOnly = true)
     public List<Grade> getStudentGradesInClass(Long studentId, Long classId) {
@@ -114,13 +228,279 @@ public class GradeService {
         return gradeRepository.findAverageScoreByClass(classEntity);
     }
 
-    // Chấm điểm hàng loạt
+    // Chấm điểm hàng loạt cho một môn của lớp
+    // Nạp lớp, môn, danh sách lớp và điểm hiện có một lần, so sánh trong bộ nhớ rồi ghi INSERT/UPDATE theo lô.
+    // Dòng không hợp lệ được báo riêng, không làm hỏng cả lô.
     @Transactional
-    public List<Grade> batchUpdateGrades(Long classId, Long subjectId,
+    public GradeDTO.BatchGradeResult batchUpdateGrades(Long classId, Long subjectId,
             List<GradeDTO.GradeUpdateRequest> gradeRequests, Long teacherId) {
-        return gradeRequests.stream()
-                .map(request -> addOrUpdateGrade(classId, request.getStudentId(), subjectId,
-                        request.getProcessScore(), request.getMidtermScore(), request.getComments(), teacherId))
-                .collect(Collectors.toList());
+        ClassEntity classEntity = classRepository.findById(classId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy lớp học"));
+
+        if (!subjectRepository.existsById(subjectId)) {
+            throw new RuntimeException("Không tìm thấy môn học");
+        }
+
+        // Kiểm tra giáo viên có quyền chấm điểm cho lớp này không
+        if (classEntity.getTeacher() == null || !classEntity.getTeacher().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền chấm điểm cho lớp này");
+        }
+
+        GradeDTO.BatchGradeResult result = writeBatch(classId, subjectId, gradeRequests);
+        result.setGrades(gradeRepository.findWithDetailsByClassIdAndSubjectId(classId, subjectId).stream()
+                .map(GradeDTO.GradeResponse::fromEntity)
+                .collect(Collectors.toList()));
+        return result;
+    }
+
+    // Ghi một lô điểm của (lớp, môn) khi quyền đã được kiểm tra: nạp danh sách lớp và điểm hiện có
+    // bằng hai truy vấn, so sánh trong bộ nhớ, ghi INSERT/UPDATE theo lô. index của lỗi = vị trí trong lô.
+    @Transactional
+    public GradeDTO.BatchGradeResult writeBatch(Long classId, Long subjectId,
+            List<GradeDTO.GradeUpdateRequest> gradeRequests) {
+        List<GradeDTO.GradeUpdateRequest> items = gradeRequests != null ? gradeRequests : List.of();
+        // Khóa đọc lớp trước khi đọc điểm: trạng thái chốt không đổi tới khi commit
+        GradeFreezeService.FrozenTerms frozen = gradeFreezeService.lockForWrite(List.of(classId));
+        Set<Long> roster = new HashSet<>(classStudentRepository.findStudentIdsByClassId(classId));
+
+        Map<Long, Object[]> existing = new HashMap<>();
+        for (Object[] row : gradeRepository.findScoresByClassIdAndSubjectId(classId, subjectId)) {
+            existing.put((Long) row[1], row);
+        }
+
+        // Lớp dùng quy tắc điểm quá trình từ điểm danh: bỏ qua giá trị nhập tay
+        Map<Long, Double> derived = processScoreService.deriveProcessScores(classId, roster);
+        gradingFormulaService.lockFormulas(List.of(subjectId));
+        CompiledGradingFormula formula = gradingFormulaService.formulaOf(subjectId);
+
+        // Học kỳ cho các dòng mới (lỗi nếu học kỳ hiện tại đã đóng)
+        Long termId = null;
+        String termError = null;
+        try {
+            termId = academicTermService.resolveWritableTermId(LocalDate.now(zoneId));
+            if (frozen.contains(classId, termId)) {
+                throw new RuntimeException("Điểm của lớp trong học kỳ này đã được chốt, không thể sửa");
+            }
+        } catch (RuntimeException e) {
+            termError = e.getMessage();
+        }
+
+        List<GradeDTO.RowError> errors = new ArrayList<>();
+        List<GradeRepositoryCustom.GradeRow> inserts = new ArrayList<>();
+        List<GradeRepositoryCustom.GradeRow> updates = new ArrayList<>();
+        List<GradeChangedEvent.Change> changes = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        int unchanged = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            GradeDTO.GradeUpdateRequest item = items.get(i);
+            Long studentId = item != null ? item.getStudentId() : null;
+            if (studentId == null) {
+                errors.add(new GradeDTO.RowError(i, null, "Thiếu mã sinh viên"));
+                continue;
+            }
+            if (!seen.add(studentId)) {
+                errors.add(new GradeDTO.RowError(i, studentId, "Sinh viên bị lặp trong lô"));
+                continue;
+            }
+            if (!roster.contains(studentId)) {
+                errors.add(new GradeDTO.RowError(i, studentId, "Sinh viên không có trong lớp học này"));
+                continue;
+            }
+
+            Double processScore = derived != null ? derived.get(studentId) : item.getProcessScore();
+            Double midtermScore = item.getMidtermScore();
+            if (processScore == null || midtermScore == null) {
+                errors.add(new GradeDTO.RowError(i, studentId, "Điểm không được để trống"));
+                continue;
+            }
+            Double finalExamScore = item.getFinalExamScore();
+            if (!isValidScore(processScore) || !isValidScore(midtermScore)
+                    || (finalExamScore != null && !isValidScore(finalExamScore))) {
+                errors.add(new GradeDTO.RowError(i, studentId, "Điểm phải nằm trong khoảng 0 - 10"));
+                continue;
+            }
+
+            Object[] row = existing.get(studentId);
+            if (row == null) {
+                if (termError != null) {
+                    errors.add(new GradeDTO.RowError(i, studentId, termError));
+                    continue;
+                }
+                Double finalScore = formula.evaluate(processScore, midtermScore, finalExamScore);
+                inserts.add(new GradeRepositoryCustom.GradeRow(null, classId, studentId, subjectId, termId,
+                        processScore, midtermScore, finalExamScore, finalScore, emptyToNull(item.getComments())));
+                changes.add(new GradeChangedEvent.Change(classId, studentId, subjectId,
+                        null, null, processScore, midtermScore, null, finalScore));
+                continue;
+            }
+
+            if (!academicTermService.isTermOpen((Long) row[5])) {
+                errors.add(new GradeDTO.RowError(i, studentId, "Học kỳ đã đóng, không thể sửa điểm"));
+                continue;
+            }
+            if (frozen.contains(classId, (Long) row[5])) {
+                errors.add(new GradeDTO.RowError(i, studentId, "Điểm đã được chốt, không thể sửa"));
+                continue;
+            }
+            Double oldProcessScore = (Double) row[2];
+            Double oldMidtermScore = (Double) row[3];
+            Double oldFinalScore = (Double) row[7];
+            // Không gửi điểm cuối kỳ: giữ điểm hiện có
+            if (finalExamScore == null) {
+                finalExamScore = (Double) row[6];
+            }
+            // Không gửi nhận xét: giữ nhận xét hiện có; chuỗi rỗng thì xóa
+            String comments = item.getComments() != null ? emptyToNull(item.getComments()) : (String) row[4];
+            if (processScore.equals(oldProcessScore) && midtermScore.equals(oldMidtermScore)
+                    && Objects.equals(finalExamScore, row[6]) && Objects.equals(comments, row[4])) {
+                unchanged++;
+                continue;
+            }
+            Double finalScore = formula.evaluate(processScore, midtermScore, finalExamScore);
+            updates.add(new GradeRepositoryCustom.GradeRow((Long) row[0], classId, studentId, subjectId,
+                    (Long) row[5], processScore, midtermScore, finalExamScore, finalScore, comments));
+            changes.add(new GradeChangedEvent.Change(classId, studentId, subjectId,
+                    oldProcessScore, oldMidtermScore, processScore, midtermScore, oldFinalScore, finalScore));
+        }
+
+        gradeRepository.insertGrades(inserts);
+        gradeRepository.updateGrades(updates);
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new GradeChangedEvent(changes));
+        }
+
+        GradeDTO.BatchGradeResult result = new GradeDTO.BatchGradeResult();
+        result.setInsertedCount(inserts.size());
+        result.setUpdatedCount(updates.size());
+        result.setUnchangedCount(unchanged);
+        result.setErrors(errors);
+        return result;
+    }
+
+    // Quy tắc tính điểm quá trình của lớp
+    public ProcessScorePolicy getProcessScorePolicy(Long classId, Long teacherId) {
+        return processScoreService.getPolicy(classId, teacherId);
+    }
+
+    public ProcessScorePolicy saveProcessScorePolicy(Long classId, GradeDTO.ProcessScorePolicyRequest request,
+            Long teacherId) {
+        return processScoreService.savePolicy(classId, request, teacherId);
+    }
+
+    // Tính lại điểm quá trình hàng loạt (một lớp hoặc cả học kỳ)
+    public GradeDTO.RecomputeResult recomputeProcessScores(Long classId, Long teacherId) {
+        return processScoreService.recomputeClass(classId, teacherId);
+    }
+
+    public GradeDTO.RecomputeResult recomputeProcessScoresForTerm(Long termId, Long teacherId) {
+        return processScoreService.recomputeTerm(termId, teacherId);
+    }
+
+    // Phân bố điểm (histogram, phân vị, độ lệch chuẩn) của một môn trong lớp
+    public GradeDTO.GradeDistribution getGradeDistribution(Long classId, Long subjectId) {
+        if (!classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        return scoreDistributionService.getDistribution(classId, subjectId);
+    }
+
+    // Phân bố điểm gộp mọi môn của lớp
+    public GradeDTO.GradeDistribution getClassGradeDistribution(Long classId) {
+        if (!classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        return scoreDistributionService.getClassDistribution(classId);
+    }
+
+    // Bảng điểm và điểm trung bình tích lũy của sinh viên (được cache)
+    public TranscriptDTO.Transcript getStudentTranscript(Long studentId) {
+        return transcriptService.getTranscript(studentId);
+    }
+
+    // Hạng và phân vị của sinh viên trong môn của lớp
+    public GradeDTO.StudentRank getStudentRank(Long classId, Long subjectId, Long studentId) {
+        if (!classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        return rankingService.getRank(classId, subjectId, studentId);
+    }
+
+    // Bảng xếp hạng N sinh viên cao điểm nhất
+    public List<GradeDTO.RankEntry> getTopStudents(Long classId, Long subjectId, int limit) {
+        if (!classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp học");
+        }
+        return rankingService.getTop(classId, subjectId, limit);
+    }
+
+    // Công thức tính điểm tổng kết của môn
+    public GradeDTO.GradingFormulaResponse getGradingFormula(Long subjectId) {
+        return gradingFormulaService.getFormula(subjectId);
+    }
+
+    public GradeDTO.GradingFormulaResult saveGradingFormula(Long subjectId, GradeDTO.GradingFormulaRequest request,
+            Long teacherId) {
+        return gradingFormulaService.saveFormula(subjectId, request, teacherId);
+    }
+
+    // Chốt điểm của lớp trong học kỳ: khóa ghi, tính lại điểm tổng kết song song, ghi bản chụp nén
+    // phiên bản mới rồi công bố cho sinh viên đọc từ bộ nhớ
+    public GradeDTO.SnapshotInfo finalizeGrades(Long classId, Long termId, Long teacherId) {
+        requireTeacherOfClass(classId, teacherId);
+        if (academicTermService.getTerms().stream().noneMatch(t -> t.getTermId().equals(termId))) {
+            throw new RuntimeException("Không tìm thấy học kỳ");
+        }
+
+        // Khóa ghi dòng lớp trước khi tính: giao dịch ghi điểm của lớp chờ tới khi commit rồi thấy cờ chốt,
+        // nên không còn thay đổi nào chen vào giữa lúc chụp
+        Finalized finalized = transactionTemplate.execute(status -> {
+            gradeFreezeService.lockForFreeze(classId, termId);
+            gradingFormulaService.recomputeClassTerm(classId, termId);
+            List<GradeDTO.GradeResponse> grades = gradeRepository
+                    .findWithDetailsByClassIdAndTermId(classId, termId).stream()
+                    .map(GradeDTO.GradeResponse::fromEntity)
+                    .toList();
+            return new Finalized(gradeFreezeService.writeSnapshot(classId, termId, teacherId, grades), grades);
+        });
+        GradeSnapshot snapshot = finalized.snapshot();
+        gradeFreezeService.publish(snapshot, finalized.grades());
+        return new GradeDTO.SnapshotInfo(classId, termId, snapshot.getVersion(), snapshot.getGradeCount(),
+                snapshot.getChecksum(), snapshot.getCreatedBy(), snapshot.getCreatedAt());
+    }
+
+    // Mở khóa điểm đã chốt để sửa (lần chốt sau tạo phiên bản bản chụp mới)
+    public void reopenGrades(Long classId, Long termId, Long teacherId) {
+        requireTeacherOfClass(classId, teacherId);
+        gradeFreezeService.reopen(classId, termId);
+    }
+
+    // Bảng điểm đã chốt (version = null: phiên bản đang công bố)
+    public GradeDTO.GradebookSnapshot getGradebookSnapshot(Long classId, Long termId, Integer version) {
+        return gradeFreezeService.getSnapshot(classId, termId, version);
+    }
+
+    public List<GradeDTO.SnapshotInfo> getSnapshotVersions(Long classId, Long termId) {
+        return gradeFreezeService.getSnapshotVersions(classId, termId);
+    }
+
+    private void requireTeacherOfClass(Long classId, Long teacherId) {
+        ClassEntity classEntity = classRepository.findById(classId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy lớp học"));
+        if (classEntity.getTeacher() == null || !classEntity.getTeacher().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền chốt điểm của lớp này");
+        }
+    }
+
+    // Điểm hợp lệ: 0 - 10 và là số hữu hạn (NaN làm mọi phép so sánh khoảng đều sai)
+    private static boolean isValidScore(Double score) {
+        return Double.isFinite(score) && score >= 0 && score <= 10;
+    }
+
+    private static String emptyToNull(String text) {
+        return text == null || text.isEmpty() ? null : text;
+    }
+
+    private record Finalized(GradeSnapshot snapshot, List<GradeDTO.GradeResponse> grades) {
     }
 }
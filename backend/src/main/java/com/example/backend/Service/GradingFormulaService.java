@@ -0,0 +1,251 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.GradingFormula;
+import com.example.backend.Model.Subject;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.GradeRepositoryCustom;
+import com.example.backend.Repository.GradingFormulaRepository;
+import com.example.backend.Repository.SubjectRepository;
+import com.example.backend.Util.CompiledGradingFormula;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Công thức tính điểm tổng kết theo từng môn. Mỗi công thức được biên dịch một lần và giữ trong bộ nhớ;
+// điểm tổng kết được lưu vào cột final_score mỗi khi ghi điểm hoặc khi công thức đổi.
+@Service
+public class GradingFormulaService {
+
+    @Autowired
+    private GradingFormulaRepository formulaRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private GradeFreezeService gradeFreezeService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, CompiledGradingFormula> compiled = new ConcurrentHashMap<>();
+
+    // Điểm tổng kết theo công thức của môn (null khi còn thiếu thành phần)
+    public Double computeFinalScore(Long subjectId, Double processScore, Double midtermScore, Double finalExamScore) {
+        return formulaOf(subjectId).evaluate(processScore, midtermScore, finalExamScore);
+    }
+
+    // Gọi trong transaction ghi điểm, trước khi tính điểm tổng kết: khóa đọc các môn để công thức không bị đổi
+    // giữa lúc tính và lúc commit (saveFormula giữ khóa ghi trong lúc thay công thức và tính lại)
+    public void lockFormulas(Collection<Long> subjectIds) {
+        if (!subjectIds.isEmpty()) {
+            subjectRepository.lockSharedByIds(subjectIds);
+        }
+    }
+
+    // Công thức đã biên dịch của môn (mặc định khi môn chưa có công thức riêng)
+    public CompiledGradingFormula formulaOf(Long subjectId) {
+        return compiled.computeIfAbsent(subjectId, id -> formulaRepository.findBySubjectId(id)
+                .map(GradingFormula::compile)
+                .orElse(CompiledGradingFormula.DEFAULT));
+    }
+
+    // Lấy công thức của môn
+    @Transactional(readOnly = true)
+    public GradeDTO.GradingFormulaResponse getFormula(Long subjectId) {
+        if (!subjectRepository.existsById(subjectId)) {
+            throw new RuntimeException("Không tìm thấy môn học");
+        }
+        return formulaRepository.findBySubjectId(subjectId)
+                .map(GradeDTO.GradingFormulaResponse::fromEntity)
+                .orElseGet(() -> GradeDTO.GradingFormulaResponse.fromEntity(newFormula(subjectId)));
+    }
+
+    // Tạo/cập nhật công thức (chỉ giáo viên tạo môn) và tính lại điểm tổng kết của môn trong cùng transaction.
+    // Bộ tính điểm trong bộ nhớ được thay khi đang giữ khóa ghi của môn: giao dịch ghi điểm chờ khóa đọc nên
+    // chỉ dùng công thức mới sau khi commit; rollback thì trả lại công thức cũ.
+    public GradeDTO.GradingFormulaResult saveFormula(Long subjectId, GradeDTO.GradingFormulaRequest request,
+                                                     Long teacherId) {
+        Subject subject = subjectRepository.findById(subjectId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy môn học"));
+        if (subject.getCreatedBy() == null || !subject.getCreatedBy().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền sửa công thức tính điểm của môn học này");
+        }
+
+        GradingFormula formula = formulaRepository.findBySubjectId(subjectId).orElseGet(() -> newFormula(subjectId));
+        if (request.getProcessWeight() != null) formula.setProcessWeight(request.getProcessWeight());
+        if (request.getMidtermWeight() != null) formula.setMidtermWeight(request.getMidtermWeight());
+        if (request.getFinalWeight() != null) formula.setFinalWeight(request.getFinalWeight());
+        if (request.getRoundingStep() != null) formula.setRoundingStep(request.getRoundingStep());
+        if (request.getRoundingMode() != null) {
+            try {
+                formula.setRoundingMode(CompiledGradingFormula.Rounding.valueOf(
+                        request.getRoundingMode().trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Kiểu làm tròn không hợp lệ: " + request.getRoundingMode());
+            }
+        }
+
+        // Biên dịch trước khi lưu: công thức sai bị từ chối ngay
+        CompiledGradingFormula evaluator = formula.compile();
+        CompiledGradingFormula previous = compiled.get(subjectId);
+        try {
+            return transactionTemplate.execute(status -> {
+                // Khóa lớp trước, môn sau - cùng thứ tự với giao dịch ghi điểm
+                gradeFreezeService.lockForWrite(gradeRepository.findClassIdsBySubjectId(subjectId));
+                subjectRepository.lockById(subjectId);
+                try {
+                    GradeDTO.GradingFormulaResult r = new GradeDTO.GradingFormulaResult();
+                    r.setFormula(GradeDTO.GradingFormulaResponse.fromEntity(formulaRepository.save(formula)));
+                    compiled.put(subjectId, evaluator);
+                    r.setUpdatedCount(recompute(subjectId, evaluator, false));
+                    return r;
+                } catch (RuntimeException e) {
+                    // Trả lại trước khi rollback nhả khóa
+                    restore(subjectId, previous);
+                    throw e;
+                }
+            });
+        } catch (RuntimeException e) {
+            // Lỗi lúc commit
+            restore(subjectId, previous);
+            throw e;
+        }
+    }
+
+    // Điểm có từ trước khi có cột final_score: điền một lần lúc khởi động, chỉ các dòng còn trống final_score
+    // (điểm lưu trữ theo công thức mặc định lúc đó, điểm đang dùng theo công thức hiện tại của môn)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void backfillFinalScores() {
+        gradeRepository.fillArchivedFinalScores();
+        for (Long subjectId : gradeRepository.findSubjectIdsWithoutFinalScore()) {
+            transactionTemplate.execute(status -> {
+                gradeFreezeService.lockForWrite(gradeRepository.findClassIdsBySubjectId(subjectId));
+                subjectRepository.lockById(subjectId);
+                return recompute(subjectId, formulaOf(subjectId), true);
+            });
+        }
+    }
+
+    // Tính lại điểm tổng kết các điểm của môn (đang giữ khóa ghi của môn): công thức chạy song song trên các dòng,
+    // chỉ những dòng đổi giá trị được ghi bằng một lô UPDATE. Điểm của học kỳ đã đóng (kết quả đã công bố)
+    // và điểm đã chốt luôn giữ nguyên. onlyMissing = true: chỉ điền các dòng chưa có final_score
+    private int recompute(Long subjectId, CompiledGradingFormula formula, boolean onlyMissing) {
+        Set<Long> closedTermIds = academicTermService.getTerms().stream()
+                .filter(t -> t.getStatus() != AcademicTerm.TermStatus.OPEN)
+                .map(AcademicTerm::getTermId)
+                .collect(Collectors.toSet());
+
+        List<Object[]> rows = gradeRepository.findFormulaInputsBySubjectId(subjectId);
+        GradeFreezeService.FrozenTerms frozen = gradeFreezeService.lockForWrite(
+                rows.stream().map(row -> (Long) row[1]).collect(Collectors.toSet()));
+        List<Recomputed> recomputed = rows.parallelStream()
+                .filter(row -> !onlyMissing || row[6] == null)
+                .filter(row -> row[7] == null || !closedTermIds.contains((Long) row[7]))
+                .filter(row -> !frozen.contains((Long) row[1], (Long) row[7]))
+                .map(row -> new Recomputed(row, formula.evaluate((Double) row[3], (Double) row[4], (Double) row[5])))
+                .filter(r -> !Objects.equals(r.finalScore(), r.row()[6]))
+                .toList();
+        if (recomputed.isEmpty()) {
+            return 0;
+        }
+
+        List<GradeRepositoryCustom.FinalScoreUpdate> updates = new ArrayList<>(recomputed.size());
+        List<GradeChangedEvent.Change> changes = new ArrayList<>(recomputed.size());
+        for (Recomputed r : recomputed) {
+            Object[] row = r.row();
+            updates.add(new GradeRepositoryCustom.FinalScoreUpdate((Long) row[0], r.finalScore()));
+            changes.add(new GradeChangedEvent.Change((Long) row[1], (Long) row[2], subjectId,
+                    (Double) row[3], (Double) row[4], (Double) row[3], (Double) row[4],
+                    (Double) row[6], r.finalScore()));
+        }
+
+        gradeRepository.updateFinalScores(updates);
+        eventPublisher.publishEvent(new GradeChangedEvent(changes));
+        return updates.size();
+    }
+
+    // Tính lại điểm tổng kết của một lớp trong học kỳ (bước đầu của chốt điểm, lớp đã được khóa ghi):
+    // công thức của từng môn nạp trước, sau đó tính song song trên các dòng và ghi các dòng đổi bằng một lô
+    @Transactional
+    public int recomputeClassTerm(Long classId, Long termId) {
+        List<Object[]> rows = gradeRepository.findScoresByClassId(classId).stream()
+                .filter(row -> termId.equals(row[5]))
+                .toList();
+        Set<Long> subjectIds = rows.stream().map(row -> (Long) row[2]).collect(Collectors.toSet());
+        lockFormulas(subjectIds);
+        Map<Long, CompiledGradingFormula> formulas = new HashMap<>();
+        for (Long subjectId : subjectIds) {
+            formulas.put(subjectId, formulaOf(subjectId));
+        }
+
+        List<Recomputed> recomputed = rows.parallelStream()
+                .map(row -> new Recomputed(row, formulas.get((Long) row[2])
+                        .evaluate((Double) row[3], (Double) row[4], (Double) row[6])))
+                .filter(r -> !Objects.equals(r.finalScore(), r.row()[7]))
+                .toList();
+        if (recomputed.isEmpty()) {
+            return 0;
+        }
+
+        List<GradeRepositoryCustom.FinalScoreUpdate> updates = new ArrayList<>(recomputed.size());
+        List<GradeChangedEvent.Change> changes = new ArrayList<>(recomputed.size());
+        for (Recomputed r : recomputed) {
+            Object[] row = r.row();
+            updates.add(new GradeRepositoryCustom.FinalScoreUpdate((Long) row[0], r.finalScore()));
+            changes.add(new GradeChangedEvent.Change(classId, (Long) row[1], (Long) row[2],
+                    (Double) row[3], (Double) row[4], (Double) row[3], (Double) row[4],
+                    (Double) row[7], r.finalScore()));
+        }
+
+        gradeRepository.updateFinalScores(updates);
+        eventPublisher.publishEvent(new GradeChangedEvent(changes));
+        return updates.size();
+    }
+
+    private void restore(Long subjectId, CompiledGradingFormula previous) {
+        if (previous != null) {
+            compiled.put(subjectId, previous);
+        } else {
+            compiled.remove(subjectId);
+        }
+    }
+
+    private static GradingFormula newFormula(Long subjectId) {
+        GradingFormula formula = new GradingFormula();
+        formula.setSubjectId(subjectId);
+        return formula;
+    }
+
+    private record Recomputed(Object[] row, Double finalScore) {
+    }
+}
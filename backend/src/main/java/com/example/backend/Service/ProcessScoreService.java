@@ -0,0 +1,253 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Model.Attendance;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Model.ProcessScorePolicy;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.AttendanceStudentStatRepository;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.GradeRepositoryCustom;
+import com.example.backend.Repository.ProcessScorePolicyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Điểm quá trình tự tính từ bảng tổng hợp điểm danh theo quy tắc của từng lớp
+@Service
+public class ProcessScoreService {
+
+    @Autowired
+    private ProcessScorePolicyRepository policyRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private AttendanceStudentStatRepository studentStatRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private GradingFormulaService gradingFormulaService;
+
+    @Autowired
+    private GradeFreezeService gradeFreezeService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Điểm danh thay đổi: chỉ tính lại các dòng điểm của đúng sinh viên bị ảnh hưởng
+    // Chạy sau khi bảng tổng hợp đã được cộng delta (cùng transaction)
+    @EventListener
+    @Order(2)
+    @Transactional
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        Map<Long, Set<Long>> studentsByClass = new HashMap<>();
+        for (AttendanceChangedEvent.Change change : event.getChanges()) {
+            if (change.getOldStatus() != change.getNewStatus()) {
+                studentsByClass.computeIfAbsent(change.getClassId(), id -> new HashSet<>()).add(change.getStudentId());
+            }
+        }
+
+        studentsByClass.forEach((classId, studentIds) -> policyRepository.findByClassId(classId)
+                .filter(ProcessScorePolicy::getEnabled)
+                .ifPresent(policy -> recompute(classId, policy, studentIds)));
+    }
+
+    // Điểm quá trình của sinh viên theo quy tắc của lớp (null nếu lớp không dùng quy tắc)
+    @Transactional(readOnly = true)
+    public Double deriveProcessScore(Long classId, Long studentId) {
+        ProcessScorePolicy policy = policyRepository.findByClassId(classId)
+                .filter(ProcessScorePolicy::getEnabled)
+                .orElse(null);
+        if (policy == null) {
+            return null;
+        }
+        Map<Attendance.AttendanceStatus, Long> counts = loadCounts(classId, List.of(studentId))
+                .getOrDefault(studentId, Map.of());
+        return compute(policy, counts);
+    }
+
+    // Điểm quá trình của các sinh viên theo quy tắc của lớp (null nếu lớp không dùng quy tắc)
+    @Transactional(readOnly = true)
+    public Map<Long, Double> deriveProcessScores(Long classId, Collection<Long> studentIds) {
+        ProcessScorePolicy policy = policyRepository.findByClassId(classId)
+                .filter(ProcessScorePolicy::getEnabled)
+                .orElse(null);
+        if (policy == null) {
+            return null;
+        }
+        Map<Long, Map<Attendance.AttendanceStatus, Long>> counts = loadCounts(classId, null);
+        Map<Long, Double> scores = new HashMap<>();
+        for (Long studentId : studentIds) {
+            scores.put(studentId, compute(policy, counts.getOrDefault(studentId, Map.of())));
+        }
+        return scores;
+    }
+
+    // Lấy quy tắc của lớp
+    @Transactional(readOnly = true)
+    public ProcessScorePolicy getPolicy(Long classId, Long teacherId) {
+        requireTeacherOfClass(classId, teacherId);
+        return policyRepository.findByClassId(classId)
+                .orElseThrow(() -> new RuntimeException("Lớp chưa có quy tắc tính điểm quá trình"));
+    }
+
+    // Tạo/cập nhật quy tắc và tính lại toàn bộ điểm quá trình của lớp
+    @Transactional
+    public ProcessScorePolicy savePolicy(Long classId, GradeDTO.ProcessScorePolicyRequest request, Long teacherId) {
+        requireTeacherOfClass(classId, teacherId);
+
+        ProcessScorePolicy policy = policyRepository.findByClassId(classId).orElseGet(() -> {
+            ProcessScorePolicy p = new ProcessScorePolicy();
+            p.setClassId(classId);
+            return p;
+        });
+        if (request.getBaseScore() != null) policy.setBaseScore(request.getBaseScore());
+        if (request.getAbsentPenalty() != null) policy.setAbsentPenalty(request.getAbsentPenalty());
+        if (request.getLatePenalty() != null) policy.setLatePenalty(request.getLatePenalty());
+        if (request.getExcusedPenalty() != null) policy.setExcusedPenalty(request.getExcusedPenalty());
+        if (request.getMinScore() != null) policy.setMinScore(request.getMinScore());
+        if (request.getEnabled() != null) policy.setEnabled(request.getEnabled());
+
+        if (policy.getBaseScore() < 0 || policy.getBaseScore() > 10 || policy.getMinScore() < 0
+                || policy.getMinScore() > policy.getBaseScore() || policy.getAbsentPenalty() < 0
+                || policy.getLatePenalty() < 0 || policy.getExcusedPenalty() < 0) {
+            throw new RuntimeException("Quy tắc tính điểm quá trình không hợp lệ");
+        }
+
+        ProcessScorePolicy saved = policyRepository.save(policy);
+        if (saved.getEnabled()) {
+            recompute(classId, saved, null);
+        }
+        return saved;
+    }
+
+    // Tính lại điểm quá trình của cả lớp trong một lượt
+    @Transactional
+    public GradeDTO.RecomputeResult recomputeClass(Long classId, Long teacherId) {
+        requireTeacherOfClass(classId, teacherId);
+        ProcessScorePolicy policy = policyRepository.findByClassId(classId)
+                .filter(ProcessScorePolicy::getEnabled)
+                .orElseThrow(() -> new RuntimeException("Lớp chưa bật quy tắc tính điểm quá trình"));
+
+        GradeDTO.RecomputeResult result = new GradeDTO.RecomputeResult();
+        result.setClassCount(1);
+        result.setUpdatedCount(recompute(classId, policy, null));
+        return result;
+    }
+
+    // Tính lại điểm quá trình của mọi lớp (do giáo viên phụ trách) có dữ liệu trong học kỳ,
+    // mỗi lớp một transaction
+    public GradeDTO.RecomputeResult recomputeTerm(Long termId, Long teacherId) {
+        Set<Long> classIds = new TreeSet<>(attendanceRepository.findClassIdsByTermId(termId));
+        classIds.addAll(gradeRepository.findClassIdsByTermId(termId));
+        classIds.retainAll(new HashSet<>(classRepository.findClassIdsByTeacherId(teacherId)));
+
+        GradeDTO.RecomputeResult result = new GradeDTO.RecomputeResult();
+        for (Long classId : classIds) {
+            ProcessScorePolicy policy = policyRepository.findByClassId(classId).orElse(null);
+            if (policy == null || !policy.getEnabled()) {
+                continue;
+            }
+            Integer updated = transactionTemplate.execute(status -> recompute(classId, policy, null));
+            result.setClassCount(result.getClassCount() + 1);
+            result.setUpdatedCount(result.getUpdatedCount() + (updated != null ? updated : 0));
+        }
+        return result;
+    }
+
+    // Tính và ghi điểm quá trình (studentIds = null: cả lớp). Chỉ ghi những dòng đổi giá trị,
+    // bằng một lô UPDATE; bỏ qua điểm thuộc học kỳ đã đóng hoặc đã chốt.
+    private int recompute(Long classId, ProcessScorePolicy policy, Collection<Long> studentIds) {
+        GradeFreezeService.FrozenTerms frozen = gradeFreezeService.lockForWrite(List.of(classId));
+        Map<Long, Map<Attendance.AttendanceStatus, Long>> counts = loadCounts(classId, studentIds);
+        List<Object[]> rows = studentIds == null
+                ? gradeRepository.findScoresByClassId(classId)
+                : gradeRepository.findScoresByClassIdAndStudentIds(classId, studentIds);
+
+        gradingFormulaService.lockFormulas(rows.stream().map(row -> (Long) row[2]).collect(Collectors.toSet()));
+        List<GradeRepositoryCustom.ProcessScoreUpdate> updates = new ArrayList<>();
+        List<GradeChangedEvent.Change> changes = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (!academicTermService.isTermOpen((Long) row[5])
+                    || frozen.contains(classId, (Long) row[5])) {
+                continue;
+            }
+            Long studentId = (Long) row[1];
+            Double oldScore = (Double) row[3];
+            double newScore = compute(policy, counts.getOrDefault(studentId, Map.of()));
+            if (Objects.equals(oldScore, newScore)) {
+                continue;
+            }
+            Double finalScore = gradingFormulaService.computeFinalScore((Long) row[2], newScore, (Double) row[4],
+                    (Double) row[6]);
+            updates.add(new GradeRepositoryCustom.ProcessScoreUpdate((Long) row[0], newScore, finalScore));
+            changes.add(new GradeChangedEvent.Change(classId, studentId, (Long) row[2],
+                    oldScore, (Double) row[4], newScore, (Double) row[4], (Double) row[7], finalScore));
+        }
+
+        gradeRepository.updateProcessScores(updates);
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new GradeChangedEvent(changes));
+        }
+        return updates.size();
+    }
+
+    private Map<Long, Map<Attendance.AttendanceStatus, Long>> loadCounts(Long classId, Collection<Long> studentIds) {
+        List<Object[]> rows = studentIds == null
+                ? studentStatRepository.findCountsByClassId(classId)
+                : studentStatRepository.findCountsByClassIdAndStudentIds(classId, studentIds);
+        Map<Long, Map<Attendance.AttendanceStatus, Long>> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.computeIfAbsent((Long) row[0], id -> new EnumMap<>(Attendance.AttendanceStatus.class))
+                    .put((Attendance.AttendanceStatus) row[1], (Long) row[2]);
+        }
+        return counts;
+    }
+
+    private double compute(ProcessScorePolicy policy, Map<Attendance.AttendanceStatus, Long> counts) {
+        return policy.compute(
+                counts.getOrDefault(Attendance.AttendanceStatus.ABSENT, 0L),
+                counts.getOrDefault(Attendance.AttendanceStatus.LATE, 0L),
+                counts.getOrDefault(Attendance.AttendanceStatus.EXCUSED, 0L));
+    }
+
+    private void requireTeacherOfClass(Long classId, Long teacherId) {
+        ClassEntity classEntity = classRepository.findById(classId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy lớp học"));
+        if (classEntity.getTeacher() == null || !classEntity.getTeacher().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền thao tác với lớp này");
+        }
+    }
+}
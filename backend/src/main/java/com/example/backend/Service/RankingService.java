@@ -0,0 +1,109 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Util.ScoreRankIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Xếp hạng sinh viên theo điểm tổng kết của (lớp, môn): chỉ mục Fenwick giữ trong bộ nhớ, nạp khi được hỏi lần đầu
+// và cập nhật theo từng thay đổi điểm sau khi commit
+@Service
+public class RankingService {
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    // Số (lớp, môn) tối đa giữ trong bộ nhớ; chỉ mục lâu không được xem sẽ bị bỏ và nạp lại khi cần
+    private static final int MAX_RANKINGS = 2000;
+
+    private final Cache<String, Ranking> rankings = Caffeine.newBuilder()
+            .maximumSize(MAX_RANKINGS)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    // Hạng, phân vị của sinh viên trong môn của lớp
+    public GradeDTO.StudentRank getRank(Long classId, Long subjectId, Long studentId) {
+        Ranking ranking = rankings.get(key(classId, subjectId), k -> load(classId, subjectId));
+        ScoreRankIndex index = ranking.index;
+        Integer rank = index.rankOf(studentId);
+        if (rank == null) {
+            throw new RuntimeException("Sinh viên chưa có điểm môn này");
+        }
+
+        GradeDTO.StudentRank result = new GradeDTO.StudentRank();
+        result.setClassId(classId);
+        result.setSubjectId(subjectId);
+        result.setStudentId(studentId);
+        result.setScore(index.scoreOf(studentId));
+        result.setRank(rank);
+        result.setTotal(index.size());
+        result.setPercentile(index.percentileOf(studentId));
+        return result;
+    }
+
+    // N sinh viên điểm cao nhất
+    public List<GradeDTO.RankEntry> getTop(Long classId, Long subjectId, int limit) {
+        Ranking ranking = rankings.get(key(classId, subjectId), k -> load(classId, subjectId));
+        return ranking.index.top(Math.max(0, limit)).stream()
+                .map(e -> new GradeDTO.RankEntry(e.rank(), e.studentId(), ranking.names.get(e.studentId()), e.score()))
+                .toList();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGradeChanged(GradeChangedEvent event) {
+        for (GradeChangedEvent.Change change : event.getChanges()) {
+            // computeIfPresent khóa theo khóa nên không chen ngang lúc đang nạp
+            rankings.asMap().computeIfPresent(key(change.getClassId(), change.getSubjectId()), (k, ranking) -> {
+                ranking.index.put(change.getStudentId(), change.getNewFinalScore());
+                return ranking;
+            });
+        }
+    }
+
+    // Sinh viên vào/rời lớp hoặc lớp bị xóa: danh sách tên và điểm của lớp đổi, nạp lại ở lần xem sau
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        evictClass(event.getClassId());
+    }
+
+    // Bỏ các chỉ mục đã nạp của lớp (khi điểm bị xóa/chuyển hàng loạt hoặc danh sách lớp đổi)
+    public void evictClass(Long classId) {
+        rankings.asMap().keySet().removeIf(k -> k.startsWith(classId + "|"));
+    }
+
+    private Ranking load(Long classId, Long subjectId) {
+        Ranking ranking = new Ranking();
+        for (Object[] row : classStudentRepository.findStudentNamesByClassId(classId)) {
+            ranking.names.put((Long) row[0], (String) row[1]);
+        }
+        for (Object[] row : gradeRepository.findScoresByClassIdAndSubjectId(classId, subjectId)) {
+            ranking.index.put((Long) row[1], (Double) row[7]);
+        }
+        return ranking;
+    }
+
+    private static String key(Long classId, Long subjectId) {
+        return classId + "|" + subjectId;
+    }
+
+    private static class Ranking {
+        final ScoreRankIndex index = new ScoreRankIndex();
+        final Map<Long, String> names = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.RoomDTO;
+import com.example.backend.Event.RoomChangedEvent;
+import com.example.backend.Model.Room;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.RoomRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class RoomService {
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Phòng theo mã nhập tự do, tự tạo nếu chưa có
+    @Transactional
+    public Room resolveRoom(String roomCode) {
+        String code = Room.normalizeCode(roomCode);
+        if (code == null) {
+            throw new RuntimeException("Phòng học không được để trống");
+        }
+        if (code.length() > 50) {
+            throw new RuntimeException("Mã phòng quá dài: " + code);
+        }
+        return roomRepository.findByRoomCode(code).orElseGet(() -> {
+            Room room = new Room();
+            room.setRoomCode(code);
+            Room saved = roomRepository.save(room);
+            eventPublisher.publishEvent(new RoomChangedEvent(Set.of(saved.getRoomId())));
+            return saved;
+        });
+    }
+
+    // Nhiều phòng theo mã đã chuẩn hóa, tạo các phòng chưa có trong một lần lưu
+    @Transactional
+    public Map<String, Room> resolveRooms(Collection<String> roomCodes) {
+        Map<String, Room> rooms = new HashMap<>();
+        roomRepository.findByRoomCodeIn(roomCodes).forEach(r -> rooms.put(r.getRoomCode(), r));
+        List<Room> created = new ArrayList<>();
+        for (String code : roomCodes) {
+            if (!rooms.containsKey(code)) {
+                Room room = new Room();
+                room.setRoomCode(code);
+                created.add(room);
+            }
+        }
+        if (!created.isEmpty()) {
+            roomRepository.saveAll(created).forEach(r -> rooms.put(r.getRoomCode(), r));
+            eventPublisher.publishEvent(new RoomChangedEvent(created.stream()
+                    .map(Room::getRoomId)
+                    .collect(Collectors.toSet())));
+        }
+        return rooms;
+    }
+
+    // Tạo phòng - chỉ giáo viên
+    @Transactional
+    public Room createRoom(RoomDTO.CreateRoomRequest request, Long teacherId) {
+        User teacher = userRepository.findById(teacherId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy giáo viên"));
+        if (teacher.getRole() != User.Role.TEACHER) {
+            throw new RuntimeException("Chỉ giáo viên được phép tạo phòng học");
+        }
+
+        String code = Room.normalizeCode(request.getRoomCode());
+        if (code == null) {
+            throw new RuntimeException("Mã phòng không được để trống");
+        }
+        if (roomRepository.existsByRoomCode(code)) {
+            throw new RuntimeException("Mã phòng đã tồn tại: " + code);
+        }
+
+        Room room = new Room();
+        room.setRoomCode(code);
+        room.setBuilding(request.getBuilding());
+        room.setCapacity(request.getCapacity());
+        Room saved = roomRepository.save(room);
+        eventPublisher.publishEvent(new RoomChangedEvent(Set.of(saved.getRoomId())));
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public List<RoomDTO.RoomResponse> getAllRooms() {
+        return roomRepository.findAllByOrderByRoomCodeAsc().stream()
+                .map(RoomDTO.RoomResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    // Lịch học cũ chỉ có tên phòng dạng chữ: tạo phòng và gắn room_id một lần lúc khởi động
+    // (chạy trước khi dựng chỉ mục lịch bận)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    @Transactional
+    public void backfillRooms() {
+        for (String roomText : scheduleRepository.findRoomTextsWithoutRoom()) {
+            String code = Room.normalizeCode(roomText);
+            if (code == null) {
+                continue;
+            }
+            Room room = resolveRoom(code);
+            scheduleRepository.assignRoom(roomText, room, room.getRoomCode());
+        }
+    }
+}
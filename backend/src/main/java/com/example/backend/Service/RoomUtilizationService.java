@@ -0,0 +1,164 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.RoomDTO;
+import com.example.backend.Event.RoomChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Repository.RoomRepository;
+import com.example.backend.Util.OccupancyBitmap;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Mức sử dụng phòng và tìm phòng trống, trả lời từ chỉ mục lịch bận theo phòng (ScheduleOccupancyService)
+// và danh mục phòng giữ trong bộ nhớ, không truy vấn cơ sở dữ liệu
+@Service
+public class RoomUtilizationService {
+
+    // Thứ Hai (2) .. Chủ nhật (8)
+    private static final int FIRST_DAY = 2;
+    private static final int LAST_DAY = 8;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ScheduleOccupancyService occupancyService;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Value("${calendar.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+
+    private ZoneId zoneId;
+
+    @PostConstruct
+    public void init() {
+        zoneId = ZoneId.of(zone);
+    }
+
+    private final Map<Long, RoomDTO.RoomResponse> rooms = new ConcurrentHashMap<>();
+
+    // Nạp danh mục phòng sau khi đã gắn phòng cho lịch cũ
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void loadRooms() {
+        rooms.clear();
+        roomRepository.findAll().forEach(r -> rooms.put(r.getRoomId(), RoomDTO.RoomResponse.fromEntity(r)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRoomChanged(RoomChangedEvent event) {
+        roomRepository.findAllById(event.getRoomIds())
+                .forEach(r -> rooms.put(r.getRoomId(), RoomDTO.RoomResponse.fromEntity(r)));
+    }
+
+    // Danh mục phòng (trong bộ nhớ), sắp theo mã phòng
+    public List<RoomDTO.RoomResponse> getRooms() {
+        return rooms.values().stream()
+                .sorted(Comparator.comparing(RoomDTO.RoomResponse::getRoomCode))
+                .toList();
+    }
+
+    // Phòng theo mã đã chuẩn hóa (null nếu chưa có)
+    public RoomDTO.RoomResponse findRoom(String roomCode) {
+        for (RoomDTO.RoomResponse room : rooms.values()) {
+            if (room.getRoomCode().equals(roomCode)) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    // Mức sử dụng của mọi phòng trong tuần startWeek..endWeek (mặc định: các tuần của học kỳ hiện tại)
+    public RoomDTO.UtilizationReport getUtilization(Integer startWeek, Integer endWeek) {
+        if (startWeek == null || endWeek == null) {
+            AcademicTerm term = academicTermService.findTerm(LocalDate.now(zoneId));
+            if (term == null) {
+                throw new RuntimeException("Không có học kỳ hiện tại, cần chỉ định tuần bắt đầu và tuần kết thúc");
+            }
+            startWeek = startWeek != null ? startWeek : 1;
+            endWeek = endWeek != null ? endWeek
+                    : (int) Math.min(OccupancyBitmap.MAX_WEEK,
+                            ChronoUnit.DAYS.between(term.getStartDate(), term.getEndDate()) / 7 + 1);
+        }
+        validateWeeks(startWeek, endWeek);
+
+        int totalPeriods = (endWeek - startWeek + 1) * (LAST_DAY - FIRST_DAY + 1) * OccupancyBitmap.PERIODS;
+        Map<Long, Integer> occupied = occupancyService.occupiedCounts(ScheduleOccupancyService.Dimension.ROOM,
+                OccupancyBitmap.weekMask(startWeek, endWeek));
+
+        List<RoomDTO.RoomUtilization> result = new ArrayList<>(rooms.size());
+        double sum = 0;
+        for (RoomDTO.RoomResponse room : rooms.values()) {
+            RoomDTO.RoomUtilization u = new RoomDTO.RoomUtilization();
+            u.setRoomId(room.getRoomId());
+            u.setRoomCode(room.getRoomCode());
+            u.setBuilding(room.getBuilding());
+            u.setCapacity(room.getCapacity());
+            u.setOccupiedPeriods(occupied.getOrDefault(room.getRoomId(), 0));
+            u.setTotalPeriods(totalPeriods);
+            double rate = 100.0 * u.getOccupiedPeriods() / totalPeriods;
+            u.setUtilizationRate(Math.round(rate * 10) / 10.0);
+            sum += rate;
+            result.add(u);
+        }
+        result.sort(Comparator.comparingDouble(RoomDTO.RoomUtilization::getUtilizationRate).reversed()
+                .thenComparing(RoomDTO.RoomUtilization::getRoomCode));
+
+        RoomDTO.UtilizationReport report = new RoomDTO.UtilizationReport();
+        report.setStartWeek(startWeek);
+        report.setEndWeek(endWeek);
+        report.setTotalPeriodsPerRoom(totalPeriods);
+        report.setAverageUtilizationRate(result.isEmpty() ? 0 : Math.round(sum / result.size() * 10) / 10.0);
+        report.setRooms(result);
+        return report;
+    }
+
+    // Phòng trống suốt tiết startPeriod..endPeriod của thứ dayOfWeek trong tuần startWeek..endWeek,
+    // lọc theo sức chứa tối thiểu và tòa nhà nếu có
+    public List<RoomDTO.RoomResponse> findFreeRooms(int dayOfWeek, int startPeriod, int endPeriod,
+                                                    int startWeek, int endWeek, Integer minCapacity,
+                                                    String building) {
+        if (dayOfWeek < FIRST_DAY || dayOfWeek > LAST_DAY) {
+            throw new RuntimeException("Thứ trong tuần phải từ 2 đến 8");
+        }
+        if (startPeriod < 1 || endPeriod > OccupancyBitmap.PERIODS || startPeriod > endPeriod) {
+            throw new RuntimeException("Tiết học phải từ 1 đến " + OccupancyBitmap.PERIODS
+                    + " và tiết bắt đầu không lớn hơn tiết kết thúc");
+        }
+        validateWeeks(startWeek, endWeek);
+
+        Set<Long> busy = occupancyService.busyOwners(ScheduleOccupancyService.Dimension.ROOM, dayOfWeek,
+                startPeriod, endPeriod, OccupancyBitmap.weekMask(startWeek, endWeek));
+        return rooms.values().stream()
+                .filter(r -> !busy.contains(r.getRoomId()))
+                .filter(r -> minCapacity == null || (r.getCapacity() != null && r.getCapacity() >= minCapacity))
+                .filter(r -> building == null || building.isBlank() || building.trim().equalsIgnoreCase(r.getBuilding()))
+                .sorted(Comparator.comparing(RoomDTO.RoomResponse::getRoomCode))
+                .toList();
+    }
+
+    private static void validateWeeks(int startWeek, int endWeek) {
+        if (startWeek < 1 || endWeek > OccupancyBitmap.MAX_WEEK || startWeek > endWeek) {
+            throw new RuntimeException("Tuần phải từ 1 đến " + OccupancyBitmap.MAX_WEEK
+                    + " và tuần bắt đầu không lớn hơn tuần kết thúc");
+        }
+    }
+}
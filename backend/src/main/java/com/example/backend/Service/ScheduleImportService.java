@@ -0,0 +1,172 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Util.SpreadsheetRowReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Nhập thời khóa biểu từ file CSV/XLSX: đọc từng dòng thành yêu cầu tạo lịch rồi kiểm tra và ghi
+// cả file trong một lượt qua ScheduleService.createSchedulesBatch (có dòng lỗi thì không lưu dòng nào)
+@Service
+public class ScheduleImportService {
+
+    private static final int MAX_ROWS = 20000;
+
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Transactional
+    public ScheduleDTO.BulkScheduleResult importSchedules(MultipartFile file, Long defaultClassId, Long teacherId,
+                                                          boolean dryRun) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("File thời khóa biểu trống");
+        }
+
+        List<ScheduleDTO.BulkScheduleRequest> requests = new ArrayList<>();
+        List<Integer> rowNumbers = new ArrayList<>();
+        List<ScheduleDTO.RowError> errors = new ArrayList<>();
+        int totalRows = 0;
+
+        try (SpreadsheetRowReader reader = SpreadsheetRowReader.open(file, "schedule-import-")) {
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new RuntimeException("File không có dữ liệu");
+            }
+            Columns columns = Columns.of(header, defaultClassId != null);
+
+            int rowNumber = 1;
+            List<String> cells;
+            while ((cells = reader.next()) != null) {
+                rowNumber++;
+                if (cells.stream().allMatch(String::isEmpty)) {
+                    continue;
+                }
+                if (++totalRows > MAX_ROWS) {
+                    throw new RuntimeException("File vượt quá " + MAX_ROWS + " dòng");
+                }
+                try {
+                    requests.add(parse(cells, columns, defaultClassId));
+                    rowNumbers.add(rowNumber);
+                } catch (NumberFormatException e) {
+                    errors.add(new ScheduleDTO.RowError(rowNumber, "Thứ, tiết và tuần phải là số", null, null));
+                } catch (RuntimeException e) {
+                    errors.add(new ScheduleDTO.RowError(rowNumber, e.getMessage(), null, null));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Không đọc được file: " + e.getMessage());
+        }
+
+        ScheduleDTO.BulkScheduleResult result = new ScheduleDTO.BulkScheduleResult();
+        if (!requests.isEmpty()) {
+            // Dòng đọc lỗi cũng chặn việc lưu, nhưng các dòng còn lại vẫn được kiểm tra trùng để báo đủ một lần
+            result = scheduleService.createSchedulesBatch(requests, teacherId, !dryRun && errors.isEmpty());
+            for (ScheduleDTO.RowError error : result.getErrors()) {
+                Integer conflictIndex = error.getConflictIndex();
+                errors.add(new ScheduleDTO.RowError(rowNumbers.get(error.getIndex()), error.getMessage(),
+                        error.getConflictScheduleId(), conflictIndex != null ? rowNumbers.get(conflictIndex) : null));
+            }
+        }
+
+        errors.sort(Comparator.comparingInt(ScheduleDTO.RowError::getIndex));
+        result.setTotalRows(totalRows);
+        result.setValidRows(totalRows - errors.size());
+        result.setErrors(errors);
+        return result;
+    }
+
+    private static ScheduleDTO.BulkScheduleRequest parse(List<String> cells, Columns columns, Long defaultClassId) {
+        ScheduleDTO.BulkScheduleRequest request = new ScheduleDTO.BulkScheduleRequest();
+        String classCode = columns.cell(cells, columns.classCode);
+        if (!classCode.isEmpty()) {
+            request.setClassCode(classCode);
+        } else if (defaultClassId != null) {
+            request.setClassId(defaultClassId);
+        } else {
+            throw new RuntimeException("Thiếu mã lớp");
+        }
+        String subjectCode = columns.cell(cells, columns.subjectCode);
+        if (subjectCode.isEmpty()) {
+            throw new RuntimeException("Thiếu mã môn học");
+        }
+        request.setSubjectCode(subjectCode);
+        String teacherEmail = columns.cell(cells, columns.teacherEmail);
+        if (!teacherEmail.isEmpty()) {
+            request.setTeacherEmail(teacherEmail);
+        }
+        request.setRoom(columns.cell(cells, columns.room));
+        request.setDayOfWeek(parseInt(columns.cell(cells, columns.dayOfWeek)));
+        request.setStartPeriod(parseInt(columns.cell(cells, columns.startPeriod)));
+        request.setEndPeriod(parseInt(columns.cell(cells, columns.endPeriod)));
+        request.setStartWeek(parseInt(columns.cell(cells, columns.startWeek)));
+        request.setEndWeek(parseInt(columns.cell(cells, columns.endWeek)));
+        return request;
+    }
+
+    // Ô số trong XLSX có thể đọc ra dạng "2.0"; số có phần lẻ bị từ chối
+    private static Integer parseInt(String text) {
+        if (text.isEmpty()) {
+            return null;
+        }
+        long value = SpreadsheetRowReader.parseWholeNumber(text);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Số quá lớn: " + text);
+        }
+        return (int) value;
+    }
+
+    // Vị trí các cột theo tiêu đề (chấp nhận tên tiếng Anh hoặc tiếng Việt, không phân biệt dấu)
+    private static class Columns {
+        int classCode = -1;
+        int subjectCode = -1;
+        int teacherEmail = -1;
+        int room = -1;
+        int dayOfWeek = -1;
+        int startPeriod = -1;
+        int endPeriod = -1;
+        int startWeek = -1;
+        int endWeek = -1;
+
+        static Columns of(List<String> header, boolean hasDefaultClass) {
+            Columns c = new Columns();
+            for (int i = 0; i < header.size(); i++) {
+                switch (SpreadsheetRowReader.normalizeHeader(header.get(i))) {
+                    case "classcode", "malop", "lop" -> c.classCode = i;
+                    case "subjectcode", "mamon", "mamonhoc" -> c.subjectCode = i;
+                    case "teacheremail", "emailgiaovien", "giaovien" -> c.teacherEmail = i;
+                    case "room", "phong", "phonghoc" -> c.room = i;
+                    case "dayofweek", "thu" -> c.dayOfWeek = i;
+                    case "startperiod", "tietbatdau" -> c.startPeriod = i;
+                    case "endperiod", "tietketthuc" -> c.endPeriod = i;
+                    case "startweek", "tuanbatdau" -> c.startWeek = i;
+                    case "endweek", "tuanketthuc" -> c.endWeek = i;
+                    default -> { }
+                }
+            }
+            if (c.classCode < 0 && !hasDefaultClass) {
+                throw new RuntimeException("Thiếu cột mã lớp (classCode)");
+            }
+            if (c.subjectCode < 0) {
+                throw new RuntimeException("Thiếu cột mã môn học (subjectCode)");
+            }
+            if (c.room < 0) {
+                throw new RuntimeException("Thiếu cột phòng học (room)");
+            }
+            if (c.dayOfWeek < 0 || c.startPeriod < 0 || c.endPeriod < 0 || c.startWeek < 0 || c.endWeek < 0) {
+                throw new RuntimeException("Thiếu cột thứ, tiết bắt đầu/kết thúc hoặc tuần bắt đầu/kết thúc");
+            }
+            return c;
+        }
+
+        String cell(List<String> cells, int index) {
+            return index >= 0 && index < cells.size() ? cells.get(index) : "";
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.backend.Service;
+
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Util.OccupancyBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Chỉ mục lịch bận trong bộ nhớ: một OccupancyBitmap cho mỗi lớp, giáo viên và phòng.
+// Kiểm tra trùng lịch theo cả ba chiều không cần truy vấn CSDL.
+@Service
+public class ScheduleOccupancyService {
+
+    public enum Dimension {
+        CLASS,
+        TEACHER,
+        ROOM
+    }
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    private final Map<Long, ScheduleChangedEvent.Slot> slots = new HashMap<>();
+    private final Map<Dimension, Map<Long, Owner>> owners = new HashMap<>();
+
+    public ScheduleOccupancyService() {
+        for (Dimension d : Dimension.values()) {
+            owners.put(d, new HashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public synchronized void rebuild() {
+        slots.clear();
+        owners.values().forEach(Map::clear);
+        for (Object[] row : scheduleRepository.findAllSlots()) {
+            add(ScheduleChangedEvent.Slot.of(row));
+        }
+    }
+
+    // Tìm lịch trùng với slot (bỏ qua chính lịch excludeScheduleId); null nếu không trùng
+    public synchronized Conflict findConflict(ScheduleChangedEvent.Slot slot, Long excludeScheduleId) {
+        long weeks = OccupancyBitmap.weekMask(slot.getStartWeek(), slot.getEndWeek());
+        Conflict conflict = findConflict(Dimension.CLASS, slot.getClassId(), slot, weeks, excludeScheduleId);
+        if (conflict == null) {
+            conflict = findConflict(Dimension.TEACHER, slot.getTeacherId(), slot, weeks, excludeScheduleId);
+        }
+        if (conflict == null) {
+            conflict = findConflict(Dimension.ROOM, slot.getRoomId(), slot, weeks, excludeScheduleId);
+        }
+        return conflict;
+    }
+
+    // Kiểm tra và giữ chỗ trong một bước (không để hai yêu cầu cùng lúc chiếm một ô);
+    // trả về lịch trùng nếu có, khi đó chỉ mục không đổi
+    public synchronized Conflict reserve(ScheduleChangedEvent.Slot slot) {
+        Conflict conflict = findConflict(slot, slot.getScheduleId());
+        if (conflict == null) {
+            remove(slot.getScheduleId());
+            add(slot);
+        }
+        return conflict;
+    }
+
+    // Giữ chỗ cả lô trong một bước: có lịch nào trùng (với lịch đã có hoặc lịch trước nó trong lô)
+    // thì gỡ mọi lịch vừa giữ của lô và trả về lịch bị từ chối; null nếu đã giữ chỗ tất cả
+    public synchronized Rejection reserveAll(List<ScheduleChangedEvent.Slot> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            ScheduleChangedEvent.Slot slot = batch.get(i);
+            Conflict conflict = findConflict(slot, slot.getScheduleId());
+            if (conflict != null) {
+                for (int j = 0; j < i; j++) {
+                    remove(batch.get(j).getScheduleId());
+                }
+                return new Rejection(i, conflict);
+            }
+            add(slot);
+        }
+        return null;
+    }
+
+    // Áp thay đổi (idempotent: lịch đã giữ chỗ bằng reserve không bị ghi hai lần)
+    @EventListener
+    public synchronized void onScheduleChanged(ScheduleChangedEvent event) {
+        for (ScheduleChangedEvent.Change change : event.getChanges()) {
+            remove(change.getScheduleId());
+            if (change.getAfter() != null) {
+                add(change.getAfter());
+            }
+        }
+    }
+
+    // Transaction bị hủy: trả các lịch về trạng thái trước thay đổi
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public synchronized void onScheduleChangeRolledBack(ScheduleChangedEvent event) {
+        for (ScheduleChangedEvent.Change change : event.getChanges()) {
+            remove(change.getScheduleId());
+            if (change.getBefore() != null) {
+                add(change.getBefore());
+            }
+        }
+    }
+
+    // Bản sao lịch bận của một đối tượng (null nếu chưa có lịch nào)
+    public synchronized OccupancyBitmap snapshot(Dimension dimension, Long ownerId) {
+        Owner owner = ownerId != null ? owners.get(dimension).get(ownerId) : null;
+        return owner != null ? owner.bitmap.copy() : null;
+    }
+
+    // Bản sao lịch bận của mọi đối tượng theo một chiều
+    public synchronized Map<Long, OccupancyBitmap> snapshotAll(Dimension dimension) {
+        Map<Long, OccupancyBitmap> copies = new HashMap<>();
+        owners.get(dimension).forEach((ownerId, owner) -> copies.put(ownerId, owner.bitmap.copy()));
+        return copies;
+    }
+
+    // Vị trí hiện tại của một lịch học (null nếu không có)
+    public synchronized ScheduleChangedEvent.Slot slotOf(Long scheduleId) {
+        return slots.get(scheduleId);
+    }
+
+    // Các đối tượng bận ở ít nhất một tiết startPeriod..endPeriod của thứ dayOfWeek trong các tuần của mặt nạ
+    public synchronized Set<Long> busyOwners(Dimension dimension, int dayOfWeek, int startPeriod, int endPeriod,
+                                             long weeks) {
+        Set<Long> busy = new HashSet<>();
+        owners.get(dimension).forEach((ownerId, owner) -> {
+            if (owner.bitmap.intersects(dayOfWeek, startPeriod, endPeriod, weeks)) {
+                busy.add(ownerId);
+            }
+        });
+        return busy;
+    }
+
+    // Số ô (tuần, thứ, tiết) bận của từng đối tượng trong các tuần của mặt nạ
+    public synchronized Map<Long, Integer> occupiedCounts(Dimension dimension, long weeks) {
+        Map<Long, Integer> counts = new HashMap<>();
+        owners.get(dimension).forEach((ownerId, owner) -> counts.put(ownerId, owner.bitmap.countOccupied(weeks)));
+        return counts;
+    }
+
+    private Conflict findConflict(Dimension dimension, Long ownerId, ScheduleChangedEvent.Slot slot, long weeks,
+                                  Long excludeScheduleId) {
+        Owner owner = ownerId != null ? owners.get(dimension).get(ownerId) : null;
+        if (owner == null
+                || !owner.bitmap.intersects(slot.getDayOfWeek(), slot.getStartPeriod(), slot.getEndPeriod(), weeks)) {
+            return null;
+        }
+        // Có bit trùng: tìm lịch cụ thể (chỉ duyệt lịch của đối tượng này)
+        for (Long scheduleId : owner.scheduleIds) {
+            if (scheduleId.equals(excludeScheduleId)) {
+                continue;
+            }
+            ScheduleChangedEvent.Slot other = slots.get(scheduleId);
+            if (other.getDayOfWeek() == slot.getDayOfWeek()
+                    && other.getStartPeriod() <= slot.getEndPeriod() && other.getEndPeriod() >= slot.getStartPeriod()
+                    && other.getStartWeek() <= slot.getEndWeek() && other.getEndWeek() >= slot.getStartWeek()) {
+                return new Conflict(dimension, scheduleId);
+            }
+        }
+        return null;
+    }
+
+    private void add(ScheduleChangedEvent.Slot slot) {
+        slots.put(slot.getScheduleId(), slot);
+        long weeks = OccupancyBitmap.weekMask(slot.getStartWeek(), slot.getEndWeek());
+        ownerIds(slot).forEach((dimension, ownerId) -> {
+            Owner owner = owners.get(dimension).computeIfAbsent(ownerId, id -> new Owner());
+            owner.scheduleIds.add(slot.getScheduleId());
+            owner.bitmap.add(slot.getDayOfWeek(), slot.getStartPeriod(), slot.getEndPeriod(), weeks);
+        });
+    }
+
+    // Gỡ lịch: dựng lại bitmap của các đối tượng liên quan từ những lịch còn lại (mỗi đối tượng chỉ có vài chục lịch)
+    private void remove(Long scheduleId) {
+        ScheduleChangedEvent.Slot slot = slots.remove(scheduleId);
+        if (slot == null) {
+            return;
+        }
+        ownerIds(slot).forEach((dimension, ownerId) -> {
+            Owner owner = owners.get(dimension).get(ownerId);
+            if (owner == null) {
+                return;
+            }
+            owner.scheduleIds.remove(scheduleId);
+            if (owner.scheduleIds.isEmpty()) {
+                owners.get(dimension).remove(ownerId);
+                return;
+            }
+            owner.bitmap.clear();
+            for (Long id : owner.scheduleIds) {
+                ScheduleChangedEvent.Slot s = slots.get(id);
+                owner.bitmap.add(s.getDayOfWeek(), s.getStartPeriod(), s.getEndPeriod(),
+                        OccupancyBitmap.weekMask(s.getStartWeek(), s.getEndWeek()));
+            }
+        });
+    }
+
+    private static Map<Dimension, Long> ownerIds(ScheduleChangedEvent.Slot slot) {
+        Map<Dimension, Long> ids = new HashMap<>();
+        if (slot.getClassId() != null) ids.put(Dimension.CLASS, slot.getClassId());
+        if (slot.getTeacherId() != null) ids.put(Dimension.TEACHER, slot.getTeacherId());
+        if (slot.getRoomId() != null) ids.put(Dimension.ROOM, slot.getRoomId());
+        return ids;
+    }
+
+    private static class Owner {
+        final OccupancyBitmap bitmap = new OccupancyBitmap();
+        final Set<Long> scheduleIds = new HashSet<>();
+    }
+
+    // Lịch bị trùng và chiều bị trùng (lớp, giáo viên hoặc phòng)
+    public record Conflict(Dimension dimension, Long scheduleId) {
+    }
+
+    // Vị trí trong lô của lịch không giữ được chỗ và lịch trùng với nó
+    public record Rejection(int index, Conflict conflict) {
+    }
+}
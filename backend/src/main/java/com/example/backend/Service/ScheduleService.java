@@ -1,22 +1,33 @@
 package com.example.backend.Service;
 
 import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Event.ScheduleChangedEvent;
 import com.example.backend.Model.Schedule;
 import com.example.backend.Model.ClassEntity;
-import com.example.backend.Model.ClassStudent;
+import com.example.backend.Model.Room;
 import com.example.backend.Model.Subject;
 import com.example.backend.Model.User;
 import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Repository.ScheduleRepositoryCustom;
 import com.example.backend.Repository.ClassRepository;
-import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.RoomRepository;
 import com.example.backend.Repository.SubjectRepository;
 import com.example.backend.Repository.UserRepository;
+import com.example.backend.Util.OccupancyBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,7 +46,22 @@ public class ScheduleService {
     private SubjectRepository subjectRepository;
 
     @Autowired
-    private ClassStudentRepository classStudentRepository;
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private ScheduleOccupancyService occupancyService;
+
+    @Autowired
+    private TimetableService timetableService;
+
+    @Autowired
+    private ScheduleWeekIndexService scheduleWeekIndexService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     // Tạo lịch học mới
     @Transactional
@@ -54,15 +80,15 @@ public class ScheduleService {
             throw new RuntimeException("Bạn không có quyền thêm lịch cho lớp này");
         }
 
-        // Kiểm tra trùng lịch học
-        checkScheduleConflict(classEntity, request.getDayOfWeek(), request.getStartPeriod(),
-                request.getEndPeriod(), request.getStartWeek(), request.getEndWeek(), null);
+        validateSlot(request.getDayOfWeek(), request.getStartWeek(), request.getEndWeek());
+        Room room = roomService.resolveRoom(request.getRoom());
 
         Schedule schedule = new Schedule();
         schedule.setClassObj(classEntity);
         schedule.setTeacher(teacher);
         schedule.setSubject(subject);
-        schedule.setRoom(request.getRoom());
+        schedule.setRoom(room.getRoomCode());
+        schedule.setRoomObj(room);
         schedule.setDayOfWeek(request.getDayOfWeek());
         schedule.setStartPeriod(request.getStartPeriod());
         schedule.setEndPeriod(request.getEndPeriod());
@@ -72,7 +98,14 @@ public class ScheduleService {
         // Tự động tính toán thời gian
         schedule.calculateTime();
 
-        return scheduleRepository.save(schedule);
+        Schedule saved = scheduleRepository.save(schedule);
+
+        // Kiểm tra trùng lịch (lớp, giáo viên, phòng) và giữ chỗ trong chỉ mục
+        ScheduleChangedEvent.Slot slot = ScheduleChangedEvent.Slot.of(saved);
+        checkScheduleConflict(slot);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(List.of(
+                new ScheduleChangedEvent.Change(saved.getScheduleId(), null, slot))));
+        return saved;
     }
 
     // Cập nhật lịch học
@@ -89,13 +122,13 @@ public class ScheduleService {
         Subject subject = subjectRepository.findById(request.getSubjectId())
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy môn học"));
 
-        // Kiểm tra trùng lịch học (loại trừ chính nó)
-        checkScheduleConflict(existingSchedule.getClassObj(), request.getDayOfWeek(),
-                request.getStartPeriod(), request.getEndPeriod(),
-                request.getStartWeek(), request.getEndWeek(), scheduleId);
+        validateSlot(request.getDayOfWeek(), request.getStartWeek(), request.getEndWeek());
+        Room room = roomService.resolveRoom(request.getRoom());
+        ScheduleChangedEvent.Slot before = ScheduleChangedEvent.Slot.of(existingSchedule);
 
         existingSchedule.setSubject(subject);
-        existingSchedule.setRoom(request.getRoom());
+        existingSchedule.setRoom(room.getRoomCode());
+        existingSchedule.setRoomObj(room);
         existingSchedule.setDayOfWeek(request.getDayOfWeek());
         existingSchedule.setStartPeriod(request.getStartPeriod());
         existingSchedule.setEndPeriod(request.getEndPeriod());
@@ -105,7 +138,14 @@ public class ScheduleService {
         // Tự động tính toán lại thời gian
         existingSchedule.calculateTime();
 
-        return scheduleRepository.save(existingSchedule);
+        // Kiểm tra trùng lịch học (loại trừ chính nó)
+        ScheduleChangedEvent.Slot after = ScheduleChangedEvent.Slot.of(existingSchedule);
+        checkScheduleConflict(after);
+
+        Schedule saved = scheduleRepository.save(existingSchedule);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(List.of(
+                new ScheduleChangedEvent.Change(scheduleId, before, after))));
+        return saved;
     }
 
     // Xóa lịch học
@@ -119,35 +159,244 @@ public class ScheduleService {
             throw new RuntimeException("Bạn không có quyền xóa lịch này");
         }
 
+        ScheduleChangedEvent.Slot before = ScheduleChangedEvent.Slot.of(schedule);
         scheduleRepository.delete(schedule);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(List.of(
+                new ScheduleChangedEvent.Change(scheduleId, before, null))));
     }
 
-    // Kiểm tra trùng lịch học
-    private void checkScheduleConflict(ClassEntity classEntity, Integer dayOfWeek,
-            Integer startPeriod, Integer endPeriod,
-            Integer startWeek, Integer endWeek, Long excludeScheduleId) {
-        // Lấy tất cả lịch học của lớp trong cùng ngày và khoảng tuần
-        List<Schedule> existingSchedules = scheduleRepository.findByClassAndDayAndWeekRange(
-                classEntity, dayOfWeek, startWeek, endWeek);
+    // Chèn nhiều lịch học (đã được kiểm tra không trùng nhau) bằng một lô INSERT trong một transaction,
+    // rồi giữ chỗ cả lô trong chỉ mục lịch bận bằng một bước (như createSchedule, hoàn lại nếu transaction bị hủy)
+    @Transactional
+    public int insertSchedules(List<ScheduleRepositoryCustom.ScheduleRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
 
-        for (Schedule existing : existingSchedules) {
-            // Bỏ qua lịch hiện tại khi update
-            if (excludeScheduleId != null && existing.getScheduleId().equals(excludeScheduleId)) {
-                continue;
+        List<Long> ids = scheduleRepository.insertSchedules(rows);
+        List<ScheduleChangedEvent.Slot> slots = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ScheduleRepositoryCustom.ScheduleRow row = rows.get(i);
+            slots.add(new ScheduleChangedEvent.Slot(ids.get(i), row.getClassId(), row.getTeacherId(),
+                    row.getRoomId(), row.getDayOfWeek(), row.getStartPeriod(), row.getEndPeriod(),
+                    row.getStartWeek(), row.getEndWeek()));
+        }
+        ScheduleOccupancyService.Rejection rejection = occupancyService.reserveAll(slots);
+        if (rejection != null) {
+            ScheduleRepositoryCustom.ScheduleRow row = rows.get(rejection.index());
+            throw new RuntimeException(String.format(
+                    "Lịch thứ %d tiết %d-%d (tuần %d-%d) vừa bị trùng với lịch khác, vui lòng thử lại",
+                    row.getDayOfWeek(), row.getStartPeriod(), row.getEndPeriod(),
+                    row.getStartWeek(), row.getEndWeek()));
+        }
+
+        eventPublisher.publishEvent(new ScheduleChangedEvent(slots.stream()
+                .map(slot -> new ScheduleChangedEvent.Change(slot.getScheduleId(), null, slot))
+                .collect(Collectors.toList())));
+        return rows.size();
+    }
+
+    // Tạo nhiều lịch học trong một lượt: nạp lớp, môn, giáo viên, phòng theo lô; kiểm tra trùng với lịch đã có
+    // và giữa các dòng với nhau trong một lượt duyệt bộ nhớ; rồi chèn bằng một lô INSERT.
+    // Có dòng lỗi (hoặc commit = false) thì không lưu dòng nào, chỉ trả báo cáo.
+    @Transactional
+    public ScheduleDTO.BulkScheduleResult createSchedulesBatch(List<ScheduleDTO.BulkScheduleRequest> requests,
+                                                               Long teacherId, boolean commit) {
+        User requester = userRepository.findById(teacherId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy giáo viên"));
+        if (requester.getRole() != User.Role.TEACHER) {
+            throw new RuntimeException("Chỉ giáo viên được phép tạo lịch học");
+        }
+        if (requests == null || requests.isEmpty()) {
+            throw new RuntimeException("Chưa có lịch học nào");
+        }
+
+        BatchLookup lookup = loadBatchLookup(requests);
+        List<ScheduleDTO.RowError> errors = new ArrayList<>();
+        List<ResolvedRow> resolved = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                resolved.add(resolveRow(i, requests.get(i), lookup, teacherId));
+            } catch (RuntimeException e) {
+                errors.add(new ScheduleDTO.RowError(i, e.getMessage(), null, null));
             }
+        }
 
-            // Kiểm tra trùng khoảng tiết học
-            boolean periodConflict = (startPeriod <= existing.getEndPeriod()) &&
-                    (endPeriod >= existing.getStartPeriod());
-
-            if (periodConflict) {
-                throw new RuntimeException(String.format(
-                        "Lịch học bị trùng với: %s - %s (Tiết %d-%d)",
-                        existing.getSubject().getSubjectName(),
-                        existing.getRoom(),
-                        existing.getStartPeriod(),
-                        existing.getEndPeriod()));
+        // Trùng với lịch đã có (chỉ mục lịch bận) hoặc với dòng trước đó trong lô. Đây chỉ là báo cáo cho từng dòng;
+        // khi lưu, insertSchedules giữ chỗ cả lô bằng một bước (reserveAll) nên lịch vừa được thêm song song
+        // không thể lọt qua
+        BatchOccupancy batch = new BatchOccupancy();
+        List<ResolvedRow> accepted = new ArrayList<>();
+        for (ResolvedRow row : resolved) {
+            ScheduleOccupancyService.Conflict existing = occupancyService.findConflict(row.slot(), null);
+            if (existing != null) {
+                String message = switch (existing.dimension()) {
+                    case CLASS -> "Lớp đã có lịch học trùng";
+                    case TEACHER -> "Giáo viên đã có lịch dạy trùng";
+                    case ROOM -> "Phòng " + row.roomCode() + " đã có lịch trùng";
+                };
+                errors.add(new ScheduleDTO.RowError(row.index(), message, existing.scheduleId(), null));
+                continue;
+            }
+            BatchConflict conflict = batch.findConflict(row);
+            if (conflict != null) {
+                String message = switch (conflict.dimension()) {
+                    case CLASS -> "Trùng lịch của lớp với một dòng khác trong lô";
+                    case TEACHER -> "Trùng lịch dạy của giáo viên với một dòng khác trong lô";
+                    case ROOM -> "Trùng phòng " + row.roomCode() + " với một dòng khác trong lô";
+                };
+                errors.add(new ScheduleDTO.RowError(row.index(), message, null, conflict.other().index()));
+                continue;
             }
+            batch.add(row);
+            accepted.add(row);
+        }
+
+        errors.sort(Comparator.comparingInt(ScheduleDTO.RowError::getIndex));
+        ScheduleDTO.BulkScheduleResult result = new ScheduleDTO.BulkScheduleResult();
+        result.setTotalRows(requests.size());
+        result.setValidRows(accepted.size());
+        result.setErrors(errors);
+        if (!errors.isEmpty() || !commit) {
+            return result;
+        }
+
+        Map<String, Room> rooms = roomService.resolveRooms(accepted.stream()
+                .map(ResolvedRow::roomCode)
+                .collect(Collectors.toSet()));
+        List<ScheduleRepositoryCustom.ScheduleRow> rows = accepted.stream()
+                .map(row -> ScheduleRepositoryCustom.ScheduleRow.of(row.classEntity().getClassId(),
+                        row.subject().getSubjectId(), row.teacher().getUserId(), rooms.get(row.roomCode()),
+                        row.dayOfWeek(), row.startPeriod(), row.endPeriod(), row.startWeek(), row.endWeek()))
+                .collect(Collectors.toList());
+        result.setCreatedCount(insertSchedules(rows));
+        result.setCommitted(true);
+        return result;
+    }
+
+    // Nạp lớp, môn, giáo viên, phòng của cả lô bằng vài truy vấn IN
+    // (mã lớp, mã môn viết hoa và email viết thường ở cả truy vấn lẫn khóa tra cứu)
+    private BatchLookup loadBatchLookup(List<ScheduleDTO.BulkScheduleRequest> requests) {
+        Set<Long> classIds = new HashSet<>();
+        Set<String> classCodes = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        Set<String> subjectCodes = new HashSet<>();
+        Set<Long> teacherIds = new HashSet<>();
+        Set<String> teacherEmails = new HashSet<>();
+        Set<String> roomCodes = new HashSet<>();
+        for (ScheduleDTO.BulkScheduleRequest r : requests) {
+            if (r.getClassId() != null) classIds.add(r.getClassId());
+            else if (r.getClassCode() != null) classCodes.add(r.getClassCode().trim().toUpperCase(Locale.ROOT));
+            if (r.getSubjectId() != null) subjectIds.add(r.getSubjectId());
+            else if (r.getSubjectCode() != null) subjectCodes.add(r.getSubjectCode().trim().toUpperCase(Locale.ROOT));
+            if (r.getTeacherId() != null) teacherIds.add(r.getTeacherId());
+            else if (r.getTeacherEmail() != null) teacherEmails.add(r.getTeacherEmail().trim().toLowerCase(Locale.ROOT));
+            String roomCode = Room.normalizeCode(r.getRoom());
+            if (roomCode != null) roomCodes.add(roomCode);
+        }
+
+        BatchLookup lookup = new BatchLookup();
+        List<ClassEntity> classes = new ArrayList<>(classRepository.findAllById(classIds));
+        if (!classCodes.isEmpty()) classes.addAll(classRepository.findByUpperClassCodeIn(classCodes));
+        for (ClassEntity c : classes) {
+            lookup.classesById.put(c.getClassId(), c);
+            lookup.classesByCode.put(c.getClassCode().toUpperCase(Locale.ROOT), c);
+        }
+        List<Subject> subjects = new ArrayList<>(subjectRepository.findAllById(subjectIds));
+        if (!subjectCodes.isEmpty()) subjects.addAll(subjectRepository.findByUpperSubjectCodeIn(subjectCodes));
+        for (Subject s : subjects) {
+            lookup.subjectsById.put(s.getSubjectId(), s);
+            lookup.subjectsByCode.put(s.getSubjectCode().toUpperCase(Locale.ROOT), s);
+        }
+        List<User> teachers = new ArrayList<>(userRepository.findAllById(teacherIds));
+        if (!teacherEmails.isEmpty()) teachers.addAll(userRepository.findByLowerEmailIn(teacherEmails));
+        for (User t : teachers) {
+            lookup.teachersById.put(t.getUserId(), t);
+            lookup.teachersByEmail.put(t.getEmail().toLowerCase(Locale.ROOT), t);
+        }
+        if (!roomCodes.isEmpty()) {
+            roomRepository.findByRoomCodeIn(roomCodes).forEach(r -> lookup.roomsByCode.put(r.getRoomCode(), r));
+        }
+        return lookup;
+    }
+
+    // Kiểm tra một dòng và gắn lớp, môn, giáo viên, phòng (báo lỗi bằng RuntimeException)
+    private ResolvedRow resolveRow(int index, ScheduleDTO.BulkScheduleRequest r, BatchLookup lookup, Long teacherId) {
+        ClassEntity classEntity = r.getClassId() != null ? lookup.classesById.get(r.getClassId())
+                : r.getClassCode() != null ? lookup.classesByCode.get(r.getClassCode().trim().toUpperCase(Locale.ROOT))
+                : null;
+        if (classEntity == null) {
+            throw new RuntimeException("Không tìm thấy lớp" + (r.getClassCode() != null ? " " + r.getClassCode() : ""));
+        }
+        // Kiểm tra giáo viên có quyền thêm lịch cho lớp này không (như createSchedule)
+        if (!classEntity.getTeacher().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền thêm lịch cho lớp này");
+        }
+        Subject subject = r.getSubjectId() != null ? lookup.subjectsById.get(r.getSubjectId())
+                : r.getSubjectCode() != null ? lookup.subjectsByCode.get(r.getSubjectCode().trim().toUpperCase(Locale.ROOT))
+                : null;
+        if (subject == null) {
+            throw new RuntimeException("Không tìm thấy môn học" + (r.getSubjectCode() != null ? " " + r.getSubjectCode() : ""));
+        }
+        User teacher = r.getTeacherId() != null ? lookup.teachersById.get(r.getTeacherId())
+                : r.getTeacherEmail() != null ? lookup.teachersByEmail.get(r.getTeacherEmail().trim().toLowerCase(Locale.ROOT))
+                : classEntity.getTeacher();
+        if (teacher == null || teacher.getRole() != User.Role.TEACHER) {
+            throw new RuntimeException("Không tìm thấy giáo viên");
+        }
+
+        String roomCode = Room.normalizeCode(r.getRoom());
+        if (roomCode == null) {
+            throw new RuntimeException("Phòng học không được để trống");
+        }
+        if (roomCode.length() > 50) {
+            throw new RuntimeException("Mã phòng quá dài: " + roomCode);
+        }
+        if (r.getStartPeriod() == null || r.getEndPeriod() == null || r.getStartPeriod() < 1
+                || r.getEndPeriod() > OccupancyBitmap.PERIODS || r.getStartPeriod() > r.getEndPeriod()) {
+            throw new RuntimeException("Tiết học phải từ 1 đến " + OccupancyBitmap.PERIODS
+                    + " và tiết bắt đầu không lớn hơn tiết kết thúc");
+        }
+        validateSlot(r.getDayOfWeek(), r.getStartWeek(), r.getEndWeek());
+
+        return new ResolvedRow(index, classEntity, subject, teacher, roomCode, lookup.roomsByCode.get(roomCode),
+                r.getDayOfWeek(), r.getStartPeriod(), r.getEndPeriod(), r.getStartWeek(), r.getEndWeek());
+    }
+
+    // Kiểm tra trùng lịch học theo lớp, giáo viên và phòng bằng chỉ mục lịch bận;
+    // không trùng thì lịch được giữ chỗ ngay (hoàn lại nếu transaction bị hủy)
+    private void checkScheduleConflict(ScheduleChangedEvent.Slot slot) {
+        ScheduleOccupancyService.Conflict conflict = occupancyService.reserve(slot);
+        if (conflict == null) {
+            return;
+        }
+
+        Schedule existing = scheduleRepository.findById(conflict.scheduleId()).orElse(null);
+        if (existing == null) {
+            throw new RuntimeException("Lịch học bị trùng với một lịch khác");
+        }
+        String subjectName = existing.getSubject() != null ? existing.getSubject().getSubjectName() : "";
+        String message = switch (conflict.dimension()) {
+            case CLASS -> String.format("Lịch học bị trùng với: %s - %s (Tiết %d-%d)",
+                    subjectName, existing.getRoom(), existing.getStartPeriod(), existing.getEndPeriod());
+            case TEACHER -> String.format("Giáo viên đã có lịch dạy lớp %s: %s - %s (Tiết %d-%d)",
+                    existing.getClassObj().getClassCode(), subjectName, existing.getRoom(),
+                    existing.getStartPeriod(), existing.getEndPeriod());
+            case ROOM -> String.format("Phòng %s đã có lớp %s học: %s (Tiết %d-%d)",
+                    existing.getRoom(), existing.getClassObj().getClassCode(), subjectName,
+                    existing.getStartPeriod(), existing.getEndPeriod());
+        };
+        throw new RuntimeException(message);
+    }
+
+    private static void validateSlot(Integer dayOfWeek, Integer startWeek, Integer endWeek) {
+        if (dayOfWeek == null || dayOfWeek < 2 || dayOfWeek > 8) {
+            throw new RuntimeException("Thứ trong tuần không hợp lệ");
+        }
+        if (startWeek == null || endWeek == null || startWeek < 1 || endWeek > OccupancyBitmap.MAX_WEEK
+                || startWeek > endWeek) {
+            throw new RuntimeException("Tuần học phải từ 1 đến " + OccupancyBitmap.MAX_WEEK
+                    + " và tuần bắt đầu không lớn hơn tuần kết thúc");
         }
     }
 
@@ -173,57 +422,98 @@ public class ScheduleService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
-    public List<Schedule> getSchedulesForStudent(Long studentId) {
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy sinh viên"));
+    // Thời khóa biểu của sinh viên (một truy vấn, cache theo sinh viên)
+    public List<ScheduleDTO.ScheduleResponse> getSchedulesForStudent(Long studentId) {
+        return timetableService.getStudentTimetable(studentId);
+    }
+
+    // Lấy lịch học theo tuần và ngày (từ chỉ mục trong bộ nhớ)
+    public List<ScheduleDTO.ScheduleResponse> getSchedulesByWeekAndDay(Integer week, Integer dayOfWeek) {
+        return scheduleWeekIndexService.findByWeekAndDay(week, dayOfWeek);
+    }
 
-        // Lấy danh sách lớp mà sinh viên đang học
-        List<ClassStudent> classStudents = classStudentRepository.findByStudent(student);
-        if (classStudents.isEmpty()) {
-            return List.of();
+    // Lấy lịch học theo lớp và tuần
+    @Transactional(readOnly = true)
+    public List<ScheduleDTO.ScheduleResponse> getSchedulesByClassAndWeek(Long classId, Integer week) {
+        if (!classRepository.existsById(classId)) {
+            throw new RuntimeException("Không tìm thấy lớp");
         }
 
-        List<Schedule> result = new ArrayList<>();
+        return scheduleWeekIndexService.findByClassAndWeek(classId, week);
+    }
 
-        for (ClassStudent cs : classStudents) {
-            ClassEntity classEntity = cs.getClassObj(); // hoặc getClassEntity() tùy tên field của bạn
+    // Tra cứu lớp, môn, giáo viên, phòng của một lô theo ID và theo mã
+    private static class BatchLookup {
+        final Map<Long, ClassEntity> classesById = new HashMap<>();
+        final Map<String, ClassEntity> classesByCode = new HashMap<>();
+        final Map<Long, Subject> subjectsById = new HashMap<>();
+        final Map<String, Subject> subjectsByCode = new HashMap<>();
+        final Map<Long, User> teachersById = new HashMap<>();
+        final Map<String, User> teachersByEmail = new HashMap<>();
+        final Map<String, Room> roomsByCode = new HashMap<>();
+    }
 
-            // dùng method có sẵn trong ScheduleRepository, ví dụ:
-            List<Schedule> classSchedules = scheduleRepository.findByClassObj(classEntity);
-            // nếu field trong Schedule là classEntity thì sửa lại thành
-            // findByClassEntity(...)
+    // Một dòng hợp lệ của lô (room = null nếu phòng chưa có, sẽ được tạo khi lưu)
+    private record ResolvedRow(int index, ClassEntity classEntity, Subject subject, User teacher, String roomCode,
+                               Room room, int dayOfWeek, int startPeriod, int endPeriod, int startWeek, int endWeek) {
 
-            result.addAll(classSchedules);
+        ScheduleChangedEvent.Slot slot() {
+            return new ScheduleChangedEvent.Slot(null, classEntity.getClassId(), teacher.getUserId(),
+                    room != null ? room.getRoomId() : null, dayOfWeek, startPeriod, endPeriod, startWeek, endWeek);
         }
 
-        // sort theo ngày + tiết cho đẹp
-        result.sort((a, b) -> {
-            int cmpDay = Integer.compare(a.getDayOfWeek(), b.getDayOfWeek());
-            if (cmpDay != 0)
-                return cmpDay;
-            return Integer.compare(a.getStartPeriod(), b.getStartPeriod());
-        });
-
-        return result;
+        boolean overlaps(ResolvedRow other) {
+            return dayOfWeek == other.dayOfWeek
+                    && startPeriod <= other.endPeriod && endPeriod >= other.startPeriod
+                    && startWeek <= other.endWeek && endWeek >= other.startWeek;
+        }
     }
 
-    // Lấy lịch học theo tuần và ngày
-    @Transactional(readOnly = true)
-    public List<ScheduleDTO.ScheduleResponse> getSchedulesByWeekAndDay(Integer week, Integer dayOfWeek) {
-        return scheduleRepository.findByWeekAndDay(week, dayOfWeek).stream()
-                .map(ScheduleDTO.ScheduleResponse::fromEntity)
-                .collect(Collectors.toList());
+    private record BatchConflict(ScheduleOccupancyService.Dimension dimension, ResolvedRow other) {
     }
 
-    // Lấy lịch học theo lớp và tuần
-    @Transactional(readOnly = true)
-    public List<ScheduleDTO.ScheduleResponse> getSchedulesByClassAndWeek(Long classId, Integer week) {
-        ClassEntity classEntity = classRepository.findById(classId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy lớp"));
+    // Lịch bận của các dòng đã nhận trong lô, theo lớp, giáo viên và mã phòng
+    private static class BatchOccupancy {
+        private final Map<ScheduleOccupancyService.Dimension, Map<Object, OccupancyBitmap>> bitmaps =
+                new EnumMap<>(ScheduleOccupancyService.Dimension.class);
+        private final Map<ScheduleOccupancyService.Dimension, Map<Object, List<ResolvedRow>>> rows =
+                new EnumMap<>(ScheduleOccupancyService.Dimension.class);
+
+        BatchConflict findConflict(ResolvedRow row) {
+            long weeks = OccupancyBitmap.weekMask(row.startWeek(), row.endWeek());
+            for (Map.Entry<ScheduleOccupancyService.Dimension, Object> owner : owners(row).entrySet()) {
+                OccupancyBitmap bitmap = bitmaps.getOrDefault(owner.getKey(), Map.of()).get(owner.getValue());
+                if (bitmap == null
+                        || !bitmap.intersects(row.dayOfWeek(), row.startPeriod(), row.endPeriod(), weeks)) {
+                    continue;
+                }
+                for (ResolvedRow other : rows.get(owner.getKey()).get(owner.getValue())) {
+                    if (row.overlaps(other)) {
+                        return new BatchConflict(owner.getKey(), other);
+                    }
+                }
+            }
+            return null;
+        }
 
-        return scheduleRepository.findByClassAndWeek(classEntity, week).stream()
-                .map(ScheduleDTO.ScheduleResponse::fromEntity)
-                .collect(Collectors.toList());
+        void add(ResolvedRow row) {
+            long weeks = OccupancyBitmap.weekMask(row.startWeek(), row.endWeek());
+            owners(row).forEach((dimension, ownerId) -> {
+                bitmaps.computeIfAbsent(dimension, d -> new HashMap<>())
+                        .computeIfAbsent(ownerId, id -> new OccupancyBitmap())
+                        .add(row.dayOfWeek(), row.startPeriod(), row.endPeriod(), weeks);
+                rows.computeIfAbsent(dimension, d -> new HashMap<>())
+                        .computeIfAbsent(ownerId, id -> new ArrayList<>())
+                        .add(row);
+            });
+        }
+
+        private static Map<ScheduleOccupancyService.Dimension, Object> owners(ResolvedRow row) {
+            Map<ScheduleOccupancyService.Dimension, Object> owners = new EnumMap<>(ScheduleOccupancyService.Dimension.class);
+            owners.put(ScheduleOccupancyService.Dimension.CLASS, row.classEntity().getClassId());
+            owners.put(ScheduleOccupancyService.Dimension.TEACHER, row.teacher().getUserId());
+            owners.put(ScheduleOccupancyService.Dimension.ROOM, row.roomCode());
+            return owners;
+        }
     }
 }
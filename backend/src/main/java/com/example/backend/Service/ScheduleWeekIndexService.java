@@ -0,0 +1,138 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Model.Schedule;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Util.OccupancyBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Chỉ mục lịch học theo (thứ, tuần) trong bộ nhớ: mỗi ô giữ các lịch có buổi học vào thứ đó của tuần đó.
+// Truy vấn "lịch theo tuần và ngày" đọc thẳng một ô, không cần quét bảng schedules
+// (điều kiện :week BETWEEN startWeek AND endWeek không dùng được chỉ mục CSDL).
+@Service
+public class ScheduleWeekIndexService {
+
+    private static final int WEEKS = OccupancyBitmap.MAX_WEEK + 1;
+
+    private static final Comparator<ScheduleDTO.ScheduleResponse> BY_TIME =
+            Comparator.comparing(ScheduleDTO.ScheduleResponse::getDayOfWeek)
+                    .thenComparing(ScheduleDTO.ScheduleResponse::getStartPeriod)
+                    .thenComparing(ScheduleDTO.ScheduleResponse::getScheduleId);
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    private final Map<Long, ScheduleDTO.ScheduleResponse> schedules = new HashMap<>();
+    private final List<Set<Long>> buckets = new ArrayList<>(OccupancyBitmap.DAYS * WEEKS);
+
+    public ScheduleWeekIndexService() {
+        for (int i = 0; i < OccupancyBitmap.DAYS * WEEKS; i++) {
+            buckets.add(new LinkedHashSet<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public synchronized void rebuild() {
+        schedules.clear();
+        buckets.forEach(Set::clear);
+        scheduleRepository.findAllWithDetails().forEach(this::add);
+    }
+
+    // Lịch học vào thứ dayOfWeek của tuần week, sắp theo tiết bắt đầu
+    public synchronized List<ScheduleDTO.ScheduleResponse> findByWeekAndDay(Integer week, Integer dayOfWeek) {
+        if (!inRange(week, dayOfWeek)) {
+            return List.of();
+        }
+        List<ScheduleDTO.ScheduleResponse> result = new ArrayList<>();
+        for (Long scheduleId : buckets.get(bucket(dayOfWeek, week))) {
+            result.add(schedules.get(scheduleId));
+        }
+        result.sort(BY_TIME);
+        return result;
+    }
+
+    // Lịch học của một lớp trong tuần week, sắp theo thứ và tiết
+    public synchronized List<ScheduleDTO.ScheduleResponse> findByClassAndWeek(Long classId, Integer week) {
+        List<ScheduleDTO.ScheduleResponse> result = new ArrayList<>();
+        if (week == null || week < 1 || week > OccupancyBitmap.MAX_WEEK) {
+            return result;
+        }
+        for (int day = 0; day < OccupancyBitmap.DAYS; day++) {
+            for (Long scheduleId : buckets.get(bucket(day, week))) {
+                ScheduleDTO.ScheduleResponse response = schedules.get(scheduleId);
+                if (response.getClassInfo() != null && classId.equals(response.getClassInfo().getClassId())) {
+                    result.add(response);
+                }
+            }
+        }
+        result.sort(BY_TIME);
+        return result;
+    }
+
+    // Cập nhật chỉ mục sau khi thay đổi lịch đã commit: gỡ lịch cũ, nạp lại lịch mới (kèm tên môn, lớp, phòng)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onScheduleChanged(ScheduleChangedEvent event) {
+        List<Long> reload = new ArrayList<>();
+        for (ScheduleChangedEvent.Change change : event.getChanges()) {
+            remove(change.getScheduleId());
+            if (change.getAfter() != null) {
+                reload.add(change.getScheduleId());
+            }
+        }
+        if (!reload.isEmpty()) {
+            scheduleRepository.findWithDetailsByIds(reload).forEach(this::add);
+        }
+    }
+
+    private void add(Schedule schedule) {
+        ScheduleDTO.ScheduleResponse response = ScheduleDTO.ScheduleResponse.fromEntity(schedule);
+        schedules.put(response.getScheduleId(), response);
+        forEachBucket(response, bucket -> bucket.add(response.getScheduleId()));
+    }
+
+    private void remove(Long scheduleId) {
+        ScheduleDTO.ScheduleResponse response = schedules.remove(scheduleId);
+        if (response != null) {
+            forEachBucket(response, bucket -> bucket.remove(scheduleId));
+        }
+    }
+
+    private void forEachBucket(ScheduleDTO.ScheduleResponse response, Consumer<Set<Long>> action) {
+        if (response.getDayOfWeek() == null || response.getStartWeek() == null || response.getEndWeek() == null) {
+            return;
+        }
+        int from = Math.max(1, response.getStartWeek());
+        int to = Math.min(OccupancyBitmap.MAX_WEEK, response.getEndWeek());
+        for (int week = from; week <= to; week++) {
+            if (inRange(week, response.getDayOfWeek())) {
+                action.accept(buckets.get(bucket(response.getDayOfWeek(), week)));
+            }
+        }
+    }
+
+    private static boolean inRange(Integer week, Integer dayOfWeek) {
+        return week != null && dayOfWeek != null && week >= 1 && week <= OccupancyBitmap.MAX_WEEK
+                && dayOfWeek >= 0 && dayOfWeek < OccupancyBitmap.DAYS;
+    }
+
+    private static int bucket(int dayOfWeek, int week) {
+        return dayOfWeek * WEEKS + week;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Util.ScoreHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Phân bố điểm theo (lớp, môn): histogram + tổng/tổng bình phương giữ trong bộ nhớ.
+// Nạp khi được đọc lần đầu; điểm của (lớp, môn) thay đổi thì bỏ bản đã nạp, lần đọc sau nạp lại.
+@Service
+public class ScoreDistributionService {
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    private final Map<String, Distribution> distributions = new ConcurrentHashMap<>();
+
+    // Phân bố điểm của một môn trong lớp
+    public GradeDTO.GradeDistribution getDistribution(Long classId, Long subjectId) {
+        Distribution d = distributions.computeIfAbsent(key(classId, subjectId), k -> load(classId, subjectId));
+        return toDto(classId, subjectId, d);
+    }
+
+    // Phân bố điểm gộp mọi môn của lớp
+    public GradeDTO.GradeDistribution getClassDistribution(Long classId) {
+        Distribution merged = new Distribution();
+        for (Long subjectId : gradeRepository.findSubjectIdsByClassId(classId)) {
+            Distribution d = distributions.computeIfAbsent(key(classId, subjectId), k -> load(classId, subjectId));
+            merged.process.merge(d.process);
+            merged.midterm.merge(d.midterm);
+            merged.average.merge(d.average);
+            merged.total.merge(d.total);
+        }
+        return toDto(classId, null, merged);
+    }
+
+    // Bỏ phân bố đã nạp sau khi transaction ghi điểm đã commit. Không cộng/trừ delta vì bản đang nạp có thể
+    // đã đọc thay đổi này; remove chờ lượt nạp đang chạy (cùng khóa) xong rồi mới bỏ.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGradeChanged(GradeChangedEvent event) {
+        for (GradeChangedEvent.Change change : event.getChanges()) {
+            distributions.remove(key(change.getClassId(), change.getSubjectId()));
+        }
+    }
+
+    // Bỏ các phân bố đã nạp của lớp (khi điểm bị xóa/chuyển hàng loạt)
+    public void evictClass(Long classId) {
+        distributions.keySet().removeIf(k -> k.startsWith(classId + "|"));
+    }
+
+    private Distribution load(Long classId, Long subjectId) {
+        Distribution d = new Distribution();
+        for (Object[] row : gradeRepository.findScoresByClassIdAndSubjectId(classId, subjectId)) {
+            d.process.add((Double) row[2]);
+            d.midterm.add((Double) row[3]);
+            d.average.add(average((Double) row[2], (Double) row[3]));
+            d.total.add((Double) row[7]);
+        }
+        return d;
+    }
+
+    private GradeDTO.GradeDistribution toDto(Long classId, Long subjectId, Distribution d) {
+        GradeDTO.GradeDistribution result = new GradeDTO.GradeDistribution();
+        result.setClassId(classId);
+        result.setSubjectId(subjectId);
+        result.setProcessScore(GradeDTO.ScoreStats.fromHistogram(d.process));
+        result.setMidtermScore(GradeDTO.ScoreStats.fromHistogram(d.midterm));
+        result.setAverageScore(GradeDTO.ScoreStats.fromHistogram(d.average));
+        result.setFinalScore(GradeDTO.ScoreStats.fromHistogram(d.total));
+        return result;
+    }
+
+    private static String key(Long classId, Long subjectId) {
+        return classId + "|" + subjectId;
+    }
+
+    private static Double average(Double processScore, Double midtermScore) {
+        if (processScore == null || midtermScore == null) {
+            return null;
+        }
+        return (processScore + midtermScore) / 2;
+    }
+
+    private static class Distribution {
+        final ScoreHistogram process = new ScoreHistogram();
+        final ScoreHistogram midterm = new ScoreHistogram();
+        final ScoreHistogram average = new ScoreHistogram();
+        final ScoreHistogram total = new ScoreHistogram();
+    }
+}
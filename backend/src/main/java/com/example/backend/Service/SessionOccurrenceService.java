@@ -0,0 +1,409 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.TermCalendarDTO;
+import com.example.backend.Event.AcademicTermChangedEvent;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Event.TermCalendarChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.Schedule;
+import com.example.backend.Model.TermCalendarEntry;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Repository.TermCalendarEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Đổi lịch học dạng khoảng tuần + thứ thành các buổi học cụ thể theo ngày của học kỳ
+// (trừ ngày nghỉ, buổi bị hủy; cộng buổi học bù). Buổi học của từng lịch được dựng khi cần và giữ trong bộ nhớ;
+// buổi học của ngày hôm nay theo giáo viên/sinh viên được dựng sẵn lúc nửa đêm và sau mỗi thay đổi.
+@Service
+public class SessionOccurrenceService {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final Comparator<TermCalendarDTO.SessionOccurrence> BY_TIME =
+            Comparator.comparing(TermCalendarDTO.SessionOccurrence::getDate)
+                    .thenComparing(TermCalendarDTO.SessionOccurrence::getStartPeriod)
+                    .thenComparing(TermCalendarDTO.SessionOccurrence::getScheduleId);
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private TermCalendarEntryRepository termCalendarEntryRepository;
+
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Value("${calendar.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+
+    private ZoneId zoneId;
+
+    // termId -> ngoại lệ lịch của học kỳ
+    private final Map<Long, TermCalendar> calendars = new HashMap<>();
+    // termId -> scheduleId -> các buổi học trong học kỳ
+    private final Map<Long, Map<Long, List<TermCalendarDTO.SessionOccurrence>>> expansions = new HashMap<>();
+
+    private volatile DayIndex dayIndex;
+
+    @PostConstruct
+    public void init() {
+        zoneId = ZoneId.of(zone);
+    }
+
+    // Các buổi học của lịch trong học kỳ (mặc định học kỳ hiện tại)
+    public synchronized List<TermCalendarDTO.SessionOccurrence> getOccurrences(Long scheduleId, Long termId) {
+        AcademicTerm term = termId != null ? findTermById(termId) : academicTermService.findTerm(today());
+        if (term == null) {
+            throw new RuntimeException(termId != null ? "Không tìm thấy học kỳ" : "Không có học kỳ hiện tại");
+        }
+        return occurrencesIn(scheduleId, term);
+    }
+
+    // Buổi học hôm nay của giáo viên, sắp theo tiết
+    public List<TermCalendarDTO.SessionOccurrence> getTodayForTeacher(Long teacherId) {
+        return todayIndex().byTeacher.getOrDefault(teacherId, List.of());
+    }
+
+    // Buổi học hôm nay của sinh viên (các lớp đang học), sắp theo tiết
+    public List<TermCalendarDTO.SessionOccurrence> getTodayForStudent(Long studentId) {
+        return todayIndex().byStudent.getOrDefault(studentId, List.of());
+    }
+
+    // Các ngày nghỉ của học kỳ
+    public synchronized Set<LocalDate> getHolidays(AcademicTerm term) {
+        Set<LocalDate> dates = new HashSet<>();
+        for (TermCalendarEntry holiday : calendarOf(term).holidays) {
+            LocalDate last = holiday.getEndDate() != null ? holiday.getEndDate() : holiday.getDate();
+            for (LocalDate d = holiday.getDate(); !d.isAfter(last); d = d.plusDays(1)) {
+                dates.add(d);
+            }
+        }
+        return dates;
+    }
+
+    // Các buổi học bù của học kỳ (không nằm trong chỉ mục lịch bận hằng tuần)
+    public synchronized List<TermCalendarEntry> getMakeups(AcademicTerm term) {
+        List<TermCalendarEntry> makeups = new ArrayList<>();
+        calendarOf(term).makeupsBySchedule.values().forEach(makeups::addAll);
+        return makeups;
+    }
+
+    // Các buổi bị hủy của học kỳ theo lịch học (scheduleId -> ngày bị hủy)
+    public synchronized Map<Long, Set<LocalDate>> getCancellations(AcademicTerm term) {
+        Map<Long, Set<LocalDate>> copy = new HashMap<>();
+        calendarOf(term).cancelled.forEach((scheduleId, dates) -> copy.put(scheduleId, Set.copyOf(dates)));
+        return copy;
+    }
+
+    // Buổi học của lịch vào ngày date trong học kỳ chứa ngày đó (buổi học bù mang tiết và phòng của buổi bù);
+    // null nếu ngày nằm ngoài mọi học kỳ hoặc lịch không có buổi vào ngày này
+    public TermCalendarDTO.SessionOccurrence findOccurrence(Schedule schedule, LocalDate date) {
+        AcademicTerm term = academicTermService.findTerm(date);
+        if (term == null) {
+            return null;
+        }
+        synchronized (this) {
+            return occurrencesIn(schedule.getScheduleId(), term).stream()
+                    .filter(o -> o.getDate().equals(date))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    // Kiểm tra lịch học có buổi vào ngày date. Ngày ngoài mọi học kỳ chỉ kiểm tra đúng thứ của lịch
+    // (chưa có lịch học kỳ để đổi tuần ra ngày).
+    public void requireOccurrence(Schedule schedule, LocalDate date) {
+        AcademicTerm term = academicTermService.findTerm(date);
+        if (term == null) {
+            if (dayOfWeekOf(date) != schedule.getDayOfWeek()) {
+                throw new RuntimeException("Ngày " + date.format(DATE_FORMAT) + " không phải thứ "
+                        + schedule.getDayOfWeek() + " của buổi học");
+            }
+            return;
+        }
+        if (findOccurrence(schedule, date) == null) {
+            throw new RuntimeException("Lớp không có buổi học này vào ngày " + date.format(DATE_FORMAT)
+                    + " (ngoài lịch, ngày nghỉ hoặc buổi đã hủy)");
+        }
+    }
+
+    // Ngày date có phải buổi học thường (theo tuần/thứ, chưa trừ ngày nghỉ) của lịch trong học kỳ không
+    public static boolean isRegularOccurrence(Schedule schedule, AcademicTerm term, LocalDate date) {
+        if (!term.contains(date) || dayOfWeekOf(date) != schedule.getDayOfWeek()) {
+            return false;
+        }
+        int week = weekOf(term, date);
+        return week >= schedule.getStartWeek() && week <= schedule.getEndWeek();
+    }
+
+    // Ngày của thứ dayOfWeek (2 = thứ Hai ... 8 = Chủ nhật) trong tuần week của học kỳ
+    public static LocalDate dateOf(AcademicTerm term, int week, int dayOfWeek) {
+        LocalDate weekStart = term.getStartDate().plusWeeks(week - 1L);
+        return weekStart.with(TemporalAdjusters.nextOrSame(DayOfWeek.of(dayOfWeek - 1)));
+    }
+
+    public static int weekOf(AcademicTerm term, LocalDate date) {
+        return (int) (ChronoUnit.DAYS.between(term.getStartDate(), date) / 7) + 1;
+    }
+
+    public static int dayOfWeekOf(LocalDate date) {
+        return date.getDayOfWeek().getValue() + 1;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(3)
+    public void buildDayIndex() {
+        rebuildDayIndex();
+    }
+
+    // Sang ngày mới: dựng lại chỉ mục buổi học trong ngày
+    @Scheduled(cron = "0 0 0 * * *", zone = "${calendar.zone:Asia/Ho_Chi_Minh}")
+    public void rebuildAtMidnight() {
+        rebuildDayIndex();
+    }
+
+    // Lịch học thay đổi: bỏ các buổi đã dựng của lịch đó (lịch bị xóa thì cả ngoại lệ lịch đã bị xóa theo)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        synchronized (this) {
+            for (ScheduleChangedEvent.Change change : event.getChanges()) {
+                expansions.values().forEach(bySchedule -> bySchedule.remove(change.getScheduleId()));
+                if (change.getAfter() == null) {
+                    calendars.clear();
+                }
+            }
+        }
+        rebuildDayIndex();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTermCalendarChanged(TermCalendarChangedEvent event) {
+        synchronized (this) {
+            calendars.remove(event.getTermId());
+            expansions.remove(event.getTermId());
+        }
+        rebuildDayIndex();
+    }
+
+    // Học kỳ được tạo/đóng: ranh giới tuần có thể đã đổi
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAcademicTermChanged(AcademicTermChangedEvent event) {
+        synchronized (this) {
+            calendars.clear();
+            expansions.clear();
+        }
+        rebuildDayIndex();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        rebuildDayIndex();
+    }
+
+    private DayIndex todayIndex() {
+        DayIndex index = dayIndex;
+        if (index == null || !index.date.equals(today())) {
+            index = rebuildDayIndex();
+        }
+        return index;
+    }
+
+    private synchronized DayIndex rebuildDayIndex() {
+        LocalDate date = today();
+        int day = dayOfWeekOf(date);
+        List<TermCalendarDTO.SessionOccurrence> occurrences = new ArrayList<>();
+
+        AcademicTerm term = academicTermService.findTerm(date);
+        if (term != null) {
+            TermCalendar calendar = calendarOf(term);
+            if (!calendar.isHoliday(date)) {
+                for (Schedule s : scheduleRepository.findWithDetailsByWeekAndDay(weekOf(term, date), day)) {
+                    if (!calendar.isCancelled(s.getScheduleId(), date)) {
+                        occurrences.add(occurrence(s, date, null));
+                    }
+                }
+            }
+            List<TermCalendarEntry> makeups = calendar.makeupsByDate.getOrDefault(date, List.of());
+            if (!makeups.isEmpty()) {
+                Map<Long, Schedule> schedules = scheduleRepository.findWithDetailsByIds(makeups.stream()
+                                .map(TermCalendarEntry::getScheduleId)
+                                .collect(Collectors.toSet())).stream()
+                        .collect(Collectors.toMap(Schedule::getScheduleId, s -> s));
+                for (TermCalendarEntry makeup : makeups) {
+                    Schedule s = schedules.get(makeup.getScheduleId());
+                    if (s != null) {
+                        occurrences.add(occurrence(s, date, makeup));
+                    }
+                }
+            }
+        } else {
+            // Ngoài học kỳ: tuần ISO như AcademicTermService.weekOf, không có ngoại lệ lịch
+            for (Schedule s : scheduleRepository.findWithDetailsByWeekAndDay(academicTermService.weekOf(date), day)) {
+                occurrences.add(occurrence(s, date, null));
+            }
+        }
+        occurrences.sort(BY_TIME);
+
+        DayIndex index = new DayIndex(date);
+        Map<Long, List<TermCalendarDTO.SessionOccurrence>> byClass = new HashMap<>();
+        for (TermCalendarDTO.SessionOccurrence o : occurrences) {
+            index.byTeacher.computeIfAbsent(o.getTeacherId(), id -> new ArrayList<>()).add(o);
+            byClass.computeIfAbsent(o.getClassId(), id -> new ArrayList<>()).add(o);
+        }
+        if (!byClass.isEmpty()) {
+            for (Object[] row : classStudentRepository.findStudentIdsByClassIds(byClass.keySet())) {
+                index.byStudent.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).addAll(byClass.get((Long) row[0]));
+            }
+            index.byStudent.values().forEach(list -> list.sort(BY_TIME));
+        }
+        dayIndex = index;
+        return index;
+    }
+
+    // Gọi khi đang giữ khóa
+    private List<TermCalendarDTO.SessionOccurrence> occurrencesIn(Long scheduleId, AcademicTerm term) {
+        Map<Long, List<TermCalendarDTO.SessionOccurrence>> bySchedule =
+                expansions.computeIfAbsent(term.getTermId(), id -> new HashMap<>());
+        List<TermCalendarDTO.SessionOccurrence> cached = bySchedule.get(scheduleId);
+        if (cached == null) {
+            Schedule schedule = scheduleRepository.findWithDetailsByIds(List.of(scheduleId)).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Không tìm thấy lịch học"));
+            cached = expand(schedule, term, calendarOf(term));
+            bySchedule.put(scheduleId, cached);
+        }
+        return cached;
+    }
+
+    private static List<TermCalendarDTO.SessionOccurrence> expand(Schedule schedule, AcademicTerm term,
+                                                                  TermCalendar calendar) {
+        List<TermCalendarDTO.SessionOccurrence> result = new ArrayList<>();
+        for (int week = Math.max(1, schedule.getStartWeek()); week <= schedule.getEndWeek(); week++) {
+            LocalDate date = dateOf(term, week, schedule.getDayOfWeek());
+            if (date.isAfter(term.getEndDate())) {
+                break;
+            }
+            if (!calendar.isHoliday(date) && !calendar.isCancelled(schedule.getScheduleId(), date)) {
+                result.add(occurrence(schedule, date, null));
+            }
+        }
+        for (TermCalendarEntry makeup : calendar.makeupsBySchedule.getOrDefault(schedule.getScheduleId(), List.of())) {
+            result.add(occurrence(schedule, makeup.getDate(), makeup));
+        }
+        result.sort(BY_TIME);
+        return List.copyOf(result);
+    }
+
+    private static TermCalendarDTO.SessionOccurrence occurrence(Schedule s, LocalDate date, TermCalendarEntry makeup) {
+        int start = makeup != null && makeup.getStartPeriod() != null ? makeup.getStartPeriod() : s.getStartPeriod();
+        int end = makeup != null && makeup.getEndPeriod() != null ? makeup.getEndPeriod() : s.getEndPeriod();
+
+        TermCalendarDTO.SessionOccurrence o = new TermCalendarDTO.SessionOccurrence();
+        o.setScheduleId(s.getScheduleId());
+        o.setDate(date);
+        o.setStartPeriod(start);
+        o.setEndPeriod(end);
+        o.setStartTime(Schedule.getStartTimeByPeriod(start).toString());
+        o.setEndTime(Schedule.getEndTimeByPeriod(end).toString());
+        o.setRoom(makeup != null && makeup.getRoom() != null ? makeup.getRoom() : s.getRoom());
+        o.setMakeup(makeup != null);
+        o.setClassId(s.getClassObj().getClassId());
+        o.setClassCode(s.getClassObj().getClassCode());
+        o.setClassName(s.getClassObj().getClassName());
+        o.setSubjectName(s.getSubject().getSubjectName());
+        o.setTeacherId(s.getTeacher().getUserId());
+        o.setTeacherName(s.getTeacher().getFullName());
+        return o;
+    }
+
+    // Gọi khi đang giữ khóa
+    private TermCalendar calendarOf(AcademicTerm term) {
+        return calendars.computeIfAbsent(term.getTermId(), termId -> {
+            TermCalendar calendar = new TermCalendar();
+            for (TermCalendarEntry entry : termCalendarEntryRepository.findByTermIdOrderByDateAsc(termId)) {
+                switch (entry.getEntryType()) {
+                    case HOLIDAY -> calendar.holidays.add(entry);
+                    case CANCELLED -> calendar.cancelled.computeIfAbsent(entry.getScheduleId(), id -> new HashSet<>())
+                            .add(entry.getDate());
+                    case MAKEUP -> {
+                        calendar.makeupsBySchedule.computeIfAbsent(entry.getScheduleId(), id -> new ArrayList<>()).add(entry);
+                        calendar.makeupsByDate.computeIfAbsent(entry.getDate(), d -> new ArrayList<>()).add(entry);
+                    }
+                }
+            }
+            return calendar;
+        });
+    }
+
+    private AcademicTerm findTermById(Long termId) {
+        return academicTermService.getTerms().stream()
+                .filter(t -> t.getTermId().equals(termId))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(zoneId);
+    }
+
+    // Ngoại lệ lịch của một học kỳ
+    private static class TermCalendar {
+        final List<TermCalendarEntry> holidays = new ArrayList<>();
+        final Map<Long, Set<LocalDate>> cancelled = new HashMap<>();
+        final Map<Long, List<TermCalendarEntry>> makeupsBySchedule = new HashMap<>();
+        final Map<LocalDate, List<TermCalendarEntry>> makeupsByDate = new HashMap<>();
+
+        boolean isHoliday(LocalDate date) {
+            for (TermCalendarEntry holiday : holidays) {
+                if (holiday.covers(date)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isCancelled(Long scheduleId, LocalDate date) {
+            return cancelled.getOrDefault(scheduleId, Set.of()).contains(date);
+        }
+    }
+
+    // Buổi học của một ngày theo giáo viên và theo sinh viên (không sửa sau khi dựng xong)
+    private static class DayIndex {
+        final LocalDate date;
+        final Map<Long, List<TermCalendarDTO.SessionOccurrence>> byTeacher = new HashMap<>();
+        final Map<Long, List<TermCalendarDTO.SessionOccurrence>> byStudent = new HashMap<>();
+
+        DayIndex(LocalDate date) {
+            this.date = date;
+        }
+    }
+}
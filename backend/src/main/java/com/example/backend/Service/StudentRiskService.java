@@ -0,0 +1,381 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.StudentRiskDTO;
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Model.Attendance;
+import com.example.backend.Model.AttendanceStudentStat;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Repository.AttendanceStudentStatRepository;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.GradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Cảnh báo sớm sinh viên có nguy cơ: giữ bộ đếm theo (lớp, sinh viên) trong bộ nhớ,
+// cập nhật O(1) theo từng thay đổi điểm danh / điểm số. Chỉ quét lại toàn bộ khi khởi động.
+@Service
+public class StudentRiskService {
+
+    @Autowired
+    private AttendanceStudentStatRepository studentStatRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    @Value("${risk.absence-rate:20}")
+    private double absenceRateThreshold;
+
+    @Value("${risk.late-weight:0.5}")
+    private double lateWeight;
+
+    @Value("${risk.min-sessions:3}")
+    private long minSessions;
+
+    @Value("${risk.min-score:5.0}")
+    private double minScore;
+
+    @Value("${risk.score-drop:2.0}")
+    private double scoreDropThreshold;
+
+    // classId -> studentId -> bộ đếm
+    private volatile Map<Long, Map<Long, Counters>> counters = new ConcurrentHashMap<>();
+
+    // classId -> các sinh viên đang bị cảnh báo (cập nhật cùng lúc với bộ đếm)
+    private volatile Map<Long, Set<Long>> atRisk = new ConcurrentHashMap<>();
+
+    // Cập nhật song song dùng khóa đọc; dựng lại lấy khóa ghi một lần để chờ các cập nhật đang chạy xong
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Khác null trong lúc dựng lại: sự kiện được gom vào đây thay vì cộng vào bộ đếm (có thể đã được đọc từ CSDL)
+    private List<Object> pendingEvents;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            if (!buffered(event)) {
+                applyAttendance(event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGradeChanged(GradeChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            if (!buffered(event)) {
+                applyGrades(event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Danh sách sinh viên có nguy cơ của lớp - chỉ giáo viên của lớp
+    public List<StudentRiskDTO.StudentRisk> getClassRisks(Long classId, Long teacherId) {
+        ClassEntity classEntity = classRepository.findById(classId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy lớp học"));
+        if (classEntity.getTeacher() == null || !classEntity.getTeacher().getUserId().equals(teacherId)) {
+            throw new RuntimeException("Bạn không có quyền xem cảnh báo của lớp này");
+        }
+        return collectClassRisks(classId);
+    }
+
+    private List<StudentRiskDTO.StudentRisk> collectClassRisks(Long classId) {
+        Set<Long> flagged = atRisk.getOrDefault(classId, Set.of());
+        if (flagged.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, String> roster = new HashMap<>();
+        for (Object[] row : classStudentRepository.findStudentNamesByClassId(classId)) {
+            roster.put((Long) row[0], (String) row[1]);
+        }
+
+        Map<Long, Counters> byStudent = counters.getOrDefault(classId, Map.of());
+        List<StudentRiskDTO.StudentRisk> result = new ArrayList<>();
+        for (Long studentId : flagged) {
+            Counters c = byStudent.get(studentId);
+            // Bỏ qua sinh viên đã rời lớp
+            if (c == null || !roster.containsKey(studentId)) {
+                continue;
+            }
+            synchronized (c) {
+                StudentRiskDTO.StudentRisk risk = toRisk(classId, studentId, c);
+                risk.setStudentFullName(roster.get(studentId));
+                if (!risk.getReasons().isEmpty()) {
+                    result.add(risk);
+                }
+            }
+        }
+        result.sort(Comparator.comparing(StudentRiskDTO.StudentRisk::getAbsenceRate).reversed());
+        return result;
+    }
+
+    // Danh sách sinh viên có nguy cơ ở tất cả lớp của giáo viên
+    public List<StudentRiskDTO.StudentRisk> getTeacherRisks(Long teacherId) {
+        List<StudentRiskDTO.StudentRisk> result = new ArrayList<>();
+        for (Long classId : classRepository.findClassIdsByTeacherId(teacherId)) {
+            result.addAll(collectClassRisks(classId));
+        }
+        return result;
+    }
+
+    // Dựng lại toàn bộ bộ đếm từ bảng tổng hợp điểm danh và bảng điểm (chỉ dùng để khôi phục).
+    // Sự kiện commit trong lúc đọc CSDL được gom lại: điểm danh của các sinh viên liên quan được đọc lại từ bảng
+    // tổng hợp (không cộng delta lần nữa), điểm là giá trị tuyệt đối nên áp lại theo thứ tự.
+    // Chạy sau khi bảng tổng hợp điểm danh và final_score đã được điền lần đầu.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void rebuild() {
+        synchronized (this) {
+            if (pendingEvents != null) {
+                return; // Đang dựng lại
+            }
+            pendingEvents = new ArrayList<>();
+        }
+        // Chờ các cập nhật bắt đầu trước khi gom sự kiện chạy xong
+        lock.writeLock().lock();
+        lock.writeLock().unlock();
+
+        Map<Long, Map<Long, Counters>> rebuilt = new ConcurrentHashMap<>();
+        for (AttendanceStudentStat stat : studentStatRepository.findAll()) {
+            rebuilt.computeIfAbsent(stat.getClassId(), id -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(stat.getStudentId(), id -> new Counters())
+                    .addStatus(stat.getStatus(), stat.getTotal());
+        }
+        // Sắp theo thời điểm sửa nên môn cuối cùng của mỗi sinh viên là môn được chấm gần nhất
+        for (Object[] row : gradeRepository.findAllScores()) {
+            rebuilt.computeIfAbsent((Long) row[0], id -> new ConcurrentHashMap<>())
+                    .computeIfAbsent((Long) row[1], id -> new Counters())
+                    .setScore((Long) row[2], (Double) row[3]);
+        }
+
+        Map<Long, Set<Long>> flagged = new ConcurrentHashMap<>();
+        rebuilt.forEach((classId, byStudent) -> byStudent.forEach((studentId, c) -> {
+            if (!reasons(c).isEmpty()) {
+                flagged.computeIfAbsent(classId, id -> ConcurrentHashMap.newKeySet()).add(studentId);
+            }
+        }));
+
+        counters = rebuilt;
+        atRisk = flagged;
+
+        while (true) {
+            List<Object> events;
+            synchronized (this) {
+                if (pendingEvents.isEmpty()) {
+                    pendingEvents = null;
+                    return;
+                }
+                events = pendingEvents;
+                pendingEvents = new ArrayList<>();
+            }
+            replay(events);
+        }
+    }
+
+    private synchronized boolean buffered(Object event) {
+        if (pendingEvents == null) {
+            return false;
+        }
+        pendingEvents.add(event);
+        return true;
+    }
+
+    private void applyAttendance(AttendanceChangedEvent event) {
+        for (AttendanceChangedEvent.Change change : event.getChanges()) {
+            if (change.getOldStatus() == change.getNewStatus()) {
+                continue;
+            }
+            Counters c = countersOf(change.getClassId(), change.getStudentId());
+            synchronized (c) {
+                c.addStatus(change.getOldStatus(), -1);
+                c.addStatus(change.getNewStatus(), 1);
+                evaluate(change.getClassId(), change.getStudentId(), c);
+            }
+        }
+    }
+
+    private void applyGrades(GradeChangedEvent event) {
+        for (GradeChangedEvent.Change change : event.getChanges()) {
+            if (Objects.equals(change.getOldFinalScore(), change.getNewFinalScore())) {
+                continue;
+            }
+            Counters c = countersOf(change.getClassId(), change.getStudentId());
+            synchronized (c) {
+                c.setScore(change.getSubjectId(), change.getNewFinalScore());
+                evaluate(change.getClassId(), change.getStudentId(), c);
+            }
+        }
+    }
+
+    // Áp các sự kiện đã gom: đọc lại bộ đếm điểm danh của sinh viên liên quan, áp điểm theo thứ tự
+    private void replay(List<Object> events) {
+        Map<Long, Set<Long>> touched = new HashMap<>();
+        for (Object event : events) {
+            if (event instanceof AttendanceChangedEvent attendance) {
+                attendance.getChanges().forEach(change -> touched
+                        .computeIfAbsent(change.getClassId(), id -> new HashSet<>()).add(change.getStudentId()));
+            } else if (event instanceof GradeChangedEvent grades) {
+                applyGrades(grades);
+            }
+        }
+        touched.forEach((classId, studentIds) -> {
+            Map<Long, Map<Attendance.AttendanceStatus, Long>> byStudent = new HashMap<>();
+            for (Object[] row : studentStatRepository.findCountsByClassIdAndStudentIds(classId, studentIds)) {
+                byStudent.computeIfAbsent((Long) row[0], id -> new HashMap<>())
+                        .put((Attendance.AttendanceStatus) row[1], (Long) row[2]);
+            }
+            for (Long studentId : studentIds) {
+                Counters c = countersOf(classId, studentId);
+                synchronized (c) {
+                    c.resetStatuses();
+                    byStudent.getOrDefault(studentId, Map.of()).forEach(c::addStatus);
+                    evaluate(classId, studentId, c);
+                }
+            }
+        });
+    }
+
+    private Counters countersOf(Long classId, Long studentId) {
+        return counters.computeIfAbsent(classId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(studentId, id -> new Counters());
+    }
+
+    private void evaluate(Long classId, Long studentId, Counters c) {
+        Set<Long> flagged = atRisk.computeIfAbsent(classId, id -> ConcurrentHashMap.newKeySet());
+        if (reasons(c).isEmpty()) {
+            flagged.remove(studentId);
+        } else {
+            flagged.add(studentId);
+        }
+    }
+
+    private List<String> reasons(Counters c) {
+        List<String> reasons = new ArrayList<>();
+        if (c.total >= minSessions && absenceRate(c) >= absenceRateThreshold) {
+            reasons.add("Tỷ lệ vắng vượt ngưỡng " + absenceRateThreshold + "%");
+        }
+        Double average = c.averageScore();
+        if (average != null && average < minScore) {
+            reasons.add("Điểm trung bình dưới " + minScore);
+        }
+        Double trend = c.trend();
+        if (trend != null && -trend >= scoreDropThreshold) {
+            reasons.add("Điểm giảm từ " + scoreDropThreshold + " trở lên");
+        }
+        return reasons;
+    }
+
+    private double absenceRate(Counters c) {
+        return c.total > 0 ? (c.absent + c.late * lateWeight) * 100.0 / c.total : 0.0;
+    }
+
+    private StudentRiskDTO.StudentRisk toRisk(Long classId, Long studentId, Counters c) {
+        StudentRiskDTO.StudentRisk risk = new StudentRiskDTO.StudentRisk();
+        risk.setClassId(classId);
+        risk.setStudentId(studentId);
+        risk.setTotalSessions(c.total);
+        risk.setAbsentCount(c.absent);
+        risk.setLateCount(c.late);
+        risk.setAbsenceRate(absenceRate(c));
+        risk.setAverageScore(c.averageScore());
+        risk.setLastScoreChange(c.trend());
+        risk.setReasons(reasons(c));
+        return risk;
+    }
+
+    // Bộ đếm của một sinh viên trong một lớp (truy cập trong synchronized)
+    private static class Counters {
+        long total;
+        long absent;
+        long late;
+        // subjectId -> điểm tổng kết, theo thứ tự chấm (môn chấm gần nhất ở cuối)
+        final LinkedHashMap<Long, Double> scores = new LinkedHashMap<>();
+
+        void addStatus(Attendance.AttendanceStatus status, long delta) {
+            if (status == null) {
+                return;
+            }
+            total += delta;
+            if (status == Attendance.AttendanceStatus.ABSENT) {
+                absent += delta;
+            } else if (status == Attendance.AttendanceStatus.LATE) {
+                late += delta;
+            }
+        }
+
+        void resetStatuses() {
+            total = 0;
+            absent = 0;
+            late = 0;
+        }
+
+        // Ghi điểm của môn (null = chưa có điểm) và đưa môn xuống cuối
+        void setScore(Long subjectId, Double score) {
+            scores.remove(subjectId);
+            if (score != null) {
+                scores.put(subjectId, score);
+            }
+        }
+
+        Double averageScore() {
+            if (scores.isEmpty()) {
+                return null;
+            }
+            double sum = 0;
+            for (double score : scores.values()) {
+                sum += score;
+            }
+            return sum / scores.size();
+        }
+
+        // Xu hướng: điểm môn chấm gần nhất trừ trung bình các môn còn lại (null nếu chưa có ít nhất hai môn)
+        Double trend() {
+            if (scores.size() < 2) {
+                return null;
+            }
+            double sum = 0;
+            double latest = 0;
+            int i = 0;
+            for (double score : scores.values()) {
+                if (++i == scores.size()) {
+                    latest = score;
+                } else {
+                    sum += score;
+                }
+            }
+            return latest - sum / (scores.size() - 1);
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.backend.Service;
 
 import com.example.backend.DTO.SubjectDTO;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Event.SubjectCreditsChangedEvent;
 import com.example.backend.Model.Subject;
 import com.example.backend.Model.User;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.ScheduleRepository;
 import com.example.backend.Repository.SubjectRepository;
 import com.example.backend.Repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +29,15 @@ public class SubjectService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Tạo môn học mới - chỉ giáo viên được tạo
     @Transactional
     public Subject createSubject(SubjectDTO.CreateSubjectRequest request, Long teacherId) {
@@ -65,11 +82,18 @@ public class SubjectService {
             throw new RuntimeException("Mã môn học đã tồn tại: " + request.getSubjectCode());
         }
 
+        boolean creditsChanged = !Objects.equals(existingSubject.getCredits(), request.getCredits());
+
         existingSubject.setSubjectCode(request.getSubjectCode());
         existingSubject.setSubjectName(request.getSubjectName());
         existingSubject.setCredits(request.getCredits());
 
-        return subjectRepository.save(existingSubject);
+        Subject saved = subjectRepository.save(existingSubject);
+        if (creditsChanged) {
+            publishCreditsChanged(subjectId);
+        }
+        publishSchedulesRefreshed(subjectId);
+        return saved;
     }
 
     // Xóa môn học - chỉ giáo viên tạo môn đó được xóa
@@ -83,9 +107,32 @@ public class SubjectService {
             throw new RuntimeException("Bạn không có quyền xóa môn học này");
         }
 
+        // Lấy danh sách sinh viên bị ảnh hưởng trước khi điểm bị xóa theo môn
+        publishCreditsChanged(subjectId);
         subjectRepository.delete(subject);
     }
 
+    // Thông báo bảng điểm của các sinh viên có điểm môn này cần tính lại
+    private void publishCreditsChanged(Long subjectId) {
+        Set<Long> studentIds = new HashSet<>(gradeRepository.findStudentIdsBySubjectId(subjectId));
+        studentIds.addAll(gradeRepository.findArchivedStudentIdsBySubjectId(subjectId));
+        eventPublisher.publishEvent(new SubjectCreditsChangedEvent(subjectId, studentIds));
+    }
+
+    // Tên/mã môn nằm trong lịch học đã dựng sẵn (chỉ mục theo tuần, thời khóa biểu): báo làm mới,
+    // vị trí lịch giữ nguyên (before = after)
+    private void publishSchedulesRefreshed(Long subjectId) {
+        List<ScheduleChangedEvent.Change> refreshed = scheduleRepository.findSlotsBySubjectId(subjectId).stream()
+                .map(row -> {
+                    ScheduleChangedEvent.Slot slot = ScheduleChangedEvent.Slot.of(row);
+                    return new ScheduleChangedEvent.Change(slot.getScheduleId(), slot, slot);
+                })
+                .collect(Collectors.toList());
+        if (!refreshed.isEmpty()) {
+            eventPublisher.publishEvent(new ScheduleChangedEvent(refreshed));
+        }
+    }
+
     // Lấy tất cả môn học (tất cả giáo viên đều xem được)
     @Transactional(readOnly = true)
     public List<SubjectDTO.SubjectResponse> getAllSubjects() {
@@ -0,0 +1,203 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.TermCalendarDTO;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Event.TermCalendarChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.Room;
+import com.example.backend.Model.Schedule;
+import com.example.backend.Model.TermCalendarEntry;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.RoomRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Repository.TermCalendarEntryRepository;
+import com.example.backend.Repository.UserRepository;
+import com.example.backend.Util.OccupancyBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Lịch học kỳ: ngày nghỉ, buổi bị hủy và buổi học bù (ngày bắt đầu tuần 1 là startDate của học kỳ)
+@Service
+public class TermCalendarService {
+
+    @Autowired
+    private TermCalendarEntryRepository termCalendarEntryRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private ScheduleOccupancyService occupancyService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Thêm ngày nghỉ / hủy buổi / học bù - ngày nghỉ toàn trường chỉ người quản lý học kỳ;
+    // hủy và học bù chỉ giáo viên dạy lịch đó hoặc phụ trách lớp
+    @Transactional
+    public TermCalendarEntry addEntry(Long termId, TermCalendarDTO.CreateEntryRequest request, Long teacherId) {
+        if (request.getEntryType() == TermCalendarEntry.EntryType.HOLIDAY) {
+            academicTermService.requireTermManager(teacherId);
+        } else {
+            requireTeacher(teacherId);
+        }
+        AcademicTerm term = academicTermService.getTerms().stream()
+                .filter(t -> t.getTermId().equals(termId))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy học kỳ"));
+        academicTermService.requireWritable(termId);
+
+        if (request.getEntryType() == null) {
+            throw new RuntimeException("Loại ngoại lệ lịch không được để trống");
+        }
+        if (request.getDate() == null || !term.contains(request.getDate())) {
+            throw new RuntimeException("Ngày phải nằm trong học kỳ");
+        }
+
+        TermCalendarEntry entry = new TermCalendarEntry();
+        entry.setTermId(termId);
+        entry.setEntryType(request.getEntryType());
+        entry.setDate(request.getDate());
+        entry.setNote(request.getNote());
+
+        if (request.getEntryType() == TermCalendarEntry.EntryType.HOLIDAY) {
+            if (request.getEndDate() != null
+                    && (request.getEndDate().isBefore(request.getDate()) || !term.contains(request.getEndDate()))) {
+                throw new RuntimeException("Ngày nghỉ cuối phải nằm trong học kỳ và không trước ngày bắt đầu nghỉ");
+            }
+            entry.setEndDate(request.getEndDate());
+        } else {
+            if (request.getScheduleId() == null) {
+                throw new RuntimeException("Chưa chọn lịch học");
+            }
+            Schedule schedule = scheduleRepository.findById(request.getScheduleId())
+                    .orElseThrow(() -> new RuntimeException("Không tìm thấy lịch học"));
+            requireOwner(schedule, teacherId);
+            entry.setScheduleId(schedule.getScheduleId());
+
+            if (request.getEntryType() == TermCalendarEntry.EntryType.CANCELLED) {
+                if (!SessionOccurrenceService.isRegularOccurrence(schedule, term, request.getDate())) {
+                    throw new RuntimeException("Lịch học không có buổi vào ngày này");
+                }
+                boolean cancelled = termCalendarEntryRepository.findByTermIdOrderByDateAsc(termId).stream()
+                        .anyMatch(e -> e.getEntryType() == TermCalendarEntry.EntryType.CANCELLED
+                                && schedule.getScheduleId().equals(e.getScheduleId())
+                                && e.getDate().equals(request.getDate()));
+                if (cancelled) {
+                    throw new RuntimeException("Buổi học này đã được hủy");
+                }
+            } else {
+                fillMakeup(entry, request, schedule, term);
+            }
+        }
+
+        TermCalendarEntry saved = termCalendarEntryRepository.save(entry);
+        eventPublisher.publishEvent(new TermCalendarChangedEvent(termId));
+        return saved;
+    }
+
+    @Transactional
+    public void deleteEntry(Long entryId, Long teacherId) {
+        TermCalendarEntry entry = termCalendarEntryRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy ngoại lệ lịch"));
+        if (entry.getEntryType() == TermCalendarEntry.EntryType.HOLIDAY) {
+            academicTermService.requireTermManager(teacherId);
+        } else {
+            requireTeacher(teacherId);
+        }
+        academicTermService.requireWritable(entry.getTermId());
+        if (entry.getScheduleId() != null) {
+            scheduleRepository.findById(entry.getScheduleId()).ifPresent(s -> requireOwner(s, teacherId));
+        }
+        termCalendarEntryRepository.delete(entry);
+        eventPublisher.publishEvent(new TermCalendarChangedEvent(entry.getTermId()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<TermCalendarDTO.EntryResponse> getEntries(Long termId) {
+        return termCalendarEntryRepository.findByTermIdOrderByDateAsc(termId).stream()
+                .map(TermCalendarDTO.EntryResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    // Lịch học bị xóa: xóa luôn các buổi hủy/học bù của lịch đó (trong cùng transaction)
+    @EventListener
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        List<Long> removed = event.getChanges().stream()
+                .filter(c -> c.getAfter() == null)
+                .map(ScheduleChangedEvent.Change::getScheduleId)
+                .collect(Collectors.toList());
+        if (!removed.isEmpty()) {
+            termCalendarEntryRepository.deleteByScheduleIds(removed);
+        }
+    }
+
+    // Buổi học bù: tiết và phòng mặc định theo lịch học; không được trùng lịch của lớp, giáo viên, phòng trong tuần đó
+    private void fillMakeup(TermCalendarEntry entry, TermCalendarDTO.CreateEntryRequest request, Schedule schedule,
+                            AcademicTerm term) {
+        int start = request.getStartPeriod() != null ? request.getStartPeriod() : schedule.getStartPeriod();
+        int end = request.getEndPeriod() != null ? request.getEndPeriod() : schedule.getEndPeriod();
+        if (start < 1 || end > OccupancyBitmap.PERIODS || start > end) {
+            throw new RuntimeException("Tiết học phải từ 1 đến " + OccupancyBitmap.PERIODS
+                    + " và tiết bắt đầu không lớn hơn tiết kết thúc");
+        }
+        String roomCode = Room.normalizeCode(request.getRoom());
+        if (roomCode != null && roomCode.length() > 50) {
+            throw new RuntimeException("Mã phòng quá dài: " + roomCode);
+        }
+        Long roomId = roomCode != null
+                ? roomRepository.findByRoomCode(roomCode).map(Room::getRoomId).orElse(null)
+                : schedule.getRoomObj() != null ? schedule.getRoomObj().getRoomId() : null;
+
+        // Chỉ kiểm tra với lịch học hằng tuần (chỉ mục lịch bận), bỏ qua chính lịch được bù
+        int week = SessionOccurrenceService.weekOf(term, request.getDate());
+        ScheduleChangedEvent.Slot slot = new ScheduleChangedEvent.Slot(null, schedule.getClassObj().getClassId(),
+                schedule.getTeacher().getUserId(), roomId, SessionOccurrenceService.dayOfWeekOf(request.getDate()),
+                start, end, week, week);
+        ScheduleOccupancyService.Conflict conflict = occupancyService.findConflict(slot, schedule.getScheduleId());
+        if (conflict != null) {
+            throw new RuntimeException(switch (conflict.dimension()) {
+                case CLASS -> "Lớp đã có lịch học trùng với buổi học bù";
+                case TEACHER -> "Giáo viên đã có lịch dạy trùng với buổi học bù";
+                case ROOM -> "Phòng đã có lịch trùng với buổi học bù";
+            });
+        }
+
+        entry.setStartPeriod(start);
+        entry.setEndPeriod(end);
+        entry.setRoom(roomCode);
+        entry.setOriginalDate(request.getOriginalDate());
+    }
+
+    private void requireTeacher(Long teacherId) {
+        User teacher = userRepository.findById(teacherId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy giáo viên"));
+        if (teacher.getRole() != User.Role.TEACHER) {
+            throw new RuntimeException("Chỉ giáo viên được phép cập nhật lịch học kỳ");
+        }
+    }
+
+    private static void requireOwner(Schedule schedule, Long teacherId) {
+        boolean teaches = schedule.getTeacher() != null && schedule.getTeacher().getUserId().equals(teacherId);
+        boolean ownsClass = schedule.getClassObj() != null && schedule.getClassObj().getTeacher() != null
+                && schedule.getClassObj().getTeacher().getUserId().equals(teacherId);
+        if (!teaches && !ownsClass) {
+            throw new RuntimeException("Bạn không có quyền thay đổi lịch học này");
+        }
+    }
+}
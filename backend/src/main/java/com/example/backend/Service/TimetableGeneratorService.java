@@ -0,0 +1,324 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.TimetableDTO;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Model.Room;
+import com.example.backend.Model.Subject;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.RoomRepository;
+import com.example.backend.Repository.ScheduleRepositoryCustom;
+import com.example.backend.Repository.SubjectRepository;
+import com.example.backend.Repository.UserRepository;
+import com.example.backend.Util.OccupancyBitmap;
+import com.example.backend.Util.TimetableSolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+// Tự xếp thời khóa biểu: từ số tiết mỗi tuần của từng môn trong mỗi lớp, giờ bận của giáo viên/phòng và các lịch đã có,
+// tìm cách xếp không trùng lớp, giáo viên, phòng (TimetableSolver) rồi lưu cả đợt bằng một lô INSERT.
+// Không giữ transaction trong lúc tìm kiếm; chỉ bước lưu chạy trong transaction.
+@Service
+public class TimetableGeneratorService {
+
+    private static final List<Integer> DEFAULT_DAYS = List.of(2, 3, 4, 5, 6, 7);
+    private static final int DEFAULT_MAX_PERIODS_PER_SESSION = 3;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    @Autowired
+    private ScheduleOccupancyService occupancyService;
+
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Value("${timetable.solver.workers:0}")
+    private int workers;
+
+    @Value("${timetable.solver.time-limit-seconds:50}")
+    private int defaultTimeLimitSeconds;
+
+    public TimetableDTO.GenerateResult generate(TimetableDTO.GenerateRequest request, Long userId) {
+        long started = System.currentTimeMillis();
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy giáo viên"));
+        if (user.getRole() != User.Role.TEACHER) {
+            throw new RuntimeException("Chỉ giáo viên được phép xếp thời khóa biểu");
+        }
+
+        Integer startWeek = request.getStartWeek();
+        Integer endWeek = request.getEndWeek();
+        if (startWeek == null || endWeek == null || startWeek < 1 || endWeek > OccupancyBitmap.MAX_WEEK
+                || startWeek > endWeek) {
+            throw new RuntimeException("Tuần học phải từ 1 đến " + OccupancyBitmap.MAX_WEEK
+                    + " và tuần bắt đầu không lớn hơn tuần kết thúc");
+        }
+        int[] days = resolveDays(request.getDays());
+        int maxPeriods = request.getMaxPeriodsPerSession() != null
+                ? request.getMaxPeriodsPerSession() : DEFAULT_MAX_PERIODS_PER_SESSION;
+        if (maxPeriods < 1 || maxPeriods > TimetableSolver.HALF_DAY) {
+            throw new RuntimeException("Số tiết tối đa của một buổi phải từ 1 đến " + TimetableSolver.HALF_DAY);
+        }
+        if (request.getClasses() == null || request.getClasses().isEmpty()) {
+            throw new RuntimeException("Chưa có lớp nào cần xếp lịch");
+        }
+
+        // Nạp lớp, môn, giáo viên, phòng và sĩ số theo lô
+        Set<Long> classIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        Set<Long> teacherIds = new HashSet<>();
+        for (TimetableDTO.ClassRequirement cr : request.getClasses()) {
+            classIds.add(cr.getClassId());
+            if (cr.getSubjects() != null) {
+                for (TimetableDTO.SubjectRequirement sr : cr.getSubjects()) {
+                    subjectIds.add(sr.getSubjectId());
+                    if (sr.getTeacherId() != null) {
+                        teacherIds.add(sr.getTeacherId());
+                    }
+                }
+            }
+        }
+        Map<Long, ClassEntity> classes = new HashMap<>();
+        classRepository.findAllById(classIds).forEach(c -> classes.put(c.getClassId(), c));
+        Map<Long, Subject> subjects = new HashMap<>();
+        subjectRepository.findAllById(subjectIds).forEach(s -> subjects.put(s.getSubjectId(), s));
+        Map<Long, User> teachers = new HashMap<>();
+        userRepository.findAllById(teacherIds).forEach(t -> teachers.put(t.getUserId(), t));
+        classes.values().forEach(c -> teachers.putIfAbsent(c.getTeacher().getUserId(), c.getTeacher()));
+        for (Long classId : classIds) {
+            ClassEntity classEntity = classes.get(classId);
+            if (classEntity == null) {
+                throw new RuntimeException("Không tìm thấy lớp: " + classId);
+            }
+            // Lưu lịch: giáo viên chỉ được thêm lịch cho lớp mình phụ trách (như ScheduleService.createSchedule)
+            if (Boolean.TRUE.equals(request.getCommit()) && !classEntity.getTeacher().getUserId().equals(userId)) {
+                throw new RuntimeException("Bạn không có quyền thêm lịch cho lớp này");
+            }
+        }
+        for (Long subjectId : subjectIds) {
+            if (!subjects.containsKey(subjectId)) {
+                throw new RuntimeException("Không tìm thấy môn học: " + subjectId);
+            }
+        }
+        for (Long teacherId : teacherIds) {
+            User teacher = teachers.get(teacherId);
+            if (teacher == null || teacher.getRole() != User.Role.TEACHER) {
+                throw new RuntimeException("Không tìm thấy giáo viên: " + teacherId);
+            }
+        }
+
+        List<Room> rooms = loadRooms(request.getRooms());
+        Map<String, Integer> roomIndex = new HashMap<>();
+        int[] capacity = new int[rooms.size()];
+        int maxCapacity = 0;
+        for (int i = 0; i < rooms.size(); i++) {
+            roomIndex.put(rooms.get(i).getRoomCode(), i);
+            capacity[i] = rooms.get(i).getCapacity() != null ? rooms.get(i).getCapacity() : Integer.MAX_VALUE;
+            maxCapacity = Math.max(maxCapacity, capacity[i]);
+        }
+        Map<Long, Integer> classSizes = new HashMap<>();
+        for (Object[] row : classStudentRepository.countStudentsByClassIds(classIds)) {
+            classSizes.put((Long) row[0], ((Long) row[1]).intValue());
+        }
+
+        // Chia số tiết mỗi tuần thành các buổi đều nhau, mỗi buổi không quá maxPeriods tiết
+        Map<Long, Integer> classIndex = new LinkedHashMap<>();
+        Map<Long, Integer> teacherIndex = new LinkedHashMap<>();
+        List<TimetableSolver.Session> sessions = new ArrayList<>();
+        List<SessionInfo> infos = new ArrayList<>();
+        int groups = 0;
+        for (TimetableDTO.ClassRequirement cr : request.getClasses()) {
+            ClassEntity classEntity = classes.get(cr.getClassId());
+            int size = classSizes.getOrDefault(classEntity.getClassId(), 0);
+            if (size > maxCapacity) {
+                throw new RuntimeException(String.format("Không có phòng đủ chỗ cho lớp %s (%d sinh viên)",
+                        classEntity.getClassCode(), size));
+            }
+            int ci = classIndex.computeIfAbsent(classEntity.getClassId(), id -> classIndex.size());
+            if (cr.getSubjects() == null) {
+                continue;
+            }
+            for (TimetableDTO.SubjectRequirement sr : cr.getSubjects()) {
+                if (sr.getPeriodsPerWeek() == null || sr.getPeriodsPerWeek() < 1) {
+                    throw new RuntimeException("Số tiết mỗi tuần phải lớn hơn 0 (lớp " + classEntity.getClassCode() + ")");
+                }
+                User teacher = teachers.get(sr.getTeacherId() != null
+                        ? sr.getTeacherId() : classEntity.getTeacher().getUserId());
+                int ti = teacherIndex.computeIfAbsent(teacher.getUserId(), id -> teacherIndex.size());
+
+                int periods = sr.getPeriodsPerWeek();
+                int count = (periods + maxPeriods - 1) / maxPeriods;
+                for (int k = 0; k < count; k++) {
+                    int length = periods / count + (k < periods % count ? 1 : 0);
+                    sessions.add(new TimetableSolver.Session(ci, ti, groups, length, size));
+                    infos.add(new SessionInfo(classEntity, subjects.get(sr.getSubjectId()), teacher));
+                }
+                groups++;
+            }
+        }
+        if (sessions.isEmpty()) {
+            throw new RuntimeException("Chưa có môn học nào cần xếp lịch");
+        }
+
+        TimetableSolver solver = new TimetableSolver(days, sessions, classIndex.size(), teacherIndex.size(), groups,
+                capacity);
+
+        // Ô bận: lịch đã có trong khoảng tuần (từ chỉ mục lịch bận) và giờ bận khai báo
+        long weeks = OccupancyBitmap.weekMask(startWeek, endWeek);
+        classIndex.forEach((classId, i) -> blockOccupied(ScheduleOccupancyService.Dimension.CLASS, classId, days,
+                weeks, (day, period) -> solver.blockClass(i, day, period)));
+        teacherIndex.forEach((teacherId, i) -> blockOccupied(ScheduleOccupancyService.Dimension.TEACHER, teacherId,
+                days, weeks, (day, period) -> solver.blockTeacher(i, day, period)));
+        for (int i = 0; i < rooms.size(); i++) {
+            int ri = i;
+            blockOccupied(ScheduleOccupancyService.Dimension.ROOM, rooms.get(i).getRoomId(), days, weeks,
+                    (day, period) -> solver.blockRoom(ri, day, period));
+        }
+        if (request.getUnavailable() != null) {
+            for (TimetableDTO.UnavailableSlot slot : request.getUnavailable()) {
+                if (slot.getDayOfWeek() == null || slot.getStartPeriod() == null || slot.getEndPeriod() == null) {
+                    throw new RuntimeException("Khung giờ bận phải có thứ, tiết bắt đầu và tiết kết thúc");
+                }
+                if (slot.getDayOfWeek() < 2 || slot.getDayOfWeek() > 8) {
+                    throw new RuntimeException("Thứ của khung giờ bận không hợp lệ");
+                }
+                if (slot.getStartPeriod() < 1 || slot.getEndPeriod() > OccupancyBitmap.PERIODS
+                        || slot.getStartPeriod() > slot.getEndPeriod()) {
+                    throw new RuntimeException("Tiết của khung giờ bận phải từ 1 đến " + OccupancyBitmap.PERIODS
+                            + " và tiết bắt đầu không lớn hơn tiết kết thúc");
+                }
+                Integer ti = slot.getTeacherId() != null ? teacherIndex.get(slot.getTeacherId()) : null;
+                Integer ri = slot.getRoomCode() != null ? roomIndex.get(Room.normalizeCode(slot.getRoomCode())) : null;
+                for (int p = slot.getStartPeriod(); p <= slot.getEndPeriod(); p++) {
+                    if (ti != null) solver.blockTeacher(ti, slot.getDayOfWeek(), p);
+                    if (ri != null) solver.blockRoom(ri, slot.getDayOfWeek(), p);
+                }
+            }
+        }
+
+        // Thời gian chạy do client chọn không vượt quá mặc định cấu hình (giữ luồng xử lý và các luồng giải)
+        int timeLimit = request.getTimeLimitSeconds() != null && request.getTimeLimitSeconds() > 0
+                ? Math.min(request.getTimeLimitSeconds(), defaultTimeLimitSeconds) : defaultTimeLimitSeconds;
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        TimetableSolver.Result result = solver.solve(workerCount, timeLimit * 1000L, System.nanoTime());
+
+        List<TimetableDTO.ProposedSchedule> proposals = new ArrayList<>(sessions.size());
+        List<ScheduleRepositoryCustom.ScheduleRow> rows = new ArrayList<>(sessions.size());
+        for (int s = 0; s < sessions.size(); s++) {
+            TimetableSolver.Placement placement = result.placements().get(s);
+            SessionInfo info = infos.get(s);
+            Room room = rooms.get(placement.roomIndex());
+            int endPeriod = placement.startPeriod() + sessions.get(s).length() - 1;
+
+            TimetableDTO.ProposedSchedule proposal = new TimetableDTO.ProposedSchedule();
+            proposal.setClassId(info.classEntity().getClassId());
+            proposal.setClassCode(info.classEntity().getClassCode());
+            proposal.setSubjectId(info.subject().getSubjectId());
+            proposal.setSubjectName(info.subject().getSubjectName());
+            proposal.setTeacherId(info.teacher().getUserId());
+            proposal.setTeacherName(info.teacher().getFullName());
+            proposal.setRoom(room.getRoomCode());
+            proposal.setDayOfWeek(placement.dayOfWeek());
+            proposal.setStartPeriod(placement.startPeriod());
+            proposal.setEndPeriod(endPeriod);
+            proposal.setStartWeek(startWeek);
+            proposal.setEndWeek(endWeek);
+            proposals.add(proposal);
+
+            rows.add(ScheduleRepositoryCustom.ScheduleRow.of(info.classEntity().getClassId(),
+                    info.subject().getSubjectId(), info.teacher().getUserId(), room, placement.dayOfWeek(),
+                    placement.startPeriod(), endPeriod, startWeek, endWeek));
+        }
+
+        TimetableDTO.GenerateResult response = new TimetableDTO.GenerateResult();
+        response.setFeasible(result.feasible());
+        response.setSessionCount(sessions.size());
+        response.setConflictCount(result.hardConflicts());
+        response.setIterations(result.iterations());
+        response.setSchedules(proposals);
+        if (result.feasible() && Boolean.TRUE.equals(request.getCommit())) {
+            scheduleService.insertSchedules(rows);
+            response.setCommitted(true);
+        }
+        response.setElapsedMillis(System.currentTimeMillis() - started);
+        return response;
+    }
+
+    private static int[] resolveDays(List<Integer> requested) {
+        List<Integer> days = requested == null || requested.isEmpty() ? DEFAULT_DAYS : requested;
+        Set<Integer> distinct = new TreeSet<>();
+        for (Integer day : days) {
+            if (day == null || day < 2 || day > 8) {
+                throw new RuntimeException("Thứ trong tuần không hợp lệ");
+            }
+            distinct.add(day);
+        }
+        return distinct.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private List<Room> loadRooms(List<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            List<Room> rooms = roomRepository.findAllByOrderByRoomCodeAsc();
+            if (rooms.isEmpty()) {
+                throw new RuntimeException("Chưa có phòng học nào");
+            }
+            return rooms;
+        }
+        Set<String> normalized = new TreeSet<>();
+        codes.stream().map(Room::normalizeCode).filter(Objects::nonNull).forEach(normalized::add);
+        List<Room> rooms = roomRepository.findByRoomCodeIn(normalized);
+        if (rooms.size() < normalized.size()) {
+            Set<String> found = new HashSet<>();
+            rooms.forEach(r -> found.add(r.getRoomCode()));
+            normalized.removeAll(found);
+            throw new RuntimeException("Không tìm thấy phòng: " + String.join(", ", normalized));
+        }
+        return rooms;
+    }
+
+    // Chặn các ô (thứ, tiết) mà đối tượng đã bận ở ít nhất một tuần trong khoảng tuần cần xếp
+    private void blockOccupied(ScheduleOccupancyService.Dimension dimension, Long ownerId, int[] days, long weeks,
+                               BiConsumer<Integer, Integer> block) {
+        OccupancyBitmap bitmap = occupancyService.snapshot(dimension, ownerId);
+        if (bitmap == null) {
+            return;
+        }
+        for (int day : days) {
+            for (int period = 1; period <= OccupancyBitmap.PERIODS; period++) {
+                if ((bitmap.weeksAt(day, period) & weeks) != 0) {
+                    block.accept(day, period);
+                }
+            }
+        }
+    }
+
+    private record SessionInfo(ClassEntity classEntity, Subject subject, User teacher) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Repository.UserRepository;
+import com.example.backend.Util.CacheGenerations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+// Thời khóa biểu của sinh viên: một truy vấn join cho mọi lớp đang học, kết quả cache theo sinh viên.
+// Cache chỉ bị xóa khi sinh viên vào/rời lớp hoặc lịch của lớp thay đổi.
+@Service
+public class TimetableService {
+
+    private static final String CACHE_NAME = "timetables";
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private ClassStudentRepository classStudentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // Thế hệ theo sinh viên: thời khóa biểu dựng trước một lần xóa cache không được ghi đè lại
+    private final CacheGenerations generations = new CacheGenerations();
+
+    // Thời khóa biểu của sinh viên, sắp theo thứ và tiết (từ cache nếu có)
+    @Transactional(readOnly = true)
+    public List<ScheduleDTO.ScheduleResponse> getStudentTimetable(Long studentId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            @SuppressWarnings("unchecked")
+            List<ScheduleDTO.ScheduleResponse> cached = cache.get(studentId, List.class);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        if (!userRepository.existsById(studentId)) {
+            throw new RuntimeException("Không tìm thấy sinh viên");
+        }
+
+        long stamp = generations.stamp(studentId);
+        List<ScheduleDTO.ScheduleResponse> timetable = scheduleRepository.findTimetableByStudentId(studentId).stream()
+                .map(ScheduleDTO.ScheduleResponse::fromEntity)
+                .toList();
+        if (cache != null) {
+            generations.put(cache, studentId, stamp, timetable);
+        }
+        return timetable;
+    }
+
+    // Sinh viên vào/rời lớp: xóa thời khóa biểu đã cache của các sinh viên đó
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            event.getStudentIds().forEach(id -> generations.evict(cache, id));
+        }
+    }
+
+    // Lịch học thay đổi: xóa thời khóa biểu đã cache của sinh viên trong các lớp liên quan
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        for (Long classId : event.getClassIds()) {
+            classStudentRepository.findStudentIdsByClassId(classId).forEach(id -> generations.evict(cache, id));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.TranscriptDTO;
+import com.example.backend.Event.AcademicTermChangedEvent;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Event.SubjectCreditsChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.UserRepository;
+import com.example.backend.Util.CacheGenerations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bảng điểm và điểm trung bình tích lũy có trọng số tín chỉ.
+// Kết quả được cache theo sinh viên và chỉ bị xóa khi điểm của sinh viên hoặc tín chỉ môn học thay đổi.
+@Service
+public class TranscriptService {
+
+    private static final String CACHE_NAME = "transcripts";
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AcademicTermService academicTermService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // Thế hệ theo sinh viên: bảng điểm dựng trước một lần xóa cache không được ghi đè lại
+    private final CacheGenerations generations = new CacheGenerations();
+
+    // Lấy bảng điểm của sinh viên (từ cache nếu có)
+    public TranscriptDTO.Transcript getTranscript(Long studentId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            TranscriptDTO.Transcript cached = cache.get(studentId, TranscriptDTO.Transcript.class);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        if (!userRepository.existsById(studentId)) {
+            throw new RuntimeException("Không tìm thấy sinh viên");
+        }
+
+        long stamp = generations.stamp(studentId);
+        TranscriptDTO.Transcript transcript = build(studentId);
+        if (cache != null) {
+            generations.put(cache, studentId, stamp, transcript);
+        }
+        return transcript;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGradeChanged(GradeChangedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            event.getChanges().forEach(change -> generations.evict(cache, change.getStudentId()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onSubjectCreditsChanged(SubjectCreditsChangedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            event.getStudentIds().forEach(id -> generations.evict(cache, id));
+        }
+    }
+
+    // Ranh giới học kỳ thay đổi: điểm có thể đã được gán lại học kỳ, xóa toàn bộ bảng điểm đã cache
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAcademicTermChanged(AcademicTermChangedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            generations.clear(cache);
+        }
+    }
+
+    // Dựng bảng điểm từ hai truy vấn dạng phẳng (điểm đang dùng + điểm đã lưu trữ)
+    private TranscriptDTO.Transcript build(Long studentId) {
+        Map<Long, List<TranscriptDTO.CourseResult>> byTerm = new HashMap<>();
+        for (Object[] row : gradeRepository.findTranscriptRows(studentId)) {
+            byTerm.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(course(
+                    (Long) row[1], (String) row[2], (Long) row[3], (String) row[4], (String) row[5],
+                    (Integer) row[6], (Double) row[7], (Double) row[8], (Double) row[9], (Double) row[10], false));
+        }
+        for (Object[] row : gradeRepository.findArchivedTranscriptRows(studentId)) {
+            byTerm.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(course(
+                    (Long) row[1], null, (Long) row[2], (String) row[3], (String) row[4],
+                    (Integer) row[5], (Double) row[6], (Double) row[7], (Double) row[8], (Double) row[9], true));
+        }
+
+        // Sắp các học kỳ theo thời gian; điểm chưa thuộc học kỳ nào xếp cuối
+        Map<Long, AcademicTerm> terms = new LinkedHashMap<>();
+        for (AcademicTerm term : academicTermService.getTerms()) {
+            terms.put(term.getTermId(), term);
+        }
+        List<Long> termIds = new ArrayList<>(byTerm.keySet());
+        List<Long> order = new ArrayList<>(terms.keySet());
+        termIds.sort(Comparator.comparingInt(id -> id == null || !order.contains(id)
+                ? Integer.MAX_VALUE : order.indexOf(id)));
+
+        List<TranscriptDTO.TermSummary> summaries = new ArrayList<>();
+        Accumulator cumulative = new Accumulator();
+        for (Long termId : termIds) {
+            List<TranscriptDTO.CourseResult> courses = byTerm.get(termId);
+            courses.sort(Comparator.comparing(TranscriptDTO.CourseResult::getSubjectCode));
+            Accumulator term = new Accumulator();
+            courses.forEach(term::add);
+            courses.forEach(cumulative::add);
+
+            AcademicTerm info = termId != null ? terms.get(termId) : null;
+            summaries.add(new TranscriptDTO.TermSummary(termId,
+                    info != null ? info.getTermCode() : null,
+                    info != null ? info.getTermName() : null,
+                    List.copyOf(courses),
+                    term.credits, term.gpa10(), term.gpa4(),
+                    cumulative.credits, cumulative.gpa10(), cumulative.gpa4()));
+        }
+
+        return new TranscriptDTO.Transcript(studentId, List.copyOf(summaries),
+                cumulative.credits, cumulative.gpa10(), cumulative.gpa4(), LocalDateTime.now());
+    }
+
+    private TranscriptDTO.CourseResult course(Long classId, String classCode, Long subjectId, String subjectCode,
+                                              String subjectName, Integer credits, Double processScore,
+                                              Double midtermScore, Double finalExamScore, Double finalScore,
+                                              boolean archived) {
+        // Điểm tổng kết hệ 10 đã lưu theo công thức của môn (null khi chưa đủ thành phần)
+        Double score = finalScore != null ? round(finalScore) : null;
+        return new TranscriptDTO.CourseResult(classId, classCode, subjectId, subjectCode, subjectName, credits,
+                processScore, midtermScore, finalExamScore, score, letterGrade(score), gradePoint(score), archived);
+    }
+
+    // Quy đổi điểm chữ theo thang tín chỉ
+    private static String letterGrade(Double score) {
+        if (score == null) return null;
+        if (score >= 8.5) return "A";
+        if (score >= 8.0) return "B+";
+        if (score >= 7.0) return "B";
+        if (score >= 6.5) return "C+";
+        if (score >= 5.5) return "C";
+        if (score >= 5.0) return "D+";
+        if (score >= 4.0) return "D";
+        return "F";
+    }
+
+    private static Double gradePoint(Double score) {
+        if (score == null) return null;
+        if (score >= 8.5) return 4.0;
+        if (score >= 8.0) return 3.5;
+        if (score >= 7.0) return 3.0;
+        if (score >= 6.5) return 2.5;
+        if (score >= 5.5) return 2.0;
+        if (score >= 5.0) return 1.5;
+        if (score >= 4.0) return 1.0;
+        return 0.0;
+    }
+
+    private static Double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    // Cộng dồn điểm × tín chỉ (môn không có tín chỉ hoặc chưa có điểm không tính vào trung bình)
+    private static class Accumulator {
+        int credits;
+        double weighted10;
+        double weighted4;
+
+        void add(TranscriptDTO.CourseResult course) {
+            if (course.getScore() == null || course.getCredits() == null || course.getCredits() <= 0) {
+                return;
+            }
+            credits += course.getCredits();
+            weighted10 += course.getScore() * course.getCredits();
+            weighted4 += course.getGradePoint() * course.getCredits();
+        }
+
+        Double gpa10() {
+            return credits > 0 ? round(weighted10 / credits) : null;
+        }
+
+        Double gpa4() {
+            return credits > 0 ? round(weighted4 / credits) : null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.backend.Util;
+
+import com.example.backend.Model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ma trận điểm danh sinh viên × buổi học, mỗi ô 2 bit trạng thái + 1 bit "đã điểm danh".
+// Dữ liệu lưu theo cột nên thêm một buổi mới ở cuối chỉ cần nới mảng.
+public class AttendanceMatrix {
+
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+
+    // Ký hiệu trong lưới: P=Có mặt, A=Vắng, L=Muộn, E=Có phép, '-'=chưa điểm danh
+    private static final char[] SYMBOLS = {'P', 'A', 'L', 'E'};
+    private static final char EMPTY = '-';
+
+    private final List<Long> studentIds;
+    private final Map<Long, Integer> rowIndex = new HashMap<>();
+    private final List<Session> sessions = new ArrayList<>(); // sắp xếp theo (ngày, scheduleId)
+
+    private long[] codes = new long[0];    // 2 bit/ô: ordinal của AttendanceStatus
+    private long[] recorded = new long[0]; // 1 bit/ô: ô đã có dữ liệu
+
+    public AttendanceMatrix(Collection<Long> studentIds) {
+        this.studentIds = List.copyOf(studentIds);
+        for (int i = 0; i < this.studentIds.size(); i++) {
+            rowIndex.put(this.studentIds.get(i), i);
+        }
+    }
+
+    // Ghi một ô (status = null để xóa). Trả về false nếu sinh viên không thuộc ma trận.
+    public synchronized boolean put(Long studentId, Long scheduleId, LocalDate date,
+                                    Attendance.AttendanceStatus status) {
+        Integer row = rowIndex.get(studentId);
+        if (row == null) {
+            return false;
+        }
+        int col = findColumn(scheduleId, date);
+        if (col < 0) {
+            if (status == null) {
+                return true;
+            }
+            col = insertColumn(-col - 1, new Session(scheduleId, date));
+        }
+        int cell = col * studentIds.size() + row;
+        if (status == null) {
+            setBit(recorded, cell, false);
+            setCode(codes, cell, 0);
+        } else {
+            setBit(recorded, cell, true);
+            setCode(codes, cell, status.ordinal());
+        }
+        return true;
+    }
+
+    public synchronized Attendance.AttendanceStatus get(Long studentId, Long scheduleId, LocalDate date) {
+        Integer row = rowIndex.get(studentId);
+        int col = findColumn(scheduleId, date);
+        if (row == null || col < 0) {
+            return null;
+        }
+        int cell = col * studentIds.size() + row;
+        return getBit(recorded, cell) ? STATUSES[getCode(codes, cell)] : null;
+    }
+
+    // Chụp lại lưới hiện tại: mỗi sinh viên một chuỗi ký hiệu theo thứ tự buổi học
+    public synchronized Snapshot snapshot() {
+        int rows = studentIds.size();
+        int cols = sessions.size();
+        List<String> lines = new ArrayList<>(rows);
+        char[] line = new char[cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int cell = col * rows + row;
+                line[col] = getBit(recorded, cell) ? SYMBOLS[getCode(codes, cell)] : EMPTY;
+            }
+            lines.add(new String(line));
+        }
+        return new Snapshot(studentIds, List.copyOf(sessions), Collections.unmodifiableList(lines));
+    }
+
+    // Dung lượng dữ liệu ô (byte)
+    public synchronized int sizeInBytes() {
+        return (codes.length + recorded.length) * Long.BYTES;
+    }
+
+    private int findColumn(Long scheduleId, LocalDate date) {
+        return Collections.binarySearch(sessions, new Session(scheduleId, date));
+    }
+
+    private int insertColumn(int pos, Session session) {
+        int rows = studentIds.size();
+        int cols = sessions.size();
+        long[] newCodes = new long[wordsFor((cols + 1) * rows, 2)];
+        long[] newRecorded = new long[wordsFor((cols + 1) * rows, 1)];
+        if (pos == cols) {
+            // Trường hợp thường gặp: buổi mới nằm cuối, chỉ cần nới mảng
+            System.arraycopy(codes, 0, newCodes, 0, codes.length);
+            System.arraycopy(recorded, 0, newRecorded, 0, recorded.length);
+        } else {
+            for (int cell = 0; cell < cols * rows; cell++) {
+                int target = cell < pos * rows ? cell : cell + rows;
+                setCode(newCodes, target, getCode(codes, cell));
+                setBit(newRecorded, target, getBit(recorded, cell));
+            }
+        }
+        codes = newCodes;
+        recorded = newRecorded;
+        sessions.add(pos, session);
+        return pos;
+    }
+
+    private static int wordsFor(int cells, int bitsPerCell) {
+        return (cells * bitsPerCell + 63) / 64;
+    }
+
+    private static int getCode(long[] words, int cell) {
+        return (int) (words[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+    }
+
+    private static void setCode(long[] words, int cell, int code) {
+        int word = cell >>> 5;
+        int shift = (cell & 31) << 1;
+        words[word] = (words[word] & ~(3L << shift)) | ((long) code << shift);
+    }
+
+    private static boolean getBit(long[] words, int cell) {
+        return (words[cell >>> 6] & (1L << (cell & 63))) != 0;
+    }
+
+    private static void setBit(long[] words, int cell, boolean value) {
+        if (value) {
+            words[cell >>> 6] |= 1L << (cell & 63);
+        } else {
+            words[cell >>> 6] &= ~(1L << (cell & 63));
+        }
+    }
+
+    // Một cột của ma trận: một lần diễn ra của buổi học
+    @Getter
+    @AllArgsConstructor
+    public static class Session implements Comparable<Session> {
+        private final Long scheduleId;
+        private final LocalDate date;
+
+        @Override
+        public int compareTo(Session other) {
+            int cmp = date.compareTo(other.date);
+            return cmp != 0 ? cmp : scheduleId.compareTo(other.scheduleId);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final List<Long> studentIds;
+        private final List<Session> sessions;
+        private final List<String> rows;
+    }
+}
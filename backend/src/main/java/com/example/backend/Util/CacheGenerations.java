@@ -0,0 +1,50 @@
+package com.example.backend.Util;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Chống ghi đè dữ liệu cũ vào cache: lần đọc trượt lấy thế hệ của khóa trước khi truy vấn CSDL, chỉ giữ kết quả
+// nếu không có lần xóa nào chen vào giữa. Thế hệ chia theo nhóm băm cố định nên bộ nhớ không tăng theo số khóa.
+public class CacheGenerations {
+
+    private static final int STRIPES = 1024;
+
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES);
+
+    // Tăng khi xóa toàn bộ cache
+    private final AtomicLong epoch = new AtomicLong();
+
+    // Thế hệ hiện tại của khóa - gọi trước khi đọc dữ liệu để dựng lại giá trị
+    public long stamp(Object key) {
+        return epoch.get() + stripes.get(stripe(key));
+    }
+
+    // Ghi giá trị vừa dựng; nếu khóa đã bị xóa kể từ lúc lấy thế hệ thì bỏ giá trị vừa ghi
+    public void put(Cache cache, Object key, long stamp, Object value) {
+        if (stamp(key) != stamp) {
+            return;
+        }
+        cache.put(key, value);
+        // Lần xóa chen vào giữa lúc kiểm tra và lúc ghi: tự xóa lại (bên xóa tăng thế hệ trước khi xóa cache)
+        if (stamp(key) != stamp) {
+            cache.evict(key);
+        }
+    }
+
+    public void evict(Cache cache, Object key) {
+        stripes.incrementAndGet(stripe(key));
+        cache.evict(key);
+    }
+
+    public void clear(Cache cache) {
+        epoch.incrementAndGet();
+        cache.clear();
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
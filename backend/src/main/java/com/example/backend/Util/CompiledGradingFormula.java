@@ -0,0 +1,81 @@
+package com.example.backend.Util;
+
+import java.util.function.DoubleUnaryOperator;
+
+// Công thức tính điểm tổng kết đã biên dịch: trọng số chuẩn hóa sẵn, hàm làm tròn chọn một lần,
+// mỗi lần tính chỉ còn vài phép nhân cộng. Bất biến nên dùng chung giữa các luồng.
+public final class CompiledGradingFormula {
+
+    public enum Rounding {
+        HALF_UP,    // Làm tròn gần nhất (0.5 lên)
+        UP,         // Làm tròn lên
+        DOWN        // Làm tròn xuống
+    }
+
+    // Mặc định: (quá trình + giữa kỳ) / 2, không làm tròn
+    public static final CompiledGradingFormula DEFAULT = compile(0.5, 0.5, 0.0, 0.0, Rounding.HALF_UP);
+
+    // Sai số nhỏ để 7.25 / 0.05 không thành 144.99999...
+    private static final double EPSILON = 1e-9;
+
+    private final double processWeight;
+    private final double midtermWeight;
+    private final double finalWeight;
+    private final DoubleUnaryOperator rounding;
+
+    private CompiledGradingFormula(double processWeight, double midtermWeight, double finalWeight,
+                                   DoubleUnaryOperator rounding) {
+        this.processWeight = processWeight;
+        this.midtermWeight = midtermWeight;
+        this.finalWeight = finalWeight;
+        this.rounding = rounding;
+    }
+
+    public static CompiledGradingFormula compile(double processWeight, double midtermWeight, double finalWeight,
+                                                 double roundingStep, Rounding roundingMode) {
+        if (processWeight < 0 || midtermWeight < 0 || finalWeight < 0) {
+            throw new RuntimeException("Trọng số không được âm");
+        }
+        double total = processWeight + midtermWeight + finalWeight;
+        if (total <= 0) {
+            throw new RuntimeException("Tổng trọng số phải lớn hơn 0");
+        }
+        if (roundingStep < 0 || roundingStep > 10) {
+            throw new RuntimeException("Bước làm tròn không hợp lệ");
+        }
+
+        DoubleUnaryOperator rounding;
+        if (roundingStep == 0) {
+            rounding = value -> value;
+        } else {
+            double step = roundingStep;
+            rounding = switch (roundingMode != null ? roundingMode : Rounding.HALF_UP) {
+                case HALF_UP -> value -> Math.floor(value / step + 0.5 + EPSILON) * step;
+                case UP -> value -> Math.ceil(value / step - EPSILON) * step;
+                case DOWN -> value -> Math.floor(value / step + EPSILON) * step;
+            };
+        }
+        return new CompiledGradingFormula(processWeight / total, midtermWeight / total, finalWeight / total,
+                rounding);
+    }
+
+    // Điểm tổng kết; null khi còn thiếu thành phần có trọng số (vd. chưa thi cuối kỳ)
+    public Double evaluate(Double processScore, Double midtermScore, Double finalExamScore) {
+        double sum = 0;
+        if (processWeight > 0) {
+            if (processScore == null) return null;
+            sum += processWeight * processScore;
+        }
+        if (midtermWeight > 0) {
+            if (midtermScore == null) return null;
+            sum += midtermWeight * midtermScore;
+        }
+        if (finalWeight > 0) {
+            if (finalExamScore == null) return null;
+            sum += finalWeight * finalExamScore;
+        }
+        double value = Math.min(10.0, Math.max(0.0, rounding.applyAsDouble(sum)));
+        // Bỏ nhiễu dấu phẩy động (0.1 × 3 = 0.30000000000000004)
+        return Math.round(value * 1e6) / 1e6;
+    }
+}
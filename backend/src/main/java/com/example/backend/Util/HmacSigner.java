@@ -0,0 +1,59 @@
+package com.example.backend.Util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// Ký HMAC-SHA256 để tạo mã/khóa có thể kiểm tra mà không cần tra CSDL
+public class HmacSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public HmacSigner(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("Khóa bí mật HMAC không được để trống");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public byte[] sign(String message) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Không thể ký HMAC", e);
+        }
+    }
+
+    // Mã số kiểu HOTP (RFC 4226): cắt động 31 bit rồi lấy `digits` chữ số cuối
+    public String numericCode(String message, int digits) {
+        byte[] hash = sign(message);
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+        int modulus = (int) Math.pow(10, digits);
+        return String.format("%0" + digits + "d", binary % modulus);
+    }
+
+    // Chữ ký dạng Base64 URL-safe (dùng làm token trong đường dẫn)
+    public String token(String message) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sign(message));
+    }
+
+    // So sánh thời gian hằng để tránh dò mã theo thời gian phản hồi
+    public static boolean matches(String expected, String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.backend.Util;
+
+import java.util.Arrays;
+
+// Lịch bận của một đối tượng (lớp, giáo viên hoặc phòng) trên lưới tuần × thứ × tiết.
+// Mỗi ô (thứ, tiết) là một long, bit w = bận ở tuần w, nên kiểm tra một lịch học
+// (một thứ, vài tiết, một khoảng tuần) chỉ là vài phép AND.
+public class OccupancyBitmap {
+
+    public static final int MAX_WEEK = 63;
+    public static final int DAYS = 9;     // Chỉ số theo dayOfWeek (2..8), bỏ trống 0..1
+    public static final int PERIODS = 10; // Tiết 1..10
+
+    private final long[] cells = new long[DAYS * PERIODS];
+
+    // Mặt nạ các tuần startWeek..endWeek (cắt về 1..MAX_WEEK)
+    public static long weekMask(int startWeek, int endWeek) {
+        int from = Math.max(1, startWeek);
+        int to = Math.min(MAX_WEEK, endWeek);
+        if (from > to) {
+            return 0L;
+        }
+        long upper = to == 63 ? -1L : (1L << (to + 1)) - 1;
+        long lower = (1L << from) - 1;
+        return upper & ~lower;
+    }
+
+    public void add(int dayOfWeek, int startPeriod, int endPeriod, long weeks) {
+        for (int p = startPeriod; p <= endPeriod; p++) {
+            cells[index(dayOfWeek, p)] |= weeks;
+        }
+    }
+
+    // Bỏ bận ở các tiết startPeriod..endPeriod của thứ dayOfWeek trong các tuần của mặt nạ
+    public void remove(int dayOfWeek, int startPeriod, int endPeriod, long weeks) {
+        for (int p = startPeriod; p <= endPeriod; p++) {
+            cells[index(dayOfWeek, p)] &= ~weeks;
+        }
+    }
+
+    public boolean intersects(int dayOfWeek, int startPeriod, int endPeriod, long weeks) {
+        for (int p = startPeriod; p <= endPeriod; p++) {
+            if ((cells[index(dayOfWeek, p)] & weeks) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Gộp lịch bận của đối tượng khác vào (bận nếu một trong hai bận)
+    public void or(OccupancyBitmap other) {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] |= other.cells[i];
+        }
+    }
+
+    // Các tuần bận ở (thứ, tiết)
+    public long weeksAt(int dayOfWeek, int period) {
+        return cells[index(dayOfWeek, period)];
+    }
+
+    // Số ô (tuần, thứ, tiết) bận trong các tuần của mặt nạ
+    public int countOccupied(long weeks) {
+        int count = 0;
+        for (long cell : cells) {
+            count += Long.bitCount(cell & weeks);
+        }
+        return count;
+    }
+
+    public OccupancyBitmap copy() {
+        OccupancyBitmap copy = new OccupancyBitmap();
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        return copy;
+    }
+
+    public void clear() {
+        Arrays.fill(cells, 0L);
+    }
+
+    public boolean isEmpty() {
+        for (long cell : cells) {
+            if (cell != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int index(int dayOfWeek, int period) {
+        if (dayOfWeek < 0 || dayOfWeek >= DAYS || period < 1 || period > PERIODS) {
+            throw new IllegalArgumentException("Ô lịch không hợp lệ: thứ " + dayOfWeek + ", tiết " + period);
+        }
+        return dayOfWeek * PERIODS + (period - 1);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.backend.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Histogram điểm thang 0-10 với độ phân giải 0.05 cùng tổng và tổng bình phương.
+// Thêm/bớt một điểm là O(1); hai histogram có thể gộp bằng cộng từng ô (gộp nhiều môn, nhiều lớp).
+public class ScoreHistogram {
+
+    private static final double MAX_SCORE = 10.0;
+    private static final int BINS_PER_POINT = 20;
+    private static final int BIN_COUNT = (int) MAX_SCORE * BINS_PER_POINT + 1;
+
+    private final long[] bins = new long[BIN_COUNT];
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+
+    public synchronized void add(Double score) {
+        update(score, 1);
+    }
+
+    public synchronized void remove(Double score) {
+        update(score, -1);
+    }
+
+    // Gộp histogram khác vào histogram này
+    public synchronized void merge(ScoreHistogram other) {
+        synchronized (other) {
+            for (int i = 0; i < BIN_COUNT; i++) {
+                bins[i] += other.bins[i];
+            }
+            count += other.count;
+            sum += other.sum;
+            sumOfSquares += other.sumOfSquares;
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized Double mean() {
+        return count > 0 ? sum / count : null;
+    }
+
+    // Độ lệch chuẩn của tổng thể
+    public synchronized Double standardDeviation() {
+        if (count == 0) {
+            return null;
+        }
+        double mean = sum / count;
+        return Math.sqrt(Math.max(0.0, sumOfSquares / count - mean * mean));
+    }
+
+    // Phân vị p (0..1) theo hạng gần nhất, sai số tối đa bằng nửa độ rộng ô
+    public synchronized Double percentile(double p) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, p)) * count);
+        long seen = 0;
+        for (int i = 0; i < BIN_COUNT; i++) {
+            seen += bins[i];
+            if (seen >= Math.max(1, rank)) {
+                return i / (double) BINS_PER_POINT;
+            }
+        }
+        return MAX_SCORE;
+    }
+
+    // Số điểm trong từng khoảng [0,1), [1,2), ..., [9,10]
+    public synchronized List<Long> histogram() {
+        List<Long> result = new ArrayList<>(10);
+        for (int bucket = 0; bucket < 10; bucket++) {
+            int from = bucket * BINS_PER_POINT;
+            int to = bucket == 9 ? BIN_COUNT : from + BINS_PER_POINT;
+            long total = 0;
+            for (int i = from; i < to; i++) {
+                total += bins[i];
+            }
+            result.add(total);
+        }
+        return result;
+    }
+
+    private void update(Double score, int delta) {
+        if (score == null) {
+            return;
+        }
+        double clamped = Math.min(MAX_SCORE, Math.max(0.0, score));
+        bins[(int) Math.round(clamped * BINS_PER_POINT)] += delta;
+        count += delta;
+        sum += delta * score;
+        sumOfSquares += delta * score * score;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.backend.Util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Chỉ mục xếp hạng điểm của một nhóm sinh viên: cây Fenwick đếm số sinh viên theo ô điểm (độ phân giải 0.01),
+// cộng danh sách sinh viên của các ô khác rỗng để lấy top-N. Cập nhật và tra hạng đều O(log n).
+public class ScoreRankIndex {
+
+    private static final int SCALE = 100;
+    private static final int BUCKETS = 10 * SCALE + 1;
+
+    private final long[] tree = new long[BUCKETS + 1];
+    private final Map<Long, Integer> bucketOf = new HashMap<>();
+    private final NavigableMap<Integer, Set<Long>> members = new TreeMap<>();
+
+    // Ghi điểm của sinh viên (score = null để xóa khỏi chỉ mục)
+    public synchronized void put(Long studentId, Double score) {
+        Integer old = bucketOf.remove(studentId);
+        if (old != null) {
+            add(old, -1);
+            Set<Long> ids = members.get(old);
+            ids.remove(studentId);
+            if (ids.isEmpty()) {
+                members.remove(old);
+            }
+        }
+        if (score != null) {
+            int bucket = bucket(score);
+            bucketOf.put(studentId, bucket);
+            add(bucket, 1);
+            members.computeIfAbsent(bucket, b -> new LinkedHashSet<>()).add(studentId);
+        }
+    }
+
+    public synchronized int size() {
+        return bucketOf.size();
+    }
+
+    public synchronized Double scoreOf(Long studentId) {
+        Integer bucket = bucketOf.get(studentId);
+        return bucket != null ? bucket / (double) SCALE : null;
+    }
+
+    // Hạng của sinh viên (1 = cao nhất, đồng điểm cùng hạng), null nếu chưa có điểm
+    public synchronized Integer rankOf(Long studentId) {
+        Integer bucket = bucketOf.get(studentId);
+        if (bucket == null) {
+            return null;
+        }
+        return (int) (bucketOf.size() - prefix(bucket)) + 1;
+    }
+
+    // Phân vị: % sinh viên có điểm thấp hơn (đồng điểm tính một nửa)
+    public synchronized Double percentileOf(Long studentId) {
+        Integer bucket = bucketOf.get(studentId);
+        if (bucket == null) {
+            return null;
+        }
+        long below = bucket > 0 ? prefix(bucket - 1) : 0;
+        long equal = prefix(bucket) - below;
+        return (below + equal / 2.0) * 100.0 / bucketOf.size();
+    }
+
+    // N sinh viên điểm cao nhất: (studentId, score, rank)
+    public synchronized List<Entry> top(int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, bucketOf.size()));
+        int rank = 1;
+        for (Map.Entry<Integer, Set<Long>> e : members.descendingMap().entrySet()) {
+            for (Long studentId : e.getValue()) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                result.add(new Entry(studentId, e.getKey() / (double) SCALE, rank));
+            }
+            rank += e.getValue().size();
+        }
+        return result;
+    }
+
+    private static int bucket(double score) {
+        return (int) Math.round(Math.min(10.0, Math.max(0.0, score)) * SCALE);
+    }
+
+    private void add(int bucket, long delta) {
+        for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Số sinh viên có ô điểm <= bucket
+    private long prefix(int bucket) {
+        long sum = 0;
+        for (int i = bucket + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    public record Entry(Long studentId, Double score, int rank) {
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.backend.Util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Đọc lần lượt từng dòng của file CSV hoặc XLSX mà không nạp cả file vào bộ nhớ.
+// XLSX được đọc trực tiếp từ file zip bằng StAX (chỉ bảng chuỗi dùng chung được giữ lại).
+public abstract class SpreadsheetRowReader implements Closeable {
+
+    // Giới hạn bảng chuỗi dùng chung của XLSX (file nén nhỏ có thể bung ra rất lớn)
+    static final int MAX_SHARED_STRINGS = 1_000_000;
+    static final int MAX_SHARED_CHARS = 32 * 1024 * 1024;
+
+    // Dòng tiếp theo (các ô dạng chuỗi, ô trống = ""), null khi hết file
+    public abstract List<String> next() throws IOException;
+
+    public static SpreadsheetRowReader csv(InputStream in) {
+        return new CsvReader(in);
+    }
+
+    public static SpreadsheetRowReader xlsx(Path file) throws IOException {
+        return xlsx(file, MAX_SHARED_STRINGS, MAX_SHARED_CHARS);
+    }
+
+    static SpreadsheetRowReader xlsx(Path file, int maxSharedStrings, int maxSharedChars) throws IOException {
+        return new XlsxReader(file, maxSharedStrings, maxSharedChars);
+    }
+
+    // Mở file tải lên theo đuôi (.xlsx, .csv, .txt). XLSX là file zip, cần truy cập ngẫu nhiên nên được ghi ra
+    // file tạm; file tạm bị xóa khi đóng reader
+    public static SpreadsheetRowReader open(MultipartFile file, String tempPrefix) throws IOException {
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            return csv(file.getInputStream());
+        }
+        if (!name.endsWith(".xlsx")) {
+            throw new RuntimeException("Chỉ hỗ trợ file .csv hoặc .xlsx");
+        }
+        Path tempFile = Files.createTempFile(tempPrefix, ".xlsx");
+        try {
+            file.transferTo(tempFile);
+            XlsxReader reader = new XlsxReader(tempFile, MAX_SHARED_STRINGS, MAX_SHARED_CHARS);
+            reader.tempFile = tempFile;
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tempFile);
+            throw e;
+        }
+    }
+
+    // Tiêu đề cột để so khớp: bỏ dấu tiếng Việt, viết thường, chỉ giữ chữ và số ("Mã lớp" -> "malop")
+    public static String normalizeHeader(String text) {
+        String plain = Normalizer.normalize(text.replace('đ', 'd').replace('Đ', 'D'), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return plain.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // File tạm sẽ được hệ điều hành dọn
+        }
+    }
+
+    // Ô số nguyên (mã, thứ, tiết...): XLSX có thể ghi "2.0" nhưng "1.5" là không hợp lệ
+    public static long parseWholeNumber(String text) {
+        try {
+            return new BigDecimal(text.trim().replace(',', '.')).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Không phải số nguyên: " + text);
+        }
+    }
+
+    // CSV theo RFC 4180; tự nhận dấu phân cách ',' hoặc ';' (Excel tiếng Việt) từ dòng đầu
+    private static class CsvReader extends SpreadsheetRowReader {
+        private final BufferedReader reader;
+        private Character delimiter;
+
+        CsvReader(InputStream in) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public List<String> next() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            if (delimiter == null) {
+                if (line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                delimiter = count(line, ';') > count(line, ',') ? ';' : ',';
+            }
+
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char ch = line.charAt(i);
+                    if (quoted) {
+                        if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            cell.append('"');
+                            i++;
+                        } else if (ch == '"') {
+                            quoted = false;
+                        } else {
+                            cell.append(ch);
+                        }
+                    } else if (ch == '"') {
+                        quoted = true;
+                    } else if (ch == delimiter) {
+                        cells.add(cell.toString().trim());
+                        cell.setLength(0);
+                    } else {
+                        cell.append(ch);
+                    }
+                }
+                // Ô trong ngoặc kép chứa xuống dòng: đọc tiếp dòng sau
+                if (!quoted) {
+                    break;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                cell.append('\n');
+            }
+            cells.add(cell.toString().trim());
+            return cells;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private static int count(String line, char ch) {
+            int n = 0;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == ch) {
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+
+    // XLSX: đọc sheet đầu tiên
+    private static class XlsxReader extends SpreadsheetRowReader {
+        private final ZipFile zip;
+        private final List<String> sharedStrings;
+        private final InputStream sheetStream;
+        private final XMLStreamReader xml;
+        private Path tempFile;
+
+        XlsxReader(Path file, int maxSharedStrings, int maxSharedChars) throws IOException {
+            this.zip = new ZipFile(file.toFile());
+            try {
+                this.sharedStrings = readSharedStrings(maxSharedStrings, maxSharedChars);
+                ZipEntry sheet = findFirstSheet();
+                if (sheet == null) {
+                    throw new IOException("File XLSX không có sheet nào");
+                }
+                this.sheetStream = zip.getInputStream(sheet);
+                this.xml = xmlFactory().createXMLStreamReader(sheetStream);
+            } catch (XMLStreamException e) {
+                zip.close();
+                throw new IOException("File XLSX không hợp lệ", e);
+            } catch (IOException e) {
+                zip.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public List<String> next() throws IOException {
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+                        return readRow();
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                throw new IOException("File XLSX không hợp lệ", e);
+            }
+        }
+
+        private List<String> readRow() throws XMLStreamException {
+            List<String> cells = new ArrayList<>();
+            int column = -1;
+            String type = null;
+            String value = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("c".equals(name)) {
+                        String ref = xml.getAttributeValue(null, "r");
+                        column = ref != null ? columnIndex(ref) : cells.size();
+                        type = xml.getAttributeValue(null, "t");
+                        value = null;
+                    } else if ("v".equals(name) || "t".equals(name)) {
+                        value = (value != null ? value : "") + xml.getElementText();
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("c".equals(name)) {
+                        while (cells.size() < column) {
+                            cells.add("");
+                        }
+                        cells.add(cellText(type, value));
+                    } else if ("row".equals(name)) {
+                        return cells;
+                    }
+                }
+            }
+            return cells;
+        }
+
+        private String cellText(String type, String value) {
+            if (value == null) {
+                return "";
+            }
+            if ("s".equals(type)) {
+                int index = Integer.parseInt(value.trim());
+                return index < sharedStrings.size() ? sharedStrings.get(index).trim() : "";
+            }
+            return value.trim();
+        }
+
+        private List<String> readSharedStrings(int maxStrings, int maxChars)
+                throws IOException, XMLStreamException {
+            List<String> strings = new ArrayList<>();
+            long totalChars = 0;
+            ZipEntry entry = zip.getEntry("xl/sharedStrings.xml");
+            if (entry == null) {
+                return strings;
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                XMLStreamReader reader = xmlFactory().createXMLStreamReader(in);
+                StringBuilder current = null;
+                boolean phonetic = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("si".equals(name)) {
+                            current = new StringBuilder();
+                        } else if ("rPh".equals(name)) {
+                            phonetic = true;
+                        } else if ("t".equals(name) && current != null && !phonetic) {
+                            current.append(reader.getElementText());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("si".equals(name) && current != null) {
+                            totalChars += current.length();
+                            if (strings.size() >= maxStrings || totalChars > maxChars) {
+                                reader.close();
+                                throw new IOException("File XLSX có bảng chuỗi quá lớn");
+                            }
+                            strings.add(current.toString());
+                            current = null;
+                        } else if ("rPh".equals(name)) {
+                            phonetic = false;
+                        }
+                    }
+                }
+                reader.close();
+            }
+            return strings;
+        }
+
+        private ZipEntry findFirstSheet() {
+            ZipEntry first = zip.getEntry("xl/worksheets/sheet1.xml");
+            if (first != null) {
+                return first;
+            }
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.getName().startsWith("xl/worksheets/sheet") && entry.getName().endsWith(".xml")) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        // "AB12" -> 27 (cột bắt đầu từ 0)
+        private static int columnIndex(String ref) {
+            int index = 0;
+            for (int i = 0; i < ref.length() && Character.isLetter(ref.charAt(i)); i++) {
+                index = index * 26 + (Character.toUpperCase(ref.charAt(i)) - 'A' + 1);
+            }
+            return index - 1;
+        }
+
+        private static XMLInputFactory xmlFactory() {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            return factory;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                try {
+                    xml.close();
+                } catch (XMLStreamException ignored) {
+                    // Đóng stream bên dưới ở dưới đây
+                }
+                sheetStream.close();
+                zip.close();
+            } finally {
+                if (tempFile != null) {
+                    deleteQuietly(tempFile);
+                }
+            }
+        }
+    }
+}
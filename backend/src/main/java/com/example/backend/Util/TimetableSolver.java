@@ -0,0 +1,393 @@
+package com.example.backend.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+// Xếp thời khóa biểu trên lưới (thứ × tiết) của một khoảng tuần: mỗi buổi học cần một thứ, tiết bắt đầu và phòng
+// sao cho không trùng lớp, giáo viên, phòng và không rơi vào ô bị chặn (lịch đã có, giờ bận).
+// Tìm kiếm cục bộ min-conflicts: xếp tham lam ban đầu, sau đó lặp lại việc lấy một buổi đang trùng và đặt lại vào
+// vị trí ít trùng nhất (thỉnh thoảng chọn ngẫu nhiên để thoát cực tiểu địa phương).
+// Nhiều luồng chạy độc lập với hạt giống khác nhau; luồng đầu tiên hết trùng sẽ dừng các luồng còn lại.
+public class TimetableSolver {
+
+    public static final int PERIODS = OccupancyBitmap.PERIODS;
+    public static final int HALF_DAY = 5; // Tiết 1-5 buổi sáng, 6-10 buổi chiều; một buổi học không vắt qua trưa
+
+    private static final int HARD = 1000;   // Trọng số một lần trùng so với phạt mềm (hai buổi cùng môn trong một ngày)
+    private static final double NOISE = 0.05;
+    private static final int CHECK_CLOCK_EVERY = 64;
+
+    // Một buổi học cần xếp: chỉ số lớp, giáo viên, nhóm (lớp × môn), số tiết liên tiếp, sức chứa phòng tối thiểu
+    public record Session(int classIndex, int teacherIndex, int groupIndex, int length, int minCapacity) {
+    }
+
+    // Vị trí đã xếp của một buổi: thứ, tiết bắt đầu, chỉ số phòng
+    public record Placement(int dayOfWeek, int startPeriod, int roomIndex) {
+    }
+
+    // Kết quả tốt nhất: số lần trùng còn lại (0 = hợp lệ), phạt mềm, số bước tìm kiếm đã chạy
+    public record Result(List<Placement> placements, int hardConflicts, int softPenalty, long iterations) {
+        public boolean feasible() {
+            return hardConflicts == 0;
+        }
+    }
+
+    private final int[] days;
+    private final int[] dayIndex = new int[OccupancyBitmap.DAYS];
+    private final int cells;
+    private final List<Session> sessions;
+    private final int groupCount;
+    private final int[] roomCapacity;
+    private final int[] roomsByCapacity;
+    private final boolean[][] classBlocked;
+    private final boolean[][] teacherBlocked;
+    private final boolean[][] roomBlocked;
+    private final int[][] startsByLength;
+    private final int[] initialOrder;
+
+    public TimetableSolver(int[] days, List<Session> sessions, int classCount, int teacherCount, int groupCount,
+                           int[] roomCapacity) {
+        if (roomCapacity.length == 0) {
+            throw new IllegalArgumentException("Cần ít nhất một phòng");
+        }
+        this.days = days.clone();
+        Arrays.fill(dayIndex, -1);
+        for (int i = 0; i < days.length; i++) {
+            dayIndex[days[i]] = i;
+        }
+        this.cells = days.length * PERIODS;
+        this.sessions = List.copyOf(sessions);
+        this.groupCount = groupCount;
+        this.roomCapacity = roomCapacity.clone();
+        this.classBlocked = new boolean[classCount][cells];
+        this.teacherBlocked = new boolean[teacherCount][cells];
+        this.roomBlocked = new boolean[roomCapacity.length][cells];
+
+        this.roomsByCapacity = new int[roomCapacity.length];
+        Integer[] order = new Integer[roomCapacity.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> roomCapacity[i]));
+        for (int i = 0; i < order.length; i++) {
+            roomsByCapacity[i] = order[i];
+        }
+
+        // Các ô bắt đầu hợp lệ theo số tiết: cả buổi nằm gọn trong buổi sáng hoặc buổi chiều
+        startsByLength = new int[HALF_DAY + 1][];
+        for (int length = 1; length <= HALF_DAY; length++) {
+            List<Integer> starts = new ArrayList<>();
+            for (int d = 0; d < days.length; d++) {
+                for (int half = 0; half < PERIODS; half += HALF_DAY) {
+                    for (int p = half; p + length <= half + HALF_DAY; p++) {
+                        starts.add(d * PERIODS + p);
+                    }
+                }
+            }
+            startsByLength[length] = starts.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Thứ tự xếp ban đầu: giáo viên nhiều tiết và buổi dài trước (khó xếp nhất)
+        int[] teacherLoad = new int[teacherCount];
+        for (Session s : this.sessions) {
+            if (s.length() < 1 || s.length() > HALF_DAY) {
+                throw new IllegalArgumentException("Số tiết của một buổi phải từ 1 đến " + HALF_DAY);
+            }
+            teacherLoad[s.teacherIndex()] += s.length();
+        }
+        initialOrder = IntStream.range(0, this.sessions.size()).boxed()
+                .sorted(Comparator.<Integer>comparingInt(i -> -teacherLoad[this.sessions.get(i).teacherIndex()])
+                        .thenComparingInt(i -> -this.sessions.get(i).length()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    public void blockClass(int classIndex, int dayOfWeek, int period) {
+        block(classBlocked[classIndex], dayOfWeek, period);
+    }
+
+    public void blockTeacher(int teacherIndex, int dayOfWeek, int period) {
+        block(teacherBlocked[teacherIndex], dayOfWeek, period);
+    }
+
+    public void blockRoom(int roomIndex, int dayOfWeek, int period) {
+        block(roomBlocked[roomIndex], dayOfWeek, period);
+    }
+
+    private void block(boolean[] owner, int dayOfWeek, int period) {
+        if (dayOfWeek >= 0 && dayOfWeek < dayIndex.length && dayIndex[dayOfWeek] >= 0
+                && period >= 1 && period <= PERIODS) {
+            owner[dayIndex[dayOfWeek] * PERIODS + period - 1] = true;
+        }
+    }
+
+    // Chạy `workers` luồng tìm kiếm song song trong tối đa timeLimitMillis, trả kết quả tốt nhất
+    public Result solve(int workers, long timeLimitMillis, long seed) {
+        long deadline = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        AtomicBoolean solved = new AtomicBoolean(false);
+        List<Callable<Result>> tasks = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            tasks.add(new Worker(new Random(seed + 7919L * w), deadline, solved));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            Result best = null;
+            for (Future<Result> future : pool.invokeAll(tasks)) {
+                Result result = future.get();
+                if (best == null || result.hardConflicts() < best.hardConflicts()
+                        || (result.hardConflicts() == best.hardConflicts()
+                        && result.softPenalty() < best.softPenalty())) {
+                    best = result;
+                }
+            }
+            return best;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi đang xếp thời khóa biểu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Lỗi khi xếp thời khóa biểu", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Một luồng tìm kiếm với trạng thái riêng (bộ đếm số buổi trên từng ô của lớp, giáo viên, phòng)
+    private final class Worker implements Callable<Result> {
+        private final Random random;
+        private final long deadline;
+        private final AtomicBoolean solved;
+
+        private final int[] start;
+        private final int[] room;
+        private final int[][] classCount;
+        private final int[][] teacherCount;
+        private final int[][] roomCount;
+        private final int[][] groupDay;
+        private int hard;
+        private int soft;
+
+        Worker(Random random, long deadline, AtomicBoolean solved) {
+            this.random = random;
+            this.deadline = deadline;
+            this.solved = solved;
+            this.start = new int[sessions.size()];
+            this.room = new int[sessions.size()];
+            this.classCount = new int[classBlocked.length][cells];
+            this.teacherCount = new int[teacherBlocked.length][cells];
+            this.roomCount = new int[roomBlocked.length][cells];
+            this.groupDay = new int[groupCount][days.length];
+        }
+
+        @Override
+        public Result call() {
+            // Xếp tham lam theo thứ tự khó trước, xáo nhẹ để các luồng khởi đầu khác nhau
+            int[] order = initialOrder.clone();
+            for (int i = 0; i + 1 < order.length; i++) {
+                if (random.nextInt(4) == 0) {
+                    int j = i + 1;
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                }
+            }
+            for (int s : order) {
+                place(s, false);
+            }
+
+            int[] bestStart = start.clone();
+            int[] bestRoom = room.clone();
+            int bestHard = hard;
+            int bestSoft = soft;
+            long iterations = 0;
+
+            List<Integer> conflicted = new ArrayList<>();
+            while (hard > 0 && !solved.get()) {
+                if (++iterations % CHECK_CLOCK_EVERY == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                if (conflicted.isEmpty()) {
+                    for (int s = 0; s < sessions.size(); s++) {
+                        if (conflictsOf(s) > 0) {
+                            conflicted.add(s);
+                        }
+                    }
+                }
+                int pick = random.nextInt(conflicted.size());
+                int s = conflicted.get(pick);
+                conflicted.set(pick, conflicted.get(conflicted.size() - 1));
+                conflicted.remove(conflicted.size() - 1);
+                if (conflictsOf(s) == 0) {
+                    continue;
+                }
+
+                remove(s);
+                place(s, true);
+
+                if (hard < bestHard || (hard == bestHard && soft < bestSoft)) {
+                    bestHard = hard;
+                    bestSoft = soft;
+                    System.arraycopy(start, 0, bestStart, 0, start.length);
+                    System.arraycopy(room, 0, bestRoom, 0, room.length);
+                }
+            }
+            if (bestHard == 0) {
+                solved.set(true);
+            }
+
+            List<Placement> placements = new ArrayList<>(sessions.size());
+            for (int s = 0; s < sessions.size(); s++) {
+                int cell = bestStart[s];
+                placements.add(new Placement(days[cell / PERIODS], cell % PERIODS + 1, bestRoom[s]));
+            }
+            return new Result(placements, bestHard, bestSoft, iterations);
+        }
+
+        // Đặt buổi s (đang chưa xếp) vào vị trí ít trùng nhất; noisy = đôi khi chọn thời điểm ngẫu nhiên
+        private void place(int s, boolean noisy) {
+            Session session = sessions.get(s);
+            int[] starts = startsByLength[session.length()];
+            int firstRoom = firstRoomFor(session.minCapacity());
+
+            if (noisy && random.nextDouble() < NOISE) {
+                int cell = starts[random.nextInt(starts.length)];
+                add(s, cell, bestRoom(session, cell, firstRoom)[0]);
+                return;
+            }
+
+            int bestCost = Integer.MAX_VALUE;
+            int bestCell = -1;
+            int bestRoomIndex = -1;
+            int ties = 0;
+            for (int cell : starts) {
+                int cost = timeConflicts(session, cell) * HARD + groupDay[session.groupIndex()][cell / PERIODS];
+                if (cost > bestCost) {
+                    continue;
+                }
+                int[] roomChoice = bestRoom(session, cell, firstRoom);
+                cost += roomChoice[1] * HARD;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestCell = cell;
+                    bestRoomIndex = roomChoice[0];
+                    ties = 1;
+                } else if (cost == bestCost && random.nextInt(++ties) == 0) {
+                    bestCell = cell;
+                    bestRoomIndex = roomChoice[0];
+                }
+            }
+            add(s, bestCell, bestRoomIndex);
+        }
+
+        // Phòng đủ chỗ, nhỏ nhất còn trống ở các ô của buổi; nếu không có thì phòng ít trùng nhất. {phòng, số trùng}
+        private int[] bestRoom(Session session, int cell, int firstRoom) {
+            int best = -1;
+            int bestConflicts = Integer.MAX_VALUE;
+            for (int i = firstRoom; i < roomsByCapacity.length; i++) {
+                int r = roomsByCapacity[i];
+                int conflicts = 0;
+                for (int c = cell; c < cell + session.length(); c++) {
+                    conflicts += roomCount[r][c] + (roomBlocked[r][c] ? 1 : 0);
+                }
+                if (conflicts < bestConflicts) {
+                    best = r;
+                    bestConflicts = conflicts;
+                    if (conflicts == 0) {
+                        break;
+                    }
+                }
+            }
+            return new int[]{best, bestConflicts};
+        }
+
+        // Số lần trùng lớp/giáo viên nếu đặt buổi vào các ô bắt đầu từ cell (buổi chưa được tính trong bộ đếm)
+        private int timeConflicts(Session session, int cell) {
+            int conflicts = 0;
+            boolean[] classBlock = classBlocked[session.classIndex()];
+            boolean[] teacherBlock = teacherBlocked[session.teacherIndex()];
+            int[] classCells = classCount[session.classIndex()];
+            int[] teacherCells = teacherCount[session.teacherIndex()];
+            for (int c = cell; c < cell + session.length(); c++) {
+                conflicts += classCells[c] + teacherCells[c] + (classBlock[c] ? 1 : 0) + (teacherBlock[c] ? 1 : 0);
+            }
+            return conflicts;
+        }
+
+        // Số lần trùng của buổi s đang xếp (bộ đếm đã gồm chính nó)
+        private int conflictsOf(int s) {
+            Session session = sessions.get(s);
+            int r = room[s];
+            int conflicts = 0;
+            for (int c = start[s]; c < start[s] + session.length(); c++) {
+                conflicts += classCount[session.classIndex()][c] - 1 + teacherCount[session.teacherIndex()][c] - 1
+                        + roomCount[r][c] - 1
+                        + (classBlocked[session.classIndex()][c] ? 1 : 0)
+                        + (teacherBlocked[session.teacherIndex()][c] ? 1 : 0)
+                        + (roomBlocked[r][c] ? 1 : 0);
+            }
+            return conflicts;
+        }
+
+        private void add(int s, int cell, int r) {
+            Session session = sessions.get(s);
+            int day = cell / PERIODS;
+            hard += timeConflicts(session, cell);
+            for (int c = cell; c < cell + session.length(); c++) {
+                hard += roomCount[r][c] + (roomBlocked[r][c] ? 1 : 0);
+            }
+            soft += groupDay[session.groupIndex()][day];
+
+            for (int c = cell; c < cell + session.length(); c++) {
+                classCount[session.classIndex()][c]++;
+                teacherCount[session.teacherIndex()][c]++;
+                roomCount[r][c]++;
+            }
+            groupDay[session.groupIndex()][day]++;
+            start[s] = cell;
+            room[s] = r;
+        }
+
+        private void remove(int s) {
+            Session session = sessions.get(s);
+            int cell = start[s];
+            int r = room[s];
+            int day = cell / PERIODS;
+            for (int c = cell; c < cell + session.length(); c++) {
+                classCount[session.classIndex()][c]--;
+                teacherCount[session.teacherIndex()][c]--;
+                roomCount[r][c]--;
+            }
+            groupDay[session.groupIndex()][day]--;
+
+            hard -= timeConflicts(session, cell);
+            for (int c = cell; c < cell + session.length(); c++) {
+                hard -= roomCount[r][c] + (roomBlocked[r][c] ? 1 : 0);
+            }
+            soft -= groupDay[session.groupIndex()][day];
+        }
+    }
+
+    // Vị trí (trong danh sách phòng theo sức chứa) của phòng nhỏ nhất đủ chỗ; không có thì dùng phòng lớn nhất
+    private int firstRoomFor(int minCapacity) {
+        int lo = 0;
+        int hi = roomsByCapacity.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (roomCapacity[roomsByCapacity[mid]] < minCapacity) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return Math.min(lo, roomsByCapacity.length - 1);
+    }
+}
@@ -0,0 +1,69 @@
+-- Phân vùng bảng attendances / grades theo học kỳ (PostgreSQL 12+)
+-- Chạy thủ công một lần: PostgreSQL không chuyển bảng thường thành bảng phân vùng tại chỗ,
+-- nên tạo bảng mới, tạo sẵn phân vùng cho các học kỳ đã có, chép dữ liệu rồi đổi tên.
+--
+-- attendances phân vùng theo khoảng attendance_date (trùng ranh giới học kỳ) để unique
+-- (schedule_id, student_id, attendance_date) dùng cho ON CONFLICT vẫn chứa khóa phân vùng.
+-- grades phân vùng LIST theo term_id để truy vấn theo học kỳ được cắt phân vùng. term_id có thể null
+-- (điểm ngoài học kỳ) nên không nằm trong khóa chính được: dùng unique (grade_id, term_id), grade_id
+-- vẫn duy nhất vì do IDENTITY sinh. Dòng null và dòng chưa có phân vùng riêng nằm ở phân vùng DEFAULT;
+-- gán học kỳ (UPDATE term_id) tự chuyển dòng sang phân vùng của học kỳ.
+--
+-- Mỗi học kỳ mới (nên chạy ngay khi tạo học kỳ):
+--   SELECT create_term_partitions(<term_id>, '<start_date>', '<end_date>');
+-- Hàm chuyển các dòng đã lỡ rơi vào phân vùng DEFAULT sang phân vùng mới trước khi gắn, vì
+-- PostgreSQL từ chối gắn phân vùng khi DEFAULT còn dòng thuộc khoảng đó.
+
+BEGIN;
+
+CREATE OR REPLACE FUNCTION create_term_partitions(p_term_id BIGINT, p_start DATE, p_end DATE)
+RETURNS VOID LANGUAGE plpgsql AS $$
+DECLARE
+    att TEXT := 'attendances_t' || p_term_id;
+    grd TEXT := 'grades_t' || p_term_id;
+BEGIN
+    EXECUTE format('CREATE TABLE %I (LIKE attendances INCLUDING DEFAULTS)', att);
+    EXECUTE format('WITH moved AS (DELETE FROM attendances_default WHERE attendance_date >= %L '
+                   'AND attendance_date < %L RETURNING *) INSERT INTO %I SELECT * FROM moved',
+                   p_start, p_end + 1, att);
+    EXECUTE format('ALTER TABLE attendances ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   att, p_start, p_end + 1);
+
+    EXECUTE format('CREATE TABLE %I (LIKE grades INCLUDING DEFAULTS)', grd);
+    EXECUTE format('WITH moved AS (DELETE FROM grades_default WHERE term_id = %s RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', p_term_id, grd);
+    EXECUTE format('ALTER TABLE grades ATTACH PARTITION %I FOR VALUES IN (%s)', grd, p_term_id);
+END;
+$$;
+
+ALTER TABLE attendances RENAME TO attendances_old;
+CREATE TABLE attendances (LIKE attendances_old INCLUDING DEFAULTS INCLUDING IDENTITY)
+    PARTITION BY RANGE (attendance_date);
+ALTER TABLE attendances ADD PRIMARY KEY (attendance_id, attendance_date);
+ALTER TABLE attendances ADD CONSTRAINT uk_attendances_schedule_student_date
+    UNIQUE (schedule_id, student_id, attendance_date);
+CREATE INDEX idx_attendances_term_class ON attendances (term_id, class_id);
+CREATE TABLE attendances_default PARTITION OF attendances DEFAULT;
+
+ALTER TABLE grades RENAME TO grades_old;
+CREATE TABLE grades (LIKE grades_old INCLUDING DEFAULTS INCLUDING IDENTITY)
+    PARTITION BY LIST (term_id);
+ALTER TABLE grades ALTER COLUMN grade_id SET NOT NULL;
+ALTER TABLE grades ADD CONSTRAINT uk_grades_id_term UNIQUE (grade_id, term_id);
+CREATE INDEX idx_grades_term_class ON grades (term_id, class_id);
+CREATE TABLE grades_default PARTITION OF grades DEFAULT;
+
+-- Phân vùng cho các học kỳ đã có (bảng còn rỗng), sau đó chép dữ liệu: chỉ dòng ngoài học kỳ vào DEFAULT
+SELECT create_term_partitions(term_id, start_date, end_date) FROM academic_terms ORDER BY start_date;
+
+INSERT INTO attendances SELECT * FROM attendances_old;
+DROP TABLE attendances_old;
+SELECT setval(pg_get_serial_sequence('attendances', 'attendance_id'),
+              COALESCE((SELECT MAX(attendance_id) FROM attendances), 1));
+
+INSERT INTO grades SELECT * FROM grades_old;
+DROP TABLE grades_old;
+SELECT setval(pg_get_serial_sequence('grades', 'grade_id'),
+              COALESCE((SELECT MAX(grade_id) FROM grades), 1));
+
+COMMIT;
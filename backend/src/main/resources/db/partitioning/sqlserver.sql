@@ -0,0 +1,43 @@
+-- Phân vùng bảng attendances / grades theo học kỳ (SQL Server)
+-- Chạy thủ công một lần sau khi Hibernate đã tạo cột term_id (ddl-auto=update không tạo phân vùng).
+-- Mỗi khi thêm học kỳ mới:
+--   ALTER PARTITION SCHEME ps_term NEXT USED [PRIMARY];
+--   ALTER PARTITION FUNCTION pf_term() SPLIT RANGE (<term_id mới>);
+-- Unique (schedule_id, student_id, attendance_date) dùng cho MERGE vẫn là index không phân vùng.
+
+CREATE PARTITION FUNCTION pf_term (BIGINT) AS RANGE RIGHT FOR VALUES (1);
+CREATE PARTITION SCHEME ps_term AS PARTITION pf_term ALL TO ([PRIMARY]);
+GO
+
+-- term_id có thể null (dữ liệu ngoài học kỳ) nên không nằm trong khóa chính được: phân vùng theo cột tính toán
+-- term_key = ISNULL(term_id, 0) (PERSISTED NOT NULL), dòng chưa có học kỳ nằm ở phân vùng đầu tiên.
+-- Ứng dụng không ghi cột này; gán học kỳ (UPDATE term_id) sẽ tự chuyển dòng sang phân vùng mới.
+ALTER TABLE attendances ADD term_key AS ISNULL(term_id, 0) PERSISTED NOT NULL;
+ALTER TABLE grades ADD term_key AS ISNULL(term_id, 0) PERSISTED NOT NULL;
+GO
+
+-- Khóa chính do Hibernate tạo có tên sinh tự động: thay bằng khóa chính clustered (id, term_key)
+-- nằm trên scheme phân vùng (id vẫn duy nhất vì do IDENTITY sinh)
+DECLARE @pk SYSNAME, @sql NVARCHAR(MAX);
+
+SELECT @pk = name FROM sys.key_constraints
+WHERE parent_object_id = OBJECT_ID('attendances') AND type = 'PK';
+SET @sql = N'ALTER TABLE attendances DROP CONSTRAINT ' + QUOTENAME(@pk);
+EXEC sp_executesql @sql;
+ALTER TABLE attendances ADD CONSTRAINT pk_attendances
+    PRIMARY KEY CLUSTERED (attendance_id, term_key) ON ps_term (term_key);
+
+SELECT @pk = name FROM sys.key_constraints
+WHERE parent_object_id = OBJECT_ID('grades') AND type = 'PK';
+SET @sql = N'ALTER TABLE grades DROP CONSTRAINT ' + QUOTENAME(@pk);
+EXEC sp_executesql @sql;
+ALTER TABLE grades ADD CONSTRAINT pk_grades
+    PRIMARY KEY CLUSTERED (grade_id, term_key) ON ps_term (term_key);
+GO
+
+-- Bảng lưu trữ chỉ đọc: nén PAGE
+ALTER TABLE attendances_archive REBUILD WITH (DATA_COMPRESSION = PAGE);
+ALTER INDEX ALL ON attendances_archive REBUILD WITH (DATA_COMPRESSION = PAGE);
+ALTER TABLE grades_archive REBUILD WITH (DATA_COMPRESSION = PAGE);
+ALTER INDEX ALL ON grades_archive REBUILD WITH (DATA_COMPRESSION = PAGE);
+GO
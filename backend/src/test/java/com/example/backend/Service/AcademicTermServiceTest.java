@@ -0,0 +1,78 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.AcademicTermDTO;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.AcademicTermRepository;
+import com.example.backend.Repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AcademicTermServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private AcademicTermRepository academicTermRepository;
+
+    @InjectMocks
+    private AcademicTermService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "managerEmails", "daotao@truong.edu.vn, Pho.Khoa@truong.edu.vn");
+    }
+
+    @Test
+    void configuredTeacherIsTermManager() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user("pho.khoa@truong.edu.vn", User.Role.TEACHER)));
+
+        assertThatCode(() -> service.requireTermManager(1L)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void otherTeachersAndStudentsAreRejected() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user("gv@truong.edu.vn", User.Role.TEACHER)));
+        when(userRepository.findById(3L)).thenReturn(Optional.of(user("daotao@truong.edu.vn", User.Role.STUDENT)));
+
+        assertThatThrownBy(() -> service.requireTermManager(2L)).hasMessageContaining("quản lý học kỳ");
+        assertThatThrownBy(() -> service.requireTermManager(3L)).hasMessageContaining("quản lý học kỳ");
+    }
+
+    @Test
+    void closeTermByOrdinaryTeacherTouchesNothing() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user("gv@truong.edu.vn", User.Role.TEACHER)));
+
+        assertThatThrownBy(() -> service.closeTerm(5L, 2L)).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> service.createTerm(new AcademicTermDTO.CreateTermRequest(), 2L))
+                .isInstanceOf(RuntimeException.class);
+        verify(academicTermRepository, never()).save(any());
+    }
+
+    @Test
+    void emptyManagerListRejectsEveryone() {
+        ReflectionTestUtils.setField(service, "managerEmails", "");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user("daotao@truong.edu.vn", User.Role.TEACHER)));
+
+        assertThatThrownBy(() -> service.requireTermManager(1L)).isInstanceOf(RuntimeException.class);
+    }
+
+    private static User user(String email, User.Role role) {
+        return new User(email, "x", "Người dùng", role);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.backend.Service;
+
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.Attendance.AttendanceStatus;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Repository.AttendanceHeatmapRepository;
+import com.example.backend.Repository.AttendanceHeatmapRepositoryCustom;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceHeatmapServiceTest {
+
+    private static final AcademicTerm TERM = new AcademicTerm(5L, "2025-HK1", "Học kỳ 1",
+            LocalDate.of(2025, 9, 1), LocalDate.of(2025, 12, 31), AcademicTerm.TermStatus.OPEN, null);
+
+    @Mock
+    private AttendanceHeatmapRepository heatmapRepository;
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private ClassRepository classRepository;
+
+    @Mock
+    private AcademicTermService academicTermService;
+
+    @InjectMocks
+    private AttendanceHeatmapService service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deltasUseTermWeekAndWeekZeroOutsideTerms() {
+        LocalDate inTerm = LocalDate.of(2025, 9, 15);   // tuần 3 của học kỳ
+        LocalDate outside = LocalDate.of(2026, 1, 12);  // tuần ISO 3, ngoài học kỳ
+        when(scheduleRepository.findSlotsByIds(any())).thenReturn(List.<Object[]>of(new Object[] { 10L, 2, 1 }));
+        when(academicTermService.findTerm(inTerm)).thenReturn(TERM);
+        when(academicTermService.findTerm(outside)).thenReturn(null);
+
+        service.onAttendanceChanged(new AttendanceChangedEvent(List.of(
+                new AttendanceChangedEvent.Change(1L, 10L, 100L, inTerm, null, AttendanceStatus.ABSENT),
+                new AttendanceChangedEvent.Change(1L, 10L, 100L, outside, null, AttendanceStatus.ABSENT))));
+
+        ArgumentCaptor<List<AttendanceHeatmapRepositoryCustom.Delta>> rows = ArgumentCaptor.forClass(List.class);
+        verify(heatmapRepository).addDeltas(rows.capture());
+        assertThat(rows.getValue())
+                .extracting(AttendanceHeatmapRepositoryCustom.Delta::getWeekNumber,
+                        AttendanceHeatmapRepositoryCustom.Delta::getDelta)
+                .containsExactlyInAnyOrder(tuple(3, 1L), tuple(0, 1L));
+    }
+
+    @Test
+    void movedScheduleRebuildsClassCells() {
+        when(classRepository.lockById(1L)).thenReturn(Optional.of(new ClassEntity()));
+
+        service.onScheduleChanged(new ScheduleChangedEvent(List.of(new ScheduleChangedEvent.Change(10L,
+                slot(1L, 2, 1), slot(1L, 4, 1)))));
+
+        verify(heatmapRepository).deleteByClassId(1L);
+        verify(attendanceRepository).countBySlotAndDate(1L);
+    }
+
+    @Test
+    void weekRangeChangeKeepsCells() {
+        service.onScheduleChanged(new ScheduleChangedEvent(List.of(new ScheduleChangedEvent.Change(10L,
+                slot(1L, 2, 1), new ScheduleChangedEvent.Slot(10L, 1L, 7L, null, 2, 1, 3, 1, 10)))));
+
+        verify(heatmapRepository, never()).deleteByClassId(anyLong());
+    }
+
+    @Test
+    void createdScheduleDoesNotRebuild() {
+        service.onScheduleChanged(new ScheduleChangedEvent(List.of(new ScheduleChangedEvent.Change(10L,
+                null, slot(1L, 2, 1)))));
+
+        verify(heatmapRepository, never()).deleteByClassId(anyLong());
+        verify(classRepository, never()).lockById(anyLong());
+    }
+
+    private static ScheduleChangedEvent.Slot slot(Long classId, int dayOfWeek, int startPeriod) {
+        return new ScheduleChangedEvent.Slot(10L, classId, 7L, null, dayOfWeek, startPeriod, startPeriod + 2, 1, 15);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.AttendanceDTO;
+import com.example.backend.Event.AcademicTermChangedEvent;
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Model.Attendance.AttendanceStatus;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.ClassStudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceMatrixServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 8);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private ClassStudentRepository classStudentRepository;
+
+    @InjectMocks
+    private AttendanceMatrixService service;
+
+    @BeforeEach
+    void setUp() {
+        when(classStudentRepository.findStudentNamesByClassId(1L))
+                .thenReturn(List.<Object[]>of(new Object[] { 100L, "An" }));
+        when(attendanceRepository.findStatusCellsByClassId(1L))
+                .thenReturn(List.<Object[]>of(new Object[] { 100L, 10L, DAY, AttendanceStatus.PRESENT }));
+    }
+
+    @Test
+    void gridIsLoadedOnceAndPatchedByCommittedChanges() {
+        service.getGrid(1L);
+        service.onAttendanceChanged(new AttendanceChangedEvent(List.of(
+                new AttendanceChangedEvent.Change(1L, 10L, 100L, DAY, AttendanceStatus.PRESENT, AttendanceStatus.LATE))));
+
+        AttendanceDTO.AttendanceGrid grid = service.getGrid(1L);
+
+        verify(attendanceRepository, times(1)).findStatusCellsByClassId(1L);
+        assertThat(grid.getRows()).singleElement().satisfies(row -> {
+            assertThat(row.getStudentFullName()).isEqualTo("An");
+            assertThat(row.getCells()).isEqualTo("L");
+        });
+    }
+
+    @Test
+    void enrollmentChangeReloadsGrid() {
+        service.getGrid(1L);
+        service.onEnrollmentChanged(new EnrollmentChangedEvent(1L, Set.of(101L)));
+        service.getGrid(1L);
+
+        verify(classStudentRepository, times(2)).findStudentNamesByClassId(1L);
+    }
+
+    @Test
+    void termChangeReloadsEveryGrid() {
+        service.getGrid(1L);
+        service.onAcademicTermChanged(new AcademicTermChangedEvent(5L));
+        service.getGrid(1L);
+
+        verify(attendanceRepository, times(2)).findStatusCellsByClassId(1L);
+    }
+}
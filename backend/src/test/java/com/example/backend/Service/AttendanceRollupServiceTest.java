@@ -0,0 +1,135 @@
+package com.example.backend.Service;
+
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Model.Attendance.AttendanceStatus;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Repository.AttendanceClassStatRepository;
+import com.example.backend.Repository.AttendanceClassStatRepositoryCustom;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.AttendanceStudentStatRepository;
+import com.example.backend.Repository.AttendanceStudentStatRepositoryCustom;
+import com.example.backend.Repository.ClassRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 8);
+
+    @Mock
+    private AttendanceClassStatRepository classStatRepository;
+
+    @Mock
+    private AttendanceStudentStatRepository studentStatRepository;
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private ClassRepository classRepository;
+
+    @Mock
+    private AttendanceHeatmapService heatmapService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private AttendanceRollupService service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void netDeltasAreUpsertedInOneBatchAfterLockingClasses() {
+        service.onAttendanceChanged(new AttendanceChangedEvent(List.of(
+                new AttendanceChangedEvent.Change(1L, 10L, 100L, DAY, null, AttendanceStatus.ABSENT),
+                new AttendanceChangedEvent.Change(1L, 10L, 100L, DAY, AttendanceStatus.ABSENT, AttendanceStatus.PRESENT),
+                new AttendanceChangedEvent.Change(1L, 10L, 101L, DAY, null, AttendanceStatus.PRESENT))));
+
+        ArgumentCaptor<List<AttendanceClassStatRepositoryCustom.Delta>> classRows = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<AttendanceStudentStatRepositoryCustom.Delta>> studentRows = ArgumentCaptor.forClass(List.class);
+        var order = inOrder(classRepository, classStatRepository);
+        order.verify(classRepository).lockSharedByIds(Set.of(1L));
+        order.verify(classStatRepository).addDeltas(classRows.capture());
+        verify(studentStatRepository).addDeltas(studentRows.capture());
+
+        // ABSENT +1 rồi -1 triệt tiêu, không tạo dòng delta 0
+        assertThat(classRows.getValue())
+                .extracting(AttendanceClassStatRepositoryCustom.Delta::getStatus,
+                        AttendanceClassStatRepositoryCustom.Delta::getDelta)
+                .containsExactly(tuple(AttendanceStatus.PRESENT, 2L));
+        assertThat(studentRows.getValue())
+                .extracting(AttendanceStudentStatRepositoryCustom.Delta::getStudentId,
+                        AttendanceStudentStatRepositoryCustom.Delta::getStatus,
+                        AttendanceStudentStatRepositoryCustom.Delta::getDelta)
+                .containsExactlyInAnyOrder(tuple(100L, AttendanceStatus.PRESENT, 1L),
+                        tuple(101L, AttendanceStatus.PRESENT, 1L));
+    }
+
+    @Test
+    void unchangedStatusesTouchNothing() {
+        service.onAttendanceChanged(new AttendanceChangedEvent(List.of(
+                new AttendanceChangedEvent.Change(1L, 10L, 100L, DAY, AttendanceStatus.LATE, AttendanceStatus.LATE))));
+
+        verifyNoInteractions(classRepository, classStatRepository, studentStatRepository);
+    }
+
+    @Test
+    void rebuildLocksClassBeforeDeleting() {
+        when(classRepository.lockById(1L)).thenReturn(Optional.of(new ClassEntity()));
+
+        service.rebuildClass(1L);
+
+        var order = inOrder(classRepository, classStatRepository, studentStatRepository);
+        order.verify(classRepository).lockById(1L);
+        order.verify(classStatRepository).deleteByClassId(1L);
+        order.verify(studentStatRepository).deleteByClassId(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nightlyRebuildAlsoRebuildsHeatmap() {
+        when(classRepository.findAllClassIds()).thenReturn(List.of(1L));
+        when(classRepository.lockById(1L)).thenReturn(Optional.of(new ClassEntity()));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        service.rebuildAll();
+
+        verify(classStatRepository).deleteByClassId(1L);
+        verify(heatmapService).rebuildClass(1L);
+    }
+
+    @Test
+    void rebuildSkipsMissingClass() {
+        when(classRepository.lockById(any())).thenReturn(Optional.empty());
+
+        service.rebuildClass(2L);
+
+        verify(classStatRepository, never()).deleteByClassId(any());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.AttendanceDTO;
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Model.Attendance.AttendanceStatus;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Model.Schedule;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.AttendanceRepository;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AttendanceServiceTest {
+
+    private static final Long CLASS_ID = 10L;
+    private static final Long SCHEDULE_ID = 7L;
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 8);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private ClassRepository classRepository;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private ClassStudentRepository classStudentRepository;
+
+    @Mock
+    private SessionOccurrenceService sessionOccurrenceService;
+
+    @Mock
+    private AcademicTermService academicTermService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private AttendanceService service;
+
+    @BeforeEach
+    void setUp() {
+        User teacher = new User();
+        teacher.setUserId(1L);
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setClassId(CLASS_ID);
+        classEntity.setTeacher(teacher);
+        Schedule schedule = new Schedule();
+        schedule.setScheduleId(SCHEDULE_ID);
+        schedule.setClassObj(classEntity);
+        when(classRepository.findById(CLASS_ID)).thenReturn(Optional.of(classEntity));
+        when(scheduleRepository.findById(SCHEDULE_ID)).thenReturn(Optional.of(schedule));
+        when(academicTermService.resolveWritableTermId(DAY)).thenReturn(5L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onlyChangedRowsAreUpsertedAndDepartedStudentsRemoved() {
+        when(classStudentRepository.findStudentIdsByClassId(CLASS_ID)).thenReturn(List.of(1L, 2L, 3L));
+        // Đã điểm danh: 1 có mặt, 2 vắng, 9 đã rời lớp
+        when(attendanceRepository.findStatusesByScheduleAndDate(SCHEDULE_ID, DAY)).thenReturn(List.of(
+                new Object[] { 1L, AttendanceStatus.PRESENT },
+                new Object[] { 2L, AttendanceStatus.ABSENT },
+                new Object[] { 9L, AttendanceStatus.PRESENT }));
+
+        // 1 không đổi, 2 thành muộn, 3 không gửi nên mặc định vắng
+        AttendanceDTO.TakeAttendanceResult result = service.takeAttendance(CLASS_ID, SCHEDULE_ID, DAY,
+                Map.of(1L, AttendanceStatus.PRESENT, 2L, AttendanceStatus.LATE), 1L);
+
+        assertThat(result.getTotalStudents()).isEqualTo(3);
+        assertThat(result.getChangedCount()).isEqualTo(2);
+        assertThat(result.getRemovedCount()).isEqualTo(1);
+        verify(attendanceRepository).deleteByScheduleAndDateAndStudentIds(SCHEDULE_ID, DAY, List.of(9L));
+        verify(attendanceRepository).upsertStatuses(CLASS_ID, SCHEDULE_ID, 5L, DAY,
+                Map.of(2L, AttendanceStatus.LATE, 3L, AttendanceStatus.ABSENT));
+
+        ArgumentCaptor<AttendanceChangedEvent> event = ArgumentCaptor.forClass(AttendanceChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getChanges())
+                .extracting(AttendanceChangedEvent.Change::getStudentId, AttendanceChangedEvent.Change::getOldStatus,
+                        AttendanceChangedEvent.Change::getNewStatus)
+                .containsExactlyInAnyOrder(
+                        tuple(2L, AttendanceStatus.ABSENT, AttendanceStatus.LATE),
+                        tuple(3L, null, AttendanceStatus.ABSENT),
+                        tuple(9L, AttendanceStatus.PRESENT, null));
+    }
+
+    @Test
+    void unchangedAttendancePublishesNothing() {
+        when(classStudentRepository.findStudentIdsByClassId(CLASS_ID)).thenReturn(List.of(1L));
+        when(attendanceRepository.findStatusesByScheduleAndDate(SCHEDULE_ID, DAY)).thenReturn(List.<Object[]>of(
+                new Object[] { 1L, AttendanceStatus.PRESENT }));
+
+        AttendanceDTO.TakeAttendanceResult result = service.takeAttendance(CLASS_ID, SCHEDULE_ID, DAY, Map.of(1L, AttendanceStatus.PRESENT), 1L);
+
+        assertThat(result.getChangedCount()).isZero();
+        verify(attendanceRepository, never()).deleteByScheduleAndDateAndStudentIds(any(), any(), any());
+        verify(attendanceRepository).upsertStatuses(eq(CLASS_ID), eq(SCHEDULE_ID), eq(5L), eq(DAY), eq(Map.of()));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void otherTeacherCannotTakeAttendance() {
+        assertThatThrownBy(() -> service.takeAttendance(CLASS_ID, SCHEDULE_ID, DAY, Map.of(), 2L))
+                .hasMessage("Bạn không có quyền điểm danh cho lớp này");
+        verify(attendanceRepository, never()).upsertStatuses(any(), any(), any(), any(), anyMap());
+    }
+}
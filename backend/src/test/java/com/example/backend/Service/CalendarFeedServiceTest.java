@@ -0,0 +1,169 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Event.TermCalendarChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.TermCalendarEntry;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.ExamRepository;
+import com.example.backend.Repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CalendarFeedServiceTest {
+
+    @Mock
+    private TimetableService timetableService;
+
+    @Mock
+    private ScheduleService scheduleService;
+
+    @Mock
+    private AcademicTermService academicTermService;
+
+    @Mock
+    private SessionOccurrenceService sessionOccurrenceService;
+
+    @Mock
+    private ExamRepository examRepository;
+
+    @Mock
+    private ClassStudentRepository classStudentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager("calendarFeeds");
+
+    @InjectMocks
+    private CalendarFeedService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "secret", "khoa-thu-nghiem");
+        ReflectionTestUtils.setField(service, "zone", "Asia/Ho_Chi_Minh");
+        service.init();
+
+        User student = new User();
+        student.setUserId(100L);
+        student.setFullName("Nguyen Van A");
+        student.setRole(User.Role.STUDENT);
+        when(userRepository.findById(100L)).thenReturn(Optional.of(student));
+        when(academicTermService.findTerm(any())).thenReturn(null);
+        when(academicTermService.getTerms()).thenReturn(List.of());
+        when(timetableService.getStudentTimetable(100L)).thenReturn(List.of());
+        when(examRepository.findWithDetailsByStudentId(100L)).thenReturn(List.of());
+    }
+
+    @Test
+    void etagIgnoresBuildTimestamp() {
+        String a = "BEGIN:VEVENT\r\nUID:x\r\nDTSTAMP:20260101T000000Z\r\nEND:VEVENT\r\n";
+        String b = "BEGIN:VEVENT\r\nUID:x\r\nDTSTAMP:20260102T101010Z\r\nEND:VEVENT\r\n";
+        String c = "BEGIN:VEVENT\r\nUID:y\r\nDTSTAMP:20260101T000000Z\r\nEND:VEVENT\r\n";
+
+        assertThat(CalendarFeedService.etagOf(a)).isEqualTo(CalendarFeedService.etagOf(b));
+        assertThat(CalendarFeedService.etagOf(a)).startsWith("W/\"");
+        assertThat(CalendarFeedService.etagOf(a)).isNotEqualTo(CalendarFeedService.etagOf(c));
+    }
+
+    @Test
+    void rebuiltFeedWithSameContentKeepsEtag() {
+        String first = service.getFeed(100L).etag();
+        service.onEnrollmentChanged(new EnrollmentChangedEvent(1L, Set.of(100L)));
+
+        assertThat(service.getFeed(100L).etag()).isEqualTo(first);
+    }
+
+    @Test
+    void feedBuiltAcrossEvictIsNotCached() {
+        when(timetableService.getStudentTimetable(100L)).thenAnswer(invocation -> {
+            service.onEnrollmentChanged(new EnrollmentChangedEvent(1L, Set.of(100L)));
+            return List.of();
+        });
+
+        service.getFeed(100L);
+
+        assertThat(cacheManager.getCache("calendarFeeds").get(100L)).isNull();
+    }
+
+    @Test
+    void holidaysAndCancellationsAreExcludedAndMakeupsAdded() {
+        AcademicTerm term = new AcademicTerm();
+        term.setTermId(3L);
+        term.setStartDate(LocalDate.of(2025, 9, 1));
+        term.setEndDate(LocalDate.of(2025, 12, 31));
+        when(academicTermService.findTerm(any())).thenReturn(term);
+
+        ScheduleDTO.ScheduleResponse schedule = new ScheduleDTO.ScheduleResponse();
+        schedule.setScheduleId(7L);
+        schedule.setDayOfWeek(2);
+        schedule.setStartWeek(1);
+        schedule.setEndWeek(3);
+        schedule.setStartTime("07:00");
+        schedule.setEndTime("09:50");
+        schedule.setRoom("A101");
+        when(timetableService.getStudentTimetable(100L)).thenReturn(List.of(schedule));
+
+        TermCalendarEntry makeup = new TermCalendarEntry();
+        makeup.setEntryId(50L);
+        makeup.setScheduleId(7L);
+        makeup.setDate(LocalDate.of(2025, 9, 20));
+        makeup.setStartPeriod(6);
+        makeup.setEndPeriod(7);
+        when(sessionOccurrenceService.getHolidays(term)).thenReturn(Set.of(LocalDate.of(2025, 9, 8)));
+        when(sessionOccurrenceService.getCancellations(term)).thenReturn(Map.of(7L, Set.of(LocalDate.of(2025, 9, 15))));
+        when(sessionOccurrenceService.getMakeups(term)).thenReturn(List.of(makeup));
+
+        String body = service.getFeed(100L).body();
+
+        // 07:00 và 13:00 giờ Việt Nam là 00:00 và 06:00 UTC
+        assertThat(body).contains("RRULE:FREQ=WEEKLY;COUNT=3\r\n"
+                + "EXDATE:20250908T000000Z\r\n"
+                + "EXDATE:20250915T000000Z\r\n");
+        assertThat(body).doesNotContain("EXDATE:20250901");
+        assertThat(body).contains("UID:makeup-50@kkkooo", "DTSTART:20250920T060000Z", "DTEND:20250920T074000Z",
+                "LOCATION:A101");
+    }
+
+    @Test
+    void termCalendarChangeClearsEveryFeed() {
+        service.getFeed(100L);
+
+        service.onTermCalendarChanged(new TermCalendarChangedEvent(3L));
+
+        assertThat(cacheManager.getCache("calendarFeeds").get(100L)).isNull();
+    }
+
+    @Test
+    void tokenIsBoundToUser() {
+        String token = service.tokenFor(100L);
+
+        assertThat(service.isValidToken(100L, token)).isTrue();
+        assertThat(service.isValidToken(101L, token)).isFalse();
+    }
+}
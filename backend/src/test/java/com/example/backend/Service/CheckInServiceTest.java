@@ -0,0 +1,146 @@
+package com.example.backend.Service;
+
+import com.example.backend.Repository.ScheduleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CheckInServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 8);
+
+    @TempDir
+    Path journalDir;
+
+    @Mock
+    private AttendanceService attendanceService;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @InjectMocks
+    private CheckInService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(service, "secret", "khoa-thu");
+        ReflectionTestUtils.setField(service, "windowSeconds", 30L);
+        ReflectionTestUtils.setField(service, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(service, "syncThreshold", 1);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "maxFailures", 2);
+        ReflectionTestUtils.setField(service, "zone", "Asia/Ho_Chi_Minh");
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void terminalFailureIsDeadLetteredAndNotRetried() throws IOException {
+        when(attendanceService.recordCheckIns(eq(7L), eq(DAY), anyMap()))
+                .thenThrow(new RuntimeException("Không tìm thấy buổi học"));
+        checkIn(7L, 100L);
+
+        service.flush();
+        service.flush();
+
+        verify(attendanceService, times(1)).recordCheckIns(eq(7L), eq(DAY), anyMap());
+        assertThat(Files.readString(journalDir.resolve("dead-letter.log"))).startsWith("7,2025-09-08,100,");
+        assertThat(journalLines()).isZero();
+    }
+
+    @Test
+    void transientFailureIsRetriedUntilCap() throws IOException {
+        when(attendanceService.recordCheckIns(eq(7L), eq(DAY), anyMap()))
+                .thenThrow(new CannotAcquireLockException("deadlock"));
+        checkIn(7L, 100L);
+
+        service.flush();
+        assertThat(journalLines()).isEqualTo(1); // Journal cũ được giữ khi còn lượt chờ thử lại
+        service.flush();
+        service.flush();
+        service.flush();
+
+        verify(attendanceService, times(3)).recordCheckIns(eq(7L), eq(DAY), anyMap());
+        assertThat(journalDir.resolve("dead-letter.log")).exists();
+        assertThat(journalLines()).isZero();
+    }
+
+    @Test
+    void transientFailureThenSuccessDeletesJournal() throws IOException {
+        when(attendanceService.recordCheckIns(eq(7L), eq(DAY), anyMap()))
+                .thenThrow(new CannotAcquireLockException("deadlock"))
+                .thenReturn(1);
+        checkIn(7L, 100L);
+
+        service.flush();
+        service.flush();
+
+        verify(attendanceService, times(2)).recordCheckIns(eq(7L), eq(DAY), any());
+        assertThat(journalDir.resolve("dead-letter.log")).doesNotExist();
+        assertThat(journalLines()).isZero();
+    }
+
+    @Test
+    void tooManyWrongCodesBlocksStudentForThatSession() {
+        assertThatThrownBy(() -> service.checkIn(7L, DAY, 100L, "000000")).hasMessageContaining("không hợp lệ");
+        assertThatThrownBy(() -> service.checkIn(7L, DAY, 100L, "000001")).hasMessageContaining("không hợp lệ");
+
+        // Hết lượt: mã đúng cũng bị từ chối, sinh viên khác và buổi khác không bị ảnh hưởng
+        assertThatThrownBy(() -> checkIn(7L, 100L)).hasMessageContaining("quá nhiều lần");
+        checkIn(7L, 101L);
+        checkIn(8L, 100L);
+    }
+
+    @Test
+    void onlyDatabaseConnectivityErrorsAreTransient() {
+        assertThat(CheckInService.isTransient(new CannotAcquireLockException("lock"))).isTrue();
+        assertThat(CheckInService.isTransient(new RuntimeException("wrap", new java.sql.SQLTransientConnectionException())))
+                .isTrue();
+        assertThat(CheckInService.isTransient(new RuntimeException("Không tìm thấy buổi học"))).isFalse();
+    }
+
+    private void checkIn(Long scheduleId, Long studentId) {
+        long window = Instant.now().getEpochSecond() / 30;
+        String code = ReflectionTestUtils.invokeMethod(service, "codeFor", scheduleId, DAY, window);
+        service.checkIn(scheduleId, DAY, studentId, code);
+    }
+
+    // Số dòng check-in còn nằm trong các file journal
+    private long journalLines() throws IOException {
+        long lines = 0;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().startsWith("checkin-")).toList()) {
+                lines += Files.readAllLines(file).size();
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.RoomDTO;
+import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Event.ScheduleChangedEvent;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.UserRepository;
+import com.example.backend.Util.OccupancyBitmap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FreeSlotServiceTest {
+
+    @Mock
+    private ScheduleOccupancyService occupancyService;
+
+    @Mock
+    private RoomUtilizationService roomUtilizationService;
+
+    @Mock
+    private SessionOccurrenceService sessionOccurrenceService;
+
+    @Mock
+    private AcademicTermService academicTermService;
+
+    @Mock
+    private ClassRepository classRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private FreeSlotService service;
+
+    private AcademicTerm term;
+    private RoomDTO.RoomResponse room;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "zone", "Asia/Ho_Chi_Minh");
+        service.init();
+
+        // Tuần 1 bắt đầu thứ Hai 01/09/2025
+        term = new AcademicTerm();
+        term.setTermId(3L);
+        term.setStartDate(LocalDate.of(2025, 9, 1));
+        term.setEndDate(LocalDate.of(2026, 1, 31));
+
+        room = new RoomDTO.RoomResponse();
+        room.setRoomId(100L);
+        room.setRoomCode("A101");
+        room.setCapacity(40);
+    }
+
+    @Test
+    void scanSplitsHalfDaysSkipsHolidaysAndNeedsFreeRoom() {
+        OccupancyBitmap busy = new OccupancyBitmap();
+        busy.add(2, 3, 3, OccupancyBitmap.weekMask(1, 1));
+        OccupancyBitmap roomBusy = new OccupancyBitmap();
+        roomBusy.add(2, 6, 10, OccupancyBitmap.weekMask(1, 1));
+
+        List<ScheduleDTO.FreeSlot> slots = FreeSlotService.scan(busy, term, Set.of(LocalDate.of(2025, 9, 2)),
+                1, 1, 2, null, List.of(room), Map.of(100L, roomBusy));
+
+        // Thứ Hai: tiết 1-2 và 4-5 trống; buổi chiều trống nhưng phòng duy nhất bận. Thứ Ba là ngày nghỉ
+        assertThat(slots).filteredOn(s -> s.getDayOfWeek() == 2)
+                .extracting(ScheduleDTO.FreeSlot::getStartPeriod, ScheduleDTO.FreeSlot::getEndPeriod)
+                .containsExactly(tuple(1, 2), tuple(4, 5));
+        assertThat(slots).noneMatch(s -> s.getDayOfWeek() == 3);
+        assertThat(slots).filteredOn(s -> s.getDayOfWeek() == 4).hasSize(2);
+        assertThat(slots.get(0).getDate()).isEqualTo(LocalDate.of(2025, 9, 1));
+        assertThat(slots.get(0).getFreeRooms()).containsExactly("A101");
+    }
+
+    @Test
+    void cancelledSessionFreesTeacherAndRoomForThatWeekOnly() {
+        User teacher = new User();
+        teacher.setUserId(1L);
+        teacher.setRole(User.Role.TEACHER);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(teacher));
+        when(classRepository.existsById(10L)).thenReturn(true);
+        when(academicTermService.findTerm(any())).thenReturn(term);
+        when(roomUtilizationService.getRooms()).thenReturn(List.of(room));
+
+        // Giáo viên dạy lớp khác ở phòng A101 sáng thứ Hai tuần 1-2; buổi tuần 2 bị hủy
+        OccupancyBitmap teacherBusy = new OccupancyBitmap();
+        teacherBusy.add(2, 1, 5, OccupancyBitmap.weekMask(1, 2));
+        OccupancyBitmap roomBusy = teacherBusy.copy();
+        when(occupancyService.snapshot(ScheduleOccupancyService.Dimension.TEACHER, 1L)).thenReturn(teacherBusy);
+        when(occupancyService.snapshotAll(ScheduleOccupancyService.Dimension.ROOM))
+                .thenReturn(new HashMap<>(Map.of(100L, roomBusy)));
+        when(occupancyService.slotOf(7L))
+                .thenReturn(new ScheduleChangedEvent.Slot(7L, 11L, 1L, 100L, 2, 1, 5, 1, 2));
+        when(sessionOccurrenceService.getCancellations(term)).thenReturn(Map.of(7L, Set.of(LocalDate.of(2025, 9, 8))));
+
+        List<ScheduleDTO.FreeSlot> slots = service.findFreeSlots(1L, null, 10L, null, 1, 2, 5, null);
+
+        List<ScheduleDTO.FreeSlot> mondayMornings = slots.stream()
+                .filter(s -> s.getDayOfWeek() == 2 && s.getStartPeriod() == 1)
+                .toList();
+        assertThat(mondayMornings).hasSize(1);
+        assertThat(mondayMornings.get(0).getWeek()).isEqualTo(2);
+        assertThat(mondayMornings.get(0).getFreeRooms()).containsExactly("A101");
+    }
+}
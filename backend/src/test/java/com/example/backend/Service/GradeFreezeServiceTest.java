@@ -0,0 +1,152 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Model.GradeFreeze;
+import com.example.backend.Model.GradeSnapshot;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.GradeFreezeRepository;
+import com.example.backend.Repository.GradeSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GradeFreezeServiceTest {
+
+    @Mock
+    private GradeFreezeRepository freezeRepository;
+
+    @Mock
+    private GradeSnapshotRepository snapshotRepository;
+
+    @Mock
+    private ClassRepository classRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private GradeFreezeService service;
+
+    @Test
+    void writersReadFreezeStateFromDatabaseUnderSharedClassLock() {
+        when(freezeRepository.findFrozenByClassIds(List.of(1L))).thenReturn(List.<Object[]>of(new Object[] { 1L, 2L }));
+
+        assertThatThrownBy(() -> service.requireNotFrozen(1L, 2L))
+                .hasMessageContaining("đã được chốt");
+
+        InOrder order = inOrder(classRepository, freezeRepository);
+        order.verify(classRepository).lockSharedByIds(List.of(1L));
+        order.verify(freezeRepository).findFrozenByClassIds(List.of(1L));
+    }
+
+    @Test
+    void otherTermsOfClassStayWritable() {
+        when(freezeRepository.findFrozenByClassIds(List.of(1L))).thenReturn(List.<Object[]>of(new Object[] { 1L, 2L }));
+
+        GradeFreezeService.FrozenTerms frozen = service.lockForWrite(List.of(1L));
+
+        assertThat(frozen.contains(1L, 2L)).isTrue();
+        assertThat(frozen.contains(1L, 3L)).isFalse();
+        assertThat(frozen.contains(1L, null)).isFalse();
+    }
+
+    @Test
+    void freezeTakesExclusiveClassLockAndRejectsFrozenClass() {
+        when(classRepository.lockById(1L)).thenReturn(Optional.of(new ClassEntity()));
+        when(freezeRepository.findByClassIdAndTermId(1L, 2L)).thenReturn(Optional.of(freeze(true, 1)));
+
+        assertThatThrownBy(() -> service.lockForFreeze(1L, 2L)).hasMessageContaining("đã được chốt");
+    }
+
+    @Test
+    void snapshotRoundTripsAndBumpsVersion() {
+        when(freezeRepository.findByClassIdAndTermId(1L, 2L)).thenReturn(Optional.of(freeze(false, 3)));
+        when(snapshotRepository.save(any(GradeSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        GradeSnapshot snapshot = service.writeSnapshot(1L, 2L, 9L, List.of(grade(100L, 7.5), grade(101L, 8.0)));
+
+        assertThat(snapshot.getVersion()).isEqualTo(4);
+        assertThat(snapshot.getGradeCount()).isEqualTo(2);
+        assertThat(service.decode(snapshot)).extracting(GradeDTO.GradeResponse::getFinalScore)
+                .containsExactly(7.5, 8.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reopenKeepsPublishedGradesWhenCommitFails() {
+        publish(1L, 2L, grade(100L, 7.5));
+        doThrow(new RuntimeException("lỗi commit")).when(transactionTemplate).executeWithoutResult(any());
+
+        assertThatThrownBy(() -> service.reopen(1L, 2L)).hasMessage("lỗi commit");
+
+        assertThat(service.getPublishedGrades(100L)).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reopenClearsFlagUnderClassLockThenUnpublishes() {
+        publish(1L, 2L, grade(100L, 7.5));
+        GradeFreeze freeze = freeze(true, 1);
+        when(freezeRepository.findByClassIdAndTermId(1L, 2L)).thenReturn(Optional.of(freeze));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        service.reopen(1L, 2L);
+
+        assertThat(freeze.getFrozen()).isFalse();
+        assertThat(service.getPublishedGrades(100L)).isEmpty();
+        InOrder order = inOrder(classRepository, freezeRepository);
+        order.verify(classRepository).lockById(1L);
+        order.verify(freezeRepository).save(freeze);
+    }
+
+    private void publish(Long classId, Long termId, GradeDTO.GradeResponse grade) {
+        GradeSnapshot snapshot = new GradeSnapshot();
+        snapshot.setClassId(classId);
+        snapshot.setTermId(termId);
+        snapshot.setVersion(1);
+        service.publish(snapshot, List.of(grade));
+    }
+
+    private static GradeFreeze freeze(boolean frozen, int version) {
+        GradeFreeze freeze = new GradeFreeze();
+        freeze.setClassId(1L);
+        freeze.setTermId(2L);
+        freeze.setFrozen(frozen);
+        freeze.setCurrentVersion(version);
+        return freeze;
+    }
+
+    private static GradeDTO.GradeResponse grade(Long studentId, double finalScore) {
+        GradeDTO.GradeResponse grade = new GradeDTO.GradeResponse();
+        grade.setStudentId(studentId);
+        grade.setFinalScore(finalScore);
+        return grade;
+    }
+}
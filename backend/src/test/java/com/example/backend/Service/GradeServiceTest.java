@@ -0,0 +1,188 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.GradeRepositoryCustom;
+import com.example.backend.Util.CompiledGradingFormula;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GradeServiceTest {
+
+    private static final Long CLASS_ID = 10L;
+    private static final Long SUBJECT_ID = 20L;
+    private static final Long TERM_ID = 5L;
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private ClassStudentRepository classStudentRepository;
+
+    @Mock
+    private AcademicTermService academicTermService;
+
+    @Mock
+    private ProcessScoreService processScoreService;
+
+    @Mock
+    private GradingFormulaService gradingFormulaService;
+
+    @Mock
+    private GradeFreezeService gradeFreezeService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private GradeService service;
+
+    private final List<Object[]> existing = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "zone", "Asia/Ho_Chi_Minh");
+        service.init();
+        when(gradeFreezeService.lockForWrite(anyCollection())).thenReturn(new GradeFreezeService.FrozenTerms(Set.of()));
+        when(classStudentRepository.findStudentIdsByClassId(CLASS_ID)).thenReturn(List.of(1L, 2L, 3L, 4L));
+        when(gradeRepository.findScoresByClassIdAndSubjectId(CLASS_ID, SUBJECT_ID)).thenReturn(existing);
+        when(gradingFormulaService.formulaOf(SUBJECT_ID)).thenReturn(CompiledGradingFormula.DEFAULT);
+        when(academicTermService.resolveWritableTermId(any())).thenReturn(TERM_ID);
+        when(academicTermService.isTermOpen(TERM_ID)).thenReturn(true);
+        // Lớp không dùng quy tắc điểm quá trình (mock mặc định trả về Map rỗng)
+        when(processScoreService.deriveProcessScores(anyLong(), anyCollection())).thenReturn(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rowErrorsAreReportedAndValidRowsSplitIntoInsertAndUpdate() {
+        // (gradeId, studentId, processScore, midtermScore, comments, termId, finalExamScore, finalScore)
+        existing.add(new Object[] { 100L, 2L, 6.0, 6.0, "Chăm chỉ", TERM_ID, 7.0, 6.0 });
+        existing.add(new Object[] { 101L, 3L, 8.0, 8.0, null, TERM_ID, null, 8.0 });
+
+        GradeDTO.BatchGradeResult result = service.writeBatch(CLASS_ID, SUBJECT_ID, List.of(
+                request(null, 5.0, 5.0, null),      // 0: thiếu sinh viên
+                request(1L, 8.0, 6.0, null),        // 1: dòng mới
+                request(1L, 9.0, 9.0, null),        // 2: lặp trong lô
+                request(99L, 5.0, 5.0, null),       // 3: ngoài lớp
+                request(4L, Double.NaN, 5.0, null), // 4: NaN
+                request(2L, 7.0, 6.0, null),        // 5: sửa điểm, giữ điểm cuối kỳ và nhận xét
+                request(3L, 8.0, 8.0, null)));      // 6: không đổi
+
+        assertThat(result.getErrors())
+                .extracting(GradeDTO.RowError::getIndex, GradeDTO.RowError::getMessage)
+                .containsExactly(
+                        tuple(0, "Thiếu mã sinh viên"),
+                        tuple(2, "Sinh viên bị lặp trong lô"),
+                        tuple(3, "Sinh viên không có trong lớp học này"),
+                        tuple(4, "Điểm phải nằm trong khoảng 0 - 10"));
+        assertThat(result.getInsertedCount()).isEqualTo(1);
+        assertThat(result.getUpdatedCount()).isEqualTo(1);
+        assertThat(result.getUnchangedCount()).isEqualTo(1);
+
+        ArgumentCaptor<List<GradeRepositoryCustom.GradeRow>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(gradeRepository).insertGrades(inserts.capture());
+        assertThat(inserts.getValue()).singleElement().satisfies(row -> {
+            assertThat(row.getStudentId()).isEqualTo(1L);
+            assertThat(row.getTermId()).isEqualTo(TERM_ID);
+            assertThat(row.getFinalScore()).isEqualTo(7.0);
+        });
+
+        ArgumentCaptor<List<GradeRepositoryCustom.GradeRow>> updates = ArgumentCaptor.forClass(List.class);
+        verify(gradeRepository).updateGrades(updates.capture());
+        assertThat(updates.getValue()).singleElement().satisfies(row -> {
+            assertThat(row.getGradeId()).isEqualTo(100L);
+            assertThat(row.getFinalExamScore()).isEqualTo(7.0);
+            assertThat(row.getComments()).isEqualTo("Chăm chỉ");
+        });
+        verify(eventPublisher).publishEvent(any(GradeChangedEvent.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void emptyCommentClearsStoredComment() {
+        existing.add(new Object[] { 100L, 2L, 6.0, 6.0, "Chăm chỉ", TERM_ID, null, 6.0 });
+        GradeDTO.GradeUpdateRequest item = request(2L, 6.0, 6.0, null);
+        item.setComments("");
+
+        GradeDTO.BatchGradeResult result = service.writeBatch(CLASS_ID, SUBJECT_ID, List.of(item));
+
+        assertThat(result.getUpdatedCount()).isEqualTo(1);
+        ArgumentCaptor<List<GradeRepositoryCustom.GradeRow>> updates = ArgumentCaptor.forClass(List.class);
+        verify(gradeRepository).updateGrades(updates.capture());
+        assertThat(updates.getValue().get(0).getComments()).isNull();
+    }
+
+    @Test
+    void frozenOrClosedTermsRejectRows() {
+        when(gradeFreezeService.lockForWrite(anyCollection()))
+                .thenReturn(new GradeFreezeService.FrozenTerms(Set.of(CLASS_ID + "|" + TERM_ID)));
+        when(academicTermService.isTermOpen(4L)).thenReturn(false);
+        existing.add(new Object[] { 100L, 2L, 6.0, 6.0, null, TERM_ID, null, 6.0 });
+        existing.add(new Object[] { 101L, 3L, 6.0, 6.0, null, 4L, null, 6.0 });
+
+        GradeDTO.BatchGradeResult result = service.writeBatch(CLASS_ID, SUBJECT_ID, List.of(
+                request(1L, 7.0, 7.0, null),
+                request(2L, 7.0, 7.0, null),
+                request(3L, 7.0, 7.0, null)));
+
+        assertThat(result.getErrors())
+                .extracting(GradeDTO.RowError::getIndex, GradeDTO.RowError::getMessage)
+                .containsExactly(
+                        tuple(0, "Điểm của lớp trong học kỳ này đã được chốt, không thể sửa"),
+                        tuple(1, "Điểm đã được chốt, không thể sửa"),
+                        tuple(2, "Học kỳ đã đóng, không thể sửa điểm"));
+        assertThat(result.getInsertedCount() + result.getUpdatedCount()).isZero();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void derivedProcessScoreOverridesManualValue() {
+        when(processScoreService.deriveProcessScores(anyLong(), anyCollection())).thenReturn(Map.of(1L, 9.0));
+
+        service.writeBatch(CLASS_ID, SUBJECT_ID, List.of(request(1L, 2.0, 7.0, null)));
+
+        ArgumentCaptor<List<GradeRepositoryCustom.GradeRow>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(gradeRepository).insertGrades(inserts.capture());
+        assertThat(inserts.getValue().get(0).getProcessScore()).isEqualTo(9.0);
+        assertThat(inserts.getValue().get(0).getFinalScore()).isEqualTo(8.0);
+    }
+
+    private static GradeDTO.GradeUpdateRequest request(Long studentId, Double process, Double midterm,
+                                                       Double finalExam) {
+        GradeDTO.GradeUpdateRequest r = new GradeDTO.GradeUpdateRequest();
+        r.setStudentId(studentId);
+        r.setProcessScore(process);
+        r.setMidtermScore(midterm);
+        r.setFinalExamScore(finalExam);
+        return r;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.GradingFormula;
+import com.example.backend.Model.Subject;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.GradeRepositoryCustom;
+import com.example.backend.Repository.GradingFormulaRepository;
+import com.example.backend.Repository.SubjectRepository;
+import com.example.backend.Util.CompiledGradingFormula;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GradingFormulaServiceTest {
+
+    @Mock
+    private GradingFormulaRepository formulaRepository;
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private SubjectRepository subjectRepository;
+
+    @Mock
+    private AcademicTermService academicTermService;
+
+    @Mock
+    private GradeFreezeService gradeFreezeService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private GradingFormulaService service;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        when(formulaRepository.findBySubjectId(5L)).thenReturn(Optional.empty());
+        when(formulaRepository.save(any(GradingFormula.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(gradeFreezeService.lockForWrite(any())).thenReturn(new GradeFreezeService.FrozenTerms(Set.of()));
+        when(academicTermService.getTerms()).thenReturn(List.of(term(1L, AcademicTerm.TermStatus.OPEN),
+                term(2L, AcademicTerm.TermStatus.CLOSED)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void backfillOnlyFillsMissingScoresOutsideClosedTerms() {
+        when(gradeRepository.findSubjectIdsWithoutFinalScore()).thenReturn(List.of(5L));
+        when(gradeRepository.findFormulaInputsBySubjectId(5L)).thenReturn(List.of(
+                row(10L, 5.0, 1L),    // đã có điểm tổng kết: giữ nguyên
+                row(11L, null, 1L),   // thiếu: điền (6 + 8) / 2
+                row(12L, null, 2L))); // học kỳ đã đóng: giữ nguyên
+
+        service.backfillFinalScores();
+
+        ArgumentCaptor<List<GradeRepositoryCustom.FinalScoreUpdate>> captor = ArgumentCaptor.forClass(List.class);
+        verify(gradeRepository).updateFinalScores(captor.capture());
+        assertThat(captor.getValue()).singleElement().satisfies(u -> {
+            assertThat(u.getGradeId()).isEqualTo(11L);
+            assertThat(u.getFinalScore()).isEqualTo(7.0);
+        });
+        verify(subjectRepository).lockById(5L);
+    }
+
+    @Test
+    void saveFormulaSwapsEvaluatorWhileHoldingSubjectLock() {
+        when(subjectRepository.findById(5L)).thenReturn(Optional.of(subject(9L)));
+        when(gradeRepository.findFormulaInputsBySubjectId(5L)).thenReturn(List.<Object[]>of(row(10L, 7.0, 1L)));
+
+        GradeDTO.GradingFormulaResult result = service.saveFormula(5L, finalOnly(), 9L);
+
+        assertThat(result.getUpdatedCount()).isEqualTo(1);
+        assertThat(service.computeFinalScore(5L, 6.0, 8.0, 9.0)).isEqualTo(9.0);
+        InOrder order = inOrder(subjectRepository, formulaRepository, gradeRepository);
+        order.verify(subjectRepository).lockById(5L);
+        order.verify(formulaRepository).save(any(GradingFormula.class));
+        order.verify(gradeRepository).updateFinalScores(any());
+    }
+
+    @Test
+    void saveFormulaRestoresPreviousEvaluatorWhenRecomputeFails() {
+        when(subjectRepository.findById(5L)).thenReturn(Optional.of(subject(9L)));
+        when(gradeRepository.findFormulaInputsBySubjectId(5L)).thenReturn(List.<Object[]>of(row(10L, 7.0, 1L)));
+        when(gradeRepository.updateFinalScores(any())).thenThrow(new RuntimeException("lỗi ghi"));
+        assertThat(service.formulaOf(5L)).isSameAs(CompiledGradingFormula.DEFAULT);
+
+        assertThatThrownBy(() -> service.saveFormula(5L, finalOnly(), 9L)).hasMessage("lỗi ghi");
+
+        assertThat(service.formulaOf(5L)).isSameAs(CompiledGradingFormula.DEFAULT);
+    }
+
+    // (gradeId, classId, studentId, processScore, midtermScore, finalExamScore, finalScore, termId)
+    private static Object[] row(Long gradeId, Double finalScore, Long termId) {
+        return new Object[] { gradeId, 1L, 100L + gradeId, 6.0, 8.0, 9.0, finalScore, termId };
+    }
+
+    private static GradeDTO.GradingFormulaRequest finalOnly() {
+        GradeDTO.GradingFormulaRequest request = new GradeDTO.GradingFormulaRequest();
+        request.setProcessWeight(0.0);
+        request.setMidtermWeight(0.0);
+        request.setFinalWeight(1.0);
+        return request;
+    }
+
+    private static Subject subject(Long creatorId) {
+        User creator = new User();
+        creator.setUserId(creatorId);
+        Subject subject = new Subject();
+        subject.setSubjectId(5L);
+        subject.setCreatedBy(creator);
+        return subject;
+    }
+
+    private static AcademicTerm term(Long id, AcademicTerm.TermStatus status) {
+        AcademicTerm term = new AcademicTerm();
+        term.setTermId(id);
+        term.setStatus(status);
+        return term;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.backend.Service;
+
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Model.Attendance.AttendanceStatus;
+import com.example.backend.Model.ProcessScorePolicy;
+import com.example.backend.Repository.AttendanceStudentStatRepository;
+import com.example.backend.Repository.GradeRepository;
+import com.example.backend.Repository.GradeRepositoryCustom;
+import com.example.backend.Repository.ProcessScorePolicyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ProcessScoreServiceTest {
+
+    private static final Long CLASS_ID = 10L;
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 8);
+
+    @Mock
+    private ProcessScorePolicyRepository policyRepository;
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private AttendanceStudentStatRepository studentStatRepository;
+
+    @Mock
+    private AcademicTermService academicTermService;
+
+    @Mock
+    private GradingFormulaService gradingFormulaService;
+
+    @Mock
+    private GradeFreezeService gradeFreezeService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProcessScoreService service;
+
+    private ProcessScorePolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        policy = new ProcessScorePolicy();
+        policy.setClassId(CLASS_ID);
+        when(policyRepository.findByClassId(CLASS_ID)).thenReturn(Optional.of(policy));
+        when(gradeFreezeService.lockForWrite(anyCollection())).thenReturn(new GradeFreezeService.FrozenTerms(Set.of()));
+        when(academicTermService.isTermOpen(5L)).thenReturn(true);
+        when(gradingFormulaService.computeFinalScore(anyLong(), any(), any(), any())).thenReturn(7.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void attendanceChangeRecomputesOnlyAffectedStudentsInOpenTerms() {
+        // (studentId, status, total): 2 buổi vắng, 1 buổi muộn
+        when(studentStatRepository.findCountsByClassIdAndStudentIds(eq(CLASS_ID), anyCollection())).thenReturn(List.of(
+                new Object[] { 1L, AttendanceStatus.ABSENT, 2L },
+                new Object[] { 1L, AttendanceStatus.LATE, 1L }));
+        // (gradeId, studentId, subjectId, processScore, midtermScore, termId, finalExamScore, finalScore)
+        when(gradeRepository.findScoresByClassIdAndStudentIds(eq(CLASS_ID), anyCollection())).thenReturn(List.of(
+                new Object[] { 100L, 1L, 20L, 10.0, 6.0, 5L, null, 8.0 },
+                new Object[] { 101L, 1L, 21L, 10.0, 6.0, 4L, null, 8.0 }));
+
+        service.onAttendanceChanged(new AttendanceChangedEvent(List.of(
+                new AttendanceChangedEvent.Change(CLASS_ID, 7L, 1L, DAY, AttendanceStatus.PRESENT, AttendanceStatus.ABSENT),
+                new AttendanceChangedEvent.Change(CLASS_ID, 7L, 2L, DAY, AttendanceStatus.LATE, AttendanceStatus.LATE))));
+
+        ArgumentCaptor<Collection<Long>> students = ArgumentCaptor.forClass(Collection.class);
+        verify(gradeRepository).findScoresByClassIdAndStudentIds(eq(CLASS_ID), students.capture());
+        assertThat(students.getValue()).containsExactly(1L);
+
+        // 10 - 2 * 0.5 - 1 * 0.25; dòng của học kỳ 4 (đã đóng) bị bỏ qua
+        ArgumentCaptor<List<GradeRepositoryCustom.ProcessScoreUpdate>> updates = ArgumentCaptor.forClass(List.class);
+        verify(gradeRepository).updateProcessScores(updates.capture());
+        assertThat(updates.getValue())
+                .extracting(GradeRepositoryCustom.ProcessScoreUpdate::getGradeId,
+                        GradeRepositoryCustom.ProcessScoreUpdate::getProcessScore)
+                .containsExactly(tuple(100L, 8.75));
+        verify(eventPublisher).publishEvent(any(GradeChangedEvent.class));
+    }
+
+    @Test
+    void unchangedScoreIsNotWritten() {
+        when(gradeRepository.findScoresByClassIdAndStudentIds(eq(CLASS_ID), anyCollection())).thenReturn(List.<Object[]>of(
+                new Object[] { 100L, 1L, 20L, 10.0, 6.0, 5L, null, 8.0 }));
+
+        service.onAttendanceChanged(new AttendanceChangedEvent(List.of(
+                new AttendanceChangedEvent.Change(CLASS_ID, 7L, 1L, DAY, null, AttendanceStatus.PRESENT))));
+
+        verify(gradeRepository).updateProcessScores(List.of());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void disabledPolicyDerivesNothing() {
+        policy.setEnabled(false);
+
+        assertThat(service.deriveProcessScores(CLASS_ID, List.of(1L))).isNull();
+        service.onAttendanceChanged(new AttendanceChangedEvent(List.of(
+                new AttendanceChangedEvent.Change(CLASS_ID, 7L, 1L, DAY, null, AttendanceStatus.ABSENT))));
+        verify(gradeRepository, never()).updateProcessScores(any());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.GradeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RankingServiceTest {
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private ClassStudentRepository classStudentRepository;
+
+    @InjectMocks
+    private RankingService service;
+
+    @Test
+    void gradeChangeUpdatesLoadedRanking() {
+        when(classStudentRepository.findStudentNamesByClassId(1L))
+                .thenReturn(List.of(new Object[] { 100L, "An" }, new Object[] { 101L, "Binh" }));
+        when(gradeRepository.findScoresByClassIdAndSubjectId(1L, 2L))
+                .thenReturn(List.of(row(100L, 8.0), row(101L, 6.0)));
+
+        assertThat(service.getRank(1L, 2L, 101L).getRank()).isEqualTo(2);
+        service.onGradeChanged(new GradeChangedEvent(List.of(
+                new GradeChangedEvent.Change(1L, 101L, 2L, null, null, null, null, 6.0, 9.0))));
+        GradeDTO.StudentRank rank = service.getRank(1L, 2L, 101L);
+
+        assertThat(rank.getRank()).isEqualTo(1);
+        assertThat(rank.getScore()).isEqualTo(9.0);
+        verify(gradeRepository, times(1)).findScoresByClassIdAndSubjectId(1L, 2L);
+    }
+
+    @Test
+    void enrollmentChangeReloadsNames() {
+        when(classStudentRepository.findStudentNamesByClassId(1L))
+                .thenReturn(List.<Object[]>of(new Object[] { 100L, "An" }))
+                .thenReturn(List.of(new Object[] { 100L, "An" }, new Object[] { 102L, "Chi" }));
+        when(gradeRepository.findScoresByClassIdAndSubjectId(1L, 2L))
+                .thenReturn(List.<Object[]>of(row(100L, 8.0)))
+                .thenReturn(List.of(row(100L, 8.0), row(102L, 9.0)));
+
+        service.getTop(1L, 2L, 10);
+        service.onEnrollmentChanged(new EnrollmentChangedEvent(1L, Set.of(102L)));
+        List<GradeDTO.RankEntry> top = service.getTop(1L, 2L, 10);
+
+        assertThat(top).extracting(GradeDTO.RankEntry::getStudentFullName).containsExactly("Chi", "An");
+    }
+
+    // (gradeId, studentId, processScore, midtermScore, comments, termId, finalExamScore, finalScore)
+    private static Object[] row(Long studentId, double finalScore) {
+        return new Object[] { 1L, studentId, null, null, null, null, null, finalScore };
+    }
+}
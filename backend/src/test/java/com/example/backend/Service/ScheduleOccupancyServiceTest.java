@@ -0,0 +1,66 @@
+package com.example.backend.Service;
+
+import com.example.backend.Event.ScheduleChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScheduleOccupancyServiceTest {
+
+    private final ScheduleOccupancyService service = new ScheduleOccupancyService();
+
+    @Test
+    void reserveRejectsOverlapOnAnyDimension() {
+        assertThat(service.reserve(slot(1L, 10L, 20L, 30L, 2, 1, 3))).isNull();
+
+        // Khác lớp, khác phòng nhưng cùng giáo viên, trùng tiết 3
+        ScheduleOccupancyService.Conflict conflict = service.reserve(slot(2L, 11L, 20L, 31L, 2, 3, 5));
+        assertThat(conflict).isEqualTo(new ScheduleOccupancyService.Conflict(
+                ScheduleOccupancyService.Dimension.TEACHER, 1L));
+        assertThat(service.slotOf(2L)).isNull();
+        // Cùng mọi thứ nhưng khác thứ: không trùng
+        assertThat(service.reserve(slot(3L, 10L, 20L, 30L, 3, 1, 3))).isNull();
+    }
+
+    @Test
+    void reserveAllIsAllOrNothing() {
+        service.reserve(slot(1L, 10L, 20L, 30L, 2, 6, 8));
+
+        ScheduleOccupancyService.Rejection rejection = service.reserveAll(List.of(
+                slot(2L, 11L, 21L, 31L, 2, 1, 3),
+                slot(3L, 12L, 22L, 30L, 2, 7, 7)));
+
+        assertThat(rejection.index()).isEqualTo(1);
+        assertThat(rejection.conflict().dimension()).isEqualTo(ScheduleOccupancyService.Dimension.ROOM);
+        // Dòng đầu đã giữ chỗ cũng được gỡ
+        assertThat(service.slotOf(2L)).isNull();
+        assertThat(service.snapshot(ScheduleOccupancyService.Dimension.CLASS, 11L)).isNull();
+
+        assertThat(service.reserveAll(List.of(
+                slot(2L, 11L, 21L, 31L, 2, 1, 3),
+                slot(3L, 12L, 22L, 32L, 2, 7, 7)))).isNull();
+        assertThat(service.slotOf(3L)).isNotNull();
+    }
+
+    @Test
+    void rollbackRestoresPreviousSlot() {
+        ScheduleChangedEvent.Slot before = slot(1L, 10L, 20L, 30L, 2, 1, 3);
+        ScheduleChangedEvent.Slot after = slot(1L, 10L, 20L, 30L, 4, 1, 3);
+        service.reserve(before);
+        service.reserve(after);
+
+        service.onScheduleChangeRolledBack(new ScheduleChangedEvent(List.of(
+                new ScheduleChangedEvent.Change(1L, before, after))));
+
+        assertThat(service.slotOf(1L)).isEqualTo(before);
+        assertThat(service.findConflict(slot(null, 10L, 99L, 99L, 4, 1, 3), null)).isNull();
+    }
+
+    private static ScheduleChangedEvent.Slot slot(Long scheduleId, Long classId, Long teacherId, Long roomId,
+                                                  int day, int startPeriod, int endPeriod) {
+        return new ScheduleChangedEvent.Slot(scheduleId, classId, teacherId, roomId, day, startPeriod, endPeriod,
+                1, 15);
+    }
+}
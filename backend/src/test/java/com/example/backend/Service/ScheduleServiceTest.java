@@ -0,0 +1,133 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.ScheduleDTO;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Model.Subject;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.RoomRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Repository.SubjectRepository;
+import com.example.backend.Repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ScheduleServiceTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private ClassRepository classRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SubjectRepository subjectRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private RoomService roomService;
+
+    @Mock
+    private ScheduleOccupancyService occupancyService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ScheduleService service;
+
+    private User teacher;
+    private User otherTeacher;
+
+    @BeforeEach
+    void setUp() {
+        teacher = user(1L, "gv@school.edu");
+        otherTeacher = user(2L, "khac@school.edu");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(teacher));
+        when(classRepository.findByUpperClassCodeIn(anySet()))
+                .thenReturn(List.of(classEntity(10L, "cntt1", teacher), classEntity(11L, "CNTT2", otherTeacher)));
+        Subject subject = new Subject();
+        subject.setSubjectId(5L);
+        subject.setSubjectCode("Toan1");
+        when(subjectRepository.findByUpperSubjectCodeIn(anySet())).thenReturn(List.of(subject));
+    }
+
+    @Test
+    void codesMatchCaseInsensitivelyAndForeignClassIsRowError() {
+        ScheduleDTO.BulkScheduleResult result = service.createSchedulesBatch(List.of(
+                row("Cntt1", "toan1", 2, 1, 3),
+                row("cNTT2", "TOAN1", 3, 1, 3)), 1L, false);
+
+        assertThat(result.getValidRows()).isEqualTo(1);
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.getErrors().get(0).getIndex()).isEqualTo(1);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Bạn không có quyền thêm lịch cho lớp này");
+        assertThat(result.isCommitted()).isFalse();
+        verify(scheduleRepository, never()).insertSchedules(any());
+    }
+
+    @Test
+    void overlappingRowsInBatchAreReportedAgainstEachOther() {
+        ScheduleDTO.BulkScheduleResult result = service.createSchedulesBatch(List.of(
+                row("CNTT1", "TOAN1", 2, 1, 3),
+                row("CNTT1", "TOAN1", 2, 3, 4)), 1L, true);
+
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.getErrors().get(0).getConflictIndex()).isEqualTo(0);
+        verify(scheduleRepository, never()).insertSchedules(any());
+    }
+
+    private static ScheduleDTO.BulkScheduleRequest row(String classCode, String subjectCode, int day, int start,
+                                                       int end) {
+        ScheduleDTO.BulkScheduleRequest r = new ScheduleDTO.BulkScheduleRequest();
+        r.setClassCode(classCode);
+        r.setSubjectCode(subjectCode);
+        r.setRoom("a101");
+        r.setDayOfWeek(day);
+        r.setStartPeriod(start);
+        r.setEndPeriod(end);
+        r.setStartWeek(1);
+        r.setEndWeek(15);
+        return r;
+    }
+
+    private static User user(Long id, String email) {
+        User u = new User();
+        u.setUserId(id);
+        u.setEmail(email);
+        u.setRole(User.Role.TEACHER);
+        return u;
+    }
+
+    private static ClassEntity classEntity(Long id, String code, User owner) {
+        ClassEntity c = new ClassEntity();
+        c.setClassId(id);
+        c.setClassCode(code);
+        c.setTeacher(owner);
+        return c;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.GradeDTO;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Repository.GradeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScoreDistributionServiceTest {
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @InjectMocks
+    private ScoreDistributionService service;
+
+    @Test
+    void changeCommittedBeforeLoadIsNotCountedTwice() {
+        // Bản nạp đã đọc điểm mới (8.0) trước khi sự kiện của transaction đó được xử lý
+        when(gradeRepository.findScoresByClassIdAndSubjectId(1L, 2L))
+                .thenReturn(List.<Object[]>of(row(8.0)))
+                .thenReturn(List.<Object[]>of(row(8.0)));
+
+        service.getDistribution(1L, 2L);
+        service.onGradeChanged(new GradeChangedEvent(List.of(
+                new GradeChangedEvent.Change(1L, 100L, 2L, null, null, 8.0, 8.0, null, 8.0))));
+        GradeDTO.GradeDistribution d = service.getDistribution(1L, 2L);
+
+        assertThat(d.getProcessScore().getCount()).isEqualTo(1);
+        assertThat(d.getFinalScore().getMean()).isEqualTo(8.0);
+        verify(gradeRepository, times(2)).findScoresByClassIdAndSubjectId(1L, 2L);
+    }
+
+    @Test
+    void loadedDistributionIsReusedUntilChanged() {
+        when(gradeRepository.findScoresByClassIdAndSubjectId(1L, 2L)).thenReturn(List.<Object[]>of(row(6.0)));
+
+        service.getDistribution(1L, 2L);
+        service.getDistribution(1L, 2L);
+
+        verify(gradeRepository, times(1)).findScoresByClassIdAndSubjectId(1L, 2L);
+    }
+
+    // (gradeId, studentId, processScore, midtermScore, comments, termId, finalExamScore, finalScore)
+    private static Object[] row(double score) {
+        return new Object[] { 1L, 100L, score, score, null, null, null, score };
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.TermCalendarDTO;
+import com.example.backend.Model.AcademicTerm;
+import com.example.backend.Model.ClassEntity;
+import com.example.backend.Model.Schedule;
+import com.example.backend.Model.Subject;
+import com.example.backend.Model.TermCalendarEntry;
+import com.example.backend.Model.User;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Repository.TermCalendarEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SessionOccurrenceServiceTest {
+
+    // Tuần 1 bắt đầu thứ Hai 01/09/2025
+    private static final LocalDate START = LocalDate.of(2025, 9, 1);
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private TermCalendarEntryRepository termCalendarEntryRepository;
+
+    @Mock
+    private ClassStudentRepository classStudentRepository;
+
+    @Mock
+    private AcademicTermService academicTermService;
+
+    @InjectMocks
+    private SessionOccurrenceService service;
+
+    private AcademicTerm term;
+    private Schedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "zone", "Asia/Ho_Chi_Minh");
+        service.init();
+
+        term = new AcademicTerm();
+        term.setTermId(3L);
+        term.setStartDate(START);
+        term.setEndDate(LocalDate.of(2025, 12, 31));
+        when(academicTermService.getTerms()).thenReturn(List.of(term));
+        when(academicTermService.findTerm(any())).thenAnswer(inv -> term.contains(inv.getArgument(0)) ? term : null);
+
+        // Thứ Tư, tiết 1-3, tuần 1-4
+        schedule = new Schedule();
+        schedule.setScheduleId(7L);
+        schedule.setDayOfWeek(4);
+        schedule.setStartPeriod(1);
+        schedule.setEndPeriod(3);
+        schedule.setStartWeek(1);
+        schedule.setEndWeek(4);
+        schedule.setRoom("A101");
+        ClassEntity classEntity = new ClassEntity();
+        classEntity.setClassId(10L);
+        schedule.setClassObj(classEntity);
+        schedule.setSubject(new Subject());
+        User teacher = new User();
+        teacher.setUserId(1L);
+        schedule.setTeacher(teacher);
+        when(scheduleRepository.findWithDetailsByIds(List.of(7L))).thenReturn(List.of(schedule));
+
+        when(termCalendarEntryRepository.findByTermIdOrderByDateAsc(3L)).thenReturn(List.of(
+                entry(TermCalendarEntry.EntryType.HOLIDAY, LocalDate.of(2025, 9, 10), null),
+                entry(TermCalendarEntry.EntryType.CANCELLED, LocalDate.of(2025, 9, 17), 7L),
+                makeup(LocalDate.of(2025, 9, 20), 6, 8, "B202")));
+    }
+
+    @Test
+    void expansionSkipsHolidaysAndCancellationsAndAddsMakeups() {
+        List<TermCalendarDTO.SessionOccurrence> occurrences = service.getOccurrences(7L, 3L);
+
+        assertThat(occurrences).extracting(TermCalendarDTO.SessionOccurrence::getDate).containsExactly(
+                LocalDate.of(2025, 9, 3), LocalDate.of(2025, 9, 20), LocalDate.of(2025, 9, 24));
+        TermCalendarDTO.SessionOccurrence makeup = occurrences.get(1);
+        assertThat(makeup.isMakeup()).isTrue();
+        assertThat(makeup.getStartPeriod()).isEqualTo(6);
+        assertThat(makeup.getStartTime()).isEqualTo("13:00");
+        assertThat(makeup.getRoom()).isEqualTo("B202");
+    }
+
+    @Test
+    void findOccurrenceReturnsMakeupPeriodsAndNullOutsideSchedule() {
+        assertThat(service.findOccurrence(schedule, LocalDate.of(2025, 9, 20)).getStartPeriod()).isEqualTo(6);
+        assertThat(service.findOccurrence(schedule, LocalDate.of(2025, 9, 3)).isMakeup()).isFalse();
+        assertThat(service.findOccurrence(schedule, LocalDate.of(2025, 9, 10))).isNull();
+        assertThat(service.findOccurrence(schedule, LocalDate.of(2026, 3, 4))).isNull();
+    }
+
+    @Test
+    void requireOccurrenceRejectsCancelledSession() {
+        assertThatThrownBy(() -> service.requireOccurrence(schedule, LocalDate.of(2025, 9, 17)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("17/09/2025");
+        service.requireOccurrence(schedule, LocalDate.of(2025, 9, 24));
+    }
+
+    @Test
+    void cancellationsAreGroupedBySchedule() {
+        assertThat(service.getCancellations(term)).containsOnlyKeys(7L);
+        assertThat(service.getCancellations(term).get(7L)).containsExactly(LocalDate.of(2025, 9, 17));
+        assertThat(service.getHolidays(term)).containsExactly(LocalDate.of(2025, 9, 10));
+    }
+
+    @Test
+    void weekAndDateConversionsAreInverse() {
+        LocalDate date = SessionOccurrenceService.dateOf(term, 3, 6);
+
+        assertThat(date).isEqualTo(LocalDate.of(2025, 9, 19));
+        assertThat(SessionOccurrenceService.weekOf(term, date)).isEqualTo(3);
+        assertThat(SessionOccurrenceService.dayOfWeekOf(date)).isEqualTo(6);
+        assertThat(SessionOccurrenceService.isRegularOccurrence(schedule, term, LocalDate.of(2025, 9, 10))).isTrue();
+        assertThat(SessionOccurrenceService.isRegularOccurrence(schedule, term, LocalDate.of(2025, 10, 1))).isFalse();
+    }
+
+    private static TermCalendarEntry entry(TermCalendarEntry.EntryType type, LocalDate date, Long scheduleId) {
+        TermCalendarEntry e = new TermCalendarEntry();
+        e.setTermId(3L);
+        e.setEntryType(type);
+        e.setDate(date);
+        e.setScheduleId(scheduleId);
+        return e;
+    }
+
+    private static TermCalendarEntry makeup(LocalDate date, int startPeriod, int endPeriod, String room) {
+        TermCalendarEntry e = entry(TermCalendarEntry.EntryType.MAKEUP, date, 7L);
+        e.setStartPeriod(startPeriod);
+        e.setEndPeriod(endPeriod);
+        e.setRoom(room);
+        return e;
+    }
+}
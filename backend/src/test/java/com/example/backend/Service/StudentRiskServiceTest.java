@@ -0,0 +1,133 @@
+package com.example.backend.Service;
+
+import com.example.backend.DTO.StudentRiskDTO;
+import com.example.backend.Event.AttendanceChangedEvent;
+import com.example.backend.Event.GradeChangedEvent;
+import com.example.backend.Model.Attendance.AttendanceStatus;
+import com.example.backend.Model.AttendanceStudentStat;
+import com.example.backend.Repository.AttendanceStudentStatRepository;
+import com.example.backend.Repository.ClassRepository;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.GradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StudentRiskServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 8);
+
+    @Mock
+    private AttendanceStudentStatRepository studentStatRepository;
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private ClassRepository classRepository;
+
+    @Mock
+    private ClassStudentRepository classStudentRepository;
+
+    @InjectMocks
+    private StudentRiskService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "absenceRateThreshold", 20.0);
+        ReflectionTestUtils.setField(service, "lateWeight", 0.5);
+        ReflectionTestUtils.setField(service, "minSessions", 3L);
+        ReflectionTestUtils.setField(service, "minScore", 5.0);
+        ReflectionTestUtils.setField(service, "scoreDropThreshold", 2.0);
+        when(classRepository.findClassIdsByTeacherId(9L)).thenReturn(List.of(1L));
+        when(classStudentRepository.findStudentNamesByClassId(1L))
+                .thenReturn(List.<Object[]>of(new Object[] { 100L, "An" }));
+        when(gradeRepository.findAllScores()).thenReturn(List.of());
+    }
+
+    @Test
+    void committedAbsencesFlagStudent() {
+        when(studentStatRepository.findAll()).thenReturn(List.of(stat(AttendanceStatus.PRESENT, 3)));
+        service.rebuild();
+
+        service.onAttendanceChanged(absent());
+
+        assertThat(service.getTeacherRisks(9L)).singleElement().satisfies(risk -> {
+            assertThat(risk.getTotalSessions()).isEqualTo(4);
+            assertThat(risk.getAbsentCount()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void eventCommittedDuringRebuildIsNotCountedTwice() {
+        // Sự kiện đến trong lúc đang đọc CSDL, và bảng tổng hợp đã chứa buổi vắng đó
+        when(studentStatRepository.findAll()).thenAnswer(invocation -> {
+            service.onAttendanceChanged(absent());
+            return List.of(stat(AttendanceStatus.PRESENT, 3), stat(AttendanceStatus.ABSENT, 1));
+        });
+        when(studentStatRepository.findCountsByClassIdAndStudentIds(eq(1L), any())).thenReturn(List.of(
+                new Object[] { 100L, AttendanceStatus.PRESENT, 3L },
+                new Object[] { 100L, AttendanceStatus.ABSENT, 1L }));
+
+        service.rebuild();
+
+        assertThat(service.getTeacherRisks(9L)).singleElement()
+                .extracting(StudentRiskDTO.StudentRisk::getAbsentCount).isEqualTo(1L);
+    }
+
+    @Test
+    void scoreTrendIsRebuiltFromStoredGrades() {
+        when(studentStatRepository.findAll()).thenReturn(List.of());
+        when(gradeRepository.findAllScores()).thenReturn(List.of(
+                new Object[] { 1L, 100L, 11L, 8.0 },
+                new Object[] { 1L, 100L, 12L, 5.5 }));
+
+        service.rebuild();
+
+        assertThat(service.getTeacherRisks(9L)).singleElement().satisfies(risk -> {
+            assertThat(risk.getLastScoreChange()).isEqualTo(-2.5);
+            assertThat(risk.getReasons()).anyMatch(r -> r.startsWith("Điểm giảm"));
+        });
+    }
+
+    @Test
+    void regradingSameSubjectReplacesScore() {
+        when(studentStatRepository.findAll()).thenReturn(List.of());
+        service.rebuild();
+
+        service.onGradeChanged(grade(11L, null, 4.0));
+        service.onGradeChanged(grade(11L, 4.0, 7.0));
+
+        assertThat(service.getTeacherRisks(9L)).isEmpty();
+    }
+
+    private static AttendanceChangedEvent absent() {
+        return new AttendanceChangedEvent(List.of(
+                new AttendanceChangedEvent.Change(1L, 10L, 100L, DAY, null, AttendanceStatus.ABSENT)));
+    }
+
+    private static GradeChangedEvent grade(Long subjectId, Double oldScore, Double newScore) {
+        return new GradeChangedEvent(List.of(new GradeChangedEvent.Change(1L, 100L, subjectId,
+                null, null, null, null, oldScore, newScore)));
+    }
+
+    private static AttendanceStudentStat stat(AttendanceStatus status, long total) {
+        return new AttendanceStudentStat(null, 1L, 100L, status, total);
+    }
+}
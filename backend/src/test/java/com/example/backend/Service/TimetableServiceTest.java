@@ -0,0 +1,70 @@
+package com.example.backend.Service;
+
+import com.example.backend.Event.EnrollmentChangedEvent;
+import com.example.backend.Repository.ClassStudentRepository;
+import com.example.backend.Repository.ScheduleRepository;
+import com.example.backend.Repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TimetableServiceTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private ClassStudentRepository classStudentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager("timetables");
+
+    @InjectMocks
+    private TimetableService service;
+
+    @Test
+    void timetableIsCachedUntilEnrollmentChanges() {
+        when(userRepository.existsById(100L)).thenReturn(true);
+        when(scheduleRepository.findTimetableByStudentId(100L)).thenReturn(List.of());
+
+        service.getStudentTimetable(100L);
+        service.getStudentTimetable(100L);
+        service.onEnrollmentChanged(new EnrollmentChangedEvent(1L, Set.of(100L)));
+        service.getStudentTimetable(100L);
+
+        verify(scheduleRepository, times(2)).findTimetableByStudentId(100L);
+    }
+
+    @Test
+    void readOverlappingEvictIsNotCached() {
+        when(userRepository.existsById(100L)).thenReturn(true);
+        when(scheduleRepository.findTimetableByStudentId(100L)).thenAnswer(invocation -> {
+            // Sinh viên vào lớp mới và sự kiện sau commit chạy trong lúc đang đọc thời khóa biểu cũ
+            service.onEnrollmentChanged(new EnrollmentChangedEvent(1L, Set.of(100L)));
+            return List.of();
+        }).thenReturn(List.of());
+
+        service.getStudentTimetable(100L);
+
+        assertThat(cacheManager.getCache("timetables").get(100L)).isNull();
+        service.getStudentTimetable(100L);
+        assertThat(cacheManager.getCache("timetables").get(100L)).isNotNull();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.backend.Util;
+
+import com.example.backend.Model.Attendance.AttendanceStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttendanceMatrixTest {
+
+    private static final LocalDate MON = LocalDate.of(2025, 9, 8);
+    private static final LocalDate WED = LocalDate.of(2025, 9, 10);
+
+    @Test
+    void cellsKeepStatusPerStudentAndSession() {
+        AttendanceMatrix matrix = new AttendanceMatrix(List.of(1L, 2L));
+
+        assertThat(matrix.put(1L, 10L, MON, AttendanceStatus.PRESENT)).isTrue();
+        assertThat(matrix.put(2L, 10L, MON, AttendanceStatus.LATE)).isTrue();
+        assertThat(matrix.put(2L, 10L, MON, AttendanceStatus.EXCUSED)).isTrue();
+
+        assertThat(matrix.get(1L, 10L, MON)).isEqualTo(AttendanceStatus.PRESENT);
+        assertThat(matrix.get(2L, 10L, MON)).isEqualTo(AttendanceStatus.EXCUSED);
+        assertThat(matrix.get(1L, 10L, WED)).isNull();
+    }
+
+    @Test
+    void sessionsStaySortedByDateWhenInsertedOutOfOrder() {
+        AttendanceMatrix matrix = new AttendanceMatrix(List.of(1L, 2L));
+        matrix.put(1L, 10L, WED, AttendanceStatus.ABSENT);
+        matrix.put(2L, 10L, MON, AttendanceStatus.PRESENT);
+
+        AttendanceMatrix.Snapshot snapshot = matrix.snapshot();
+
+        assertThat(snapshot.getSessions()).extracting(AttendanceMatrix.Session::getDate).containsExactly(MON, WED);
+        assertThat(snapshot.getRows()).containsExactly("-A", "P-");
+    }
+
+    @Test
+    void clearingCellAndUnknownStudent() {
+        AttendanceMatrix matrix = new AttendanceMatrix(List.of(1L));
+        matrix.put(1L, 10L, MON, AttendanceStatus.PRESENT);
+
+        assertThat(matrix.put(1L, 10L, MON, null)).isTrue();
+        assertThat(matrix.get(1L, 10L, MON)).isNull();
+        assertThat(matrix.put(9L, 10L, MON, AttendanceStatus.PRESENT)).isFalse();
+    }
+}
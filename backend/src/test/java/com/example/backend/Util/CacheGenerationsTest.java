@@ -0,0 +1,58 @@
+package com.example.backend.Util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheGenerationsTest {
+
+    private final CacheGenerations generations = new CacheGenerations();
+    private final Cache cache = new ConcurrentMapCache("test");
+
+    @Test
+    void putKeepsValueWhenNoEvictHappened() {
+        long stamp = generations.stamp(1L);
+        generations.put(cache, 1L, stamp, "fresh");
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("fresh");
+    }
+
+    @Test
+    void putAfterEvictOfSameKeyIsDropped() {
+        long stamp = generations.stamp(1L);
+        // Dữ liệu thay đổi và cache bị xóa trong lúc đang dựng giá trị
+        generations.evict(cache, 1L);
+        generations.put(cache, 1L, stamp, "stale");
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void putAfterClearIsDropped() {
+        long stamp = generations.stamp(7L);
+        generations.clear(cache);
+        generations.put(cache, 7L, stamp, "stale");
+
+        assertThat(cache.get(7L)).isNull();
+    }
+
+    @Test
+    void evictOfOtherKeyDoesNotDropPut() {
+        long stamp = generations.stamp(1L);
+        generations.evict(cache, 2L);
+        generations.put(cache, 1L, stamp, "fresh");
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("fresh");
+    }
+
+    @Test
+    void newStampAfterEvictAllowsPut() {
+        generations.evict(cache, 1L);
+        long stamp = generations.stamp(1L);
+        generations.put(cache, 1L, stamp, "fresh");
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("fresh");
+    }
+}
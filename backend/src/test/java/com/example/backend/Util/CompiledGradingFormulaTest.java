@@ -0,0 +1,47 @@
+package com.example.backend.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledGradingFormulaTest {
+
+    @Test
+    void defaultIsAverageOfProcessAndMidterm() {
+        assertThat(CompiledGradingFormula.DEFAULT.evaluate(6.0, 8.0, null)).isEqualTo(7.0);
+        assertThat(CompiledGradingFormula.DEFAULT.evaluate(6.0, null, 9.0)).isNull();
+    }
+
+    @Test
+    void weightsAreNormalisedAndMissingWeightedComponentGivesNull() {
+        CompiledGradingFormula formula = CompiledGradingFormula.compile(1, 1, 2, 0,
+                CompiledGradingFormula.Rounding.HALF_UP);
+
+        assertThat(formula.evaluate(6.0, 8.0, 9.0)).isEqualTo(8.0);
+        assertThat(formula.evaluate(6.0, 8.0, null)).isNull();
+    }
+
+    @Test
+    void roundingModesUseStep() {
+        assertThat(CompiledGradingFormula.compile(1, 0, 0, 0.5, CompiledGradingFormula.Rounding.HALF_UP)
+                .evaluate(7.25, null, null)).isEqualTo(7.5);
+        assertThat(CompiledGradingFormula.compile(1, 0, 0, 0.5, CompiledGradingFormula.Rounding.DOWN)
+                .evaluate(7.45, null, null)).isEqualTo(7.0);
+        assertThat(CompiledGradingFormula.compile(1, 0, 0, 0.1, CompiledGradingFormula.Rounding.UP)
+                .evaluate(7.01, null, null)).isEqualTo(7.1);
+        // 7.25 / 0.05 không được thành 144.999... rồi bị làm tròn xuống
+        assertThat(CompiledGradingFormula.compile(1, 0, 0, 0.05, CompiledGradingFormula.Rounding.DOWN)
+                .evaluate(7.25, null, null)).isEqualTo(7.25);
+    }
+
+    @Test
+    void invalidWeightsAreRejected() {
+        assertThatThrownBy(() -> CompiledGradingFormula.compile(-1, 1, 0, 0, null))
+                .isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> CompiledGradingFormula.compile(0, 0, 0, 0, null))
+                .isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> CompiledGradingFormula.compile(1, 0, 0, 11, null))
+                .isInstanceOf(RuntimeException.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.backend.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HmacSignerTest {
+
+    @Test
+    void numericCodeIsStableAndPadded() {
+        HmacSigner signer = new HmacSigner("khoa-thu");
+
+        String code = signer.numericCode("42:2025-09-08:1000", 6);
+
+        assertThat(code).hasSize(6).containsOnlyDigits();
+        assertThat(signer.numericCode("42:2025-09-08:1000", 6)).isEqualTo(code);
+    }
+
+    @Test
+    void differentKeysOrMessagesGiveDifferentTokens() {
+        HmacSigner a = new HmacSigner("khoa-a");
+        HmacSigner b = new HmacSigner("khoa-b");
+
+        assertThat(a.token("feed:1")).isNotEqualTo(b.token("feed:1"));
+        assertThat(a.token("feed:1")).isNotEqualTo(a.token("feed:2"));
+        assertThat(a.token("feed:1")).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void matchesComparesWholeValue() {
+        assertThat(HmacSigner.matches("123456", "123456")).isTrue();
+        assertThat(HmacSigner.matches("123456", "12345")).isFalse();
+        assertThat(HmacSigner.matches("123456", null)).isFalse();
+    }
+
+    @Test
+    void blankSecretIsRejected() {
+        assertThatThrownBy(() -> new HmacSigner(" ")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HmacSigner(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.backend.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OccupancyBitmapTest {
+
+    @Test
+    void weekMaskCoversRangeAndClampsToLimits() {
+        assertThat(OccupancyBitmap.weekMask(1, 3)).isEqualTo(0b1110L);
+        assertThat(OccupancyBitmap.weekMask(0, 1)).isEqualTo(0b10L);
+        assertThat(OccupancyBitmap.weekMask(63, 70)).isEqualTo(Long.MIN_VALUE);
+        assertThat(OccupancyBitmap.weekMask(5, 4)).isZero();
+    }
+
+    @Test
+    void addIntersectAndRemoveSingleWeek() {
+        OccupancyBitmap bitmap = new OccupancyBitmap();
+        bitmap.add(2, 1, 3, OccupancyBitmap.weekMask(1, 15));
+
+        assertThat(bitmap.intersects(2, 3, 5, OccupancyBitmap.weekMask(15, 20))).isTrue();
+        assertThat(bitmap.intersects(2, 4, 5, OccupancyBitmap.weekMask(1, 15))).isFalse();
+        assertThat(bitmap.intersects(3, 1, 3, OccupancyBitmap.weekMask(1, 15))).isFalse();
+
+        // Bỏ một tuần (buổi bị hủy): các tuần khác vẫn bận
+        bitmap.remove(2, 1, 3, OccupancyBitmap.weekMask(4, 4));
+        assertThat(bitmap.intersects(2, 1, 3, OccupancyBitmap.weekMask(4, 4))).isFalse();
+        assertThat(bitmap.weeksAt(2, 2)).isEqualTo(OccupancyBitmap.weekMask(1, 15) & ~OccupancyBitmap.weekMask(4, 4));
+        assertThat(bitmap.countOccupied(OccupancyBitmap.weekMask(1, 15))).isEqualTo(3 * 14);
+    }
+
+    @Test
+    void orAndCopyAreIndependent() {
+        OccupancyBitmap a = new OccupancyBitmap();
+        a.add(2, 1, 1, OccupancyBitmap.weekMask(1, 1));
+        OccupancyBitmap b = new OccupancyBitmap();
+        b.add(8, 10, 10, OccupancyBitmap.weekMask(2, 2));
+
+        OccupancyBitmap copy = a.copy();
+        copy.or(b);
+
+        assertThat(copy.countOccupied(-1L)).isEqualTo(2);
+        assertThat(a.countOccupied(-1L)).isEqualTo(1);
+        copy.clear();
+        assertThat(copy.isEmpty()).isTrue();
+        assertThat(a.isEmpty()).isFalse();
+    }
+
+    @Test
+    void rejectsCellOutsideGrid() {
+        OccupancyBitmap bitmap = new OccupancyBitmap();
+
+        assertThatThrownBy(() -> bitmap.add(9, 1, 1, 1L)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bitmap.intersects(2, 0, 1, 1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
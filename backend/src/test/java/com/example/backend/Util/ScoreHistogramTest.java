@@ -0,0 +1,58 @@
+package com.example.backend.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ScoreHistogramTest {
+
+    @Test
+    void statisticsOfAddedScores() {
+        ScoreHistogram h = histogram(4.0, 6.0, 8.0, 10.0);
+
+        assertThat(h.getCount()).isEqualTo(4);
+        assertThat(h.mean()).isEqualTo(7.0);
+        assertThat(h.standardDeviation()).isCloseTo(Math.sqrt(5.0), within(1e-9));
+        assertThat(h.percentile(0.0)).isEqualTo(4.0);
+        assertThat(h.percentile(0.5)).isEqualTo(6.0);
+        assertThat(h.percentile(1.0)).isEqualTo(10.0);
+        assertThat(h.histogram()).containsExactly(0L, 0L, 0L, 0L, 1L, 0L, 1L, 0L, 1L, 1L);
+    }
+
+    @Test
+    void removeUndoesAddAndNullIsIgnored() {
+        ScoreHistogram h = histogram(5.0, 7.5);
+        h.remove(7.5);
+        h.add(null);
+
+        assertThat(h.getCount()).isEqualTo(1);
+        assertThat(h.mean()).isEqualTo(5.0);
+    }
+
+    @Test
+    void mergeAddsBins() {
+        ScoreHistogram a = histogram(2.0);
+        a.merge(histogram(9.0, 9.0));
+
+        assertThat(a.getCount()).isEqualTo(3);
+        assertThat(a.percentile(0.9)).isEqualTo(9.0);
+    }
+
+    @Test
+    void emptyHistogramHasNoStatistics() {
+        ScoreHistogram h = new ScoreHistogram();
+
+        assertThat(h.mean()).isNull();
+        assertThat(h.standardDeviation()).isNull();
+        assertThat(h.percentile(0.5)).isNull();
+    }
+
+    private static ScoreHistogram histogram(Double... scores) {
+        ScoreHistogram h = new ScoreHistogram();
+        for (Double score : scores) {
+            h.add(score);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.backend.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoreRankIndexTest {
+
+    @Test
+    void tiesShareRankAndPercentileCountsHalfOfTies() {
+        ScoreRankIndex index = new ScoreRankIndex();
+        index.put(1L, 9.0);
+        index.put(2L, 7.5);
+        index.put(3L, 7.5);
+        index.put(4L, 5.0);
+
+        assertThat(index.rankOf(1L)).isEqualTo(1);
+        assertThat(index.rankOf(2L)).isEqualTo(2);
+        assertThat(index.rankOf(3L)).isEqualTo(2);
+        assertThat(index.rankOf(4L)).isEqualTo(4);
+        // Một người thấp hơn, hai người đồng điểm: (1 + 2/2) / 4
+        assertThat(index.percentileOf(2L)).isEqualTo(50.0);
+        assertThat(index.percentileOf(4L)).isEqualTo(12.5);
+    }
+
+    @Test
+    void updateMovesStudentAndNullRemoves() {
+        ScoreRankIndex index = new ScoreRankIndex();
+        index.put(1L, 9.0);
+        index.put(2L, 6.0);
+
+        index.put(2L, 9.5);
+        assertThat(index.rankOf(2L)).isEqualTo(1);
+        assertThat(index.rankOf(1L)).isEqualTo(2);
+
+        index.put(1L, null);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.rankOf(1L)).isNull();
+        assertThat(index.scoreOf(2L)).isEqualTo(9.5);
+    }
+
+    @Test
+    void topListsHighestScoresWithRanks() {
+        ScoreRankIndex index = new ScoreRankIndex();
+        index.put(1L, 8.0);
+        index.put(2L, 10.0);
+        index.put(3L, 8.0);
+        index.put(4L, 3.0);
+
+        assertThat(index.top(3)).extracting(ScoreRankIndex.Entry::studentId).containsExactly(2L, 1L, 3L);
+        assertThat(index.top(3)).extracting(ScoreRankIndex.Entry::rank).containsExactly(1, 2, 2);
+        assertThat(index.top(0)).isEmpty();
+    }
+
+    @Test
+    void scoresAreClampedAndRoundedToHundredths() {
+        ScoreRankIndex index = new ScoreRankIndex();
+        index.put(1L, 12.0);
+        index.put(2L, 6.666);
+
+        assertThat(index.scoreOf(1L)).isEqualTo(10.0);
+        assertThat(index.scoreOf(2L)).isEqualTo(6.67);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.backend.Util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpreadsheetRowReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csvDetectsSemicolonAndHandlesQuotedCells() throws IOException {
+        String csv = "\uFEFFma;ten\n1;\"Nguyen; \"\"A\"\"\"\n2;\"dong\nhai\"\n";
+        try (SpreadsheetRowReader reader = SpreadsheetRowReader.csv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            assertThat(reader.next()).containsExactly("ma", "ten");
+            assertThat(reader.next()).containsExactly("1", "Nguyen; \"A\"");
+            assertThat(reader.next()).containsExactly("2", "dong\nhai");
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void xlsxResolvesSharedStringsAndSkippedColumns() throws IOException {
+        Path file = xlsx("<sst><si><t>studentId</t></si><si><t>score</t></si></sst>",
+                "<worksheet><sheetData>"
+                        + "<row><c r=\"A1\" t=\"s\"><v>0</v></c><c r=\"C1\" t=\"s\"><v>1</v></c></row>"
+                        + "<row><c r=\"A2\"><v>15.0</v></c><c r=\"C2\"><v>8.5</v></c></row>"
+                        + "</sheetData></worksheet>");
+        try (SpreadsheetRowReader reader = SpreadsheetRowReader.xlsx(file)) {
+            assertThat(reader.next()).containsExactly("studentId", "", "score");
+            assertThat(reader.next()).containsExactly("15.0", "", "8.5");
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void xlsxRejectsTooManySharedStrings() throws IOException {
+        Path file = xlsx("<sst><si><t>a</t></si><si><t>b</t></si><si><t>c</t></si></sst>",
+                "<worksheet><sheetData/></worksheet>");
+
+        assertThatThrownBy(() -> SpreadsheetRowReader.xlsx(file, 2, 1000))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void xlsxRejectsOversizedSharedStrings() throws IOException {
+        Path file = xlsx("<sst><si><t>abcdef</t></si></sst>", "<worksheet><sheetData/></worksheet>");
+
+        assertThatThrownBy(() -> SpreadsheetRowReader.xlsx(file, 10, 5))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void wholeNumberAcceptsIntegralDecimalsOnly() {
+        assertThat(SpreadsheetRowReader.parseWholeNumber("15")).isEqualTo(15L);
+        assertThat(SpreadsheetRowReader.parseWholeNumber("2.0")).isEqualTo(2L);
+        assertThat(SpreadsheetRowReader.parseWholeNumber(" 3,00 ")).isEqualTo(3L);
+        assertThatThrownBy(() -> SpreadsheetRowReader.parseWholeNumber("1.5"))
+                .isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> SpreadsheetRowReader.parseWholeNumber("abc"))
+                .isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void openPicksReaderByExtensionAndDeletesTempFileOnClose() throws IOException {
+        Path source = xlsx("<sst><si><t>ma</t></si></sst>",
+                "<worksheet><sheetData><row><c r=\"A1\" t=\"s\"><v>0</v></c></row></sheetData></worksheet>");
+        String prefix = "reader-test-" + System.nanoTime() + "-";
+        MockMultipartFile upload = new MockMultipartFile("file", "Diem.XLSX", null, Files.readAllBytes(source));
+
+        try (SpreadsheetRowReader reader = SpreadsheetRowReader.open(upload, prefix)) {
+            assertThat(tempFiles(prefix)).isEqualTo(1);
+            assertThat(reader.next()).containsExactly("ma");
+        }
+        assertThat(tempFiles(prefix)).isZero();
+
+        MockMultipartFile csv = new MockMultipartFile("file", "diem.csv", null,
+                "a,b\n".getBytes(StandardCharsets.UTF_8));
+        try (SpreadsheetRowReader reader = SpreadsheetRowReader.open(csv, prefix)) {
+            assertThat(reader.next()).containsExactly("a", "b");
+        }
+        assertThatThrownBy(() -> SpreadsheetRowReader.open(
+                new MockMultipartFile("file", "diem.xls", null, new byte[] {1}), prefix))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Chỉ hỗ trợ file .csv hoặc .xlsx");
+    }
+
+    @Test
+    void headerIsNormalizedWithoutDiacritics() {
+        assertThat(SpreadsheetRowReader.normalizeHeader("Mã lớp")).isEqualTo("malop");
+        assertThat(SpreadsheetRowReader.normalizeHeader(" Điểm giữa kỳ ")).isEqualTo("diemgiuaky");
+        assertThat(SpreadsheetRowReader.normalizeHeader("student_Id")).isEqualTo("studentid");
+    }
+
+    private static long tempFiles(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(f -> f.getFileName().toString().startsWith(prefix)).count();
+        }
+    }
+
+    private Path xlsx(String sharedStrings, String sheet) throws IOException {
+        Path file = Files.createTempFile(dir, "test-", ".xlsx");
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+            zip.write(sharedStrings.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            zip.write(sheet.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return file;
+    }
+}
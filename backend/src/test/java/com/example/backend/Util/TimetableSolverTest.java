@@ -0,0 +1,94 @@
+package com.example.backend.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimetableSolverTest {
+
+    private static final int[] DAYS = {2, 3};
+
+    @Test
+    void placesSessionsWithoutClassTeacherOrRoomOverlap() {
+        // 2 lớp, 2 giáo viên, 2 phòng; 8 buổi 2-3 tiết trong 2 ngày
+        List<TimetableSolver.Session> sessions = new ArrayList<>();
+        int group = 0;
+        for (int c = 0; c < 2; c++) {
+            for (int t = 0; t < 2; t++) {
+                sessions.add(new TimetableSolver.Session(c, t, group, 3, 30));
+                sessions.add(new TimetableSolver.Session(c, t, group, 2, 30));
+                group++;
+            }
+        }
+        TimetableSolver solver = new TimetableSolver(DAYS, sessions, 2, 2, group, new int[] {40, 60});
+
+        TimetableSolver.Result result = solver.solve(2, 5000, 42L);
+
+        assertThat(result.feasible()).isTrue();
+        assertNoOverlap(sessions, result.placements());
+    }
+
+    @Test
+    void respectsBlockedCellsHalfDaysAndRoomCapacity() {
+        List<TimetableSolver.Session> sessions = List.of(new TimetableSolver.Session(0, 0, 0, 4, 50));
+        TimetableSolver solver = new TimetableSolver(new int[] {2}, sessions, 1, 1, 1, new int[] {60, 20});
+        // Giáo viên bận cả buổi sáng thứ Hai, phòng đủ chỗ duy nhất bận tiết 6
+        for (int p = 1; p <= TimetableSolver.HALF_DAY; p++) {
+            solver.blockTeacher(0, 2, p);
+        }
+        solver.blockRoom(0, 2, 6);
+
+        TimetableSolver.Result result = solver.solve(1, 5000, 7L);
+
+        assertThat(result.feasible()).isTrue();
+        assertThat(result.placements().get(0)).isEqualTo(new TimetableSolver.Placement(2, 7, 0));
+    }
+
+    @Test
+    void reportsConflictsWhenSessionsDoNotFit() {
+        // 4 + 3 tiết của cùng một lớp không vừa một buổi chiều 5 tiết
+        List<TimetableSolver.Session> sessions = List.of(
+                new TimetableSolver.Session(0, 0, 0, 4, 0),
+                new TimetableSolver.Session(0, 0, 1, 3, 0));
+        TimetableSolver solver = new TimetableSolver(new int[] {2}, sessions, 1, 1, 2, new int[] {30});
+        for (int p = 1; p <= TimetableSolver.HALF_DAY; p++) {
+            solver.blockClass(0, 2, p);
+        }
+
+        TimetableSolver.Result result = solver.solve(1, 200, 7L);
+
+        assertThat(result.feasible()).isFalse();
+        assertThat(result.hardConflicts()).isPositive();
+    }
+
+    @Test
+    void rejectsSessionLongerThanHalfDay() {
+        List<TimetableSolver.Session> sessions = List.of(new TimetableSolver.Session(0, 0, 0, 6, 0));
+
+        assertThatThrownBy(() -> new TimetableSolver(DAYS, sessions, 1, 1, 1, new int[] {10}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertNoOverlap(List<TimetableSolver.Session> sessions,
+                                        List<TimetableSolver.Placement> placements) {
+        for (int a = 0; a < sessions.size(); a++) {
+            for (int b = a + 1; b < sessions.size(); b++) {
+                TimetableSolver.Placement pa = placements.get(a);
+                TimetableSolver.Placement pb = placements.get(b);
+                boolean overlap = pa.dayOfWeek() == pb.dayOfWeek()
+                        && pa.startPeriod() < pb.startPeriod() + sessions.get(b).length()
+                        && pb.startPeriod() < pa.startPeriod() + sessions.get(a).length();
+                if (!overlap) {
+                    continue;
+                }
+                assertThat(sessions.get(a).classIndex()).isNotEqualTo(sessions.get(b).classIndex());
+                assertThat(sessions.get(a).teacherIndex()).isNotEqualTo(sessions.get(b).teacherIndex());
+                assertThat(pa.roomIndex()).isNotEqualTo(pb.roomIndex());
+            }
+        }
+    }
+}